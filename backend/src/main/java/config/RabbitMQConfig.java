@@ -1,15 +1,22 @@
 package config;
 
+import org.springframework.amqp.core.Declarable;
+import org.springframework.amqp.core.Declarables;
 import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
 import org.springframework.amqp.core.TopicExchange;
 import org.springframework.amqp.core.Binding;
 import org.springframework.amqp.core.BindingBuilder;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * RabbitMQConfig - Konfiguracija za Message Queue (3.14 zahtev)
  * 
@@ -44,6 +51,27 @@ public class RabbitMQConfig {
      */
     public static final String UPLOAD_ROUTING_KEY = "video.upload";
 
+    /**
+     * Dead-letter exchange i queue - odbijene poruke (consumer-app kreira DLQ i retry nivoe)
+     */
+    public static final String DEAD_LETTER_EXCHANGE = "video.upload.dlx";
+    public static final String DEAD_LETTER_QUEUE = "video.upload.dlq";
+
+    /**
+     * Particije upload event-a: video.upload.queue.p<N>, routing key video.upload.p<N>
+     * (particiju bira UploadPartitioner po postId)
+     */
+    public static final String UPLOAD_PARTITION_QUEUE_PREFIX = "video.upload.queue.p";
+    public static final String UPLOAD_PARTITION_ROUTING_PREFIX = "video.upload.p";
+
+    /**
+     * Engagement event-i (pregledi, lajkovi, komentari) - topic exchange za analitiku.
+     * Routing key: engagement.<tip> (npr. engagement.view, engagement.comment.delete)
+     */
+    public static final String ENGAGEMENT_EXCHANGE = "engagement.exchange";
+    public static final String ENGAGEMENT_ROUTING_PREFIX = "engagement.";
+    public static final String ENGAGEMENT_ANALYTICS_QUEUE = "engagement.analytics.queue";
+
     // ============================================
     // QUEUE - Red za poruke
     // ============================================
@@ -52,12 +80,45 @@ public class RabbitMQConfig {
      * Kreira queue za video upload event-e.
      * 
      * @param durable - true: Queue ostaje nakon restarta RabbitMQ-a
+     * Argumenti moraju biti isti kao u consumer-app (inače PRECONDITION_FAILED).
      * @return Queue instanca
      */
     @Bean
     public Queue uploadQueue() {
         System.out.println("🔧 Kreiranje RabbitMQ Queue: " + UPLOAD_QUEUE);
-        return new Queue(UPLOAD_QUEUE, true); // durable = true
+        return QueueBuilder.durable(UPLOAD_QUEUE)
+                .deadLetterExchange(DEAD_LETTER_EXCHANGE)
+                .deadLetterRoutingKey(DEAD_LETTER_QUEUE)
+                .build();
+    }
+
+    /**
+     * Partition queue-ovi i njihovi binding-zi.
+     *
+     * Svaki queue ima x-single-active-consumer: više consumer-app instanci se
+     * pretplati na sve particije, ali broker isporučuje samo jednom consumer-u
+     * po queue-u (ostali čekaju kao rezerva) - event-i jednog posta ostaju u redosledu.
+     * Argumenti moraju biti isti kao u consumer-app (inače PRECONDITION_FAILED).
+     *
+     * @param partitions - Broj particija (app.upload-events.partitions, 0 = bez particija)
+     * @return Queue-ovi i binding-zi
+     */
+    @Bean
+    public Declarables uploadPartitionTopology(@Value("${app.upload-events.partitions:4}") int partitions) {
+        List<Declarable> declarables = new ArrayList<>();
+        for (int partition = 0; partition < partitions; partition++) {
+            Queue queue = QueueBuilder.durable(UPLOAD_PARTITION_QUEUE_PREFIX + partition)
+                    .singleActiveConsumer()
+                    .deadLetterExchange(DEAD_LETTER_EXCHANGE)
+                    .deadLetterRoutingKey(DEAD_LETTER_QUEUE)
+                    .build();
+            declarables.add(queue);
+            declarables.add(BindingBuilder.bind(queue).to(uploadExchange()).with(UPLOAD_PARTITION_ROUTING_PREFIX + partition));
+        }
+
+        System.out.println("🔧 Upload particije: " + partitions);
+
+        return new Declarables(declarables);
     }
 
     // ============================================
@@ -77,14 +138,42 @@ public class RabbitMQConfig {
     
     
     @Bean
-    public Binding binding(Queue queue, TopicExchange exchange) {
+    public Binding binding() {
         System.out.println("🔧 Kreiranje Binding: " + UPLOAD_ROUTING_KEY);
+        // Eksplicitno - postoje dva Queue/TopicExchange bean-a (upload i engagement)
         return BindingBuilder
-                .bind(queue)
-                .to(exchange)
+                .bind(uploadQueue())
+                .to(uploadExchange())
                 .with(UPLOAD_ROUTING_KEY);
     }
 
+    // ============================================
+    // ENGAGEMENT - Topic exchange za analitiku
+    // ============================================
+
+    @Bean
+    public TopicExchange engagementExchange() {
+        System.out.println("🔧 Kreiranje RabbitMQ Exchange: " + ENGAGEMENT_EXCHANGE);
+        return new TopicExchange(ENGAGEMENT_EXCHANGE);
+    }
+
+    /**
+     * Queue za analitiku prima sve engagement event-e (engagement.#);
+     * drugi consumer-i vežu svoje queue-ove samo na tipove koji ih zanimaju.
+     */
+    @Bean
+    public Queue engagementAnalyticsQueue() {
+        return QueueBuilder.durable(ENGAGEMENT_ANALYTICS_QUEUE).build();
+    }
+
+    @Bean
+    public Binding engagementAnalyticsBinding() {
+        return BindingBuilder
+                .bind(engagementAnalyticsQueue())
+                .to(engagementExchange())
+                .with(ENGAGEMENT_ROUTING_PREFIX + "#");
+    }
+
     // ============================================
     // RABBIT TEMPLATE - Za slanje poruka
     // ============================================
@@ -94,6 +183,7 @@ public class RabbitMQConfig {
     public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory) {
         RabbitTemplate template = new RabbitTemplate(connectionFactory);
         template.setMessageConverter(jackson2JsonMessageConverter());
+        template.setMandatory(true);  // Nerutirana poruka se vraća (CorrelationData.getReturned)
         
         System.out.println("🔧 RabbitTemplate konfigurisan sa JSON converter-om");
         
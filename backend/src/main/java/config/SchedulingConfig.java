@@ -0,0 +1,13 @@
+package config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling  // Omogućava @Scheduled pozadinske poslove (npr. slanje email-ova iz outbox-a)
+public class SchedulingConfig {
+
+    public SchedulingConfig() {
+        System.out.println("🔧 SchedulingConfig se inicijalizuje...");
+    }
+}
@@ -0,0 +1,191 @@
+package config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.SubscribableChannel;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+import org.springframework.web.socket.messaging.SubProtocolWebSocketHandler;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SlowConsumerWebSocketHandler - STOMP handler sa zaštitom od sporih klijenata.
+ *
+ * Svaka sesija šalje preko sopstvenog ograničenog bafera (send-buffer-size-limit):
+ * dok je slanje ka sporom klijentu u toku, ostale poruke čekaju u baferu, a
+ * outbound niti se odmah vraćaju. Kada se bafer napuni:
+ * - DROP: izbacuju se najstarije poruke (sobe ionako šalju poslednje stanje)
+ * - TERMINATE: sesija se zatvara (SESSION_NOT_RELIABLE)
+ * Slanje duže od send-time-limit uvek zatvara sesiju.
+ *
+ * Spring-ov podrazumevani handler uvek koristi TERMINATE; ovde se bira strategija
+ * i izlažu metrike po sesiji.
+ */
+public class SlowConsumerWebSocketHandler extends SubProtocolWebSocketHandler {
+
+    private final ConcurrentWebSocketSessionDecorator.OverflowStrategy overflowStrategy;
+
+    // Žive sesije (za gauge-ove nad baferima)
+    private final Map<String, BackpressureSessionDecorator> liveSessions = new ConcurrentHashMap<>();
+
+    private final DistributionSummary bufferedSummary;
+    private final Counter undeliveredCounter;
+
+    public SlowConsumerWebSocketHandler(MessageChannel clientInboundChannel,
+                                        SubscribableChannel clientOutboundChannel,
+                                        ConcurrentWebSocketSessionDecorator.OverflowStrategy overflowStrategy,
+                                        MeterRegistry meterRegistry) {
+        super(clientInboundChannel, clientOutboundChannel);
+        this.overflowStrategy = overflowStrategy;
+
+        bufferedSummary = DistributionSummary.builder("websocket.outbound.session.buffered")
+                .baseUnit("bytes")
+                .description("Bajtovi u baferu sesije kada poruka čeka na sporog klijenta")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+
+        undeliveredCounter = Counter.builder("websocket.outbound.undelivered")
+                .baseUnit("bytes")
+                .description("Bajtovi odbačeni (DROP) ili neisporučeni do zatvaranja sesije")
+                .register(meterRegistry);
+
+        Gauge.builder("websocket.outbound.buffered", liveSessions, m -> totalBuffered(m.values()))
+                .baseUnit("bytes")
+                .description("Ukupno bajtova u baferima svih sesija")
+                .register(meterRegistry);
+
+        Gauge.builder("websocket.outbound.buffered.max", liveSessions, m -> maxBuffered(m.values()))
+                .baseUnit("bytes")
+                .description("Najveći bafer jedne sesije")
+                .register(meterRegistry);
+
+        // Prinudna zatvaranja koja beleži sam SubProtocolWebSocketHandler
+        FunctionCounter.builder("websocket.sessions.forced.disconnects", this,
+                        h -> h.getStats().getLimitExceededSessions())
+                .tag("reason", "slow-consumer")
+                .description("Sesije zatvorene zbog prekoračenog vremena slanja ili bafera")
+                .register(meterRegistry);
+
+        FunctionCounter.builder("websocket.sessions.forced.disconnects", this,
+                        h -> h.getStats().getNoMessagesReceivedSessions())
+                .tag("reason", "no-first-message")
+                .description("Sesije zatvorene jer nisu poslale CONNECT na vreme")
+                .register(meterRegistry);
+
+        System.out.println("🐢 SlowConsumerWebSocketHandler: overflow=" + overflowStrategy);
+    }
+
+    @Override
+    protected WebSocketSession decorateSession(WebSocketSession session) {
+        BackpressureSessionDecorator decorated = new BackpressureSessionDecorator(
+                session, getSendTimeLimit(), getSendBufferSizeLimit(), overflowStrategy);
+        liveSessions.put(decorated.getId(), decorated);
+        return decorated;
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+        try {
+            super.afterConnectionClosed(session, closeStatus);
+        } finally {
+            BackpressureSessionDecorator decorated = liveSessions.remove(session.getId());
+            if (decorated != null) {
+                decorated.recordUndelivered();
+            }
+        }
+    }
+
+    // ============================================
+    // DEKORATOR SESIJE
+    // ============================================
+
+    /**
+     * ConcurrentWebSocketSessionDecorator koji broji bajtove: predate (enqueued)
+     * i stvarno poslate. Razlika posle zatvaranja = odbačeno (DROP) ili neisporučeno.
+     */
+    class BackpressureSessionDecorator extends ConcurrentWebSocketSessionDecorator {
+
+        private final SentBytesCounter sent;
+        private final AtomicLong enqueuedBytes = new AtomicLong();
+
+        BackpressureSessionDecorator(WebSocketSession session, int sendTimeLimit, int bufferSizeLimit,
+                                     OverflowStrategy overflowStrategy) {
+            this(new SentBytesCounter(session), sendTimeLimit, bufferSizeLimit, overflowStrategy);
+        }
+
+        private BackpressureSessionDecorator(SentBytesCounter sent, int sendTimeLimit, int bufferSizeLimit,
+                                             OverflowStrategy overflowStrategy) {
+            super(sent, sendTimeLimit, bufferSizeLimit, overflowStrategy);
+            this.sent = sent;
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) throws IOException {
+            enqueuedBytes.addAndGet(message.getPayloadLength());
+            try {
+                super.sendMessage(message);
+            } finally {
+                int buffered = getBufferSize();
+                if (buffered > 0) {
+                    bufferedSummary.record(buffered);  // Ovaj klijent trenutno kasni
+                }
+            }
+        }
+
+        // Poziva se jednom, kada je sesija zatvorena i ništa se više ne šalje
+        void recordUndelivered() {
+            long undelivered = enqueuedBytes.get() - sent.bytes.get();
+            if (undelivered > 0) {
+                undeliveredCounter.increment(undelivered);
+            }
+        }
+    }
+
+    // Najunutrašnji sloj - broji bajtove koji su stvarno otišli klijentu
+    static class SentBytesCounter extends WebSocketSessionDecorator {
+
+        final AtomicLong bytes = new AtomicLong();
+
+        SentBytesCounter(WebSocketSession session) {
+            super(session);
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) throws IOException {
+            super.sendMessage(message);
+            bytes.addAndGet(message.getPayloadLength());
+        }
+    }
+
+    // ============================================
+    // POMOĆNE METODE
+    // ============================================
+
+    private static double totalBuffered(Collection<BackpressureSessionDecorator> sessions) {
+        long total = 0;
+        for (BackpressureSessionDecorator session : sessions) {
+            total += session.getBufferSize();
+        }
+        return total;
+    }
+
+    private static double maxBuffered(Collection<BackpressureSessionDecorator> sessions) {
+        long max = 0;
+        for (BackpressureSessionDecorator session : sessions) {
+            max = Math.max(max, session.getBufferSize());
+        }
+        return max;
+    }
+}
@@ -0,0 +1,39 @@
+package config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.support.AbstractSubscribableChannel;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.config.annotation.DelegatingWebSocketMessageBrokerConfiguration;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+
+/**
+ * StompBrokerConfiguration - Zamena za @EnableWebSocketMessageBroker.
+ *
+ * Ista konfiguracija (WebSocketConfig i dalje podešava endpoint, broker,
+ * kanale i transport), samo je STOMP handler zamenjen sa
+ * SlowConsumerWebSocketHandler - jedino tako se bira strategija za pun
+ * bafer sesije (DROP / TERMINATE).
+ */
+@Configuration(proxyBeanMethods = false)
+public class StompBrokerConfiguration extends DelegatingWebSocketMessageBrokerConfiguration {
+
+    // DROP = izbaci najstarije poruke, TERMINATE = zatvori sesiju
+    @Value("${app.websocket.overflow-strategy:DROP}")
+    private ConcurrentWebSocketSessionDecorator.OverflowStrategy overflowStrategy;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Bean
+    @Override
+    public WebSocketHandler subProtocolWebSocketHandler(
+            AbstractSubscribableChannel clientInboundChannel, AbstractSubscribableChannel clientOutboundChannel) {
+
+        return new SlowConsumerWebSocketHandler(
+                clientInboundChannel, clientOutboundChannel, overflowStrategy, meterRegistry);
+    }
+}
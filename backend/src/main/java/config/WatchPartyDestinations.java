@@ -0,0 +1,100 @@
+package config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * WatchPartyDestinations - Imena STOMP destinacija za Watch Party sobe.
+ *
+ * simple broker:  /topic/watch-party/{roomId}   /topic/watch-party/{roomId}/bin   /topic/watch-party/{roomId}/sync
+ * broker relay:   /topic/watch-party.{roomId}   /topic/watch-party.{roomId}.bin   /topic/watch-party.{roomId}.sync
+ *
+ * /bin nosi iste događaje sobe kao JSON kanal, ali u Protobuf obliku.
+ *
+ * RabbitMQ STOMP plugin ostatak /topic/ destinacije koristi kao routing key
+ * na amq.topic exchange-u, gde je separator tačka. Klijenti i dalje koriste
+ * oblik sa "/" - WebSocketConfig prepisuje njihove SUBSCRIBE destinacije.
+ */
+@Component
+public class WatchPartyDestinations {
+
+    public static final String BROKER_SIMPLE = "simple";
+    public static final String BROKER_RELAY = "relay";
+
+    private static final String CLIENT_PREFIX = "/topic/watch-party/";
+    private static final String RELAY_PREFIX = "/topic/watch-party.";
+
+    private final boolean relay;
+
+    public WatchPartyDestinations(@Value("${app.websocket.broker:simple}") String brokerMode) {
+        this.relay = BROKER_RELAY.equalsIgnoreCase(brokerMode);
+    }
+
+    public boolean isRelay() {
+        return relay;
+    }
+
+    // Događaji sobe (VIDEO_STARTED, USER_JOINED, ...)
+    public String room(Long roomId) {
+        return (relay ? RELAY_PREFIX : CLIENT_PREFIX) + roomId;
+    }
+
+    // Događaji sobe u Protobuf obliku (watch_party_event.proto)
+    public String roomBinary(Long roomId) {
+        return relay ? RELAY_PREFIX + roomId + ".bin" : CLIENT_PREFIX + roomId + "/bin";
+    }
+
+    // Sinhronizacija reprodukcije
+    public String sync(Long roomId) {
+        return relay ? RELAY_PREFIX + roomId + ".sync" : CLIENT_PREFIX + roomId + "/sync";
+    }
+
+    /**
+     * Klijentska destinacija → destinacija na broker-u.
+     * U simple modu (i za sve ostale destinacije) vraća istu vrednost.
+     */
+    public String toBrokerDestination(String destination) {
+        if (!relay || destination == null || !destination.startsWith(CLIENT_PREFIX)) {
+            return destination;
+        }
+        return RELAY_PREFIX + destination.substring(CLIENT_PREFIX.length()).replace('/', '.');
+    }
+
+    /**
+     * Da li je destinacija /bin kanal sobe (oba oblika).
+     */
+    public boolean isRoomBinary(String destination) {
+        return destination != null
+                && (destination.endsWith("/bin") || destination.endsWith(".bin"))
+                && roomIdOf(destination) != null;
+    }
+
+    /**
+     * ID sobe iz destinacije događaja sobe (JSON ili /bin, oba oblika),
+     * null za sve ostalo (sync kanal, druge destinacije).
+     */
+    public Long roomIdOf(String destination) {
+        if (destination == null) {
+            return null;
+        }
+        String rest;
+        if (destination.startsWith(CLIENT_PREFIX)) {
+            rest = destination.substring(CLIENT_PREFIX.length());
+        } else if (destination.startsWith(RELAY_PREFIX)) {
+            rest = destination.substring(RELAY_PREFIX.length());
+        } else {
+            return null;
+        }
+        if (rest.endsWith("/bin") || rest.endsWith(".bin")) {
+            rest = rest.substring(0, rest.length() - 4);
+        }
+        if (rest.isEmpty() || !rest.chars().allMatch(Character::isDigit)) {
+            return null;
+        }
+        try {
+            return Long.valueOf(rest);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
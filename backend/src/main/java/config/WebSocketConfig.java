@@ -1,15 +1,95 @@
 package config;
 
+import security.JwtUtil;
+import service.WatchPartyPresenceService;
+import service.WebSocketRateLimitService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
-import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
+import java.util.Collections;
+
+// Message broker uključuje StompBrokerConfiguration (umesto @EnableWebSocketMessageBroker)
 @Configuration
-@EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    // simple = in-memory broker (jedna instanca), relay = RabbitMQ STOMP (više instanci)
+    @Value("${app.websocket.broker:simple}")
+    private String brokerMode;
+
+    @Value("${app.websocket.relay.host:localhost}")
+    private String relayHost;
+
+    @Value("${app.websocket.relay.port:61613}")
+    private int relayPort;
+
+    @Value("${app.websocket.relay.login:guest}")
+    private String relayLogin;
+
+    @Value("${app.websocket.relay.passcode:guest}")
+    private String relayPasscode;
+
+    @Value("${app.websocket.relay.virtual-host:/}")
+    private String relayVirtualHost;
+
+    @Autowired
+    private WatchPartyDestinations destinations;
+
+    // STOMP heartbeat (ms) - klijent šalje 4000, dogovoreni interval je veći od dva
+    @Value("${app.websocket.heartbeat-ms:10000}")
+    private long heartbeatMs;
+
+    // Spori klijenti: najduže slanje jedne poruke i bafer po sesiji
+    @Value("${app.websocket.send-time-limit-ms:10000}")
+    private int sendTimeLimitMs;
+
+    @Value("${app.websocket.send-buffer-size-limit:262144}")
+    private int sendBufferSizeLimit;
+
+    @Value("${app.websocket.message-size-limit:65536}")
+    private int messageSizeLimit;
+
+    @Value("${app.websocket.time-to-first-message-ms:30000}")
+    private int timeToFirstMessageMs;
+
+    // Posebni pool-ovi za dolazni i odlazni kanal
+    @Value("${app.websocket.inbound.pool-size:8}")
+    private int inboundPoolSize;
+
+    @Value("${app.websocket.inbound.queue-capacity:1000}")
+    private int inboundQueueCapacity;
+
+    @Value("${app.websocket.outbound.pool-size:8}")
+    private int outboundPoolSize;
+
+    @Value("${app.websocket.outbound.queue-capacity:10000}")
+    private int outboundQueueCapacity;
+
+    @Autowired
+    private WebSocketRateLimitService rateLimitService;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Lazy  // Zavisi od SimpMessagingTemplate koji nastaje iz ove konfiguracije
+    @Autowired
+    private WatchPartyPresenceService presenceService;
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         System.out.println("🔌 Registrujem WebSocket endpoint: /ws");
@@ -18,8 +98,14 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
             .addEndpoint("/ws")
             .setAllowedOriginPatterns("*")
             .withSockJS();
+
+        // Native WebSocket (bez SockJS) - SockJS prenosi samo tekst, a binarni
+        // mod (/topic/watch-party/{id}/bin) šalje Protobuf kao binarne frejmove
+        registry
+            .addEndpoint("/ws-native")
+            .setAllowedOriginPatterns("*");
         
-        System.out.println("✅ WebSocket endpoint registrovan!");
+        System.out.println("✅ WebSocket endpoint registrovan! (+ /ws-native za binarni mod)");
     }
 
     @Override
@@ -29,12 +115,131 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         registry.setApplicationDestinationPrefixes("/app");
         System.out.println("   ✅ Application prefix: /app");
         
-        registry.enableSimpleBroker("/topic", "/queue");
-        System.out.println("   ✅ Broker prefixes: /topic, /queue");
+        if (WatchPartyDestinations.BROKER_RELAY.equalsIgnoreCase(brokerMode)) {
+            // Svaka instanca backend-a se kači na isti RabbitMQ (STOMP plugin),
+            // pa poruka poslata sa jednog čvora stiže do pretplatnika na svim čvorovima
+            registry.enableStompBrokerRelay("/topic", "/queue")
+                    .setRelayHost(relayHost)
+                    .setRelayPort(relayPort)
+                    .setClientLogin(relayLogin)
+                    .setClientPasscode(relayPasscode)
+                    .setSystemLogin(relayLogin)
+                    .setSystemPasscode(relayPasscode)
+                    .setVirtualHost(relayVirtualHost)
+                    // /user/... destinacije i registar korisnika dele se između čvorova
+                    .setUserDestinationBroadcast("/topic/unresolved-user-destination")
+                    .setUserRegistryBroadcast("/topic/simp-user-registry");
+            System.out.println("   ✅ STOMP broker relay: " + relayHost + ":" + relayPort
+                    + " (vhost " + relayVirtualHost + ")");
+        } else {
+            ThreadPoolTaskScheduler heartbeatScheduler = new ThreadPoolTaskScheduler();
+            heartbeatScheduler.setPoolSize(1);
+            heartbeatScheduler.setThreadNamePrefix("ws-heartbeat-");
+            heartbeatScheduler.initialize();
+
+            // Heartbeat uključen → klijenti ga šalju, pa prisustvo zna ko je "živ"
+            registry.enableSimpleBroker("/topic", "/queue")
+                    .setHeartbeatValue(new long[] {heartbeatMs, heartbeatMs})
+                    .setTaskScheduler(heartbeatScheduler);
+            System.out.println("   ✅ Broker prefixes: /topic, /queue (heartbeat " + heartbeatMs + "ms)");
+        }
         
         System.out.println("✅ Message Broker konfigurisan!");
     }
 
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        // Slanje se baferuje po sesiji; prekoračenje → DROP ili zatvaranje (StompBrokerConfiguration)
+        registration
+            .setSendTimeLimit(sendTimeLimitMs)
+            .setSendBufferSizeLimit(sendBufferSizeLimit)
+            .setMessageSizeLimit(messageSizeLimit)
+            .setTimeToFirstMessage(timeToFirstMessageMs);
+
+        System.out.println("   ✅ Transport: sendTime=" + sendTimeLimitMs + "ms, buffer=" + sendBufferSizeLimit
+                + "B, message=" + messageSizeLimit + "B");
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        // Niti se ne blokiraju na sporom klijentu (poruka ide u bafer sesije), pa je pool mali i fiksan
+        registration.taskExecutor()
+            .corePoolSize(outboundPoolSize)
+            .maxPoolSize(outboundPoolSize)
+            .queueCapacity(outboundQueueCapacity);
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor()
+            .corePoolSize(inboundPoolSize)
+            .maxPoolSize(inboundPoolSize)
+            .queueCapacity(inboundQueueCapacity);
+
+        registration.interceptors(new ChannelInterceptor() {
+            @Override
+            public Message<?> preSend(Message<?> message, MessageChannel channel) {
+                StompHeaderAccessor accessor = StompHeaderAccessor.wrap(message);
+
+                // Svaka poruka (i heartbeat) znači da je sesija živa
+                presenceService.touch(accessor.getSessionId());
+
+                // CONNECT sa JWT-om → Principal sesije (prisustvo u sobama)
+                if (accessor.getCommand() == StompCommand.CONNECT) {
+                    authenticate(message);
+                    return message;
+                }
+
+                // Rate limit po sesiji - poruka bez tokena se tiho odbacuje
+                if (accessor.getCommand() == StompCommand.SEND
+                        && !rateLimitService.tryAcquire(accessor.getSessionId())) {
+                    return null;
+                }
+
+                if (!destinations.isRelay()) {
+                    return message;
+                }
+                if (accessor.getCommand() != StompCommand.SUBSCRIBE && accessor.getCommand() != StompCommand.SEND) {
+                    return message;
+                }
+
+                // Relay mod: /topic/watch-party/{id} → /topic/watch-party.{id} (RabbitMQ routing key)
+                String destination = accessor.getDestination();
+                String brokerDestination = destinations.toBrokerDestination(destination);
+                if (brokerDestination == null || brokerDestination.equals(destination)) {
+                    return message;
+                }
+
+                accessor.setDestination(brokerDestination);
+                return MessageBuilder.createMessage(message.getPayload(), accessor.getMessageHeaders());
+            }
+        });
+    }
+
+    /**
+     * Authorization: Bearer ... iz CONNECT frejma. Neispravan token se ne
+     * odbija (postojeći klijenti rade i bez njega) - sesija samo nema korisnika.
+     */
+    private void authenticate(Message<?> message) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null) {
+            return;
+        }
+        String header = accessor.getFirstNativeHeader("Authorization");
+        if (header == null || !header.startsWith("Bearer ")) {
+            return;
+        }
+        try {
+            String token = header.substring(7);
+            String subject = jwtUtil.extractUsername(token);
+            if (jwtUtil.validateToken(token, subject)) {
+                accessor.setUser(new UsernamePasswordAuthenticationToken(subject, null, Collections.emptyList()));
+            }
+        } catch (Exception e) {
+            System.out.println("⚠️ WebSocket CONNECT sa neispravnim tokenom: " + e.getMessage());
+        }
+    }
+
     public WebSocketConfig() {
         System.out.println("=".repeat(80));
         System.out.println("🔌 WebSocketConfig - Inicijalizacija (3.15 zahtev)");
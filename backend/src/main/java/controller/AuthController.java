@@ -6,12 +6,16 @@ import dto.LoginResponse;
 import dto.UserDTO;
 import service.UserService;
 import service.AuthService;
+import service.PasswordHashingRejectedException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import jakarta.servlet.http.HttpServletRequest;
 
+import java.util.Map;
+
 @RestController
 @RequestMapping("/auth")
 @CrossOrigin(origins = "http://localhost:4200")
@@ -31,6 +35,8 @@ public class AuthController {
             return ResponseEntity
                     .status(HttpStatus.CREATED)
                     .body(user);
+        } catch (PasswordHashingRejectedException e) {
+            return serviceUnavailable(e);
         } catch (RuntimeException e) {
             return ResponseEntity
                     .status(HttpStatus.BAD_REQUEST)
@@ -51,6 +57,9 @@ public class AuthController {
             // Vraćamo uspešan odgovor sa statusom 200 (OK)
             return ResponseEntity.ok(response);
             
+        } catch (PasswordHashingRejectedException e) {
+            // Red za hashiranje je pun - klijent treba da pokuša ponovo (503)
+            return serviceUnavailable(e);
         } catch (RuntimeException e) {
             // Ako ima greška (npr. pogrešna lozinka, previše pokušaja), vraćamo 401 (Unauthorized)
             return ResponseEntity
@@ -73,12 +82,36 @@ public class AuthController {
         }
     }
 
+    // GET /auth/availability?username=marko&email=marko@example.com
+    // Provera dostupnosti dok korisnik kuca (Bloom filter, baza samo kad je potrebno)
+    @GetMapping("/availability")
+    public ResponseEntity<?> checkAvailability(
+            @RequestParam(required = false) String username,
+            @RequestParam(required = false) String email) {
+
+        if ((username == null || username.isBlank()) && (email == null || email.isBlank())) {
+            return ResponseEntity
+                    .status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", "Potreban je username ili email parametar!"));
+        }
+
+        return ResponseEntity.ok(userService.checkAvailability(username, email));
+    }
+
     // GET /auth/test - Test endpoint
     @GetMapping("/test")
     public ResponseEntity<String> test() {
         return ResponseEntity.ok("Backend radi! 🚀");
     }
 
+    // Odgovor 503 kada je BCrypt pool preopterećen
+    private ResponseEntity<String> serviceUnavailable(PasswordHashingRejectedException e) {
+        return ResponseEntity
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "2")
+                .body(e.getMessage());
+    }
+
     // Pomoćna metoda za dobijanje IP adrese korisnika
     private String getClientIP(HttpServletRequest request) {
         // Prvo proveravamo X-Forwarded-For header (za proxy/load balancer)
@@ -0,0 +1,123 @@
+package controller;
+
+import dto.PlaybackSyncMessage;
+import service.WatchPartyClusterService;
+import service.WatchPartyService;
+import service.WatchPartySyncService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * WatchPartyClusterController - Komande prosleđene sa drugih backend čvorova
+ *
+ * Čvor koji nije vlasnik sobe prosleđuje ovde join / leave / start-video /
+ * close / sync; vlasnik ih izvršava nad svojim stanjem. Nije za klijente -
+ * svaki zahtev mora imati deljeni token (X-Cluster-Token).
+ */
+@RestController
+@RequestMapping("/internal/watch-party")
+public class WatchPartyClusterController {
+
+    @Autowired
+    private WatchPartyClusterService cluster;
+
+    @Autowired
+    private WatchPartyService watchPartyService;
+
+    @Autowired
+    private WatchPartySyncService syncService;
+
+    @GetMapping("/{roomId}")
+    public ResponseEntity<?> getRoom(
+            @RequestHeader(value = WatchPartyClusterService.TOKEN_HEADER, required = false) String token,
+            @PathVariable Long roomId) {
+
+        return execute(token, () -> watchPartyService.getRoomById(roomId));
+    }
+
+    @PostMapping("/{roomId}/join")
+    public ResponseEntity<?> join(
+            @RequestHeader(value = WatchPartyClusterService.TOKEN_HEADER, required = false) String token,
+            @PathVariable Long roomId,
+            @RequestBody Map<String, Object> payload) {
+
+        return execute(token, () -> watchPartyService.joinRoom(roomId, (String) payload.get("username")));
+    }
+
+    @PostMapping("/{roomId}/leave")
+    public ResponseEntity<?> leave(
+            @RequestHeader(value = WatchPartyClusterService.TOKEN_HEADER, required = false) String token,
+            @PathVariable Long roomId,
+            @RequestBody Map<String, Object> payload) {
+
+        return execute(token, () -> watchPartyService.leaveRoom(roomId, (String) payload.get("username")));
+    }
+
+    @PostMapping("/{roomId}/start-video")
+    public ResponseEntity<?> startVideo(
+            @RequestHeader(value = WatchPartyClusterService.TOKEN_HEADER, required = false) String token,
+            @PathVariable Long roomId,
+            @RequestBody Map<String, Object> payload) {
+
+        Long postId = Long.valueOf(payload.get("postId").toString());
+        return execute(token, () -> watchPartyService.startVideo(roomId, postId, (String) payload.get("username")));
+    }
+
+    @PostMapping("/{roomId}/close")
+    public ResponseEntity<?> close(
+            @RequestHeader(value = WatchPartyClusterService.TOKEN_HEADER, required = false) String token,
+            @PathVariable Long roomId,
+            @RequestBody Map<String, Object> payload) {
+
+        return execute(token, () -> watchPartyService.closeRoom(roomId, (String) payload.get("username")));
+    }
+
+    // Vreme u poruci je već serversko (ts) - sesija je na čvoru koji prosleđuje
+    @PostMapping("/{roomId}/sync/{kind}")
+    public ResponseEntity<?> sync(
+            @RequestHeader(value = WatchPartyClusterService.TOKEN_HEADER, required = false) String token,
+            @PathVariable Long roomId,
+            @PathVariable String kind,
+            @RequestBody PlaybackSyncMessage message) {
+
+        return execute(token, () -> {
+            switch (kind) {
+                // Korisnika je proverio čvor sesije - poziv je autorizovan cluster token-om
+                case "heartbeat" -> syncService.handleHostHeartbeat(roomId, null, message.getUsername(), message);
+                case "command" -> syncService.handleHostCommand(roomId, null, message.getUsername(), message);
+                case "report" -> {
+                    return syncService.handleViewerReport(roomId, null, message);
+                }
+                default -> throw new RuntimeException("Nepoznata sync poruka: " + kind);
+            }
+            return null;
+        });
+    }
+
+    // ============================================
+    // POMOĆNE METODE
+    // ============================================
+
+    private ResponseEntity<?> execute(String token, Supplier<?> command) {
+        if (!cluster.isValidToken(token)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        try {
+            Object result = cluster.runForwarded(command);
+            return result != null ? ResponseEntity.ok(result) : ResponseEntity.noContent().build();
+
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package controller;
 
-import model.WatchParty;
+import dto.WatchPartyDTO;
+import dto.WatchPartySummaryDTO;
 import service.WatchPartyService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -42,7 +43,7 @@ public class WatchPartyController {
             System.out.println("   Naziv: " + roomName);
             
             // Pozovi Service
-            WatchParty party = watchPartyService.createRoom(username, roomName);
+            WatchPartyDTO party = watchPartyService.createRoom(username, roomName);
             
             System.out.println("✅ Soba kreirana! ID: " + party.getId());
             
@@ -69,7 +70,7 @@ public class WatchPartyController {
         try {
             System.out.println("📥 GET /api/watch-party/active");
             
-            List<WatchParty> rooms = watchPartyService.getActiveRooms();
+            List<WatchPartySummaryDTO> rooms = watchPartyService.getActiveRooms();
             
             System.out.println("✅ Vraćeno " + rooms.size() + " soba");
             
@@ -95,7 +96,7 @@ public class WatchPartyController {
             
             System.out.println("   Korisnik: " + username);
             
-            List<WatchParty> rooms = watchPartyService.getRoomsByCreator(username);
+            List<WatchPartyDTO> rooms = watchPartyService.getRoomsByCreator(username);
             
             System.out.println("✅ Vraćeno " + rooms.size() + " soba");
             
@@ -121,7 +122,7 @@ public class WatchPartyController {
             
             System.out.println("   Korisnik: " + username);
             
-            List<WatchParty> rooms = watchPartyService.getRoomsWhereUserIsMember(username);
+            List<WatchPartyDTO> rooms = watchPartyService.getRoomsWhereUserIsMember(username);
             
             System.out.println("✅ Vraćeno " + rooms.size() + " soba");
             
@@ -143,7 +144,7 @@ public class WatchPartyController {
         try {
             System.out.println("📥 GET /api/watch-party/" + roomId);
             
-            WatchParty party = watchPartyService.getRoomById(roomId);
+            WatchPartyDTO party = watchPartyService.getRoomById(roomId);
             
             System.out.println("✅ Soba učitana: " + party.getName());
             
@@ -176,7 +177,7 @@ public class WatchPartyController {
             
             System.out.println("   Korisnik: " + username);
             
-            WatchParty party = watchPartyService.joinRoom(roomId, username);
+            WatchPartyDTO party = watchPartyService.joinRoom(roomId, username);
             
             System.out.println("✅ Korisnik pridružen sobi!");
             
@@ -205,7 +206,7 @@ public class WatchPartyController {
             
             System.out.println("   Korisnik: " + username);
             
-            WatchParty party = watchPartyService.leaveRoom(roomId, username);
+            WatchPartyDTO party = watchPartyService.leaveRoom(roomId, username);
             
             System.out.println("✅ Korisnik napustio sobu!");
             
@@ -238,7 +239,7 @@ public class WatchPartyController {
             
             System.out.println("   Korisnik: " + username);
             
-            WatchParty party = watchPartyService.closeRoom(roomId, username);
+            WatchPartyDTO party = watchPartyService.closeRoom(roomId, username);
             
             System.out.println("✅ Soba zatvorena!");
             
@@ -0,0 +1,81 @@
+package controller;
+
+import dto.PlaybackSyncMessage;
+import service.WatchPartySyncService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.annotation.SendToUser;
+import org.springframework.stereotype.Controller;
+
+import java.security.Principal;
+
+/**
+ * WatchPartySyncController - Sinhronizacija reprodukcije preko WebSocket-a
+ *
+ * Klijent → server:
+ *   /app/watch-party/sync/ping                 { "c": 1700000000000, "t0".."t3": prethodno merenje }
+ *   /app/watch-party/{roomId}/sync/heartbeat   { "p": 61250, "pl": true, "c": ... }                   (host)
+ *   /app/watch-party/{roomId}/sync/command     { "a": "seek", "p": 90000, "c": ... }                  (host)
+ *   /app/watch-party/{roomId}/sync/report      { "p": 60980, "pl": true, "c": ... }                   (gledalac)
+ *
+ * Server → klijent:
+ *   /topic/watch-party/{roomId}/sync           { "t": "S", "p": ..., "pl": ..., "ts": ... }
+ *   /user/queue/watch-party-sync               PONG i korekcije (samo toj sesiji)
+ *
+ * Host se proverava po korisniku sesije (JWT iz CONNECT-a), ne po "u" iz poruke -
+ * sesija bez prijave ne može upravljati reprodukcijom.
+ *
+ * Bez logovanja po poruci - ove poruke idu nekoliko puta u sekundi po klijentu.
+ */
+@Controller
+public class WatchPartySyncController {
+
+    @Autowired
+    private WatchPartySyncService syncService;
+
+    @MessageMapping("/watch-party/sync/ping")
+    @SendToUser(destinations = "/queue/watch-party-sync", broadcast = false)
+    public PlaybackSyncMessage ping(
+            PlaybackSyncMessage ping,
+            @Header(SimpMessageHeaderAccessor.SESSION_ID_HEADER) String sessionId) {
+
+        return syncService.handlePing(sessionId, ping);
+    }
+
+    @MessageMapping("/watch-party/{roomId}/sync/heartbeat")
+    public void hostHeartbeat(
+            @DestinationVariable Long roomId,
+            PlaybackSyncMessage heartbeat,
+            @Header(SimpMessageHeaderAccessor.SESSION_ID_HEADER) String sessionId,
+            Principal principal) {
+
+        syncService.handleHostHeartbeat(roomId, sessionId, nameOf(principal), heartbeat);
+    }
+
+    @MessageMapping("/watch-party/{roomId}/sync/command")
+    public void hostCommand(
+            @DestinationVariable Long roomId,
+            PlaybackSyncMessage command,
+            @Header(SimpMessageHeaderAccessor.SESSION_ID_HEADER) String sessionId,
+            Principal principal) {
+
+        syncService.handleHostCommand(roomId, sessionId, nameOf(principal), command);
+    }
+
+    @MessageMapping("/watch-party/{roomId}/sync/report")
+    public void viewerReport(
+            @DestinationVariable Long roomId,
+            PlaybackSyncMessage report,
+            @Header(SimpMessageHeaderAccessor.SESSION_ID_HEADER) String sessionId) {
+
+        syncService.handleViewerReport(roomId, sessionId, report);
+    }
+
+    // Email iz JWT-a (isCreator prihvata i username i email)
+    private static String nameOf(Principal principal) {
+        return principal != null ? principal.getName() : null;
+    }
+}
@@ -1,15 +1,16 @@
 package controller;
 
 import model.Post;
-import model.WatchParty;
+import config.WatchPartyDestinations;
+import dto.WatchPartyDTO;
+import dto.WatchPartyEvent;
+import service.WatchPartyBroadcaster;
 import service.WatchPartyService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.messaging.handler.annotation.DestinationVariable;
 import org.springframework.messaging.handler.annotation.MessageMapping;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Controller;
 
-import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -24,7 +25,10 @@ public class WatchPartyWebSocketController {
     private WatchPartyService watchPartyService;
 
     @Autowired
-    private SimpMessagingTemplate messagingTemplate;
+    private WatchPartyBroadcaster broadcaster;  // Spajanje događaja po sobi (coalescing)
+
+    @Autowired
+    private WatchPartyDestinations destinations;  // simple: /topic/watch-party/{id}, relay: /topic/watch-party.{id}
 
     // ============================================
     // POKRETANJE VIDEA (GLAVNI FEATURE!)
@@ -67,21 +71,14 @@ public class WatchPartyWebSocketController {
             System.out.println("   Post ID: " + postId);
 
             // Pozovi Service - postavi trenutni video
-            WatchParty party = watchPartyService.startVideo(roomId, postId, username);
+            WatchPartyDTO party = watchPartyService.startVideo(roomId, postId, username);
 
-            // Pripremi broadcast event
-            Map<String, Object> event = new HashMap<>();
-            event.put("type", "VIDEO_STARTED");
-            event.put("roomId", party.getId());
-            event.put("postId", party.getCurrentPost().getId());
-            event.put("postTitle", party.getCurrentPost().getTitle());
-            event.put("videoUrl", party.getCurrentPost().getVideoUrl());
-            event.put("startedBy", username);
-            event.put("timestamp", java.time.LocalDateTime.now().toString());
+            // Pripremi broadcast event (JSON + Protobuf, serijalizuje broadcaster)
+            WatchPartyEvent event = WatchPartyEvent.videoStarted(party.getId(), party.getCurrentPost(), username);
 
             // BROADCAST svim članovima sobe!
-            String destination = "/topic/watch-party/" + roomId;
-            messagingTemplate.convertAndSend(destination, event);
+            String destination = destinations.room(roomId);
+            broadcaster.publish(destination, "video", event);  // Ponovljeni start-video → samo poslednji
 
             System.out.println("✅ VIDEO_STARTED event broadcast-ovan!");
             System.out.println("   Destinacija: " + destination);
@@ -94,12 +91,9 @@ public class WatchPartyWebSocketController {
             e.printStackTrace();
 
             // Pošalji error poruku
-            Map<String, Object> errorEvent = new HashMap<>();
-            errorEvent.put("type", "ERROR");
-            errorEvent.put("roomId", roomId);
-            errorEvent.put("message", e.getMessage());
+            WatchPartyEvent errorEvent = WatchPartyEvent.error(roomId, e.getMessage());
 
-            messagingTemplate.convertAndSend("/topic/watch-party/" + roomId, errorEvent);
+            broadcaster.publish(destinations.room(roomId), "error", errorEvent);
         }
     }
 
@@ -126,18 +120,13 @@ public class WatchPartyWebSocketController {
             System.out.println("   Korisnik: " + username);
 
             // Učitaj sobu (da dobijemo broj članova)
-            WatchParty party = watchPartyService.getRoomById(roomId);
+            WatchPartyDTO party = watchPartyService.getRoomById(roomId);
 
             // Pripremi broadcast event
-            Map<String, Object> event = new HashMap<>();
-            event.put("type", "USER_JOINED");
-            event.put("roomId", roomId);
-            event.put("username", username);
-            event.put("memberCount", party.getMemberCount());
-            event.put("timestamp", java.time.LocalDateTime.now().toString());
+            WatchPartyEvent event = WatchPartyEvent.userJoined(roomId, username, party.getMemberCount());
 
             // BROADCAST
-            messagingTemplate.convertAndSend("/topic/watch-party/" + roomId, event);
+            broadcaster.publish(destinations.room(roomId), "member:" + username, event);
 
             System.out.println("✅ USER_JOINED event broadcast-ovan!");
             System.out.println("   Ukupno članova: " + party.getMemberCount());
@@ -170,14 +159,10 @@ public class WatchPartyWebSocketController {
             System.out.println("   Korisnik: " + username);
 
             // Pripremi broadcast event
-            Map<String, Object> event = new HashMap<>();
-            event.put("type", "USER_LEFT");
-            event.put("roomId", roomId);
-            event.put("username", username);
-            event.put("timestamp", java.time.LocalDateTime.now().toString());
+            WatchPartyEvent event = WatchPartyEvent.userLeft(roomId, username);
 
             // BROADCAST
-            messagingTemplate.convertAndSend("/topic/watch-party/" + roomId, event);
+            broadcaster.publish(destinations.room(roomId), "member:" + username, event);  // join+leave u istom prozoru → samo leave
 
             System.out.println("✅ USER_LEFT event broadcast-ovan!");
 
@@ -209,14 +194,10 @@ public class WatchPartyWebSocketController {
             System.out.println("   Kreator: " + username);
 
             // Pripremi broadcast event
-            Map<String, Object> event = new HashMap<>();
-            event.put("type", "ROOM_CLOSED");
-            event.put("roomId", roomId);
-            event.put("closedBy", username);
-            event.put("timestamp", java.time.LocalDateTime.now().toString());
+            WatchPartyEvent event = WatchPartyEvent.roomClosed(roomId, username);
 
             // BROADCAST
-            messagingTemplate.convertAndSend("/topic/watch-party/" + roomId, event);
+            broadcaster.publishNow(destinations.room(roomId), event);  // Zatvaranje ide odmah, posle svega što čeka
 
             System.out.println("✅ ROOM_CLOSED event broadcast-ovan!");
 
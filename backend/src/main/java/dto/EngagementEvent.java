@@ -0,0 +1,93 @@
+package dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * EngagementEvent - Kompaktan događaj za analitiku (pregled, lajk, komentar, brisanje).
+ *
+ * Šalje ga EngagementEventPublisher u grupama (JSON niz) na engagement.exchange.
+ * VIEW nosi {@code count} - pregledi istog posta u jednom flush-u se sabiraju
+ * u jedan event. Null polja se ne šalju.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class EngagementEvent {
+
+    public static final String TYPE_VIEW = "VIEW";
+    public static final String TYPE_LIKE = "LIKE";
+    public static final String TYPE_UNLIKE = "UNLIKE";
+    public static final String TYPE_COMMENT = "COMMENT";
+    public static final String TYPE_COMMENT_DELETE = "COMMENT_DELETE";
+    public static final String TYPE_POST_DELETE = "POST_DELETE";
+
+    private String type;
+    private Long postId;
+
+    // LIKE / UNLIKE / COMMENT / COMMENT_DELETE / POST_DELETE
+    private String username;
+
+    // COMMENT / COMMENT_DELETE
+    private Long commentId;
+
+    // VIEW - broj pregleda sabranih u ovaj event
+    private Long count;
+
+    private long timestampMs = System.currentTimeMillis();
+
+    public EngagementEvent() {}
+
+    public EngagementEvent(String type, Long postId) {
+        this.type = type;
+        this.postId = postId;
+    }
+
+    // ============================================
+    // FACTORY METODE
+    // ============================================
+
+    public static EngagementEvent views(Long postId, long count) {
+        EngagementEvent event = new EngagementEvent(TYPE_VIEW, postId);
+        event.setCount(count);
+        return event;
+    }
+
+    public static EngagementEvent byUser(String type, Long postId, String username) {
+        EngagementEvent event = new EngagementEvent(type, postId);
+        event.setUsername(username);
+        return event;
+    }
+
+    public static EngagementEvent comment(String type, Long postId, Long commentId, String username) {
+        EngagementEvent event = byUser(type, postId, username);
+        event.setCommentId(commentId);
+        return event;
+    }
+
+    // ============================================
+    // GETTERI I SETTERI
+    // ============================================
+
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+
+    public Long getPostId() { return postId; }
+    public void setPostId(Long postId) { this.postId = postId; }
+
+    public String getUsername() { return username; }
+    public void setUsername(String username) { this.username = username; }
+
+    public Long getCommentId() { return commentId; }
+    public void setCommentId(Long commentId) { this.commentId = commentId; }
+
+    public Long getCount() { return count; }
+    public void setCount(Long count) { this.count = count; }
+
+    public long getTimestampMs() { return timestampMs; }
+    public void setTimestampMs(long timestampMs) { this.timestampMs = timestampMs; }
+
+    @Override
+    public String toString() {
+        return "EngagementEvent{type='" + type + "', postId=" + postId
+                + (username != null ? ", username='" + username + "'" : "")
+                + (count != null ? ", count=" + count : "") + "}";
+    }
+}
@@ -0,0 +1,150 @@
+package dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * PlaybackSyncMessage - Kompaktna poruka za sinhronizaciju reprodukcije.
+ *
+ * Ide često (ping, heartbeat, korekcije), pa su ključevi kratki, a null
+ * polja se ne serijalizuju. Tipični STATE je ~40 bajtova JSON-a.
+ *
+ * Tipovi (t):
+ * - PONG  server → klijent: odgovor na ping (t0, t1, t2, o, rtt)
+ * - S     server → soba:    autoritativno stanje (p, pl, ts, a)
+ * - C     server → klijent: korekcija drift-a (a = seek|rate, p, r, ts)
+ *
+ * Vremena su u epoch milisekundama; "ts" i "t1"/"t2" su serversko vreme.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PlaybackSyncMessage {
+
+    public static final String TYPE_PONG = "PONG";
+    public static final String TYPE_STATE = "S";
+    public static final String TYPE_CORRECTION = "C";
+
+    @JsonProperty("t")
+    private String type;
+
+    // Korisnik koji šalje (klijent → server, kao u ostalim Watch Party porukama)
+    @JsonProperty("u")
+    private String username;
+
+    // Akcija: play | pause | seek (komande / STATE) ili seek | rate (korekcija)
+    @JsonProperty("a")
+    private String action;
+
+    // Pozicija u videu (ms)
+    @JsonProperty("p")
+    private Long positionMs;
+
+    @JsonProperty("pl")
+    private Boolean playing;
+
+    // Klijentsko vreme slanja (ping, heartbeat, report)
+    @JsonProperty("c")
+    private Long clientTime;
+
+    // Serversko vreme na koje se odnosi pozicija
+    @JsonProperty("ts")
+    private Long serverTime;
+
+    // Brzina reprodukcije za blagu korekciju (npr. 0.97 / 1.03)
+    @JsonProperty("r")
+    private Double rate;
+
+    // NTP četvorka: t0 = klijent poslao, t1 = server primio, t2 = server poslao, t3 = klijent primio.
+    // Klijent u sledećem ping-u vraća t0..t3 prethodnog merenja.
+    @JsonProperty("t0")
+    private Long t0;
+
+    @JsonProperty("t1")
+    private Long t1;
+
+    @JsonProperty("t2")
+    private Long t2;
+
+    @JsonProperty("t3")
+    private Long t3;
+
+    // Serverova procena (server - klijent) i round-trip vremena
+    @JsonProperty("o")
+    private Long offsetMs;
+
+    @JsonProperty("rtt")
+    private Long rttMs;
+
+    public PlaybackSyncMessage() {}
+
+    public PlaybackSyncMessage(String type) {
+        this.type = type;
+    }
+
+    // ============================================
+    // FABRIKE
+    // ============================================
+
+    public static PlaybackSyncMessage state(String action, long positionMs, boolean playing, long serverTime) {
+        PlaybackSyncMessage message = new PlaybackSyncMessage(TYPE_STATE);
+        message.action = action;
+        message.positionMs = positionMs;
+        message.playing = playing;
+        message.serverTime = serverTime;
+        return message;
+    }
+
+    public static PlaybackSyncMessage correction(String action, long positionMs, Double rate, long serverTime) {
+        PlaybackSyncMessage message = new PlaybackSyncMessage(TYPE_CORRECTION);
+        message.action = action;
+        message.positionMs = positionMs;
+        message.rate = rate;
+        message.serverTime = serverTime;
+        return message;
+    }
+
+    // ============================================
+    // GETTERI I SETTERI
+    // ============================================
+
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+
+    public String getUsername() { return username; }
+    public void setUsername(String username) { this.username = username; }
+
+    public String getAction() { return action; }
+    public void setAction(String action) { this.action = action; }
+
+    public Long getPositionMs() { return positionMs; }
+    public void setPositionMs(Long positionMs) { this.positionMs = positionMs; }
+
+    public Boolean getPlaying() { return playing; }
+    public void setPlaying(Boolean playing) { this.playing = playing; }
+
+    public Long getClientTime() { return clientTime; }
+    public void setClientTime(Long clientTime) { this.clientTime = clientTime; }
+
+    public Long getServerTime() { return serverTime; }
+    public void setServerTime(Long serverTime) { this.serverTime = serverTime; }
+
+    public Double getRate() { return rate; }
+    public void setRate(Double rate) { this.rate = rate; }
+
+    public Long getT0() { return t0; }
+    public void setT0(Long t0) { this.t0 = t0; }
+
+    public Long getT1() { return t1; }
+    public void setT1(Long t1) { this.t1 = t1; }
+
+    public Long getT2() { return t2; }
+    public void setT2(Long t2) { this.t2 = t2; }
+
+    public Long getT3() { return t3; }
+    public void setT3(Long t3) { this.t3 = t3; }
+
+    public Long getOffsetMs() { return offsetMs; }
+    public void setOffsetMs(Long offsetMs) { this.offsetMs = offsetMs; }
+
+    public Long getRttMs() { return rttMs; }
+    public void setRttMs(Long rttMs) { this.rttMs = rttMs; }
+}
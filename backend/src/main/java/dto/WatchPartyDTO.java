@@ -0,0 +1,140 @@
+package dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * WatchPartyDTO - Stanje Watch Party sobe za REST/WebSocket odgovore.
+ *
+ * JSON oblik je isti kao ranije serijalizovan WatchParty entitet
+ * (id, name, creator, currentPost, active, createdAt, members, memberCount),
+ * plus stanje reprodukcije (playback).
+ */
+public class WatchPartyDTO {
+
+    private Long id;
+    private String name;
+    private CreatorDTO creator;
+    private PostInfoDTO currentPost;
+    private Boolean active;
+    private LocalDateTime createdAt;
+    private List<String> members;
+    private int memberCount;
+    private PlaybackDTO playback;
+
+    public WatchPartyDTO() {}
+
+    // ============================================
+    // UGNEŽĐENE KLASE
+    // ============================================
+
+    public static class CreatorDTO {
+        private Long id;
+        private String username;
+        private String email;
+
+        public CreatorDTO() {}
+
+        public CreatorDTO(Long id, String username, String email) {
+            this.id = id;
+            this.username = username;
+            this.email = email;
+        }
+
+        public Long getId() { return id; }
+        public void setId(Long id) { this.id = id; }
+
+        public String getUsername() { return username; }
+        public void setUsername(String username) { this.username = username; }
+
+        public String getEmail() { return email; }
+        public void setEmail(String email) { this.email = email; }
+    }
+
+    public static class PostInfoDTO {
+        private Long id;
+        private String title;
+        private String description;
+        private String videoUrl;
+        private String thumbnailUrl;
+
+        public PostInfoDTO() {}
+
+        public PostInfoDTO(Long id, String title, String description, String videoUrl, String thumbnailUrl) {
+            this.id = id;
+            this.title = title;
+            this.description = description;
+            this.videoUrl = videoUrl;
+            this.thumbnailUrl = thumbnailUrl;
+        }
+
+        public Long getId() { return id; }
+        public void setId(Long id) { this.id = id; }
+
+        public String getTitle() { return title; }
+        public void setTitle(String title) { this.title = title; }
+
+        public String getDescription() { return description; }
+        public void setDescription(String description) { this.description = description; }
+
+        public String getVideoUrl() { return videoUrl; }
+        public void setVideoUrl(String videoUrl) { this.videoUrl = videoUrl; }
+
+        public String getThumbnailUrl() { return thumbnailUrl; }
+        public void setThumbnailUrl(String thumbnailUrl) { this.thumbnailUrl = thumbnailUrl; }
+    }
+
+    public static class PlaybackDTO {
+        private boolean playing;
+        private long positionMs;
+        private long updatedAt;  // epoch ms serverskog vremena
+
+        public PlaybackDTO() {}
+
+        public PlaybackDTO(boolean playing, long positionMs, long updatedAt) {
+            this.playing = playing;
+            this.positionMs = positionMs;
+            this.updatedAt = updatedAt;
+        }
+
+        public boolean isPlaying() { return playing; }
+        public void setPlaying(boolean playing) { this.playing = playing; }
+
+        public long getPositionMs() { return positionMs; }
+        public void setPositionMs(long positionMs) { this.positionMs = positionMs; }
+
+        public long getUpdatedAt() { return updatedAt; }
+        public void setUpdatedAt(long updatedAt) { this.updatedAt = updatedAt; }
+    }
+
+    // ============================================
+    // GETTERI I SETTERI
+    // ============================================
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public CreatorDTO getCreator() { return creator; }
+    public void setCreator(CreatorDTO creator) { this.creator = creator; }
+
+    public PostInfoDTO getCurrentPost() { return currentPost; }
+    public void setCurrentPost(PostInfoDTO currentPost) { this.currentPost = currentPost; }
+
+    public Boolean getActive() { return active; }
+    public void setActive(Boolean active) { this.active = active; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public List<String> getMembers() { return members; }
+    public void setMembers(List<String> members) { this.members = members; }
+
+    public int getMemberCount() { return memberCount; }
+    public void setMemberCount(int memberCount) { this.memberCount = memberCount; }
+
+    public PlaybackDTO getPlayback() { return playback; }
+    public void setPlayback(PlaybackDTO playback) { this.playback = playback; }
+}
@@ -0,0 +1,161 @@
+package dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * WatchPartyEvent - Događaj Watch Party sobe (VIDEO_STARTED, USER_JOINED, ...).
+ *
+ * Ranije HashMap<String, Object>; sada tipizovan da bi se isti događaj
+ * jednom serijalizovao u JSON i jednom u Protobuf (watch_party_event.proto).
+ * JSON oblik je isti kao ranije - null polja se ne šalju.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class WatchPartyEvent {
+
+    public static final String TYPE_VIDEO_STARTED = "VIDEO_STARTED";
+    public static final String TYPE_USER_JOINED = "USER_JOINED";
+    public static final String TYPE_USER_LEFT = "USER_LEFT";
+    public static final String TYPE_ROOM_CLOSED = "ROOM_CLOSED";
+    public static final String TYPE_ERROR = "ERROR";
+    public static final String TYPE_PRESENCE = "PRESENCE";
+
+    private String type;
+    private Long roomId;
+
+    // VIDEO_STARTED
+    private Long postId;
+    private String postTitle;
+    private String videoUrl;
+    private String startedBy;
+
+    // USER_JOINED / USER_LEFT
+    private String username;
+
+    // ROOM_CLOSED
+    private String closedBy;
+
+    private Integer memberCount;
+
+    // PRESENCE
+    private List<String> joined;
+    private List<String> left;
+    private Long version;
+
+    // ERROR
+    private String message;
+
+    private long timestampMs = System.currentTimeMillis();
+
+    public WatchPartyEvent() {}
+
+    public WatchPartyEvent(String type, Long roomId) {
+        this.type = type;
+        this.roomId = roomId;
+    }
+
+    // ============================================
+    // FACTORY METODE
+    // ============================================
+
+    public static WatchPartyEvent videoStarted(Long roomId, WatchPartyDTO.PostInfoDTO post, String startedBy) {
+        WatchPartyEvent event = new WatchPartyEvent(TYPE_VIDEO_STARTED, roomId);
+        event.setPostId(post.getId());
+        event.setPostTitle(post.getTitle());
+        event.setVideoUrl(post.getVideoUrl());
+        event.setStartedBy(startedBy);
+        return event;
+    }
+
+    public static WatchPartyEvent userJoined(Long roomId, String username, int memberCount) {
+        WatchPartyEvent event = new WatchPartyEvent(TYPE_USER_JOINED, roomId);
+        event.setUsername(username);
+        event.setMemberCount(memberCount);
+        return event;
+    }
+
+    public static WatchPartyEvent userLeft(Long roomId, String username) {
+        WatchPartyEvent event = new WatchPartyEvent(TYPE_USER_LEFT, roomId);
+        event.setUsername(username);
+        return event;
+    }
+
+    public static WatchPartyEvent roomClosed(Long roomId, String closedBy) {
+        WatchPartyEvent event = new WatchPartyEvent(TYPE_ROOM_CLOSED, roomId);
+        event.setClosedBy(closedBy);
+        return event;
+    }
+
+    public static WatchPartyEvent error(Long roomId, String message) {
+        WatchPartyEvent event = new WatchPartyEvent(TYPE_ERROR, roomId);
+        event.setMessage(message);
+        return event;
+    }
+
+    public static WatchPartyEvent presence(Long roomId, List<String> joined, List<String> left,
+                                           long version, int memberCount) {
+        WatchPartyEvent event = new WatchPartyEvent(TYPE_PRESENCE, roomId);
+        event.setJoined(joined);
+        event.setLeft(left);
+        event.setVersion(version);
+        event.setMemberCount(memberCount);
+        return event;
+    }
+
+    // ============================================
+    // GETTERI I SETTERI
+    // ============================================
+
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+
+    public Long getRoomId() { return roomId; }
+    public void setRoomId(Long roomId) { this.roomId = roomId; }
+
+    public Long getPostId() { return postId; }
+    public void setPostId(Long postId) { this.postId = postId; }
+
+    public String getPostTitle() { return postTitle; }
+    public void setPostTitle(String postTitle) { this.postTitle = postTitle; }
+
+    public String getVideoUrl() { return videoUrl; }
+    public void setVideoUrl(String videoUrl) { this.videoUrl = videoUrl; }
+
+    public String getStartedBy() { return startedBy; }
+    public void setStartedBy(String startedBy) { this.startedBy = startedBy; }
+
+    public String getUsername() { return username; }
+    public void setUsername(String username) { this.username = username; }
+
+    public String getClosedBy() { return closedBy; }
+    public void setClosedBy(String closedBy) { this.closedBy = closedBy; }
+
+    public Integer getMemberCount() { return memberCount; }
+    public void setMemberCount(Integer memberCount) { this.memberCount = memberCount; }
+
+    public List<String> getJoined() { return joined; }
+    public void setJoined(List<String> joined) { this.joined = joined; }
+
+    public List<String> getLeft() { return left; }
+    public void setLeft(List<String> left) { this.left = left; }
+
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
+    public String getMessage() { return message; }
+    public void setMessage(String message) { this.message = message; }
+
+    @JsonIgnore
+    public long getTimestampMs() { return timestampMs; }
+    public void setTimestampMs(long timestampMs) { this.timestampMs = timestampMs; }
+
+    // JSON: ISO lokalno vreme, kao ranije LocalDateTime.now().toString()
+    public String getTimestamp() {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(timestampMs), ZoneId.systemDefault()).toString();
+    }
+}
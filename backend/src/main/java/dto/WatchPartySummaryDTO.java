@@ -0,0 +1,56 @@
+package dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * WatchPartySummaryDTO - Kratak opis aktivne sobe za listu (/active).
+ *
+ * Bez liste članova i stanja reprodukcije - kartica sobe prikazuje samo
+ * naziv, kreatora, broj članova i trenutni video. Pun WatchPartyDTO se
+ * dobija preko /{roomId}.
+ */
+public class WatchPartySummaryDTO {
+
+    private Long id;
+    private String name;
+    private WatchPartyDTO.CreatorDTO creator;
+    private WatchPartyDTO.PostInfoDTO currentPost;
+    private Boolean active;
+    private LocalDateTime createdAt;
+    private int memberCount;
+
+    public WatchPartySummaryDTO() {}
+
+    public WatchPartySummaryDTO(Long id, String name, WatchPartyDTO.CreatorDTO creator,
+                                WatchPartyDTO.PostInfoDTO currentPost, LocalDateTime createdAt, int memberCount) {
+        this.id = id;
+        this.name = name;
+        this.creator = creator;
+        this.currentPost = currentPost;
+        this.active = true;
+        this.createdAt = createdAt;
+        this.memberCount = memberCount;
+    }
+
+    // Getteri i Setteri
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public WatchPartyDTO.CreatorDTO getCreator() { return creator; }
+    public void setCreator(WatchPartyDTO.CreatorDTO creator) { this.creator = creator; }
+
+    public WatchPartyDTO.PostInfoDTO getCurrentPost() { return currentPost; }
+    public void setCurrentPost(WatchPartyDTO.PostInfoDTO currentPost) { this.currentPost = currentPost; }
+
+    public Boolean getActive() { return active; }
+    public void setActive(Boolean active) { this.active = active; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public int getMemberCount() { return memberCount; }
+    public void setMemberCount(int memberCount) { this.memberCount = memberCount; }
+}
@@ -0,0 +1,67 @@
+package model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * BackendInstance - Živa instanca backend-a (Watch Party klaster)
+ *
+ * Svaka instanca periodično osvežava svoj red (heartbeat). Instance čiji je
+ * heartbeat mlađi od TTL-a čine prsten za raspodelu soba po čvorovima.
+ */
+@Entity
+@Table(
+    name = "backend_instances",
+    indexes = {
+        @Index(name = "idx_backend_instances_heartbeat", columnList = "lastHeartbeat")
+    }
+)
+public class BackendInstance {
+
+    // ============================================
+    // POLJA
+    // ============================================
+
+    @Id
+    @Column(length = 64)
+    private String nodeId;
+
+    // Adresa za prosleđivanje komandi (npr. http://10.0.0.5:8080)
+    @Column(nullable = false, length = 200)
+    private String address;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime startedAt;
+
+    @Column(nullable = false)
+    private LocalDateTime lastHeartbeat;
+
+    @PrePersist
+    protected void onCreate() {
+        startedAt = LocalDateTime.now();
+        if (lastHeartbeat == null) {
+            lastHeartbeat = startedAt;
+        }
+    }
+
+    // Konstruktor prazan
+    public BackendInstance() {}
+
+    public BackendInstance(String nodeId, String address) {
+        this.nodeId = nodeId;
+        this.address = address;
+        this.lastHeartbeat = LocalDateTime.now();
+    }
+
+    // Getteri i Setteri
+    public String getNodeId() { return nodeId; }
+    public void setNodeId(String nodeId) { this.nodeId = nodeId; }
+
+    public String getAddress() { return address; }
+    public void setAddress(String address) { this.address = address; }
+
+    public LocalDateTime getStartedAt() { return startedAt; }
+
+    public LocalDateTime getLastHeartbeat() { return lastHeartbeat; }
+    public void setLastHeartbeat(LocalDateTime lastHeartbeat) { this.lastHeartbeat = lastHeartbeat; }
+}
@@ -0,0 +1,58 @@
+package model;
+
+import jakarta.persistence.*;
+
+/**
+ * EmailOutboxMessage - Email koji čeka slanje (outbox pattern)
+ *
+ * Registracija samo upiše red u ovu tabelu (u istoj transakciji kao User i
+ * ActivationToken), a EmailOutboxDispatcher ga šalje u pozadini.
+ */
+@Entity
+@Table(
+    name = "email_outbox",
+    indexes = {
+        @Index(name = "idx_email_outbox_status_next", columnList = "status, nextAttemptAt")
+    }
+)
+public class EmailOutboxMessage extends OutboxMessage {
+
+    // ============================================
+    // POLJA
+    // ============================================
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 100)
+    private String recipient;
+
+    @Column(nullable = false, length = 200)
+    private String subject;
+
+    @Column(nullable = false, length = 4000)
+    private String body;
+
+    // Konstruktor prazan
+    public EmailOutboxMessage() {}
+
+    public EmailOutboxMessage(String recipient, String subject, String body) {
+        this.recipient = recipient;
+        this.subject = subject;
+        this.body = body;
+    }
+
+    // Getteri i Setteri
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getRecipient() { return recipient; }
+    public void setRecipient(String recipient) { this.recipient = recipient; }
+
+    public String getSubject() { return subject; }
+    public void setSubject(String subject) { this.subject = subject; }
+
+    public String getBody() { return body; }
+    public void setBody(String body) { this.body = body; }
+}
@@ -0,0 +1,73 @@
+package model;
+
+import jakarta.persistence.*;
+
+/**
+ * UploadEventOutboxMessage - Upload event koji čeka slanje u RabbitMQ (outbox pattern)
+ *
+ * PostService upiše red u istoj transakciji kao i Post - rollback briše i
+ * event. UploadEventOutboxRelay ga posle commit-a šalje na exchange.
+ * Payload je već serijalizovan (JSON ili Protobuf, vidi contentType) i
+ * eventualno kompresovan (contentEncoding, npr. "gzip"; null = bez kompresije).
+ */
+@Entity
+@Table(
+    name = "upload_event_outbox",
+    indexes = {
+        @Index(name = "idx_upload_outbox_status_next", columnList = "status, nextAttemptAt"),
+        @Index(name = "idx_upload_outbox_post", columnList = "postId, status")
+    }
+)
+public class UploadEventOutboxMessage extends OutboxMessage {
+
+    // ============================================
+    // POLJA
+    // ============================================
+
+    // Redosled upisa = redosled slanja za isti post
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long postId;
+
+    @Column(nullable = false, length = 100)
+    private String contentType;
+
+    @Column(length = 50)
+    private String contentEncoding;
+
+    @Column(nullable = false, length = 65536)
+    private byte[] payload;
+
+    // Konstruktor prazan
+    public UploadEventOutboxMessage() {}
+
+    public UploadEventOutboxMessage(Long postId, String contentType, byte[] payload) {
+        this(postId, contentType, null, payload);
+    }
+
+    public UploadEventOutboxMessage(Long postId, String contentType, String contentEncoding, byte[] payload) {
+        this.postId = postId;
+        this.contentType = contentType;
+        this.contentEncoding = contentEncoding;
+        this.payload = payload;
+    }
+
+    // Getteri i Setteri
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getPostId() { return postId; }
+    public void setPostId(Long postId) { this.postId = postId; }
+
+    public String getContentType() { return contentType; }
+    public void setContentType(String contentType) { this.contentType = contentType; }
+
+    public String getContentEncoding() { return contentEncoding; }
+    public void setContentEncoding(String contentEncoding) { this.contentEncoding = contentEncoding; }
+
+    public byte[] getPayload() { return payload; }
+    public void setPayload(byte[] payload) { this.payload = payload; }
+}
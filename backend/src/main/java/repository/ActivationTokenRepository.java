@@ -2,7 +2,11 @@ package repository;
 
 import model.ActivationToken;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 @Repository
@@ -13,4 +17,11 @@ public interface ActivationTokenRepository extends JpaRepository<ActivationToken
     
     // Pronalaženje tokena po User ID-u
     Optional<ActivationToken> findByUserId(Long userId);
+
+    // Brisanje jedne grupe isteklih tokena (set-based, najviše :limit redova)
+    @Modifying
+    @Query(value = "DELETE FROM activation_tokens WHERE id IN (" +
+                   "SELECT id FROM activation_tokens WHERE expires_at < :cutoff LIMIT :limit)",
+           nativeQuery = true)
+    int deleteExpiredBatch(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
 }
@@ -0,0 +1,23 @@
+package repository;
+
+import model.BackendInstance;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface BackendInstanceRepository extends JpaRepository<BackendInstance, String> {
+
+    // Žive instance: heartbeat posle granice (now - TTL)
+    List<BackendInstance> findByLastHeartbeatAfterOrderByNodeId(LocalDateTime since);
+
+    // Čišćenje redova davno ugašenih instanci
+    @Modifying
+    @Query("DELETE FROM BackendInstance b WHERE b.lastHeartbeat < :before")
+    int deleteStale(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,33 @@
+package repository;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import model.EmailOutboxMessage;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutboxMessage, Long> {
+
+    /**
+     * Sledeća grupa email-ova za slanje (PENDING i došlo je vreme za pokušaj).
+     * Redovi se zaključavaju sa SKIP LOCKED (lock.timeout = -2), pa više
+     * instanci backend-a ne šalje isti email dva puta.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT m FROM EmailOutboxMessage m " +
+           "WHERE m.status = 'PENDING' AND m.nextAttemptAt <= :now " +
+           "ORDER BY m.nextAttemptAt")
+    List<EmailOutboxMessage> findDueForDispatch(@Param("now") LocalDateTime now, Pageable pageable);
+
+    long countByStatus(String status);
+}
@@ -0,0 +1,42 @@
+package repository;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import model.UploadEventOutboxMessage;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface UploadEventOutboxRepository extends JpaRepository<UploadEventOutboxMessage, Long> {
+
+    /**
+     * Sledeća grupa event-a za slanje, najstariji prvi.
+     * Samo najstariji PENDING event po postu - sledeći čeka dok prethodni ne
+     * bude poslat (ili odbačen), pa se redosled po postu čuva i kroz retry.
+     * SKIP LOCKED (lock.timeout = -2): druga instanca preskače zaključane redove,
+     * a njihovi naslednici ostaju blokirani uslovom NOT EXISTS.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT m FROM UploadEventOutboxMessage m " +
+           "WHERE m.status = 'PENDING' AND m.nextAttemptAt <= :now " +
+           "AND NOT EXISTS (SELECT 1 FROM UploadEventOutboxMessage e " +
+           "                WHERE e.postId = m.postId AND e.status = 'PENDING' AND e.id < m.id) " +
+           "ORDER BY m.id")
+    List<UploadEventOutboxMessage> findDueForRelay(@Param("now") LocalDateTime now, Pageable pageable);
+
+    long countByStatus(String status);
+
+    @Modifying
+    @Query("DELETE FROM UploadEventOutboxMessage m WHERE m.status = 'SENT' AND m.sentAt < :before")
+    int deleteSentBefore(@Param("before") LocalDateTime before);
+}
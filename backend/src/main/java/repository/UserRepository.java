@@ -2,8 +2,14 @@ package repository;
 
 
 import model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -20,4 +26,23 @@ public interface UserRepository extends JpaRepository<User, Long> {
     
     // Provera da li postoji korisnik sa datim username-om
     boolean existsByUsername(String username);
-}
\ No newline at end of file
+
+    // Samo username i email (bez učitavanja entiteta) - za punjenje Bloom filtera
+    @Query("SELECT u.id, u.username, u.email FROM User u WHERE u.id > :afterId ORDER BY u.id")
+    List<Object[]> findUsernameAndEmailAfterId(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Brisanje jedne grupe neaktiviranih naloga starijih od :cutoff.
+    // Samo nalozi bez tokena (token se briše prvi) i bez ikakvih podataka.
+    @Modifying
+    @Query(value = "DELETE FROM users WHERE id IN (" +
+                   "SELECT u.id FROM users u " +
+                   "WHERE u.activated = false AND u.created_at < :cutoff " +
+                   "AND NOT EXISTS (SELECT 1 FROM activation_tokens t WHERE t.user_id = u.id) " +
+                   "AND NOT EXISTS (SELECT 1 FROM posts p WHERE p.user_id = u.id) " +
+                   "AND NOT EXISTS (SELECT 1 FROM comments c WHERE c.user_id = u.id) " +
+                   "AND NOT EXISTS (SELECT 1 FROM post_likes l WHERE l.user_id = u.id) " +
+                   "AND NOT EXISTS (SELECT 1 FROM watch_parties w WHERE w.creator_id = u.id) " +
+                   "LIMIT :limit)",
+           nativeQuery = true)
+    int deleteStaleUnactivatedBatch(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+}
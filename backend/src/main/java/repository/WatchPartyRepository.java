@@ -2,6 +2,7 @@ package repository;
 
 import model.WatchParty;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -23,6 +24,14 @@ public interface WatchPartyRepository extends JpaRepository<WatchParty, Long> {
     
     Long countByActive(Boolean active);
     
-    @Query("SELECT wp FROM WatchParty wp WHERE :usernameOrEmail MEMBER OF wp.members AND wp.active = true")
-    List<WatchParty> findPartiesByMember(@Param("usernameOrEmail") String usernameOrEmail);
+    // Klaster: aktivne sobe drugih čvorova u kojima je korisnik član
+    @Query("SELECT wp FROM WatchParty wp WHERE :username MEMBER OF wp.members AND wp.active = true " +
+           "ORDER BY wp.createdAt DESC")
+    List<WatchParty> findActivePartiesByMember(@Param("username") String username);
+
+    // Write-behind: samo kolona trenutnog videa, i samo dok je soba aktivna
+    @Modifying
+    @Query(value = "UPDATE watch_parties SET current_post_id = :postId WHERE id = :roomId AND active = true",
+           nativeQuery = true)
+    int updateCurrentPostIfActive(@Param("roomId") Long roomId, @Param("postId") Long postId);
 }
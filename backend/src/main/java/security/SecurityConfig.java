@@ -81,8 +81,10 @@ public class SecurityConfig {
                     .requestMatchers("GET", "/api/users/**").permitAll()
                     
                     .requestMatchers("/ws/**").permitAll()   // STOMP endpoint
+                    .requestMatchers("/ws-native").permitAll()  // STOMP bez SockJS (binarni mod)
                     .requestMatchers("/topic/**").permitAll() // opcionalno za subscribe
                     .requestMatchers("/queue/**").permitAll() // opcionalno za subscribe
+                    .requestMatchers("/internal/watch-party/**").permitAll()  // čvor → čvor, proverava X-Cluster-Token
                     
                     
                     .anyRequest().authenticated();
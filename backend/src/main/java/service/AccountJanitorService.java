@@ -0,0 +1,183 @@
+package service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import repository.ActivationTokenRepository;
+import repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+/**
+ * AccountJanitorService - Periodično čišćenje isteklih tokena i neaktiviranih naloga.
+ *
+ * Brisanje ide u malim grupama (DELETE ... WHERE id IN (SELECT ... LIMIT n)),
+ * svaka grupa u svojoj kratkoj transakciji, sa pauzom između grupa - tako
+ * zaključavanja traju kratko i ne blokiraju login/registraciju.
+ *
+ * Redosled:
+ * 1. activation_tokens kojima je istekao rok
+ * 2. users koji nisu aktivirani, stariji su od retention perioda i nemaju token
+ */
+@Service
+public class AccountJanitorService {
+
+    @Autowired
+    private ActivationTokenRepository tokenRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.janitor.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.janitor.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.janitor.max-batches-per-run:200}")
+    private int maxBatchesPerRun;
+
+    @Value("${app.janitor.pause-between-batches-ms:100}")
+    private long pauseBetweenBatchesMs;
+
+    @Value("${app.janitor.batch-timeout-seconds:5}")
+    private int batchTimeoutSeconds;
+
+    @Value("${app.janitor.unactivated-retention-hours:48}")
+    private long unactivatedRetentionHours;
+
+    private TransactionTemplate transactionTemplate;
+
+    private Counter tokensPurgedCounter;
+    private Counter usersPurgedCounter;
+    private DistributionSummary purgedPerRun;
+    private Timer runTimer;
+
+    // ============================================
+    // LIFECYCLE
+    // ============================================
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setTimeout(batchTimeoutSeconds);
+
+        tokensPurgedCounter = Counter.builder("janitor.purged.rows")
+                .tag("table", "activation_tokens")
+                .description("Broj obrisanih isteklih activation tokena")
+                .register(meterRegistry);
+
+        usersPurgedCounter = Counter.builder("janitor.purged.rows")
+                .tag("table", "users")
+                .description("Broj obrisanih neaktiviranih naloga")
+                .register(meterRegistry);
+
+        purgedPerRun = DistributionSummary.builder("janitor.run.purged")
+                .description("Ukupno obrisanih redova po pokretanju")
+                .register(meterRegistry);
+
+        runTimer = Timer.builder("janitor.run.duration")
+                .description("Trajanje jednog pokretanja janitor-a")
+                .register(meterRegistry);
+
+        System.out.println("🧹 AccountJanitorService: batch=" + batchSize + ", maxBatches=" + maxBatchesPerRun
+                + ", pauza=" + pauseBetweenBatchesMs + "ms, retention=" + unactivatedRetentionHours + "h");
+    }
+
+    // ============================================
+    // PUBLIC METODE
+    // ============================================
+
+    @Scheduled(cron = "${app.janitor.cron:0 15 * * * *}")
+    public void scheduledPurge() {
+        if (!enabled) {
+            return;
+        }
+        purge();
+    }
+
+    /**
+     * Jedno pokretanje čišćenja.
+     *
+     * @return ukupan broj obrisanih redova
+     */
+    public int purge() {
+        long start = System.nanoTime();
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime userCutoff = now.minusHours(unactivatedRetentionHours);
+
+        // Budžet grupa je zajednički za obe tabele
+        int[] budget = { maxBatchesPerRun };
+
+        int tokens = purgeInBatches(budget, () -> tokenRepository.deleteExpiredBatch(now, batchSize));
+        tokensPurgedCounter.increment(tokens);
+
+        int users = purgeInBatches(budget, () -> userRepository.deleteStaleUnactivatedBatch(userCutoff, batchSize));
+        usersPurgedCounter.increment(users);
+
+        int total = tokens + users;
+        purgedPerRun.record(total);
+        runTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        if (total > 0 || budget[0] == 0) {
+            System.out.println("🧹 Janitor: obrisano " + tokens + " tokena i " + users + " naloga"
+                    + (budget[0] == 0 ? " (dostignut limit grupa, nastavak u sledećem pokretanju)" : ""));
+        }
+        return total;
+    }
+
+    // ============================================
+    // POMOĆNE METODE
+    // ============================================
+
+    private int purgeInBatches(int[] budget, IntSupplier deleteBatch) {
+        int total = 0;
+
+        while (budget[0] > 0) {
+            Integer deleted = transactionTemplate.execute(status -> deleteBatch.getAsInt());
+            budget[0]--;
+
+            int count = deleted != null ? deleted : 0;
+            total += count;
+
+            if (count < batchSize) {
+                break;  // Nema više redova za brisanje
+            }
+
+            if (!pause()) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    // Pauza između grupa - ostavlja prostor ostalim transakcijama
+    private boolean pause() {
+        if (pauseBetweenBatchesMs <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(pauseBetweenBatchesMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
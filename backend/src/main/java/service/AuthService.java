@@ -7,7 +7,6 @@ import model.User;
 import repository.UserRepository;
 import security.JwtUtil;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import java.util.Optional;
 
@@ -21,7 +20,7 @@ public class AuthService {
     private JwtUtil jwtUtil;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private PasswordHashingService passwordHashingService;  // BCrypt na posebnom pool-u
 
     @Autowired
     private LoginAttemptService loginAttemptService;  // ← DODATO za Rate Limiting
@@ -45,7 +44,7 @@ public class AuthService {
         User user = userOpt.get();
 
         
-        if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
+        if (!passwordHashingService.matches(request.getPassword(), user.getPassword())) {
             loginAttemptService.loginFailed(ipAddress); // Beleži neuspešan pokušaj
             throw new RuntimeException("Pogrešan email ili lozinka!");
         }
@@ -1,6 +1,7 @@
 package service;
 
 import dto.CommentDTO;
+import dto.EngagementEvent;
 import model.Comment;
 import model.Post;
 import model.User;
@@ -45,6 +46,9 @@ public class CommentService {
     @Autowired
     private PostService postService;
 
+    @Autowired
+    private EngagementEventPublisher engagementEventPublisher;
+
   
     
    
@@ -107,6 +111,9 @@ public class CommentService {
         postService.incrementCommentsCount(postId);
         System.out.println("✅ Brojač komentara na postu ažuriran");
 
+        engagementEventPublisher.record(EngagementEvent.comment(
+            EngagementEvent.TYPE_COMMENT, postId, savedComment.getId(), user.getUsername()));
+
         System.out.println("🎉 Komentar uspešno kreiran!");
 
         
@@ -180,6 +187,9 @@ public class CommentService {
 
         postService.decrementCommentsCount(postId);
         System.out.println("✅ Brojač komentara na postu ažuriran");
+
+        engagementEventPublisher.record(EngagementEvent.comment(
+            EngagementEvent.TYPE_COMMENT_DELETE, postId, commentId, comment.getUser().getUsername()));
     }
 
     
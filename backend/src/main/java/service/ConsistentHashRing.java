@@ -0,0 +1,82 @@
+package service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * ConsistentHashRing - Raspodela ključeva po čvorovima (consistent hashing).
+ *
+ * Koristi se za sobe po backend instancama (WatchPartyClusterService) i za
+ * upload event-e po particijama (UploadPartitioner).
+ *
+ * Svaki čvor ima {@code virtualNodes} tačaka na prstenu; ključ pripada prvom
+ * čvoru u smeru kazaljke od svog hash-a. Kada čvor dođe ili ode, seli se
+ * samo ~1/N ključeva - ostali ostaju gde su bili.
+ *
+ * Nepromenljiv: pri promeni skupa čvorova gradi se novi prsten.
+ */
+public class ConsistentHashRing {
+
+    private final NavigableMap<Long, String> ring = new TreeMap<>();
+    private final Set<String> nodes;
+
+    public ConsistentHashRing(Collection<String> nodeIds, int virtualNodes) {
+        this.nodes = Set.copyOf(new TreeSet<>(nodeIds));
+        for (String nodeId : nodes) {
+            for (int i = 0; i < virtualNodes; i++) {
+                ring.put(hash(nodeId + "#" + i), nodeId);
+            }
+        }
+    }
+
+    /**
+     * Vlasnik sobe ili null ako je prsten prazan.
+     */
+    public String ownerOf(Long roomId) {
+        return ownerOf("room:" + roomId);
+    }
+
+    /**
+     * Vlasnik proizvoljnog ključa ili null ako je prsten prazan.
+     */
+    public String ownerOf(String key) {
+        if (ring.isEmpty()) {
+            return null;
+        }
+        Map.Entry<Long, String> entry = ring.ceilingEntry(hash(key));
+        return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+    }
+
+    public Set<String> getNodes() {
+        return nodes;
+    }
+
+    public boolean isEmpty() {
+        return nodes.isEmpty();
+    }
+
+    // ============================================
+    // POMOĆNE METODE
+    // ============================================
+
+    // Prvih 8 bajtova MD5 - stabilno između JVM-ova i verzija (za razliku od hashCode)
+    private static long hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(key.getBytes(StandardCharsets.UTF_8));
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | (digest[i] & 0xFF);
+            }
+            return value;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 nije dostupan", e);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package service;
+
+import jakarta.annotation.PostConstruct;
+import model.EmailOutboxMessage;
+import repository.EmailOutboxRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * EmailOutboxDispatcher - Pozadinsko slanje email-ova iz outbox tabele.
+ *
+ * Na svakih {@code poll-interval-ms} preuzima grupu PENDING poruka i šalje je
+ * preko jedne SMTP konekcije, van transakcije. Preuzimanje, retry i statusi:
+ * OutboxProcessor.
+ */
+@Service
+public class EmailOutboxDispatcher extends OutboxProcessor<EmailOutboxMessage> {
+
+    @Autowired
+    private EmailOutboxRepository outboxRepository;
+
+    @Autowired
+    private EmailService emailService;
+
+    @Value("${app.email-outbox.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.email-outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${app.email-outbox.max-batches-per-run:10}")
+    private int maxBatchesPerRun;
+
+    @Value("${app.email-outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${app.email-outbox.backoff-initial-ms:30000}")
+    private long backoffInitialMs;
+
+    @Value("${app.email-outbox.backoff-max-ms:3600000}")
+    private long backoffMaxMs;
+
+    // Koliko dugo je preuzeta grupa rezervisana za ovu instancu (duže od najsporijeg slanja)
+    @Value("${app.email-outbox.lease-ms:300000}")
+    private long leaseMs;
+
+    // ============================================
+    // LIFECYCLE
+    // ============================================
+
+    @PostConstruct
+    public void init() {
+        initOutbox("email.outbox", "📬 EmailOutboxDispatcher:", new Settings(
+                batchSize, maxBatchesPerRun, maxAttempts, backoffInitialMs, backoffMaxMs, leaseMs));
+    }
+
+    // ============================================
+    // PUBLIC METODE
+    // ============================================
+
+    @Scheduled(fixedDelayString = "${app.email-outbox.poll-interval-ms:2000}")
+    public void dispatchPending() {
+        if (!enabled) {
+            return;
+        }
+        processPending();
+    }
+
+    /**
+     * @return broj obrađenih poruka
+     */
+    public int dispatchBatch() {
+        return processBatch();
+    }
+
+    // ============================================
+    // OUTBOX
+    // ============================================
+
+    @Override
+    protected List<EmailOutboxMessage> findDue(LocalDateTime now, int limit) {
+        return outboxRepository.findDueForDispatch(now, PageRequest.of(0, limit));
+    }
+
+    @Override
+    protected Map<EmailOutboxMessage, String> send(List<EmailOutboxMessage> batch) {
+        Map<EmailOutboxMessage, String> failures = new LinkedHashMap<>();
+        emailService.sendBatch(batch).forEach((message, error) -> failures.put(message,
+                error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName()));
+        return failures;
+    }
+
+    @Override
+    protected void saveAll(List<EmailOutboxMessage> batch) {
+        outboxRepository.saveAll(batch);
+    }
+
+    @Override
+    protected long countPending() {
+        return outboxRepository.countByStatus(EmailOutboxMessage.STATUS_PENDING);
+    }
+
+    @Override
+    protected String describe(EmailOutboxMessage message) {
+        return "Email za " + message.getRecipient();
+    }
+}
@@ -1,49 +1,109 @@
 package service;
 
+import model.EmailOutboxMessage;
+import repository.EmailOutboxRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
 
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 @Service
 public class EmailService {
 
     @Autowired
     private JavaMailSender mailSender;
 
+    @Autowired
+    private EmailOutboxRepository outboxRepository;
+
     @Value("${spring.mail.username}")
     private String fromEmail;
 
     @Value("${app.backend.url}")
     private String backendUrl;
 
-    // Slanje email-a za aktivaciju naloga
-    public void sendActivationEmail(String toEmail, String username, String token) {
-        
+    // Upis email-a za aktivaciju u outbox (šalje ga EmailOutboxDispatcher).
+    // Poziva se unutar transakcije registracije - nema SMTP poziva u zahtevu.
+    public EmailOutboxMessage queueActivationEmail(String toEmail, String username, String token) {
+        EmailOutboxMessage message = new EmailOutboxMessage(
+            toEmail,
+            ACTIVATION_SUBJECT,
+            buildActivationText(username, token)
+        );
+        return outboxRepository.save(message);
+    }
+
+    /**
+     * Slanje grupe email-ova preko JEDNE SMTP konekcije.
+     *
+     * JavaMailSender.send(SimpleMailMessage...) otvara transport jednom za
+     * ceo niz. Vraća mapu poruka koje nisu poslate (ključ = outbox poruka,
+     * vrednost = greška); prazna mapa znači da je sve poslato.
+     */
+    public Map<EmailOutboxMessage, Exception> sendBatch(List<EmailOutboxMessage> batch) {
+        Map<EmailOutboxMessage, Exception> failures = new HashMap<>();
+        if (batch.isEmpty()) {
+            return failures;
+        }
+
+        SimpleMailMessage[] mails = new SimpleMailMessage[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            EmailOutboxMessage outbox = batch.get(i);
+            mails[i] = buildMessage(outbox.getRecipient(), outbox.getSubject(), outbox.getBody());
+        }
+
+        try {
+            mailSender.send(mails);
+        } catch (MailSendException e) {
+            Map<Object, Exception> failedMessages = e.getFailedMessages();
+            if (failedMessages.isEmpty()) {
+                // Greška pre slanja (npr. konekcija) - nijedna poruka nije poslata
+                batch.forEach(outbox -> failures.put(outbox, e));
+            } else {
+                for (int i = 0; i < mails.length; i++) {
+                    Exception failure = failedMessages.get(mails[i]);
+                    if (failure != null) {
+                        failures.put(batch.get(i), failure);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            batch.forEach(outbox -> failures.put(outbox, e));
+        }
+
+        return failures;
+    }
+
+    // ============================================
+    // POMOĆNE METODE
+    // ============================================
+
+    private static final String ACTIVATION_SUBJECT = "Aktivacija naloga - Video App";
+
+    private String buildActivationText(String username, String token) {
         String activationLink = backendUrl + "/auth/activate?token=" + token;
-        
-        String subject = "Aktivacija naloga - Video App";
-        
-        String message = "Zdravo " + username + ",\n\n" +
-                        "Hvala što si se registrovao!\n\n" +
-                        "Klikni na sledeći link da aktiviraš svoj nalog:\n" +
-                        activationLink + "\n\n" +
-                        "Link važi 24 sata.\n\n" +
-                        "Ako nisi ti kreirao ovaj nalog, ignoriši ovaj email.\n\n" +
-                        "Pozdrav,\nVideo App Tim";
-        
-        sendEmail(toEmail, subject, message);
+
+        return "Zdravo " + username + ",\n\n" +
+               "Hvala što si se registrovao!\n\n" +
+               "Klikni na sledeći link da aktiviraš svoj nalog:\n" +
+               activationLink + "\n\n" +
+               "Link važi 24 sata.\n\n" +
+               "Ako nisi ti kreirao ovaj nalog, ignoriši ovaj email.\n\n" +
+               "Pozdrav,\nVideo App Tim";
     }
 
-    // Opšta metoda za slanje email-a
-    private void sendEmail(String to, String subject, String text) {
+    private SimpleMailMessage buildMessage(String to, String subject, String text) {
         SimpleMailMessage message = new SimpleMailMessage();
         message.setFrom(fromEmail);
         message.setTo(to);
         message.setSubject(subject);
         message.setText(text);
-        
-        mailSender.send(message);
+        return message;
     }
 }
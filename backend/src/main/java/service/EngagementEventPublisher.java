@@ -0,0 +1,218 @@
+package service;
+
+import config.RabbitMQConfig;
+import dto.EngagementEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * EngagementEventPublisher - Pregledi, lajkovi i komentari ka engagement.exchange (analitika).
+ *
+ * Event se ne šalje odmah: PostService / CommentService ga predaju posle commit-a
+ * (rollback → nema event-a), a @Scheduled flush svakih {@code flush-interval-ms}
+ * šalje jednu poruku (JSON niz, do {@code max-batch-size} event-a) po tipu.
+ *
+ * - Pregledi se ne čuvaju pojedinačno: zbir po postu (ConcurrentHashMap.merge) postaje jedan
+ *   VIEW event sa {@code count} - viralni post je jedan event po flush-u
+ * - Ostali event-i idu u ograničen bafer; pun bafer → event se odbacuje i broji
+ *   (analitika ne sme da uspori ili obori korisnički zahtev)
+ *
+ * Isporuka je "najviše jednom": bafer je u memoriji, za tačne brojeve postoje
+ * kolone u posts tabeli. Upload event-i i dalje idu kroz outbox (UploadEventPublisher).
+ */
+@Service
+public class EngagementEventPublisher {
+
+    public static final String HEADER_EVENT_COUNT = "x-event-count";
+
+    @Autowired
+    private RabbitTemplate rabbitTemplate;
+
+    @Autowired
+    private MessageCompressor messageCompressor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.engagement-events.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.engagement-events.buffer-capacity:10000}")
+    private int bufferCapacity;
+
+    @Value("${app.engagement-events.max-batch-size:500}")
+    private int maxBatchSize;
+
+    private BlockingQueue<EngagementEvent> buffer;
+    private final Map<Long, Long> pendingViews = new ConcurrentHashMap<>();
+
+    private Counter recordedCounter;
+    private Counter droppedCounter;
+    private Counter publishedCounter;
+    private Counter failedCounter;
+    private Counter messagesCounter;
+
+    // ============================================
+    // LIFECYCLE
+    // ============================================
+
+    @PostConstruct
+    public void init() {
+        buffer = new ArrayBlockingQueue<>(bufferCapacity);
+
+        recordedCounter = Counter.builder("engagement.events")
+                .tag("result", "recorded")
+                .description("Event-i predati publisher-u (pregled = 1)")
+                .register(meterRegistry);
+
+        droppedCounter = Counter.builder("engagement.events")
+                .tag("result", "dropped")
+                .description("Event-i odbačeni jer je bafer pun")
+                .register(meterRegistry);
+
+        publishedCounter = Counter.builder("engagement.events")
+                .tag("result", "published")
+                .description("Event-i poslati u broker (sabrani pregledi = 1)")
+                .register(meterRegistry);
+
+        failedCounter = Counter.builder("engagement.events")
+                .tag("result", "failed")
+                .description("Event-i izgubljeni zbog greške pri slanju")
+                .register(meterRegistry);
+
+        messagesCounter = Counter.builder("engagement.events.messages")
+                .description("AMQP poruke (grupe event-a) poslate na engagement exchange")
+                .register(meterRegistry);
+
+        Gauge.builder("engagement.events.buffered", this, EngagementEventPublisher::getBuffered)
+                .description("Event-i koji čekaju sledeći flush")
+                .register(meterRegistry);
+
+        System.out.println("📈 EngagementEventPublisher: " + (enabled
+                ? "bafer=" + bufferCapacity + ", batch=" + maxBatchSize
+                : "isključen"));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();  // Ono što je u baferu ide pre gašenja
+    }
+
+    // ============================================
+    // PUBLIC METODE - poziva se iz servisa
+    // ============================================
+
+    public void recordView(Long postId) {
+        afterCommit(() -> pendingViews.merge(postId, 1L, Long::sum));
+    }
+
+    public void record(EngagementEvent event) {
+        afterCommit(() -> {
+            if (!buffer.offer(event)) {
+                droppedCounter.increment();
+            }
+        });
+    }
+
+    // ============================================
+    // FLUSH
+    // ============================================
+
+    @Scheduled(fixedDelayString = "${app.engagement-events.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        Map<String, List<EngagementEvent>> byType = new LinkedHashMap<>();
+
+        // Pregledi: remove() atomično uzima zbir - pregled posle toga počinje novi zbir
+        for (Long postId : pendingViews.keySet()) {
+            Long count = pendingViews.remove(postId);
+            if (count != null) {
+                byType.computeIfAbsent(EngagementEvent.TYPE_VIEW, t -> new ArrayList<>())
+                        .add(EngagementEvent.views(postId, count));
+            }
+        }
+
+        List<EngagementEvent> drained = new ArrayList<>();
+        buffer.drainTo(drained);
+        for (EngagementEvent event : drained) {
+            byType.computeIfAbsent(event.getType(), t -> new ArrayList<>()).add(event);
+        }
+
+        byType.forEach((type, events) -> {
+            for (int from = 0; from < events.size(); from += maxBatchSize) {
+                send(type, events.subList(from, Math.min(from + maxBatchSize, events.size())));
+            }
+        });
+    }
+
+    private void send(String type, List<EngagementEvent> events) {
+        try {
+            MessageProperties props = new MessageProperties();
+            props.setHeader(HEADER_EVENT_COUNT, events.size());
+
+            Message message = rabbitTemplate.getMessageConverter().toMessage(new ArrayList<>(events), props);
+            message = messageCompressor.compress(message);
+
+            rabbitTemplate.send(RabbitMQConfig.ENGAGEMENT_EXCHANGE, routingKey(type), message);
+
+            messagesCounter.increment();
+            publishedCounter.increment(events.size());
+        } catch (Exception e) {
+            failedCounter.increment(events.size());
+            System.err.println("❌ Engagement event-i (" + type + ", " + events.size()
+                    + ") nisu poslati: " + e.getMessage());
+        }
+    }
+
+    // ============================================
+    // POMOĆNE METODE
+    // ============================================
+
+    /**
+     * VIEW → engagement.view, COMMENT_DELETE → engagement.comment.delete
+     */
+    public static String routingKey(String type) {
+        return RabbitMQConfig.ENGAGEMENT_ROUTING_PREFIX + type.toLowerCase().replace('_', '.');
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!enabled) {
+            return;
+        }
+        recordedCounter.increment();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    public int getBuffered() {
+        return buffer.size() + pendingViews.size();
+    }
+}
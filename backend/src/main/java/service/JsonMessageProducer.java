@@ -2,6 +2,8 @@ package service;
 
 import config.RabbitMQConfig;
 import model.UploadEvent;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -13,6 +15,12 @@ public class JsonMessageProducer {
     @Autowired
     private RabbitTemplate rabbitTemplate;
 
+    @Autowired
+    private UploadEventPublisher uploadEventPublisher;
+
+    @Autowired
+    private MessageCompressor messageCompressor;
+
     // ============================================
     // SLANJE PORUKA - JSON FORMAT
     // ============================================
@@ -26,14 +34,14 @@ public class JsonMessageProducer {
             System.out.println("   Author: " + event.getAuthor());
             System.out.println("   File Size: " + event.getReadableFileSize());
 
-            // Slanje poruke (automatska JSON konverzija)
-            rabbitTemplate.convertAndSend(
-                RabbitMQConfig.UPLOAD_EXCHANGE,
-                RabbitMQConfig.UPLOAD_ROUTING_KEY,
-                event
-            );
+            // JSON konverzija ovde; slanje iz outbox-a posle commit-a
+            Message message = rabbitTemplate.getMessageConverter().toMessage(event, new MessageProperties());
+
+            // Veće poruke se kompresuju (content-encoding header)
+            message = messageCompressor.compress(message);
+            uploadEventPublisher.publish(event.getPostId(), message);
 
-            System.out.println("✅ JSON poruka poslata!");
+            System.out.println("✅ JSON poruka upisana u outbox!");
 
         } catch (Exception e) {
             System.err.println("❌ Greška pri slanju JSON poruke: " + e.getMessage());
@@ -0,0 +1,107 @@
+package service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.support.postprocessor.AbstractDeflaterPostProcessor;
+import org.springframework.amqp.support.postprocessor.DeflaterPostProcessor;
+import org.springframework.amqp.support.postprocessor.GZipPostProcessor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * MessageCompressor - Opciona kompresija tela AMQP poruke (gzip ili deflate, JDK java.util.zip).
+ *
+ * Poruka manja od {@code threshold-bytes} ide nekompresovana - zaglavlje gzip-a
+ * i CPU ne isplate se na par stotina bajtova (vidi MessageCompressionBenchmark).
+ * Kompresovana poruka ima content-encoding header ("gzip" / "deflate");
+ * consumer-app je raspakuje pre konverzije. Ako kompresija ne smanji poruku,
+ * šalje se original.
+ */
+@Component
+public class MessageCompressor {
+
+    public static final String ALGORITHM_GZIP = "gzip";
+    public static final String ALGORITHM_DEFLATE = "deflate";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.messaging.compression.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.messaging.compression.algorithm:gzip}")
+    private String algorithm;
+
+    @Value("${app.messaging.compression.threshold-bytes:1024}")
+    private int thresholdBytes;
+
+    // 1 (najbrže) .. 9 (najmanje); 6 = podrazumevano za zlib
+    @Value("${app.messaging.compression.level:6}")
+    private int level;
+
+    private AbstractDeflaterPostProcessor compressor;
+
+    private DistributionSummary originalSize;
+    private DistributionSummary wireSize;
+
+    // ============================================
+    // LIFECYCLE
+    // ============================================
+
+    @PostConstruct
+    public void init() {
+        compressor = ALGORITHM_DEFLATE.equalsIgnoreCase(algorithm)
+                ? new DeflaterPostProcessor()
+                : new GZipPostProcessor();
+        compressor.setLevel(level);
+        compressor.setCopyProperties(true);  // Original ostaje netaknut (vraća se ako kompresija ne pomogne)
+
+        originalSize = DistributionSummary.builder("messaging.payload.size")
+                .description("Veličina tela poruke pre kompresije")
+                .tag("stage", "original")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+
+        wireSize = DistributionSummary.builder("messaging.payload.size")
+                .description("Veličina tela poruke koja ide u broker")
+                .tag("stage", "wire")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+
+        System.out.println("🗜️ MessageCompressor: " + (enabled
+                ? algorithm + " (level " + level + ") za poruke >= " + thresholdBytes + " B"
+                : "isključen"));
+    }
+
+    // ============================================
+    // PUBLIC METODE
+    // ============================================
+
+    /**
+     * Kompresuje telo ako je uključeno, poruka dovoljno velika i rezultat manji.
+     *
+     * @param message - Serijalizovana poruka (JSON ili Protobuf)
+     * @return Ista poruka ili nova sa kompresovanim telom i content-encoding header-om
+     */
+    public Message compress(Message message) {
+        int size = message.getBody().length;
+        originalSize.record(size);
+
+        if (!enabled || size < thresholdBytes) {
+            wireSize.record(size);
+            return message;
+        }
+
+        Message compressed = compressor.postProcessMessage(message);
+        if (compressed.getBody().length >= size) {
+            wireSize.record(size);
+            return message;  // Nekompresibilno (npr. već kompresovani podaci)
+        }
+
+        wireSize.record(compressed.getBody().length);
+        return compressed;
+    }
+}
@@ -0,0 +1,221 @@
+package service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import model.OutboxMessage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * OutboxProcessor - Zajednička obrada outbox tabele (email-ovi, upload event-i).
+ *
+ * Grupa prolazi kroz tri koraka:
+ * - preuzimanje: kratka transakcija (SKIP LOCKED) računa pokušaj i pomera
+ *   nextAttemptAt za {@code leaseMs} - druga instanca je preskače dok lease traje
+ * - slanje (SMTP, broker) van transakcije - spor server ne drži lock-ove
+ *   ni konekciju iz pool-a
+ * - upis rezultata u drugoj transakciji:
+ *   - uspeh → SENT
+ *   - greška → sledeći pokušaj posle eksponencijalnog backoff-a
+ *   - posle {@code maxAttempts} neuspeha → FAILED
+ *
+ * Ako instanca padne tokom slanja, grupa se šalje ponovo posle isteka lease-a
+ * ("at least once"), pa lease mora biti duži od najsporijeg slanja grupe.
+ */
+public abstract class OutboxProcessor<T extends OutboxMessage> {
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    protected MeterRegistry meterRegistry;
+
+    protected TransactionTemplate transactionTemplate;
+
+    private Settings settings;
+    private String logPrefix;
+
+    private Counter sentCounter;
+    private Counter retryCounter;
+    private Counter failedCounter;
+
+    /**
+     * Podešavanja jednog outbox-a (app.email-outbox.*, app.upload-events.relay.*).
+     */
+    public record Settings(int batchSize, int maxBatchesPerRun, int maxAttempts,
+                           long backoffInitialMs, long backoffMaxMs, long leaseMs) {
+
+        // Eksponencijalni backoff: initial * 2^(attempts-1), ograničeno na max
+        public long backoffMs(int attempts) {
+            int shift = Math.min(attempts - 1, 30);
+            long delay = backoffInitialMs << shift;
+            return (delay <= 0 || delay > backoffMaxMs) ? backoffMaxMs : delay;
+        }
+    }
+
+    // ============================================
+    // ŠTA SVAKI OUTBOX DEFINIŠE
+    // ============================================
+
+    /** Sledeća grupa za slanje, zaključana sa SKIP LOCKED. */
+    protected abstract List<T> findDue(LocalDateTime now, int limit);
+
+    /** Slanje grupe; vraća poruke koje nisu poslate (vrednost = razlog). */
+    protected abstract Map<T, String> send(List<T> batch);
+
+    protected abstract void saveAll(List<T> batch);
+
+    protected abstract long countPending();
+
+    /** Opis poruke za log, npr. "Email za ana@test.com". */
+    protected abstract String describe(T message);
+
+    /** Poziva se za svaku poslatu poruku, u transakciji upisa rezultata. */
+    protected void onSent(T message, LocalDateTime sentAt) {
+    }
+
+    // ============================================
+    // LIFECYCLE
+    // ============================================
+
+    /**
+     * Poziva se iz @PostConstruct podklase, kad su @Value polja postavljena.
+     *
+     * @param metricPrefix npr. "email.outbox" → email.outbox.sent, .retry, .failed, .pending
+     * @param logPrefix    npr. "📬 Outbox:"
+     */
+    protected void initOutbox(String metricPrefix, String logPrefix, Settings settings) {
+        this.settings = settings;
+        this.logPrefix = logPrefix;
+        transactionTemplate = new TransactionTemplate(transactionManager);
+
+        sentCounter = Counter.builder(metricPrefix + ".sent")
+                .description("Poruke uspešno poslate iz outbox-a")
+                .register(meterRegistry);
+
+        retryCounter = Counter.builder(metricPrefix + ".retry")
+                .description("Neuspeli pokušaji koji će biti ponovljeni")
+                .register(meterRegistry);
+
+        failedCounter = Counter.builder(metricPrefix + ".failed")
+                .description("Poruke odbačene posle maksimalnog broja pokušaja")
+                .register(meterRegistry);
+
+        Gauge.builder(metricPrefix + ".pending", this, OutboxProcessor::countPending)
+                .description("Poruke koje čekaju slanje")
+                .register(meterRegistry);
+
+        System.out.println(logPrefix + " batch=" + settings.batchSize() + ", maxAttempts=" + settings.maxAttempts()
+                + ", backoff=" + settings.backoffInitialMs() + "ms.." + settings.backoffMaxMs() + "ms"
+                + ", lease=" + settings.leaseMs() + "ms");
+    }
+
+    // ============================================
+    // OBRADA
+    // ============================================
+
+    /**
+     * Prazni red dok ima punih grupa (najviše maxBatchesPerRun po pokretanju).
+     */
+    protected void processPending() {
+        for (int i = 0; i < settings.maxBatchesPerRun(); i++) {
+            int processed = processBatch();
+            if (processed < settings.batchSize()) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Jedna grupa: preuzimanje, slanje van transakcije, upis rezultata.
+     *
+     * @return broj obrađenih poruka
+     */
+    protected int processBatch() {
+        List<T> batch = claimBatch();
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        Map<T, String> failures = send(batch);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            for (T message : batch) {
+                if (failures.containsKey(message)) {
+                    markFailedAttempt(message, failures.get(message), now);
+                } else {
+                    markSent(message, now);
+                }
+            }
+            saveAll(batch);
+        });
+
+        int sent = batch.size() - failures.size();
+        System.out.println(logPrefix + " poslato " + sent + "/" + batch.size());
+        return batch.size();
+    }
+
+    // ============================================
+    // POMOĆNE METODE
+    // ============================================
+
+    /**
+     * Kratka transakcija: zaključa grupu, rezerviše je pomeranjem nextAttemptAt
+     * za leaseMs i računa pokušaj, pa commit otpušta lock-ove.
+     */
+    private List<T> claimBatch() {
+        List<T> claimed = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<T> batch = findDue(now, settings.batchSize());
+
+            LocalDateTime leaseUntil = now.plusNanos(settings.leaseMs() * 1_000_000L);
+            for (T message : batch) {
+                message.setAttempts(message.getAttempts() + 1);
+                message.setNextAttemptAt(leaseUntil);
+            }
+            saveAll(batch);
+            return batch;
+        });
+
+        return claimed != null ? claimed : List.of();
+    }
+
+    private void markSent(T message, LocalDateTime now) {
+        message.setStatus(OutboxMessage.STATUS_SENT);
+        message.setSentAt(now);
+        message.setLastError(null);
+        sentCounter.increment();
+        onSent(message, now);
+    }
+
+    private void markFailedAttempt(T message, String failure, LocalDateTime now) {
+        int attempts = message.getAttempts();  // Već uračunat pri preuzimanju
+        message.setLastError(truncate(failure));
+
+        if (attempts >= settings.maxAttempts()) {
+            message.setStatus(OutboxMessage.STATUS_FAILED);
+            failedCounter.increment();
+            System.out.println("❌ " + describe(message) + " odbačen posle "
+                    + attempts + " pokušaja: " + failure);
+        } else {
+            message.setNextAttemptAt(now.plusNanos(settings.backoffMs(attempts) * 1_000_000L));
+            retryCounter.increment();
+            System.out.println("⚠️ " + describe(message) + " nije poslat (pokušaj "
+                    + attempts + "/" + settings.maxAttempts() + "): " + failure);
+        }
+    }
+
+    private static String truncate(String error) {
+        if (error == null) {
+            return null;
+        }
+        return error.length() > 1000 ? error.substring(0, 1000) : error;
+    }
+}
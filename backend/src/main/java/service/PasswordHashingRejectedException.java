@@ -0,0 +1,12 @@
+package service;
+
+/**
+ * Baca se kada je red za BCrypt hashiranje pun (admission control).
+ * Kontroleri je mapiraju na 503 Service Unavailable.
+ */
+public class PasswordHashingRejectedException extends RuntimeException {
+
+    public PasswordHashingRejectedException(String message) {
+        super(message);
+    }
+}
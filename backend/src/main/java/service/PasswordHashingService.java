@@ -0,0 +1,167 @@
+package service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * PasswordHashingService - BCrypt hashiranje na posebnom, ograničenom pool-u.
+ *
+ * BCrypt je namerno spor (~100ms CPU po pozivu). Pool ograničava koliko CPU-a
+ * hashiranje može da zauzme, a ne broj Tomcat niti - nit zahteva i dalje čeka
+ * na future.get(timeoutMs). Granica za Tomcat je red + odbijanje:
+ * - najviše {@code poolSize} hashiranja radi paralelno
+ * - najviše {@code queueCapacity} zahteva čeka u redu
+ * - sve preko toga se odmah odbija (PasswordHashingRejectedException → 503),
+ *   kao i zahtev koji ne dobije rezultat za {@code timeoutMs}
+ * Zato najviše poolSize + queueCapacity Tomcat niti istovremeno čeka na BCrypt.
+ */
+@Service
+public class PasswordHashingService {
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.password-hashing.pool-size:4}")
+    private int poolSize;
+
+    @Value("${app.password-hashing.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${app.password-hashing.timeout-ms:5000}")
+    private long timeoutMs;
+
+    private ThreadPoolExecutor executor;
+
+    private Timer encodeTimer;
+    private Timer matchesTimer;
+    private Timer queueWaitTimer;
+    private Counter rejectedCounter;
+
+    // ============================================
+    // LIFECYCLE
+    // ============================================
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadNumber = new AtomicInteger(1);
+
+        executor = new ThreadPoolExecutor(
+            poolSize,
+            poolSize,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            runnable -> {
+                Thread thread = new Thread(runnable, "bcrypt-" + threadNumber.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy()  // Pun red → odmah odbij
+        );
+
+        encodeTimer = Timer.builder("auth.password.hashing")
+                .tag("operation", "encode")
+                .description("Trajanje BCrypt encode operacije")
+                .register(meterRegistry);
+
+        matchesTimer = Timer.builder("auth.password.hashing")
+                .tag("operation", "matches")
+                .description("Trajanje BCrypt matches operacije")
+                .register(meterRegistry);
+
+        queueWaitTimer = Timer.builder("auth.password.hashing.queue.wait")
+                .description("Vreme čekanja u redu pre hashiranja")
+                .register(meterRegistry);
+
+        rejectedCounter = Counter.builder("auth.password.hashing.rejected")
+                .description("Broj odbijenih zahteva (pun red)")
+                .register(meterRegistry);
+
+        Gauge.builder("auth.password.hashing.queue.depth", executor, e -> e.getQueue().size())
+                .description("Broj zahteva koji čekaju na hashiranje")
+                .register(meterRegistry);
+
+        Gauge.builder("auth.password.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Broj hashiranja u toku")
+                .register(meterRegistry);
+
+        System.out.println("🔐 PasswordHashingService: pool=" + poolSize + ", queue=" + queueCapacity
+                + ", timeout=" + timeoutMs + "ms");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    // ============================================
+    // PUBLIC METODE
+    // ============================================
+
+    public String encode(String rawPassword) {
+        return submit(encodeTimer, () -> passwordEncoder.encode(rawPassword));
+    }
+
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return submit(matchesTimer, () -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    // ============================================
+    // POMOĆNE METODE
+    // ============================================
+
+    private <T> T submit(Timer timer, Callable<T> task) {
+        long enqueuedAt = System.nanoTime();
+
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                queueWaitTimer.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+                return timer.recordCallable(task);
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw new PasswordHashingRejectedException(
+                "Server je trenutno preopterećen prijavama. Pokušajte ponovo za nekoliko sekundi.");
+        }
+
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejectedCounter.increment();
+            throw new PasswordHashingRejectedException(
+                "Server je trenutno preopterećen prijavama. Pokušajte ponovo za nekoliko sekundi.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Hashiranje lozinke prekinuto!", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Greška pri hashiranju lozinke: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package service;
 
+import dto.EngagementEvent;
 import dto.PostDTO;
 import model.Post;
 import model.PostLike;
@@ -11,6 +12,7 @@ import repository.PostRepository;
 import repository.TagRepository;
 import repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
@@ -36,9 +38,19 @@ public class PostService {
     @Autowired
     private JsonMessageProducer jsonMessageProducer;
 
+    @Autowired
+    private ProtobufMessageProducer protobufMessageProducer;
+
+    // Format upload event-a: json ili protobuf (consumer-app čita oba)
+    @Value("${app.upload-events.format:json}")
+    private String uploadEventFormat;
+
     @Autowired
     private PostLikeRepository postLikeRepository; // ← DODATO!
 
+    @Autowired
+    private EngagementEventPublisher engagementEventPublisher;
+
     // ============================================
     // KREIRANJE POSTA - @TRANSACTIONAL (3.3 zahtev)
     // POPRAVLJENO: Rollback sada pravilno briše fajlove!
@@ -133,31 +145,31 @@ public class PostService {
             // KORAK 9: Ažuriranje brojača tagova
             updateTagCounts(savedPost.getTags());
 
-            // KORAK 10: RabbitMQ poruka (3.14 zahtev - JSON format)
-            try {
-                System.out.println("📤 Slanje UploadEvent poruke u RabbitMQ...");
-                
-                UploadEvent uploadEvent = new UploadEvent(
-                    savedPost.getId(),
-                    savedPost.getTitle(),
-                    savedPost.getDescription(),
-                    savedPost.getUser().getUsername(),
-                    savedPost.getUser().getEmail(),
-                    savedPost.getVideoUrl(),
-                    savedPost.getThumbnailUrl(),
-                    savedPost.getFileSize(),
-                    savedPost.getDuration()
-                );
-                
+            // KORAK 10: RabbitMQ poruka (3.14 zahtev - JSON ili Protobuf, app.upload-events.format)
+            // Upis u outbox u ovoj transakciji; UploadEventOutboxRelay šalje posle commit-a.
+            // Greška upisa poništava i post - nema posta bez event-a (ni event-a bez posta)
+            System.out.println("📤 Upis UploadEvent poruke u outbox...");
+
+            UploadEvent uploadEvent = new UploadEvent(
+                savedPost.getId(),
+                savedPost.getTitle(),
+                savedPost.getDescription(),
+                savedPost.getUser().getUsername(),
+                savedPost.getUser().getEmail(),
+                savedPost.getVideoUrl(),
+                savedPost.getThumbnailUrl(),
+                savedPost.getFileSize(),
+                savedPost.getDuration()
+            );
+
+            if ("protobuf".equalsIgnoreCase(uploadEventFormat)) {
+                protobufMessageProducer.sendMessage(uploadEvent);
+            } else {
                 jsonMessageProducer.sendMessage(uploadEvent);
-                
-                System.out.println("✅ UploadEvent poruka poslata u RabbitMQ!");
-                
-            } catch (Exception e) {
-                System.err.println("⚠️ Greška pri slanju poruke u RabbitMQ: " + e.getMessage());
-                // Ne baca exception - ako RabbitMQ ne radi, upload nastavlja
             }
 
+            System.out.println("✅ UploadEvent upisan u outbox!");
+
             System.out.println("🎉 Post uspešno kreiran! ID: " + savedPost.getId());
             
             return convertToDTO(savedPost);
@@ -250,6 +262,9 @@ public class PostService {
 
         // Brisanje iz baze
         postRepository.deleteById(postId);
+
+        engagementEventPublisher.record(
+            EngagementEvent.byUser(EngagementEvent.TYPE_POST_DELETE, postId, post.getUser().getUsername()));
         
         System.out.println("🗑️ Post obrisan: ID=" + postId);
     }
@@ -306,6 +321,9 @@ public class PostService {
         
         // Inkrementiraj likesCount na postu
         incrementLikesCount(postId);
+
+        engagementEventPublisher.record(
+            EngagementEvent.byUser(EngagementEvent.TYPE_LIKE, postId, user.getUsername()));
         
         System.out.println("✅ Post lajkovan!");
         return true;
@@ -342,6 +360,9 @@ public class PostService {
         
         // Dekrementiraj likesCount na postu
         decrementLikesCount(postId);
+
+        engagementEventPublisher.record(
+            EngagementEvent.byUser(EngagementEvent.TYPE_UNLIKE, postId, user.getUsername()));
         
         System.out.println("✅ Like uklonjen!");
         return true;
@@ -434,6 +455,7 @@ public class PostService {
         int updated = postRepository.incrementViewCount(postId);
         
         if (updated > 0) {
+            engagementEventPublisher.recordView(postId);  // Sabira se do sledećeg flush-a
             System.out.println("✅ View count inkrementiran (atomic operation)");
         } else {
             System.err.println("❌ Post nije pronađen: " + postId);
@@ -18,6 +18,12 @@ public class ProtobufMessageProducer {
     @Autowired
     private ProtobufMessageConverter protobufConverter;
 
+    @Autowired
+    private UploadEventPublisher uploadEventPublisher;
+
+    @Autowired
+    private MessageCompressor messageCompressor;
+
     // ============================================
     // SLANJE PORUKA - PROTOBUF FORMAT
     // ============================================
@@ -39,14 +45,13 @@ public class ProtobufMessageProducer {
             props.setContentType("application/x-protobuf");
             Message message = new Message(protobufData, props);
 
-            // Slanje poruke
-            rabbitTemplate.send(
-                RabbitMQConfig.UPLOAD_EXCHANGE,
-                RabbitMQConfig.UPLOAD_ROUTING_KEY,
-                message
-            );
+            // Veće poruke se kompresuju (content-encoding header)
+            message = messageCompressor.compress(message);
+
+            // Upis u outbox; slanje posle commit-a
+            uploadEventPublisher.publish(event.getPostId(), message);
 
-            System.out.println("✅ Protobuf poruka poslata! (" + protobufData.length + " bytes)");
+            System.out.println("✅ Protobuf poruka upisana u outbox! (" + message.getBody().length + " bytes)");
 
         } catch (Exception e) {
             System.err.println("❌ Greška pri slanju Protobuf poruke: " + e.getMessage());
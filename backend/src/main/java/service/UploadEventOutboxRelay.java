@@ -0,0 +1,147 @@
+package service;
+
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import model.UploadEventOutboxMessage;
+import repository.UploadEventOutboxRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * UploadEventOutboxRelay - Prosleđivanje upload event-a iz outbox tabele u RabbitMQ.
+ *
+ * Na svakih {@code poll-interval-ms} preuzima grupu PENDING event-a i šalje je
+ * sa publisher confirms, van transakcije - čekanje potvrda (do confirm-timeout-ms)
+ * ne drži lock-ove ni konekciju ka bazi. Preuzimanje, retry i statusi: OutboxProcessor.
+ *
+ * "At least once": ako instanca padne posle ack-a a pre upisa SENT, event se
+ * šalje ponovo posle isteka lease-a (isti messageId). Redosled po postu čuva
+ * upit - preuzet event ostaje PENDING, pa sledeći event posta čeka dok
+ * prethodni ne izađe iz PENDING.
+ */
+@Service
+public class UploadEventOutboxRelay extends OutboxProcessor<UploadEventOutboxMessage> {
+
+    @Autowired
+    private UploadEventOutboxRepository outboxRepository;
+
+    @Autowired
+    private UploadEventPublisher publisher;
+
+    @Value("${app.upload-events.relay.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.upload-events.relay.batch-size:50}")
+    private int batchSize;
+
+    @Value("${app.upload-events.relay.max-batches-per-run:20}")
+    private int maxBatchesPerRun;
+
+    @Value("${app.upload-events.relay.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${app.upload-events.relay.backoff-initial-ms:1000}")
+    private long backoffInitialMs;
+
+    @Value("${app.upload-events.relay.backoff-max-ms:300000}")
+    private long backoffMaxMs;
+
+    // Preuzeta grupa je rezervisana ovoliko dugo - mora biti duže od čekanja potvrda
+    @Value("${app.upload-events.relay.lease-ms:60000}")
+    private long leaseMs;
+
+    // SENT redovi se čuvaju ovoliko dugo (za proveru), zatim se brišu
+    @Value("${app.upload-events.relay.retention-hours:24}")
+    private long retentionHours;
+
+    private Timer lagTimer;
+
+    // ============================================
+    // LIFECYCLE
+    // ============================================
+
+    @PostConstruct
+    public void init() {
+        lagTimer = Timer.builder("upload.events.publish.latency")
+                .description("Od upisa u outbox (commit posta) do ack-a broker-a")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+
+        initOutbox("upload.events.outbox", "📮 UploadEventOutboxRelay:", new Settings(
+                batchSize, maxBatchesPerRun, maxAttempts, backoffInitialMs, backoffMaxMs, leaseMs));
+    }
+
+    // ============================================
+    // PUBLIC METODE
+    // ============================================
+
+    @Scheduled(fixedDelayString = "${app.upload-events.relay.poll-interval-ms:500}")
+    public void relayPending() {
+        if (!enabled) {
+            return;
+        }
+        processPending();
+    }
+
+    /**
+     * @return broj obrađenih event-a
+     */
+    public int relayBatch() {
+        return processBatch();
+    }
+
+    @Scheduled(cron = "${app.upload-events.relay.cleanup-cron:0 30 * * * *}")
+    public void deleteSent() {
+        if (!enabled) {
+            return;
+        }
+        Integer deleted = transactionTemplate.execute(status ->
+                outboxRepository.deleteSentBefore(LocalDateTime.now().minusHours(retentionHours)));
+
+        if (deleted != null && deleted > 0) {
+            System.out.println("🧹 Outbox: obrisano " + deleted + " poslatih upload event-a");
+        }
+    }
+
+    // ============================================
+    // OUTBOX
+    // ============================================
+
+    @Override
+    protected List<UploadEventOutboxMessage> findDue(LocalDateTime now, int limit) {
+        return outboxRepository.findDueForRelay(now, PageRequest.of(0, limit));
+    }
+
+    @Override
+    protected Map<UploadEventOutboxMessage, String> send(List<UploadEventOutboxMessage> batch) {
+        return publisher.sendBatch(batch);
+    }
+
+    @Override
+    protected void saveAll(List<UploadEventOutboxMessage> batch) {
+        outboxRepository.saveAll(batch);
+    }
+
+    @Override
+    protected long countPending() {
+        return outboxRepository.countByStatus(UploadEventOutboxMessage.STATUS_PENDING);
+    }
+
+    @Override
+    protected String describe(UploadEventOutboxMessage message) {
+        return "Upload event za post " + message.getPostId();
+    }
+
+    @Override
+    protected void onSent(UploadEventOutboxMessage message, LocalDateTime sentAt) {
+        lagTimer.record(Duration.between(message.getCreatedAt(), sentAt));
+    }
+}
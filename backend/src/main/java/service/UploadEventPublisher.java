@@ -0,0 +1,233 @@
+package service;
+
+import config.RabbitMQConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import model.UploadEventOutboxMessage;
+import repository.UploadEventOutboxRepository;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * UploadEventPublisher - Upload event-i kroz outbox i slanje sa publisher confirms.
+ *
+ * Producer-i (JSON / Protobuf) pripreme poruku i predaju je ovde:
+ * - publish() samo upiše red u upload_event_outbox, u transakciji pozivaoca
+ *   (PostService.createPost) - broker ne produžava transakciju
+ * - UploadEventOutboxRelay posle commit-a uzima grupe i zove sendBatch()
+ *
+ * sendBatch() šalje celu grupu preko jednog kanala, svaki event na particiju
+ * svog posta (UploadPartitioner); potvrda broker-a se vezuje za red preko
+ * CorrelationData (ID = outbox red + pokušaj), a najviše {@code max-in-flight}
+ * poruka čeka potvrdu.
+ */
+@Service
+public class UploadEventPublisher {
+
+    @Autowired
+    private RabbitTemplate rabbitTemplate;
+
+    @Autowired
+    private UploadEventOutboxRepository outboxRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private UploadPartitioner partitioner;
+
+    @Value("${app.upload-events.max-in-flight:256}")
+    private int maxInFlight;
+
+    @Value("${app.upload-events.confirm-timeout-ms:5000}")
+    private long confirmTimeoutMs;
+
+    private Semaphore inFlight;
+
+    private Timer confirmTimer;
+    private Counter ackedCounter;
+    private Counter nackedCounter;
+    private Counter returnedCounter;
+
+    // ============================================
+    // LIFECYCLE
+    // ============================================
+
+    @PostConstruct
+    public void init() {
+        inFlight = new Semaphore(maxInFlight);
+
+        confirmTimer = Timer.builder("upload.events.confirm.latency")
+                .description("Od slanja poruke do ack-a broker-a")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+
+        ackedCounter = Counter.builder("upload.events.published")
+                .tag("result", "acked")
+                .description("Poruke koje je broker potvrdio")
+                .register(meterRegistry);
+
+        nackedCounter = Counter.builder("upload.events.published")
+                .tag("result", "nacked")
+                .description("Nack, timeout potvrde ili greška konekcije")
+                .register(meterRegistry);
+
+        returnedCounter = Counter.builder("upload.events.published")
+                .tag("result", "returned")
+                .description("Poruke koje exchange nije mogao da rutira")
+                .register(meterRegistry);
+
+        Gauge.builder("upload.events.in-flight", this, UploadEventPublisher::getInFlight)
+                .description("Poslate poruke koje čekaju potvrdu broker-a")
+                .register(meterRegistry);
+
+        System.out.println("🐇 UploadEventPublisher: inFlight=" + maxInFlight
+                + ", confirmTimeout=" + confirmTimeoutMs + "ms");
+    }
+
+    // ============================================
+    // PUBLIC METODE
+    // ============================================
+
+    /**
+     * Upis event-a u outbox. U transakciji pozivaoca: rollback posta briše i event.
+     */
+    public UploadEventOutboxMessage publish(Long postId, Message message) {
+        MessageProperties props = message.getMessageProperties();
+        return outboxRepository.save(new UploadEventOutboxMessage(
+                postId, props.getContentType(), props.getContentEncoding(), message.getBody()));
+    }
+
+    /**
+     * Šalje grupu na upload exchange i čeka potvrde (najviše confirm-timeout).
+     * Vraća mapu poruka koje nisu potvrđene (ključ = outbox red, vrednost = razlog);
+     * sve ostale je broker prihvatio.
+     */
+    public Map<UploadEventOutboxMessage, String> sendBatch(List<UploadEventOutboxMessage> batch) {
+        Map<UploadEventOutboxMessage, CorrelationData> sent = new LinkedHashMap<>();
+        Map<UploadEventOutboxMessage, String> failures = new LinkedHashMap<>();
+
+        try {
+            rabbitTemplate.invoke(operations -> {
+                for (UploadEventOutboxMessage outbox : batch) {
+                    CorrelationData correlation = new CorrelationData(
+                            "upload-" + outbox.getId() + "-" + outbox.getAttempts());
+
+                    acquireSlot();  // Pun prozor → čekaj potvrde prethodnih poruka
+                    long sentAt = System.nanoTime();
+                    try {
+                        // Isti post → ista particija → redosled kojim je upisan u outbox
+                        operations.send(RabbitMQConfig.UPLOAD_EXCHANGE, partitioner.routingKey(outbox.getPostId()),
+                                toMessage(outbox), correlation);
+                    } catch (RuntimeException e) {
+                        inFlight.release();
+                        throw e;
+                    }
+
+                    // Mesto u prozoru se oslobađa na ack, nack ili istek roka
+                    correlation.getFuture()
+                            .orTimeout(confirmTimeoutMs, TimeUnit.MILLISECONDS)
+                            .whenComplete((confirm, error) -> {
+                                inFlight.release();
+                                if (confirm != null && confirm.isAck()) {
+                                    confirmTimer.record(System.nanoTime() - sentAt, TimeUnit.NANOSECONDS);
+                                }
+                            });
+                    sent.put(outbox, correlation);
+                }
+                return null;
+            });
+
+        } catch (AmqpException e) {
+            // Poslate poruke dobijaju nack kada se kanal zatvori; ostale padaju ovde
+            for (UploadEventOutboxMessage outbox : batch) {
+                if (!sent.containsKey(outbox)) {
+                    nackedCounter.increment();
+                    failures.put(outbox, "Slanje nije uspelo: " + e.getMessage());
+                }
+            }
+        }
+
+        sent.forEach((outbox, correlation) -> {
+            String failure = awaitConfirm(correlation);
+            if (failure != null) {
+                failures.put(outbox, failure);
+            }
+        });
+
+        return failures;
+    }
+
+    public int getInFlight() {
+        return maxInFlight - inFlight.availablePermits();
+    }
+
+    // ============================================
+    // POMOĆNE METODE
+    // ============================================
+
+    private Message toMessage(UploadEventOutboxMessage outbox) {
+        MessageProperties props = new MessageProperties();
+        props.setContentType(outbox.getContentType());
+        props.setContentEncoding(outbox.getContentEncoding());  // npr. gzip - consumer raspakuje
+        props.setMessageId("upload-" + outbox.getId());  // Isti ID i pri ponovnom slanju → consumer prepoznaje duplikat
+        props.setHeader("postId", outbox.getPostId());
+        return new Message(outbox.getPayload(), props);
+    }
+
+    private void acquireSlot() {
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Slanje upload event-a prekinuto!", e);
+        }
+    }
+
+    /**
+     * Razlog neuspeha ili null ako je broker potvrdio i rutirao poruku.
+     */
+    private String awaitConfirm(CorrelationData correlation) {
+        try {
+            CorrelationData.Confirm confirm = correlation.getFuture().get();
+
+            if (!confirm.isAck()) {
+                nackedCounter.increment();
+                return "Nack: " + confirm.getReason();
+            }
+            if (correlation.getReturned() != null) {
+                returnedCounter.increment();
+                return "Nije rutirana: " + correlation.getReturned().getReplyText();
+            }
+            ackedCounter.increment();
+            return null;
+
+        } catch (ExecutionException e) {
+            nackedCounter.increment();
+            return e.getCause() instanceof TimeoutException
+                    ? "Bez potvrde u roku od " + confirmTimeoutMs + "ms"
+                    : "Greška potvrde: " + e.getCause().getMessage();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            nackedCounter.increment();
+            return "Čekanje potvrde prekinuto";
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package service;
+
+import config.RabbitMQConfig;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * UploadPartitioner - Particija upload event-a po postId (consistent hashing).
+ *
+ * Svi event-i jednog posta idu na isti routing key (video.upload.p<N>) → isti
+ * partition queue → jedan aktivan consumer (x-single-active-consumer), pa
+ * consumer-app ih obrađuje redom. Različiti postovi se obrađuju paralelno,
+ * po jedan consumer po particiji.
+ *
+ * Promena broja particija seli samo ~1/N postova (ConsistentHashRing), ali
+ * event-i posta koji je promenio particiju tokom prelaza nisu uređeni -
+ * particije se menjaju kad su queue-ovi prazni.
+ */
+@Component
+public class UploadPartitioner {
+
+    // Tačaka po particiji na prstenu - ujednačena raspodela i za mali broj particija
+    private static final int VIRTUAL_NODES = 128;
+
+    // 0 = bez particija, sve ide u video.upload.queue (kao ranije)
+    @Value("${app.upload-events.partitions:4}")
+    private int partitions;
+
+    private ConsistentHashRing ring;
+
+    // ============================================
+    // LIFECYCLE
+    // ============================================
+
+    @PostConstruct
+    public void init() {
+        List<String> partitionIds = new ArrayList<>();
+        for (int partition = 0; partition < partitions; partition++) {
+            partitionIds.add(String.valueOf(partition));
+        }
+        ring = new ConsistentHashRing(partitionIds, VIRTUAL_NODES);
+
+        System.out.println("🔀 UploadPartitioner: " + (partitions > 0
+                ? partitions + " particija (" + RabbitMQConfig.UPLOAD_PARTITION_QUEUE_PREFIX + "0.." + (partitions - 1) + ")"
+                : "bez particija → " + RabbitMQConfig.UPLOAD_QUEUE));
+    }
+
+    // ============================================
+    // PUBLIC METODE
+    // ============================================
+
+    /**
+     * Particija posta ili -1 ako particije nisu uključene (ili postId nije poznat).
+     */
+    public int partitionOf(Long postId) {
+        if (ring.isEmpty() || postId == null) {
+            return -1;
+        }
+        return Integer.parseInt(ring.ownerOf("post:" + postId));
+    }
+
+    /**
+     * Routing key na upload exchange-u: video.upload.p<N> ili video.upload (bez particija).
+     */
+    public String routingKey(Long postId) {
+        int partition = partitionOf(postId);
+        return partition >= 0
+                ? RabbitMQConfig.UPLOAD_PARTITION_ROUTING_PREFIX + partition
+                : RabbitMQConfig.UPLOAD_ROUTING_KEY;
+    }
+
+    public int getPartitions() {
+        return partitions;
+    }
+}
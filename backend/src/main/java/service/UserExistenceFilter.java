@@ -0,0 +1,205 @@
+package service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * UserExistenceFilter - Bloom filter ispred existsByUsername / existsByEmail.
+ *
+ * Filter "ne postoji" je siguran odgovor → baza se preskače.
+ * Filter "možda postoji" → pitamo bazu (lažno pozitivni ili obrisani korisnici).
+ * Dok filter nije napunjen (start aplikacije) sve provere idu u bazu.
+ *
+ * Brisanje nije podržano, pa se filter periodično gradi iz početka
+ * (i ranije ako se napuni preko očekivanog broja korisnika).
+ *
+ * Filter je lokalan za čvor: pored korisnika iz poslednje izgradnje zna samo za
+ * registracije na ovom čvoru. Korisnik registrovan na drugom čvoru je "ne postoji"
+ * do sledeće izgradnje (rebuild-cron) - registracija se zato oslanja na unique
+ * constraint u bazi, a /auth/availability može kratko prijaviti zauzeto ime kao slobodno.
+ */
+@Service
+public class UserExistenceFilter {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.user-filter.expected-users:100000}")
+    private long expectedUsers;
+
+    @Value("${app.user-filter.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    @Value("${app.user-filter.warmup-page-size:5000}")
+    private int warmupPageSize;
+
+    // Aktivni filteri (null dok se ne napune)
+    private volatile Filters active;
+
+    // Filteri koji se trenutno grade - nove registracije idu i u njih
+    private volatile Filters building;
+
+    private Counter skippedDbCounter;
+    private Counter dbFallbackCounter;
+
+    private static class Filters {
+        final BloomFilter usernames;
+        final BloomFilter emails;
+
+        Filters(long capacity, double fpp) {
+            this.usernames = new BloomFilter(capacity, fpp);
+            this.emails = new BloomFilter(capacity, fpp);
+        }
+
+        void put(String username, String email) {
+            usernames.put(username);
+            emails.put(email);
+        }
+    }
+
+    // ============================================
+    // LIFECYCLE
+    // ============================================
+
+    @PostConstruct
+    public void init() {
+        skippedDbCounter = Counter.builder("users.existence.filter")
+                .tag("result", "definitely_absent")
+                .description("Provere odgovorene iz Bloom filtera (bez baze)")
+                .register(meterRegistry);
+
+        dbFallbackCounter = Counter.builder("users.existence.filter")
+                .tag("result", "db_fallback")
+                .description("Provere koje su morale u bazu")
+                .register(meterRegistry);
+
+        Gauge.builder("users.existence.filter.insertions", this,
+                        f -> f.active != null ? f.active.usernames.getInsertions() : 0)
+                .description("Broj korisnika u Bloom filteru")
+                .register(meterRegistry);
+    }
+
+    // Posle DataInitializer-a (CommandLineRunner) - baza je popunjena
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        rebuild(expectedUsers);
+    }
+
+    // Periodično: izbacuje obrisane korisnike iz filtera
+    @Scheduled(cron = "${app.user-filter.rebuild-cron:0 30 3 * * *}")
+    public void scheduledRebuild() {
+        rebuild(capacityFor(userRepository.count()));
+    }
+
+    // Ako je filter prepunjen, stopa lažno pozitivnih raste - gradi se veći
+    @Scheduled(fixedDelayString = "${app.user-filter.saturation-check-ms:600000}")
+    public void rebuildIfSaturated() {
+        Filters current = active;
+        if (current != null && current.usernames.getInsertions() > current.usernames.getExpectedInsertions()) {
+            System.out.println("🌸 Bloom filter je prepunjen, gradim veći...");
+            rebuild(capacityFor(current.usernames.getInsertions()));
+        }
+    }
+
+    // ============================================
+    // PUBLIC METODE
+    // ============================================
+
+    public boolean isUsernameTaken(String username) {
+        Filters current = active;
+        if (current != null && !current.usernames.mightContain(username)) {
+            skippedDbCounter.increment();
+            return false;
+        }
+        dbFallbackCounter.increment();
+        return userRepository.existsByUsername(username);
+    }
+
+    public boolean isEmailTaken(String email) {
+        Filters current = active;
+        if (current != null && !current.emails.mightContain(email)) {
+            skippedDbCounter.increment();
+            return false;
+        }
+        dbFallbackCounter.increment();
+        return userRepository.existsByEmail(email);
+    }
+
+    // Poziva se POSLE commit-a registracije.
+    // Redosled čitanja je bitan: prvo building pa active, da se korisnik
+    // ne izgubi ako se filteri zamene između dva čitanja.
+    public void recordUser(String username, String email) {
+        Filters next = building;
+        Filters current = active;
+        if (current != null) {
+            current.put(username, email);
+        }
+        if (next != null && next != current) {
+            next.put(username, email);
+        }
+    }
+
+    public boolean isReady() {
+        return active != null;
+    }
+
+    // ============================================
+    // POMOĆNE METODE
+    // ============================================
+
+    private synchronized void rebuild(long capacity) {
+        long start = System.currentTimeMillis();
+        Filters fresh = new Filters(capacity, falsePositiveRate);
+        building = fresh;
+
+        try {
+            long loaded = 0;
+            Long lastId = 0L;
+            while (true) {
+                List<Object[]> page = userRepository.findUsernameAndEmailAfterId(
+                        lastId, PageRequest.of(0, warmupPageSize));
+                if (page.isEmpty()) {
+                    break;
+                }
+                for (Object[] row : page) {
+                    lastId = (Long) row[0];
+                    fresh.put((String) row[1], (String) row[2]);
+                }
+                loaded += page.size();
+                if (page.size() < warmupPageSize) {
+                    break;
+                }
+            }
+
+            active = fresh;
+            System.out.println("🌸 Bloom filter napunjen: " + loaded + " korisnika, kapacitet=" + capacity
+                    + ", bitova=" + fresh.usernames.getBitCount()
+                    + ", hash funkcija=" + fresh.usernames.getHashFunctions()
+                    + " (" + (System.currentTimeMillis() - start) + "ms)");
+        } catch (Exception e) {
+            // Stari filter (ili baza) ostaje u upotrebi
+            System.out.println("⚠️ Punjenje Bloom filtera nije uspelo: " + e.getMessage());
+        } finally {
+            building = null;
+        }
+    }
+
+    private long capacityFor(long users) {
+        return Math.max(expectedUsers, users * 2);
+    }
+}
@@ -7,10 +7,15 @@ import model.User;
 import repository.ActivationTokenRepository;
 import repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import jakarta.annotation.PostConstruct;
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -27,11 +32,24 @@ public class UserService {
     private EmailService emailService;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private PasswordHashingService passwordHashingService;  // BCrypt na posebnom pool-u
 
     @Autowired
     private ValidationService validationService;  // ← DODATO
 
+    @Autowired
+    private UserExistenceFilter userExistenceFilter;  // Bloom filter ispred existsBy... upita
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
     // Registracija novog korisnika
     public UserDTO registerUser(RegisterRequest request) {
         
@@ -44,12 +62,12 @@ public class UserService {
         validationService.validateAddress(request.getAddress());
         
         // KORAK 1: Validacija - provera da li email već postoji
-        if (userRepository.existsByEmail(request.getEmail())) {
+        if (userExistenceFilter.isEmailTaken(request.getEmail())) {
             throw new RuntimeException("Email već postoji!");
         }
         
         // KORAK 2: Validacija - provera da li username već postoji
-        if (userRepository.existsByUsername(request.getUsername())) {
+        if (userExistenceFilter.isUsernameTaken(request.getUsername())) {
             throw new RuntimeException("Username već postoji!");
         }
         
@@ -62,38 +80,68 @@ public class UserService {
         User user = new User();
         user.setUsername(request.getUsername());
         user.setEmail(request.getEmail());
-        user.setPassword(passwordEncoder.encode(request.getPassword()));
+        user.setPassword(passwordHashingService.encode(request.getPassword()));
         user.setFirstName(request.getFirstName());
         user.setLastName(request.getLastName());
         user.setAddress(request.getAddress());
         user.setActivated(false);
         user.setEnabled(true);
         
-        // KORAK 5: Čuvanje korisnika u bazi
-        User savedUser = userRepository.save(user);
-        
-        // KORAK 6: Kreiranje activation tokena
-        ActivationToken token = new ActivationToken(savedUser);
-        tokenRepository.save(token);
-        
-        // KORAK 7: Slanje email-a za aktivaciju (sa try-catch)
+        // KORAK 5-7: User + activation token + email u outbox-u - jedna transakcija.
+        // Email šalje EmailOutboxDispatcher u pozadini; registracija ne čeka SMTP.
+        User savedUser;
         try {
-            emailService.sendActivationEmail(
-                savedUser.getEmail(), 
-                savedUser.getUsername(), 
-                token.getToken()
-            );
-            System.out.println("✅ Email poslat na: " + savedUser.getEmail());
-        } catch (Exception e) {
-            System.out.println("⚠️ Email nije mogao biti poslat: " + e.getMessage());
-            System.out.println("📧 Token za aktivaciju: " + token.getToken());
-            System.out.println("🔗 Link: http://localhost:9090/auth/activate?token=" + token.getToken());
+            savedUser = transactionTemplate.execute(status -> {
+                User persisted = userRepository.save(user);
+
+                ActivationToken token = new ActivationToken(persisted);
+                tokenRepository.save(token);
+
+                emailService.queueActivationEmail(
+                    persisted.getEmail(),
+                    persisted.getUsername(),
+                    token.getToken()
+                );
+                return persisted;
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Filter zna samo za registracije na ovom čvoru (i iz poslednje izgradnje) -
+            // isto ime / email sa drugog čvora zaustavlja unique constraint
+            throw duplicateUser(request, e);
         }
+        userExistenceFilter.recordUser(savedUser.getUsername(), savedUser.getEmail());
+        System.out.println("📬 Email za aktivaciju stavljen u red: " + savedUser.getEmail());
         
         // KORAK 8: Vraćanje DTO objekta (bez lozinke)
         return convertToDTO(savedUser);
     }
 
+    // Unique constraint → ista poruka kao provera pre upisa
+    private RuntimeException duplicateUser(RegisterRequest request, DataIntegrityViolationException e) {
+        if (userRepository.existsByEmail(request.getEmail())) {
+            return new RuntimeException("Email već postoji!");
+        }
+        if (userRepository.existsByUsername(request.getUsername())) {
+            return new RuntimeException("Username već postoji!");
+        }
+        return e;
+    }
+
+    // Provera dostupnosti username-a / email-a (dok korisnik kuca u formi).
+    // null parametar se preskače.
+    public Map<String, Object> checkAvailability(String username, String email) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        if (username != null && !username.isBlank()) {
+            result.put("username", username);
+            result.put("usernameAvailable", !userExistenceFilter.isUsernameTaken(username));
+        }
+        if (email != null && !email.isBlank()) {
+            result.put("email", email);
+            result.put("emailAvailable", !userExistenceFilter.isEmailTaken(email));
+        }
+        return result;
+    }
+
     // Aktivacija naloga preko tokena
     public String activateAccount(String tokenString) {
         
@@ -0,0 +1,132 @@
+package service;
+
+import config.WatchPartyDestinations;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.simp.user.SimpSubscription;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * WatchPartyBinarySubscriptions - Koje sobe imaju pretplatnike na /bin (Protobuf) kanal.
+ *
+ * Broadcaster šalje binarnu kopiju događaja samo sobama koje je neko sluša -
+ * u uobičajenom slučaju (samo STOMP/JSON klijenti) nema dodatne serijalizacije
+ * ni dodatne poruke broker-u.
+ *
+ * Lokalne pretplate se broje iz SUBSCRIBE / UNSUBSCRIBE / DISCONNECT događaja.
+ * U relay modu pretplatnik može biti na drugom čvoru: sobe sa binarnim
+ * pretplatama iz registra korisnika (deli se između čvorova, samo sesije sa
+ * JWT-om) osvežavaju se na {@code binary-refresh-ms}, pa udaljeni klijent
+ * počinje da dobija binarne događaje sa kašnjenjem osvežavanja registra.
+ */
+@Service
+public class WatchPartyBinarySubscriptions {
+
+    @Autowired
+    private WatchPartyDestinations destinations;
+
+    @Autowired(required = false)
+    private SimpUserRegistry userRegistry;
+
+    // sessionId → (subscriptionId → roomId), samo /bin pretplate
+    private final Map<String, Map<String, Long>> sessions = new ConcurrentHashMap<>();
+
+    // roomId → broj lokalnih /bin pretplata
+    private final Map<Long, Integer> localCounts = new ConcurrentHashMap<>();
+
+    // Sobe sa /bin pretplatama na bilo kom čvoru (relay mod)
+    private volatile Set<Long> clusterRooms = Set.of();
+
+    // ============================================
+    // WEBSOCKET DOGAĐAJI
+    // ============================================
+
+    @EventListener
+    public void onSessionSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        subscribe(accessor.getSessionId(), accessor.getSubscriptionId(), accessor.getDestination());
+    }
+
+    @EventListener
+    public void onSessionUnsubscribe(SessionUnsubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        unsubscribe(accessor.getSessionId(), accessor.getSubscriptionId());
+    }
+
+    @EventListener
+    public void onSessionDisconnect(SessionDisconnectEvent event) {
+        disconnect(event.getSessionId());
+    }
+
+    // ============================================
+    // PUBLIC METODE
+    // ============================================
+
+    public void subscribe(String sessionId, String subscriptionId, String destination) {
+        if (sessionId == null || !destinations.isRoomBinary(destination)) {
+            return;
+        }
+        Long roomId = destinations.roomIdOf(destination);
+        Long previous = sessions.computeIfAbsent(sessionId, id -> new ConcurrentHashMap<>())
+                .put(subscriptionId, roomId);
+        if (previous == null) {
+            localCounts.merge(roomId, 1, Integer::sum);
+        }
+    }
+
+    public void unsubscribe(String sessionId, String subscriptionId) {
+        Map<String, Long> subscriptions = sessionId != null ? sessions.get(sessionId) : null;
+        if (subscriptions == null) {
+            return;
+        }
+        Long roomId = subscriptions.remove(subscriptionId);
+        if (roomId != null) {
+            release(roomId);
+        }
+    }
+
+    public void disconnect(String sessionId) {
+        Map<String, Long> subscriptions = sessionId != null ? sessions.remove(sessionId) : null;
+        if (subscriptions != null) {
+            subscriptions.values().forEach(this::release);
+        }
+    }
+
+    public boolean hasSubscribers(Long roomId) {
+        return localCounts.containsKey(roomId) || clusterRooms.contains(roomId);
+    }
+
+    // Relay mod: jedan prolaz kroz registar korisnika za sve sobe (ne po događaju)
+    @Scheduled(fixedDelayString = "${app.watch-party.broadcast.binary-refresh-ms:1000}")
+    public void refreshClusterRooms() {
+        if (!destinations.isRelay() || userRegistry == null) {
+            return;
+        }
+        Set<Long> rooms = new HashSet<>();
+        for (SimpSubscription subscription : userRegistry.findSubscriptions(
+                s -> destinations.isRoomBinary(s.getDestination()))) {
+            rooms.add(destinations.roomIdOf(subscription.getDestination()));
+        }
+        clusterRooms = rooms;
+    }
+
+    // ============================================
+    // POMOĆNE METODE
+    // ============================================
+
+    // Atomski u mapi - poslednja pretplata uklanja sobu
+    private void release(Long roomId) {
+        localCounts.computeIfPresent(roomId, (id, count) -> count > 1 ? count - 1 : null);
+    }
+}
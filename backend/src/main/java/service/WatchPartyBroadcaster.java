@@ -0,0 +1,276 @@
+package service;
+
+import config.WatchPartyDestinations;
+import dto.WatchPartyEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * WatchPartyBroadcaster - Fan-out Watch Party događaja sa spajanjem (coalescing).
+ *
+ * Umesto da svaki događaj odmah ide svim pretplatnicima, događaji za istu
+ * destinaciju se skupljaju {@code window-ms} i šalje se samo POSLEDNJI
+ * događaj po ključu (npr. "video", "state", "member:marko"). Brzi niz seek-ova
+ * ili ponovljenih start-video poruka postaje jedna poruka po prozoru.
+ *
+ * Po destinaciji najviše {@code max-pending} različitih ključeva čeka u
+ * prozoru. Spajaju se samo isti ključevi; novi ključ u punom prozoru (npr.
+ * talas join-ova) ne odbacuje se nego prvo pošalje ono što čeka.
+ *
+ * Outbox destinacije postoji samo dok nešto čeka: posle slanja se uklanja
+ * pod svojim lock-om, pa mapa ne raste sa svim destinacijama koje su ikad korišćene.
+ *
+ * WatchPartyEvent se serijalizuje jednom u JSON (destinacija sobe) i - samo
+ * dok soba ima /bin pretplatnike - jednom u Protobuf; broker isti niz bajtova
+ * šalje svim pretplatnicima.
+ */
+@Service
+public class WatchPartyBroadcaster {
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private WatchPartyDestinations destinations;
+
+    @Autowired
+    private WatchPartyEventCodec codec;
+
+    @Autowired
+    private WatchPartyBinarySubscriptions binarySubscriptions;
+
+    @Value("${app.watch-party.broadcast.window-ms:100}")
+    private long windowMs;
+
+    @Value("${app.watch-party.broadcast.max-pending:32}")
+    private int maxPending;
+
+    private final Map<String, Outbox> outboxes = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService scheduler;
+
+    private Counter publishedCounter;
+    private Counter sentCounter;
+    private Counter coalescedCounter;
+    private Counter earlyFlushCounter;
+    private DistributionSummary jsonBytes;
+    private DistributionSummary protobufBytes;
+
+    // Događaji jedne destinacije koji čekaju kraj prozora
+    private static class Outbox {
+        final LinkedHashMap<String, Object> pending = new LinkedHashMap<>();
+        boolean scheduled;
+        boolean removed;  // Izbačen iz mape - publish uzima novi
+    }
+
+    // ============================================
+    // LIFECYCLE
+    // ============================================
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadNumber = new AtomicInteger(1);
+        scheduler = Executors.newScheduledThreadPool(1, runnable -> {
+            Thread thread = new Thread(runnable, "ws-coalesce-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        publishedCounter = Counter.builder("watchparty.broadcast.events")
+                .tag("result", "published")
+                .description("Događaji predati broadcaster-u")
+                .register(meterRegistry);
+
+        sentCounter = Counter.builder("watchparty.broadcast.events")
+                .tag("result", "sent")
+                .description("Događaji stvarno poslati broker-u")
+                .register(meterRegistry);
+
+        coalescedCounter = Counter.builder("watchparty.broadcast.events")
+                .tag("result", "coalesced")
+                .description("Događaji zamenjeni novijim u istom prozoru")
+                .register(meterRegistry);
+
+        earlyFlushCounter = Counter.builder("watchparty.broadcast.early-flush")
+                .description("Prozori poslati pre isteka jer je stigao novi ključ u pun prozor")
+                .register(meterRegistry);
+
+        jsonBytes = DistributionSummary.builder("watchparty.broadcast.payload")
+                .tag("format", "json")
+                .baseUnit("bytes")
+                .description("Veličina događaja sobe po formatu")
+                .register(meterRegistry);
+
+        protobufBytes = DistributionSummary.builder("watchparty.broadcast.payload")
+                .tag("format", "protobuf")
+                .baseUnit("bytes")
+                .description("Veličina događaja sobe po formatu")
+                .register(meterRegistry);
+
+        System.out.println("📡 WatchPartyBroadcaster: prozor=" + windowMs + "ms, maxPending=" + maxPending);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+    }
+
+    // ============================================
+    // PUBLIC METODE
+    // ============================================
+
+    /**
+     * Događaj se šalje na kraju prozora; noviji događaj sa istim ključem
+     * zamenjuje stariji.
+     */
+    public void publish(String destination, String key, Object event) {
+        publishedCounter.increment();
+
+        if (windowMs <= 0) {
+            send(destination, event);
+            return;
+        }
+
+        while (true) {
+            Outbox outbox = outboxes.computeIfAbsent(destination, d -> new Outbox());
+
+            synchronized (outbox) {
+                if (outbox.removed) {
+                    continue;  // Upravo poslat i uklonjen - sledeći krug pravi novi
+                }
+
+                if (outbox.pending.containsKey(key)) {
+                    outbox.pending.remove(key);  // Na kraj reda - čuva redosled poslednjih izmena
+                    coalescedCounter.increment();
+                } else if (outbox.pending.size() >= maxPending) {
+                    // Različiti ključevi se ne spajaju - pošalji ranije umesto da se izgube
+                    sendPending(destination, outbox);
+                    earlyFlushCounter.increment();
+                }
+                outbox.pending.put(key, event);
+
+                if (!outbox.scheduled) {
+                    outbox.scheduled = true;
+                    scheduler.schedule(() -> flush(destination, outbox), windowMs, TimeUnit.MILLISECONDS);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Odmah: prvo šalje sve što čeka za destinaciju, pa ovaj događaj
+     * (npr. ROOM_CLOSED mora stići poslednji).
+     */
+    public void publishNow(String destination, Object event) {
+        publishedCounter.increment();
+
+        Outbox outbox = outboxes.get(destination);
+        if (outbox == null) {
+            send(destination, event);
+            return;
+        }
+
+        // Pod lock-om outbox-a: publish ne može da doda događaj između slanja i uklanjanja
+        synchronized (outbox) {
+            sendPending(destination, outbox);
+            send(destination, event);
+            remove(destination, outbox);
+        }
+    }
+
+    // ============================================
+    // POMOĆNE METODE
+    // ============================================
+
+    private void flush(String destination, Outbox outbox) {
+        synchronized (outbox) {
+            if (outbox.removed) {
+                return;  // publishNow je već poslao sve
+            }
+            sendPending(destination, outbox);
+            outbox.scheduled = false;
+            remove(destination, outbox);
+        }
+    }
+
+    // Poziva se pod lock-om outbox-a - slanje pod lock-om čuva redosled po destinaciji
+    private void sendPending(String destination, Outbox outbox) {
+        for (Object event : outbox.pending.values()) {
+            send(destination, event);
+        }
+        outbox.pending.clear();
+    }
+
+    // Prazan outbox bez zakazanog flush-a izlazi iz mape
+    private void remove(String destination, Outbox outbox) {
+        outbox.removed = true;
+        outboxes.remove(destination, outbox);
+    }
+
+    public int getPendingDestinations() {
+        return outboxes.size();
+    }
+
+    private void send(String destination, Object event) {
+        try {
+            if (event instanceof WatchPartyEvent roomEvent) {
+                sendRoomEvent(destination, roomEvent);
+            } else {
+                messagingTemplate.convertAndSend(destination, event);
+            }
+            sentCounter.increment();
+        } catch (Exception e) {
+            System.err.println("❌ Broadcast na " + destination + " nije uspeo: " + e.getMessage());
+        }
+    }
+
+    // Jedna serijalizacija po formatu - gotovi bajtovi idu broker-u bez konverzije
+    private void sendRoomEvent(String destination, WatchPartyEvent event) {
+        byte[] json = codec.toJson(event);
+        jsonBytes.record(json.length);
+        messagingTemplate.send(destination, preSerialized(json, MimeTypeUtils.APPLICATION_JSON));
+
+        // Bez native klijenata u sobi nema ni Protobuf serijalizacije ni druge poruke
+        if (!binarySubscriptions.hasSubscribers(event.getRoomId())) {
+            return;
+        }
+
+        // application/octet-stream → native WebSocket klijenti dobijaju binarni frejm
+        byte[] protobuf = codec.toProtobuf(event);
+        protobufBytes.record(protobuf.length);
+        messagingTemplate.send(destinations.roomBinary(event.getRoomId()),
+                preSerialized(protobuf, MimeTypeUtils.APPLICATION_OCTET_STREAM));
+    }
+
+    private Message<byte[]> preSerialized(byte[] payload, MimeType contentType) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(contentType);
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+    }
+}
@@ -0,0 +1,387 @@
+package service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import model.BackendInstance;
+import model.WatchParty;
+import repository.BackendInstanceRepository;
+import repository.WatchPartyRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.context.WebServerInitializedEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * WatchPartyClusterService - Vlasništvo nad sobama kada radi više backend instanci.
+ *
+ * I sa zajedničkim broker-om (relay) stanje sobe je živelo na čvoru koji je
+ * obradio zahtev. Sada svaka soba ima tačno jednog vlasnika:
+ * - žive instance se javljaju kroz tabelu backend_instances (heartbeat + TTL)
+ * - vlasnik sobe = consistent hash prsten nad živim instancama
+ * - komande koje menjaju stanje (join, leave, start-video, close, sync) na
+ *   tuđem čvoru se prosleđuju vlasniku (HTTP, /internal/watch-party/**)
+ * - kada se skup instanci promeni, čvor upiše i otpusti sobe koje više nisu
+ *   njegove, a nove vlasnik učita iz baze (odmah ili pri prvom zahtevu)
+ *
+ * Nema zaključavanja između čvorova - stanje sobe menja samo vlasnik.
+ * Pri promeni vlasnika pozicija reprodukcije se resetuje (kao posle restarta),
+ * a članstvo je stanje iz poslednjeg write-behind upisa.
+ *
+ * Isključeno podrazumevano (app.watch-party.cluster.enabled=false) - tada je
+ * svaka soba lokalna i ništa se ne prosleđuje.
+ */
+@Service
+public class WatchPartyClusterService {
+
+    public static final String TOKEN_HEADER = "X-Cluster-Token";
+
+    @Autowired
+    private BackendInstanceRepository instanceRepository;
+
+    @Autowired
+    private WatchPartyRepository watchPartyRepository;
+
+    @Autowired
+    private WatchPartyRoomRegistry roomRegistry;
+
+    @Lazy
+    @Autowired
+    private WatchPartySyncService syncService;  // Sync servis prosleđuje preko ovog servisa
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.watch-party.cluster.enabled:false}")
+    private boolean enabled;
+
+    // Prazno → nasumični ID pri svakom startu
+    @Value("${app.watch-party.cluster.node-id:}")
+    private String configuredNodeId;
+
+    // Prazno → adresa lokalnog host-a
+    @Value("${app.watch-party.cluster.advertised-host:}")
+    private String advertisedHost;
+
+    // Deljena tajna za /internal/watch-party/** (bez nje interni endpoint-i odbijaju sve)
+    @Value("${app.watch-party.cluster.token:}")
+    private String token;
+
+    @Value("${app.watch-party.cluster.instance-ttl-ms:10000}")
+    private long instanceTtlMs;
+
+    @Value("${app.watch-party.cluster.virtual-nodes:128}")
+    private int virtualNodes;
+
+    @Value("${app.watch-party.cluster.forward-timeout-ms:2000}")
+    private int forwardTimeoutMs;
+
+    // Komanda prosleđena sa drugog čvora se izvršava ovde i kada se pogledi
+    // na prsten trenutno razlikuju - nema prosleđivanja u krug
+    private static final ThreadLocal<Boolean> FORWARDED = ThreadLocal.withInitial(() -> false);
+
+    private String nodeId;
+    private volatile String address;  // Poznata tek kada web server dobije port
+    private volatile ConsistentHashRing ring = new ConsistentHashRing(List.of(), 0);
+    private volatile Map<String, String> addresses = Map.of();
+
+    private RestClient restClient;
+    private TransactionTemplate transactionTemplate;
+
+    private Counter forwardedCounter;
+    private Counter forwardErrorCounter;
+    private Counter releasedCounter;
+    private Counter adoptedCounter;
+
+    // ============================================
+    // LIFECYCLE
+    // ============================================
+
+    @PostConstruct
+    public void init() {
+        nodeId = configuredNodeId.isBlank() ? UUID.randomUUID().toString() : configuredNodeId;
+        transactionTemplate = new TransactionTemplate(transactionManager);
+
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(forwardTimeoutMs);
+        requestFactory.setReadTimeout(forwardTimeoutMs);
+        restClient = RestClient.builder().requestFactory(requestFactory).build();
+
+        forwardedCounter = Counter.builder("watchparty.cluster.forwarded")
+                .tag("result", "ok")
+                .description("Komande prosleđene vlasniku sobe")
+                .register(meterRegistry);
+
+        forwardErrorCounter = Counter.builder("watchparty.cluster.forwarded")
+                .tag("result", "error")
+                .description("Prosleđivanja gde vlasnik nije odgovorio")
+                .register(meterRegistry);
+
+        releasedCounter = Counter.builder("watchparty.cluster.rebalanced")
+                .tag("direction", "released")
+                .description("Sobe predate drugom čvoru")
+                .register(meterRegistry);
+
+        adoptedCounter = Counter.builder("watchparty.cluster.rebalanced")
+                .tag("direction", "adopted")
+                .description("Sobe preuzete sa drugog čvora ili iz baze")
+                .register(meterRegistry);
+
+        Gauge.builder("watchparty.cluster.nodes", this, s -> s.ring.getNodes().size())
+                .description("Broj živih backend instanci u prstenu")
+                .register(meterRegistry);
+
+        if (enabled) {
+            System.out.println("🕸️ WatchPartyClusterService: čvor " + nodeId
+                    + " (ttl=" + instanceTtlMs + "ms, virtualni čvorovi=" + virtualNodes + ")");
+        }
+    }
+
+    @EventListener
+    public void onWebServerStarted(WebServerInitializedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        String host = advertisedHost;
+        if (host.isBlank()) {
+            try {
+                host = InetAddress.getLocalHost().getHostAddress();
+            } catch (UnknownHostException e) {
+                host = "localhost";
+            }
+        }
+        address = "http://" + host + ":" + event.getWebServer().getPort();
+        System.out.println("🕸️ Čvor " + nodeId + " dostupan na " + address);
+
+        heartbeat();  // Odmah u prsten, bez čekanja prvog intervala
+    }
+
+    // ============================================
+    // HEARTBEAT I PRSTEN
+    // ============================================
+
+    @Scheduled(fixedDelayString = "${app.watch-party.cluster.heartbeat-interval-ms:2000}")
+    public void heartbeat() {
+        if (!enabled || address == null) {
+            return;
+        }
+
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            List<BackendInstance> live = transactionTemplate.execute(status -> {
+                BackendInstance self = instanceRepository.findById(nodeId)
+                        .orElseGet(() -> new BackendInstance(nodeId, address));
+                self.setAddress(address);
+                self.setLastHeartbeat(now);
+                instanceRepository.save(self);
+
+                instanceRepository.deleteStale(now.minus(instanceTtlMs * 10, ChronoUnit.MILLIS));
+                return instanceRepository.findByLastHeartbeatAfterOrderByNodeId(
+                        now.minus(instanceTtlMs, ChronoUnit.MILLIS));
+            });
+            updateRing(live);
+        } catch (Exception e) {
+            // Baza nedostupna - ostaje poslednji poznati prsten
+            System.out.println("⚠️ Cluster heartbeat nije uspeo: " + e.getMessage());
+        }
+    }
+
+    void updateRing(List<BackendInstance> live) {
+        Map<String, String> liveAddresses = live.stream()
+                .collect(Collectors.toMap(BackendInstance::getNodeId, BackendInstance::getAddress));
+
+        boolean changed = !liveAddresses.keySet().equals(ring.getNodes());
+        addresses = Map.copyOf(liveAddresses);
+        if (changed) {
+            ring = new ConsistentHashRing(liveAddresses.keySet(), virtualNodes);
+            System.out.println("🔄 Prsten promenjen: " + ring.getNodes());
+        }
+        rebalance(changed);
+    }
+
+    /**
+     * Otpusti sobe koje više nisu naše (upiši pa izbaci iz registra); posle
+     * promene prstena učitaj aktivne sobe koje su sada naše.
+     */
+    private void rebalance(boolean ringChanged) {
+        int released = 0;
+        for (WatchPartyRoomRegistry.RoomState room : new ArrayList<>(roomRegistry.getActiveRooms())) {
+            Long roomId = room.getId();
+            if (!isLocal(roomId) && roomRegistry.release(roomId)) {
+                syncService.forgetRoom(roomId);
+                released++;
+            }
+        }
+        releasedCounter.increment(released);
+
+        int adopted = 0;
+        if (ringChanged) {
+            for (WatchParty party : watchPartyRepository.findByActiveOrderByCreatedAtDesc(true)) {
+                if (isLocal(party.getId()) && adopt(party.getId()).isPresent()) {
+                    adopted++;
+                }
+            }
+        }
+
+        if (released > 0 || adopted > 0) {
+            System.out.println("🔄 Rebalans: otpušteno " + released + ", preuzeto " + adopted + " soba");
+        }
+    }
+
+    // ============================================
+    // PUBLIC METODE
+    // ============================================
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public Set<String> getLiveNodes() {
+        return ring.getNodes();
+    }
+
+    public String ownerOf(Long roomId) {
+        return ring.ownerOf(roomId);
+    }
+
+    /**
+     * Da li ovaj čvor drži autoritativno stanje sobe.
+     * Bez klastera (ili pre prvog heartbeat-a) - uvek da.
+     */
+    public boolean isLocal(Long roomId) {
+        if (!enabled || FORWARDED.get() || ring.isEmpty()) {
+            return true;
+        }
+        return nodeId.equals(ring.ownerOf(roomId));
+    }
+
+    /**
+     * Soba koja je naša, a još nije u registru - učitaj je iz baze.
+     * synchronized: dva istovremena zahteva ne registruju istu sobu dva puta.
+     */
+    public synchronized Optional<WatchPartyRoomRegistry.RoomState> adopt(Long roomId) {
+        Optional<WatchPartyRoomRegistry.RoomState> existing = roomRegistry.get(roomId);
+        if (existing.isPresent() || !enabled) {
+            return existing;
+        }
+        return watchPartyRepository.findById(roomId)
+                .filter(party -> Boolean.TRUE.equals(party.getActive()))
+                .map(party -> {
+                    adoptedCounter.increment();
+                    return roomRegistry.register(party);
+                });
+    }
+
+    /**
+     * Izvrši komandu koja je stigla sa drugog čvora (lokalno, bez daljeg prosleđivanja).
+     */
+    public <T> T runForwarded(Supplier<T> command) {
+        FORWARDED.set(true);
+        try {
+            return command.get();
+        } finally {
+            FORWARDED.remove();
+        }
+    }
+
+    // Poređenje u konstantnom vremenu - trajanje ne otkriva koliko se prefiks poklapa
+    public boolean isValidToken(String presented) {
+        if (!enabled || token.isBlank() || presented == null) {
+            return false;
+        }
+        return MessageDigest.isEqual(token.getBytes(StandardCharsets.UTF_8), presented.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Prosledi komandu vlasniku sobe: POST /internal/watch-party/{roomId}/{action}.
+     * Greška validacije kod vlasnika se baca sa istom porukom kao lokalno.
+     */
+    public <T> T forward(Long roomId, String action, Object body, Class<T> responseType) {
+        return exchange(HttpMethod.POST, roomId, "/" + action, body, responseType);
+    }
+
+    // GET /internal/watch-party/{roomId} - živo stanje sobe sa vlasnika
+    public <T> T fetch(Long roomId, Class<T> responseType) {
+        return exchange(HttpMethod.GET, roomId, "", null, responseType);
+    }
+
+    // ============================================
+    // POMOĆNE METODE
+    // ============================================
+
+    private <T> T exchange(HttpMethod method, Long roomId, String path, Object body, Class<T> responseType) {
+        String owner = ring.ownerOf(roomId);
+        String target = owner != null ? addresses.get(owner) : null;
+        if (target == null) {
+            forwardErrorCounter.increment();
+            throw new RuntimeException("Vlasnik sobe nije dostupan! ID: " + roomId);
+        }
+
+        try {
+            RestClient.RequestBodySpec request = restClient.method(method)
+                    .uri(target + "/internal/watch-party/{roomId}" + path, roomId)
+                    .header(TOKEN_HEADER, token);
+            if (body != null) {
+                request.contentType(MediaType.APPLICATION_JSON).body(body);
+            }
+            T result = request.retrieve().body(responseType);
+            forwardedCounter.increment();
+            return result;
+
+        } catch (HttpClientErrorException e) {
+            // Vlasnik je odgovorio, ali je komanda odbijena (npr. "Samo kreator sobe...")
+            forwardedCounter.increment();
+            throw new RuntimeException(errorMessage(e));
+
+        } catch (RestClientException e) {
+            forwardErrorCounter.increment();
+            throw new RuntimeException("Vlasnik sobe (" + owner + ") nije dostupan: " + e.getMessage(), e);
+        }
+    }
+
+    private String errorMessage(HttpClientErrorException e) {
+        try {
+            Map<?, ?> error = e.getResponseBodyAs(Map.class);
+            if (error != null && error.get("error") != null) {
+                return error.get("error").toString();
+            }
+        } catch (Exception ignored) {
+            // Telo nije JSON
+        }
+        return e.getStatusText();
+    }
+}
@@ -0,0 +1,178 @@
+package service;
+
+import com.example.proto.WatchPartyEventProto;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.protobuf.CodedOutputStream;
+import dto.WatchPartyEvent;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * WatchPartyEventCodec - JSON i Protobuf oblik WatchPartyEvent-a.
+ *
+ * Klase WatchPartyEventProto generiše Maven build iz watch_party_event.proto
+ * (kao UploadEventProto u ProtobufMessageConverter) - izmena šeme bez izmene
+ * mapiranja ne prolazi kompajliranje.
+ * Broadcaster svaki događaj serijalizuje jednom po formatu, a broker isti
+ * niz bajtova šalje svim pretplatnicima.
+ */
+@Component
+public class WatchPartyEventCodec {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // ============================================
+    // JSON
+    // ============================================
+
+    public byte[] toJson(WatchPartyEvent event) {
+        try {
+            return objectMapper.writeValueAsBytes(event);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Greška pri JSON serijalizaciji događaja: " + e.getMessage(), e);
+        }
+    }
+
+    // ============================================
+    // SERIJALIZACIJA: Java → Protobuf Binary
+    // ============================================
+
+    public byte[] toProtobuf(WatchPartyEvent event) {
+        try {
+            WatchPartyEventProto.WatchPartyEvent proto = toProto(event);
+
+            byte[] data = new byte[proto.getSerializedSize()];
+            CodedOutputStream out = CodedOutputStream.newInstance(data);
+            proto.writeTo(out);
+            out.checkNoSpaceLeft();
+            return data;
+        } catch (IOException e) {
+            throw new RuntimeException("Greška pri Protobuf serijalizaciji događaja: " + e.getMessage(), e);
+        }
+    }
+
+    // ============================================
+    // DESERIJALIZACIJA: Protobuf Binary → Java
+    // ============================================
+
+    public WatchPartyEvent fromProtobuf(byte[] data) throws IOException {
+        return fromProto(WatchPartyEventProto.WatchPartyEvent.parseFrom(data));
+    }
+
+    // ============================================
+    // POMOĆNE METODE - Mapiranje
+    // ============================================
+
+    private WatchPartyEventProto.WatchPartyEvent toProto(WatchPartyEvent event) {
+        WatchPartyEventProto.WatchPartyEvent.Builder builder = WatchPartyEventProto.WatchPartyEvent.newBuilder();
+
+        if (event.getType() != null) {
+            builder.setType(toProtoType(event.getType()));
+        }
+        if (event.getRoomId() != null) {
+            builder.setRoomId(event.getRoomId());
+        }
+        if (event.getPostId() != null) {
+            builder.setPostId(event.getPostId());
+        }
+        if (event.getPostTitle() != null) {
+            builder.setPostTitle(event.getPostTitle());
+        }
+        if (event.getVideoUrl() != null) {
+            builder.setVideoUrl(event.getVideoUrl());
+        }
+        if (event.getUsername() != null) {
+            builder.setUsername(event.getUsername());
+        }
+        // actor = startedBy (VIDEO_STARTED) ili closedBy (ROOM_CLOSED)
+        String actor = event.getStartedBy() != null ? event.getStartedBy() : event.getClosedBy();
+        if (actor != null) {
+            builder.setActor(actor);
+        }
+        if (event.getMemberCount() != null) {
+            builder.setMemberCount(event.getMemberCount());
+        }
+        if (event.getJoined() != null) {
+            builder.addAllJoined(event.getJoined());
+        }
+        if (event.getLeft() != null) {
+            builder.addAllLeft(event.getLeft());
+        }
+        if (event.getVersion() != null) {
+            builder.setVersion(event.getVersion());
+        }
+        if (event.getMessage() != null) {
+            builder.setMessage(event.getMessage());
+        }
+        builder.setTimestampMs(event.getTimestampMs());
+
+        return builder.build();
+    }
+
+    private WatchPartyEvent fromProto(WatchPartyEventProto.WatchPartyEvent proto) {
+        WatchPartyEvent event = new WatchPartyEvent();
+
+        if (proto.hasType()) {
+            // Nepoznat broj (novija verzija .proto) → UNKNOWN
+            WatchPartyEventProto.WatchPartyEvent.Type type = proto.getType();
+            event.setType(type == WatchPartyEventProto.WatchPartyEvent.Type.UNRECOGNIZED
+                    ? WatchPartyEventProto.WatchPartyEvent.Type.UNKNOWN.name() : type.name());
+        }
+        if (proto.hasRoomId()) {
+            event.setRoomId(proto.getRoomId());
+        }
+        if (proto.hasPostId()) {
+            event.setPostId(proto.getPostId());
+        }
+        if (proto.hasPostTitle()) {
+            event.setPostTitle(proto.getPostTitle());
+        }
+        if (proto.hasVideoUrl()) {
+            event.setVideoUrl(proto.getVideoUrl());
+        }
+        if (proto.hasUsername()) {
+            event.setUsername(proto.getUsername());
+        }
+        if (proto.hasMemberCount()) {
+            event.setMemberCount(proto.getMemberCount());
+        }
+        if (proto.getJoinedCount() > 0) {
+            event.setJoined(new ArrayList<>(proto.getJoinedList()));
+        }
+        if (proto.getLeftCount() > 0) {
+            event.setLeft(new ArrayList<>(proto.getLeftList()));
+        }
+        if (proto.hasVersion()) {
+            event.setVersion(proto.getVersion());
+        }
+        if (proto.hasMessage()) {
+            event.setMessage(proto.getMessage());
+        }
+        if (proto.hasTimestampMs()) {
+            event.setTimestampMs(proto.getTimestampMs());
+        }
+
+        if (proto.hasActor()) {
+            if (WatchPartyEvent.TYPE_VIDEO_STARTED.equals(event.getType())) {
+                event.setStartedBy(proto.getActor());
+            } else if (WatchPartyEvent.TYPE_ROOM_CLOSED.equals(event.getType())) {
+                event.setClosedBy(proto.getActor());
+            }
+        }
+        return event;
+    }
+
+    // Imena iz enum-a Type = WatchPartyEvent.TYPE_* konstante
+    private static WatchPartyEventProto.WatchPartyEvent.Type toProtoType(String type) {
+        try {
+            WatchPartyEventProto.WatchPartyEvent.Type protoType = WatchPartyEventProto.WatchPartyEvent.Type.valueOf(type);
+            return protoType == WatchPartyEventProto.WatchPartyEvent.Type.UNRECOGNIZED
+                    ? WatchPartyEventProto.WatchPartyEvent.Type.UNKNOWN : protoType;
+        } catch (IllegalArgumentException e) {
+            return WatchPartyEventProto.WatchPartyEvent.Type.UNKNOWN;
+        }
+    }
+}
@@ -0,0 +1,389 @@
+package service;
+
+import config.WatchPartyDestinations;
+import dto.WatchPartyEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.messaging.SessionConnectEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * WatchPartyPresenceService - Prisustvo u Watch Party sobama na osnovu WebSocket sesija.
+ *
+ * Član sobe je onaj ko ima otvorenu sesiju pretplaćenu na /topic/watch-party/{id}:
+ * - SUBSCRIBE na sobu → korisnik ulazi (ako mu je to prva sesija u sobi)
+ * - UNSUBSCRIBE / DISCONNECT → izlazi kada se zatvori njegova poslednja sesija
+ * - sesija koja ne šalje ništa (ni STOMP heartbeat) duže od {@code session-timeout-ms}
+ *   se smatra mrtvom - srušeni klijenti više ne ostaju "zauvek" u sobi
+ *
+ * Promene se ne šalju pojedinačno: skupljaju se po sobi i na svakih
+ * {@code broadcast-interval-ms} ide jedan PRESENCE događaj (joined/left).
+ * U bazu se članstvo upisuje još ređe - sobe promenjene prisustvom se
+ * predaju write-behind-u registra na {@code snapshot-interval-ms}.
+ *
+ * REST /join i /leave i dalje rade (eksplicitno članstvo). Prisustvo uklanja
+ * samo članove koje je samo dodalo - član koji je ušao preko REST /join ostaje
+ * i kada zatvori stranicu.
+ */
+@Service
+public class WatchPartyPresenceService {
+
+    // ============================================
+    // ZAVISNOSTI I KONFIGURACIJA
+    // ============================================
+
+    @Autowired
+    private WatchPartyRoomRegistry roomRegistry;
+
+    @Autowired
+    private WatchPartyService watchPartyService;  // username/email → username
+
+    @Autowired
+    private WatchPartyBroadcaster broadcaster;
+
+    @Autowired
+    private WatchPartyDestinations destinations;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.watch-party.presence.session-timeout-ms:30000}")
+    private long sessionTimeoutMs;
+
+    // sessionId → sesija
+    private final Map<String, SessionPresence> sessions = new ConcurrentHashMap<>();
+
+    // roomId → prisustvo u sobi
+    private final Map<Long, RoomPresence> rooms = new ConcurrentHashMap<>();
+
+    // Sobe čije članstvo treba upisati pri sledećem snapshot-u
+    private final Set<Long> snapshotRooms = ConcurrentHashMap.newKeySet();
+
+    private Counter joinedCounter;
+    private Counter leftCounter;
+    private Counter expiredCounter;
+
+    // ============================================
+    // STANJE SESIJE I SOBE
+    // ============================================
+
+    static class SessionPresence {
+        final String principalName;
+        final boolean heartbeats;  // Klijent šalje STOMP heartbeat → važi timeout
+        final Map<String, Long> subscriptions = new HashMap<>();  // subscriptionId → roomId
+        volatile long lastSeen;
+
+        SessionPresence(String principalName, boolean heartbeats) {
+            this.principalName = principalName;
+            this.heartbeats = heartbeats;
+            this.lastSeen = System.currentTimeMillis();
+        }
+    }
+
+    static class RoomPresence {
+        private final Map<String, Integer> sessionsPerUser = new HashMap<>();
+        private final Set<String> joined = new LinkedHashSet<>();
+        private final Set<String> left = new LinkedHashSet<>();
+        private final Set<String> presenceMembers = new HashSet<>();  // Članstvo dodalo prisustvo, ne REST
+        private long version;
+
+        /** @return true ako je ovo prva sesija korisnika u sobi */
+        synchronized boolean connect(String username) {
+            return sessionsPerUser.merge(username, 1, Integer::sum) == 1;
+        }
+
+        /** @return true ako je zatvorena poslednja sesija korisnika */
+        synchronized boolean disconnect(String username) {
+            Integer count = sessionsPerUser.get(username);
+            if (count == null) {
+                return false;
+            }
+            if (count <= 1) {
+                sessionsPerUser.remove(username);
+                return true;
+            }
+            sessionsPerUser.put(username, count - 1);
+            return false;
+        }
+
+        // Ulazak pa izlazak u istom intervalu se poništavaju
+        synchronized void markJoined(String username) {
+            presenceMembers.add(username);
+            if (!left.remove(username)) {
+                joined.add(username);
+            }
+        }
+
+        /** @return true ako je članstvo dodalo prisustvo (pa ga prisustvo i uklanja) */
+        synchronized boolean release(String username) {
+            return presenceMembers.remove(username);
+        }
+
+        synchronized void markLeft(String username) {
+            if (!joined.remove(username)) {
+                left.add(username);
+            }
+        }
+
+        // Pokupi promene i pripremi sledeću verziju
+        synchronized WatchPartyEvent drain(Long roomId, int memberCount) {
+            if (joined.isEmpty() && left.isEmpty()) {
+                return null;
+            }
+            WatchPartyEvent event = WatchPartyEvent.presence(
+                    roomId, new ArrayList<>(joined), new ArrayList<>(left), ++version, memberCount);
+            joined.clear();
+            left.clear();
+            return event;
+        }
+    }
+
+    // ============================================
+    // LIFECYCLE
+    // ============================================
+
+    @PostConstruct
+    public void init() {
+        joinedCounter = Counter.builder("watchparty.presence.changes")
+                .tag("type", "joined")
+                .description("Ulasci u sobu na osnovu WebSocket sesija")
+                .register(meterRegistry);
+
+        leftCounter = Counter.builder("watchparty.presence.changes")
+                .tag("type", "left")
+                .description("Izlasci iz sobe na osnovu WebSocket sesija")
+                .register(meterRegistry);
+
+        expiredCounter = Counter.builder("watchparty.presence.expired")
+                .description("Sesije uklonjene jer nisu slale heartbeat")
+                .register(meterRegistry);
+
+        Gauge.builder("watchparty.presence.sessions", sessions, Map::size)
+                .description("Broj praćenih WebSocket sesija")
+                .register(meterRegistry);
+
+        System.out.println("👥 WatchPartyPresenceService: timeout sesije=" + sessionTimeoutMs + "ms");
+    }
+
+    // ============================================
+    // WEBSOCKET DOGAĐAJI
+    // ============================================
+
+    @EventListener
+    public void onSessionConnect(SessionConnectEvent event) {
+        Principal user = event.getUser();
+        if (user == null) {
+            return;  // Bez JWT-a nema prisustva (REST join/leave i dalje radi)
+        }
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        long[] heartbeat = accessor.getHeartbeat();
+        connect(accessor.getSessionId(), user.getName(), heartbeat.length > 0 && heartbeat[0] > 0);
+    }
+
+    @EventListener
+    public void onSessionSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        Long roomId = destinations.roomIdOf(accessor.getDestination());
+        if (roomId != null) {
+            join(accessor.getSessionId(), accessor.getSubscriptionId(), roomId);
+        }
+    }
+
+    @EventListener
+    public void onSessionUnsubscribe(SessionUnsubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        unsubscribe(accessor.getSessionId(), accessor.getSubscriptionId());
+    }
+
+    @EventListener
+    public void onSessionDisconnect(SessionDisconnectEvent event) {
+        disconnect(event.getSessionId());
+    }
+
+    // ============================================
+    // PUBLIC METODE
+    // ============================================
+
+    public void connect(String sessionId, String principalName, boolean heartbeats) {
+        sessions.put(sessionId, new SessionPresence(principalName, heartbeats));
+    }
+
+    // Svaka dolazna poruka (i heartbeat) produžava život sesije
+    public void touch(String sessionId) {
+        if (sessionId == null) {
+            return;
+        }
+        SessionPresence session = sessions.get(sessionId);
+        if (session != null) {
+            session.lastSeen = System.currentTimeMillis();
+        }
+    }
+
+    public void join(String sessionId, String subscriptionId, Long roomId) {
+        SessionPresence session = sessions.get(sessionId);
+        if (session == null) {
+            return;
+        }
+        WatchPartyRoomRegistry.RoomState room = roomRegistry.get(roomId).orElse(null);
+        if (room == null) {
+            return;  // Soba nije aktivna
+        }
+
+        String username;
+        try {
+            username = watchPartyService.resolveUsername(session.principalName);
+        } catch (RuntimeException e) {
+            return;
+        }
+
+        synchronized (session) {
+            if (session.subscriptions.containsValue(roomId)) {
+                session.subscriptions.put(subscriptionId, roomId);
+                return;  // Ista sesija je već u sobi
+            }
+            session.subscriptions.put(subscriptionId, roomId);
+        }
+
+        RoomPresence presence = rooms.computeIfAbsent(roomId, id -> new RoomPresence());
+        if (!presence.connect(username)) {
+            return;  // Korisnik već ima sesiju u sobi
+        }
+        if (room.addMember(username)) {
+            presence.markJoined(username);
+            snapshotRooms.add(roomId);
+            joinedCounter.increment();
+        } else {
+            presence.release(username);  // Već član (REST /join, kreator) - prisustvo ga ne uklanja
+        }
+    }
+
+    public void unsubscribe(String sessionId, String subscriptionId) {
+        SessionPresence session = sessions.get(sessionId);
+        if (session == null) {
+            return;
+        }
+        Long roomId;
+        synchronized (session) {
+            roomId = session.subscriptions.remove(subscriptionId);
+            if (roomId == null || session.subscriptions.containsValue(roomId)) {
+                return;
+            }
+        }
+        leave(session, roomId);
+    }
+
+    public void disconnect(String sessionId) {
+        SessionPresence session = sessions.remove(sessionId);
+        if (session == null) {
+            return;
+        }
+        Set<Long> roomIds;
+        synchronized (session) {
+            roomIds = new LinkedHashSet<>(session.subscriptions.values());
+            session.subscriptions.clear();
+        }
+        for (Long roomId : roomIds) {
+            leave(session, roomId);
+        }
+    }
+
+    // ============================================
+    // ZAKAZANI POSLOVI
+    // ============================================
+
+    // Sesije bez heartbeat-a duže od timeout-a → kao da su se diskonektovale
+    @Scheduled(fixedDelayString = "${app.watch-party.presence.sweep-interval-ms:5000}")
+    public void expireIdleSessions() {
+        long cutoff = System.currentTimeMillis() - sessionTimeoutMs;
+        for (Map.Entry<String, SessionPresence> entry : sessions.entrySet()) {
+            SessionPresence session = entry.getValue();
+            if (session.heartbeats && session.lastSeen < cutoff) {
+                disconnect(entry.getKey());
+                expiredCounter.increment();
+            }
+        }
+    }
+
+    // Jedan PRESENCE događaj po sobi za sve promene u intervalu
+    @Scheduled(fixedDelayString = "${app.watch-party.presence.broadcast-interval-ms:500}")
+    public void flushDiffs() {
+        for (Map.Entry<Long, RoomPresence> entry : rooms.entrySet()) {
+            Long roomId = entry.getKey();
+            WatchPartyRoomRegistry.RoomState room = roomRegistry.get(roomId).orElse(null);
+            if (room == null) {
+                rooms.remove(roomId);  // Soba zatvorena
+                continue;
+            }
+
+            WatchPartyEvent event = entry.getValue().drain(roomId, room.getMemberCount());
+            if (event == null) {
+                continue;
+            }
+
+            // Jedinstven ključ po verziji - PRESENCE diff se nikad ne spaja sa prethodnim
+            broadcaster.publish(destinations.room(roomId), "presence:" + event.getVersion(), event);
+        }
+    }
+
+    // Članstvo promenjeno prisustvom ide u bazu ređe od REST join/leave
+    @Scheduled(fixedDelayString = "${app.watch-party.presence.snapshot-interval-ms:30000}")
+    public void snapshotMembership() {
+        for (Long roomId : snapshotRooms) {
+            snapshotRooms.remove(roomId);
+            roomRegistry.markDirty(roomId);
+        }
+    }
+
+    public boolean isTracked(String sessionId) {
+        return sessions.containsKey(sessionId);
+    }
+
+    // ============================================
+    // POMOĆNE METODE
+    // ============================================
+
+    private void leave(SessionPresence session, Long roomId) {
+        RoomPresence presence = rooms.get(roomId);
+        WatchPartyRoomRegistry.RoomState room = roomRegistry.get(roomId).orElse(null);
+        if (presence == null || room == null) {
+            return;
+        }
+
+        String username;
+        try {
+            username = watchPartyService.resolveUsername(session.principalName);
+        } catch (RuntimeException e) {
+            return;
+        }
+
+        if (!presence.disconnect(username)) {
+            return;  // Korisnik ima još otvorenih sesija u sobi
+        }
+
+        // Samo članove koje je dodalo prisustvo; kreator ostaje - osvežavanje stranice ne sme da zatvori sobu
+        if (presence.release(username) && !room.isCreator(username) && room.removeMember(username)) {
+            presence.markLeft(username);
+            snapshotRooms.add(roomId);
+            leftCounter.increment();
+        }
+    }
+}
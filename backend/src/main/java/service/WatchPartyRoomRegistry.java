@@ -0,0 +1,528 @@
+package service;
+
+import dto.WatchPartyDTO;
+import dto.WatchPartySummaryDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import model.Post;
+import model.WatchParty;
+import repository.WatchPartyRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * WatchPartyRoomRegistry - Živo stanje aktivnih Watch Party soba u memoriji.
+ *
+ * Sobe su kratkog veka, a svaki join/leave/start-video je ranije učitavao
+ * WatchParty sa EAGER creator-om, postom i kolekcijom članova. Sada:
+ * - aktivne sobe žive u ConcurrentHashMap (stanje sobe se menja pod njenim lock-om)
+ * - baza se sinhrono piše samo pri kreiranju i zatvaranju sobe
+ * - članovi i trenutni video se upisuju u pozadini (write-behind, dirty set)
+ * - pri startu se aktivne sobe učitavaju iz baze (u klasteru samo sobe ovog
+ *   čvora, vidi WatchPartyClusterService)
+ *
+ * Za liste se održavaju indeksi koji se menjaju zajedno sa sobama:
+ * - username → ID-jevi aktivnih soba u kojima je član ("/joined" bez skeniranja)
+ * - sobe sortirane po vremenu kreiranja, sa keširanim WatchPartySummaryDTO ("/active" bez sortiranja)
+ */
+@Service
+public class WatchPartyRoomRegistry {
+
+    @Autowired
+    private WatchPartyRepository watchPartyRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.watch-party.flush-batch-size:100}")
+    private int flushBatchSize;
+
+    // U klasteru svaki čvor drži samo svoje sobe (učitava ih WatchPartyClusterService)
+    @Value("${app.watch-party.cluster.enabled:false}")
+    private boolean clusterEnabled;
+
+    private final ConcurrentHashMap<Long, RoomState> rooms = new ConcurrentHashMap<>();
+
+    // Sobe čije članstvo / trenutni video još nije upisan u bazu
+    private final Set<Long> dirtyRooms = ConcurrentHashMap.newKeySet();
+
+    // Obrnuti indeks: username → aktivne sobe u kojima je član
+    private final ConcurrentHashMap<String, Set<Long>> roomsByMember = new ConcurrentHashMap<>();
+
+    // Aktivne sobe, najnovije prve (kao findByActiveOrderByCreatedAtDesc)
+    private static final Comparator<RoomState> NEWEST_FIRST = Comparator
+            .comparing(RoomState::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(RoomState::getId, Comparator.reverseOrder());
+    private final ConcurrentSkipListSet<RoomState> roomsByCreatedAt = new ConcurrentSkipListSet<>(NEWEST_FIRST);
+
+    // Lista za /active se gradi ponovo samo kada se neka soba promeni
+    private final AtomicLong summaryVersion = new AtomicLong();
+    // Verzija i lista zajedno - dva paralelna rebuild-a ne mogu upariti staru listu sa novom verzijom
+    private final AtomicReference<CachedSummaries> cachedSummaries =
+            new AtomicReference<>(new CachedSummaries(-1, List.of()));
+
+    private record CachedSummaries(long version, List<WatchPartySummaryDTO> list) {
+    }
+
+    private TransactionTemplate transactionTemplate;
+    private Counter flushedCounter;
+    private Counter flushErrorCounter;
+
+    // ============================================
+    // STANJE JEDNE SOBE
+    // ============================================
+
+    /**
+     * Stanje sobe. Sve izmene idu preko synchronized metoda, a gotov
+     * DTO se kešira dok se soba ne promeni (čitanja ne grade listu iznova).
+     */
+    public static class RoomState {
+        private final WatchPartyRoomRegistry registry;
+        private final Long id;
+        private final String name;
+        private final WatchPartyDTO.CreatorDTO creator;
+        private final LocalDateTime createdAt;
+        private final Set<String> members = new LinkedHashSet<>();
+
+        private WatchPartyDTO.PostInfoDTO currentPost;
+        private boolean playing;
+        private long positionMs;
+        private long playbackUpdatedAt;
+
+        private volatile WatchPartyDTO snapshot;
+        private volatile WatchPartySummaryDTO summary;
+        private boolean closed;
+
+        RoomState(WatchPartyRoomRegistry registry, Long id, String name, WatchPartyDTO.CreatorDTO creator,
+                  LocalDateTime createdAt) {
+            this.registry = registry;
+            this.id = id;
+            this.name = name;
+            this.creator = creator;
+            this.createdAt = createdAt;
+            this.playbackUpdatedAt = System.currentTimeMillis();
+        }
+
+        public Long getId() { return id; }
+        public String getName() { return name; }
+        public WatchPartyDTO.CreatorDTO getCreator() { return creator; }
+        public LocalDateTime getCreatedAt() { return createdAt; }
+
+        // Klijenti šalju username ili email (kao u JWT-u)
+        public boolean isCreator(String usernameOrEmail) {
+            return creator.getUsername().equals(usernameOrEmail)
+                || (creator.getEmail() != null && creator.getEmail().equals(usernameOrEmail));
+        }
+
+        public synchronized boolean isMember(String username) {
+            return members.contains(username);
+        }
+
+        public synchronized int getMemberCount() {
+            return members.size();
+        }
+
+        public synchronized List<String> getMembers() {
+            return new ArrayList<>(members);
+        }
+
+        public synchronized WatchPartyDTO.PostInfoDTO getCurrentPost() {
+            return currentPost;
+        }
+
+        /** @return true ako korisnik nije bio član */
+        public synchronized boolean addMember(String username) {
+            if (closed) {
+                return false;
+            }
+            boolean added = members.add(username);
+            if (added) {
+                registry.indexMember(username, id);
+                changed();
+            }
+            return added;
+        }
+
+        /** @return true ako je korisnik bio član */
+        public synchronized boolean removeMember(String username) {
+            boolean removed = members.remove(username);
+            if (removed) {
+                registry.unindexMember(username, id);
+                changed();
+            }
+            return removed;
+        }
+
+        public synchronized void startVideo(WatchPartyDTO.PostInfoDTO post) {
+            this.currentPost = post;
+            this.playing = true;
+            this.positionMs = 0;
+            this.playbackUpdatedAt = System.currentTimeMillis();
+            changed();
+        }
+
+        public void updatePlayback(boolean playing, long positionMs) {
+            updatePlayback(playing, positionMs, System.currentTimeMillis());
+        }
+
+        // Pozicija važi u trenutku atMillis (serversko vreme)
+        public synchronized void updatePlayback(boolean playing, long positionMs, long atMillis) {
+            this.playing = playing;
+            this.positionMs = Math.max(0, positionMs);
+            this.playbackUpdatedAt = atMillis;
+            snapshot = null;
+        }
+
+        public synchronized WatchPartyDTO.PlaybackDTO getPlayback() {
+            return new WatchPartyDTO.PlaybackDTO(playing, positionMs, playbackUpdatedAt);
+        }
+
+        public WatchPartySummaryDTO toSummary() {
+            WatchPartySummaryDTO cached = summary;
+            if (cached != null) {
+                return cached;
+            }
+            synchronized (this) {
+                if (summary == null) {
+                    summary = new WatchPartySummaryDTO(id, name, creator, currentPost, createdAt, members.size());
+                }
+                return summary;
+            }
+        }
+
+        // Zatvaranje: članovi izlaze iz obrnutog indeksa, dalje izmene se ignorišu
+        synchronized void close() {
+            closed = true;
+            for (String member : members) {
+                registry.unindexMember(member, id);
+            }
+        }
+
+        // Članstvo ili video promenjen → keširani DTO-i i lista /active nisu više važeći
+        private void changed() {
+            snapshot = null;
+            summary = null;
+            registry.summaryVersion.incrementAndGet();
+        }
+
+        public WatchPartyDTO toDTO() {
+            WatchPartyDTO cached = snapshot;
+            if (cached != null) {
+                return cached;
+            }
+            synchronized (this) {
+                if (snapshot == null) {
+                    WatchPartyDTO dto = new WatchPartyDTO();
+                    dto.setId(id);
+                    dto.setName(name);
+                    dto.setCreator(creator);
+                    dto.setCurrentPost(currentPost);
+                    dto.setActive(true);
+                    dto.setCreatedAt(createdAt);
+                    dto.setMembers(List.copyOf(members));
+                    dto.setMemberCount(members.size());
+                    dto.setPlayback(new WatchPartyDTO.PlaybackDTO(playing, positionMs, playbackUpdatedAt));
+                    snapshot = dto;
+                }
+                return snapshot;
+            }
+        }
+    }
+
+    // ============================================
+    // LIFECYCLE
+    // ============================================
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+
+        flushedCounter = Counter.builder("watchparty.registry.flushed")
+                .description("Broj soba čije je članstvo upisano u bazu (write-behind)")
+                .register(meterRegistry);
+
+        flushErrorCounter = Counter.builder("watchparty.registry.flush.errors")
+                .description("Neuspeli write-behind upisi")
+                .register(meterRegistry);
+
+        Gauge.builder("watchparty.registry.rooms", rooms, ConcurrentHashMap::size)
+                .description("Broj aktivnih soba u memoriji")
+                .register(meterRegistry);
+
+        Gauge.builder("watchparty.registry.dirty", dirtyRooms, Set::size)
+                .description("Broj soba koje čekaju upis u bazu")
+                .register(meterRegistry);
+    }
+
+    // Učitaj aktivne sobe iz baze (posle restarta)
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (clusterEnabled) {
+            return;
+        }
+        List<WatchParty> active = watchPartyRepository.findByActiveOrderByCreatedAtDesc(true);
+        for (WatchParty party : active) {
+            register(party);
+        }
+        System.out.println("🎬 WatchPartyRoomRegistry: učitano " + active.size() + " aktivnih soba");
+    }
+
+    // Pri gašenju upiši sve što je ostalo
+    @PreDestroy
+    public void shutdown() {
+        flushDirty();
+    }
+
+    // ============================================
+    // PUBLIC METODE
+    // ============================================
+
+    public RoomState register(WatchParty party) {
+        // Ponovna registracija iste sobe - stara instanca izlazi iz indeksa
+        remove(party.getId());
+
+        RoomState room = new RoomState(
+            this,
+            party.getId(),
+            party.getName(),
+            new WatchPartyDTO.CreatorDTO(
+                party.getCreator().getId(),
+                party.getCreator().getUsername(),
+                party.getCreator().getEmail()
+            ),
+            party.getCreatedAt()
+        );
+
+        for (String member : party.getMembers()) {
+            room.addMember(member);
+        }
+        if (party.getCurrentPost() != null) {
+            room.startVideo(toPostInfo(party.getCurrentPost()));
+            room.updatePlayback(false, 0);  // Posle restarta pozicija nije poznata
+        }
+
+        rooms.put(room.getId(), room);
+        roomsByCreatedAt.add(room);
+        summaryVersion.incrementAndGet();
+        return room;
+    }
+
+    public Optional<RoomState> get(Long roomId) {
+        return Optional.ofNullable(rooms.get(roomId));
+    }
+
+    public Collection<RoomState> getActiveRooms() {
+        return rooms.values();
+    }
+
+    public RoomState remove(Long roomId) {
+        dirtyRooms.remove(roomId);
+        RoomState room = rooms.remove(roomId);
+        if (room != null) {
+            roomsByCreatedAt.remove(room);
+            room.close();
+            summaryVersion.incrementAndGet();
+        }
+        return room;
+    }
+
+    /**
+     * Soba prelazi na drugi čvor: prvo se upiše članstvo, pa se izbaci iz memorije.
+     * Ako upis ne uspe, soba ostaje (sledeći pokušaj pri sledećem rebalansu).
+     */
+    public boolean release(Long roomId) {
+        if (dirtyRooms.contains(roomId)) {
+            flushBatch(List.of(roomId));
+            if (dirtyRooms.contains(roomId)) {
+                return false;
+            }
+        }
+        return remove(roomId) != null;
+    }
+
+    /**
+     * Aktivne sobe, najnovije prve. Lista se gradi iz keširanih summary-ja
+     * samo ako se nešto promenilo od prethodnog poziva.
+     */
+    public List<WatchPartySummaryDTO> getActiveSummaries() {
+        long version = summaryVersion.get();
+        CachedSummaries cached = cachedSummaries.get();
+        if (version == cached.version()) {
+            return cached.list();
+        }
+        List<WatchPartySummaryDTO> summaries = new ArrayList<>(roomsByCreatedAt.size());
+        for (RoomState room : roomsByCreatedAt) {
+            summaries.add(room.toSummary());
+        }
+        List<WatchPartySummaryDTO> result = List.copyOf(summaries);
+        // Sporiji rebuild starije verzije ne prepisuje noviji
+        cachedSummaries.accumulateAndGet(new CachedSummaries(version, result),
+                (current, built) -> built.version() > current.version() ? built : current);
+        return result;
+    }
+
+    // Aktivne sobe u kojima je korisnik član - O(broj takvih soba)
+    public List<RoomState> getRoomsForMember(String username) {
+        Set<Long> roomIds = roomsByMember.get(username);
+        if (roomIds == null) {
+            return List.of();
+        }
+        List<RoomState> result = new ArrayList<>(roomIds.size());
+        for (Long roomId : roomIds) {
+            RoomState room = rooms.get(roomId);
+            if (room != null) {
+                result.add(room);
+            }
+        }
+        result.sort(NEWEST_FIRST);
+        return result;
+    }
+
+    public void markDirty(Long roomId) {
+        dirtyRooms.add(roomId);
+    }
+
+    // compute() je atomičan po ključu - prazan skup se uklanja bez trke sa dodavanjem
+    void indexMember(String username, Long roomId) {
+        roomsByMember.compute(username, (key, roomIds) -> {
+            Set<Long> ids = roomIds != null ? roomIds : ConcurrentHashMap.newKeySet();
+            ids.add(roomId);
+            return ids;
+        });
+    }
+
+    void unindexMember(String username, Long roomId) {
+        roomsByMember.computeIfPresent(username, (key, roomIds) -> {
+            roomIds.remove(roomId);
+            return roomIds.isEmpty() ? null : roomIds;
+        });
+    }
+
+    public static WatchPartyDTO.PostInfoDTO toPostInfo(Post post) {
+        return new WatchPartyDTO.PostInfoDTO(
+            post.getId(),
+            post.getTitle(),
+            post.getDescription(),
+            post.getVideoUrl(),
+            post.getThumbnailUrl()
+        );
+    }
+
+    // Summary za aktivnu sobu drugog čvora (stanje iz baze)
+    public static WatchPartySummaryDTO toSummary(WatchParty party) {
+        return new WatchPartySummaryDTO(
+            party.getId(),
+            party.getName(),
+            new WatchPartyDTO.CreatorDTO(
+                party.getCreator().getId(),
+                party.getCreator().getUsername(),
+                party.getCreator().getEmail()
+            ),
+            party.getCurrentPost() != null ? toPostInfo(party.getCurrentPost()) : null,
+            party.getCreatedAt(),
+            party.getMemberCount()
+        );
+    }
+
+    // DTO za sobu koja nije u memoriji (zatvorena)
+    public static WatchPartyDTO toDTO(WatchParty party) {
+        WatchPartyDTO dto = new WatchPartyDTO();
+        dto.setId(party.getId());
+        dto.setName(party.getName());
+        dto.setCreator(new WatchPartyDTO.CreatorDTO(
+            party.getCreator().getId(),
+            party.getCreator().getUsername(),
+            party.getCreator().getEmail()
+        ));
+        dto.setCurrentPost(party.getCurrentPost() != null ? toPostInfo(party.getCurrentPost()) : null);
+        dto.setActive(party.getActive());
+        dto.setCreatedAt(party.getCreatedAt());
+        dto.setMembers(new ArrayList<>(party.getMembers()));
+        dto.setMemberCount(party.getMemberCount());
+        dto.setPlayback(new WatchPartyDTO.PlaybackDTO(false, 0, System.currentTimeMillis()));
+        return dto;
+    }
+
+    // ============================================
+    // WRITE-BEHIND
+    // ============================================
+
+    @Scheduled(fixedDelayString = "${app.watch-party.flush-interval-ms:2000}")
+    public void flushDirty() {
+        if (dirtyRooms.isEmpty()) {
+            return;
+        }
+
+        List<Long> batch = new ArrayList<>();
+        for (Long roomId : dirtyRooms) {
+            batch.add(roomId);
+            if (batch.size() >= flushBatchSize) {
+                flushBatch(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            flushBatch(batch);
+        }
+    }
+
+    private void flushBatch(List<Long> roomIds) {
+        // Skidamo iz dirty seta PRE čitanja stanja - izmena u međuvremenu ga vraća nazad
+        roomIds.forEach(dirtyRooms::remove);
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (Long roomId : roomIds) {
+                    RoomState room = rooms.get(roomId);
+                    if (room == null) {
+                        continue;  // Zatvorena - closeRoom je već upisao konačno stanje
+                    }
+
+                    List<String> members = room.getMembers();
+                    WatchPartyDTO.PostInfoDTO post = room.getCurrentPost();
+
+                    // Samo kolekcija članova (red u watch_parties se ne prepisuje)
+                    watchPartyRepository.findById(roomId).ifPresent(party -> {
+                        party.getMembers().retainAll(members);
+                        party.getMembers().addAll(members);
+                    });
+
+                    if (post != null) {
+                        watchPartyRepository.updateCurrentPostIfActive(roomId, post.getId());
+                    }
+                }
+            });
+            flushedCounter.increment(roomIds.size());
+        } catch (Exception e) {
+            // Vrati u dirty set - sledeći pokušaj
+            dirtyRooms.addAll(roomIds);
+            flushErrorCounter.increment();
+            System.out.println("⚠️ Write-behind upis soba nije uspeo: " + e.getMessage());
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package service;
 
+import dto.WatchPartyDTO;
+import dto.WatchPartySummaryDTO;
 import model.Post;
 import model.User;
 import model.WatchParty;
@@ -8,11 +10,19 @@ import repository.UserRepository;
 import repository.WatchPartyRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import jakarta.annotation.PostConstruct;
 
-import java.time.LocalDateTime;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 
 @Service
@@ -27,13 +37,36 @@ public class WatchPartyService {
     @Autowired
     private PostRepository postRepository;
 
+    @Autowired
+    private WatchPartyRoomRegistry roomRegistry;  // Živo stanje aktivnih soba
+
+    @Autowired
+    private WatchPartySyncService syncService;  // Stanje reprodukcije po sobi
+
+    @Autowired
+    private WatchPartyClusterService cluster;  // Koji čvor drži stanje sobe
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    // Keš: username ili email (iz JWT-a / payload-a) → pravi username
+    private final Map<String, String> usernameCache = new ConcurrentHashMap<>();
+    private static final int USERNAME_CACHE_MAX = 10_000;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
     // ============================================
     // KREIRANJE SOBE
     // ============================================
 
    
     @Transactional
-    public WatchParty createRoom(String username, String roomName) {
+    public WatchPartyDTO createRoom(String username, String roomName) {
         System.out.println("🎬 Kreiranje Watch Party sobe...");
         System.out.println("   Kreator: " + username);
         System.out.println("   Naziv: " + roomName);
@@ -74,11 +107,34 @@ public class WatchPartyService {
         // Sačuvaj u bazi
         WatchParty savedParty = watchPartyRepository.save(party);
 
+        usernameCache.putIfAbsent(username, creator.getUsername());
+
         System.out.println("✅ Soba kreirana! ID: " + savedParty.getId());
         System.out.println("   Kreator: " + savedParty.getCreator().getUsername());
         System.out.println("   Članovi: " + savedParty.getMemberCount());
 
-        return savedParty;
+        // Soba drugog čvora - vlasnik je učitava iz baze pri prvom zahtevu
+        if (!cluster.isLocal(savedParty.getId())) {
+            return WatchPartyRoomRegistry.toDTO(savedParty);
+        }
+
+        // Od sada soba živi u registru - tek posle commit-a, da neuspeo commit
+        // ne ostavi u memoriji sobu bez reda u bazi
+        runAfterCommit(() -> roomRegistry.register(savedParty));
+        return WatchPartyRoomRegistry.toDTO(savedParty);
+    }
+
+    private static void runAfterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
     }
 
     // ============================================
@@ -86,10 +142,18 @@ public class WatchPartyService {
     // ============================================
 
     
-    public List<WatchParty> getActiveRooms() {
+    public List<WatchPartySummaryDTO> getActiveRooms() {
         System.out.println("📋 Učitavanje aktivnih soba...");
         
-        List<WatchParty> rooms = watchPartyRepository.findByActiveOrderByCreatedAtDesc(true);
+        // Keširana, već sortirana lista iz registra - bez upita i bez sortiranja
+        // (u klasteru registar ima samo sobe ovog čvora, pa lista ide iz baze)
+        List<WatchPartySummaryDTO> rooms = cluster.isEnabled()
+                ? watchPartyRepository.findByActiveOrderByCreatedAtDesc(true).stream()
+                        .map(party -> roomRegistry.get(party.getId())
+                                .map(WatchPartyRoomRegistry.RoomState::toSummary)
+                                .orElseGet(() -> WatchPartyRoomRegistry.toSummary(party)))
+                        .collect(Collectors.toList())
+                : roomRegistry.getActiveSummaries();
         
         System.out.println("✅ Učitano " + rooms.size() + " aktivnih soba");
         
@@ -97,7 +161,7 @@ public class WatchPartyService {
     }
 
    
-    public List<WatchParty> getRoomsByCreator(String usernameOrEmail) {
+    public List<WatchPartyDTO> getRoomsByCreator(String usernameOrEmail) {
         System.out.println("📋 Učitavanje soba korisnika: " + usernameOrEmail);
         
         // Pokušaj prvo po username-u
@@ -111,13 +175,33 @@ public class WatchPartyService {
         
         System.out.println("✅ Korisnik ima " + rooms.size() + " soba");
         
-        return rooms;
+        // Istorija dolazi iz baze, ali aktivne sobe uzimaju živo stanje iz registra
+        return rooms.stream()
+                .map(party -> roomRegistry.get(party.getId())
+                        .map(WatchPartyRoomRegistry.RoomState::toDTO)
+                        .orElseGet(() -> WatchPartyRoomRegistry.toDTO(party)))
+                .collect(Collectors.toList());
     }
     
-    public List<WatchParty> getRoomsWhereUserIsMember(String username) {
-        System.out.println("📋 Učitavanje soba gde je " + username + " član...");
+    public List<WatchPartyDTO> getRoomsWhereUserIsMember(String usernameOrEmail) {
+        System.out.println("📋 Učitavanje soba gde je " + usernameOrEmail + " član...");
         
-        List<WatchParty> rooms = watchPartyRepository.findPartiesByMember(username);
+        String username = resolveUsername(usernameOrEmail);
+        
+        // Obrnuti indeks username → sobe, bez prolaska kroz sve aktivne sobe
+        List<WatchPartyDTO> rooms = roomRegistry.getRoomsForMember(username).stream()
+                .map(WatchPartyRoomRegistry.RoomState::toDTO)
+                .collect(Collectors.toList());
+
+        // Klaster: sobe drugih čvorova iz baze (članstvo iz poslednjeg write-behind upisa)
+        if (cluster.isEnabled()) {
+            watchPartyRepository.findActivePartiesByMember(username).stream()
+                    .filter(party -> roomRegistry.get(party.getId()).isEmpty())
+                    .map(WatchPartyRoomRegistry::toDTO)
+                    .forEach(rooms::add);
+            rooms.sort(Comparator.comparing(WatchPartyDTO::getCreatedAt,
+                    Comparator.nullsLast(Comparator.reverseOrder())));
+        }
         
         System.out.println("✅ Korisnik je član u " + rooms.size() + " soba");
         
@@ -125,8 +209,24 @@ public class WatchPartyService {
     }
 
    
-    public WatchParty getRoomById(Long roomId) {
-        System.out.println("🔍 Učitavanje sobe ID: " + roomId);
+    public WatchPartyDTO getRoomById(Long roomId) {
+        // Aktivna soba - direktno iz memorije
+        Optional<WatchPartyRoomRegistry.RoomState> room = roomRegistry.get(roomId);
+        if (room.isPresent()) {
+            return room.get().toDTO();
+        }
+
+        // Živo stanje sobe drugog čvora je samo kod vlasnika
+        if (!cluster.isLocal(roomId)) {
+            return cluster.fetch(roomId, WatchPartyDTO.class);
+        }
+        room = cluster.adopt(roomId);
+        if (room.isPresent()) {
+            return room.get().toDTO();
+        }
+        
+        // Zatvorena (ili nepostojeća) soba - baza
+        System.out.println("🔍 Učitavanje zatvorene sobe ID: " + roomId);
         
         Optional<WatchParty> partyOpt = watchPartyRepository.findById(roomId);
         
@@ -134,12 +234,7 @@ public class WatchPartyService {
             throw new RuntimeException("Soba nije pronađena! ID: " + roomId);
         }
         
-        WatchParty party = partyOpt.get();
-        
-        System.out.println("✅ Soba učitana: " + party.getName());
-        System.out.println("   Članovi: " + party.getMemberCount());
-        
-        return party;
+        return WatchPartyRoomRegistry.toDTO(partyOpt.get());
     }
 
     // ============================================
@@ -147,54 +242,35 @@ public class WatchPartyService {
     // ============================================
 
    
-    @Transactional
-    public WatchParty joinRoom(Long roomId, String usernameOrEmail) {
+    public WatchPartyDTO joinRoom(Long roomId, String usernameOrEmail) {
         System.out.println("➕ Pridruživanje sobi...");
         System.out.println("   Soba ID: " + roomId);
         System.out.println("   Korisnik: " + usernameOrEmail);
 
-        // Pronađi sobu
-        WatchParty party = getRoomById(roomId);
-
-        // Proveri da li je soba aktivna
-        if (!party.getActive()) {
-            throw new RuntimeException("Soba nije aktivna!");
+        // Soba drugog čvora → vlasnik menja stanje
+        if (!cluster.isLocal(roomId)) {
+            return cluster.forward(roomId, "join", Map.of("username", usernameOrEmail), WatchPartyDTO.class);
         }
 
+        // Pronađi aktivnu sobu
+        WatchPartyRoomRegistry.RoomState room = getActiveRoom(roomId);
+
         // PRONAĐI KORISNIKA da bi dobio pravi username
-        Optional<User> userOpt = userRepository.findByUsername(usernameOrEmail);
-        if (!userOpt.isPresent()) {
-            userOpt = userRepository.findByEmail(usernameOrEmail);
-        }
-        if (!userOpt.isPresent()) {
-            throw new RuntimeException("Korisnik nije pronađen!");
-        }
-        
-        User user = userOpt.get();
-        String actualUsername = user.getUsername();  // ✅ PRAVI USERNAME!
+        String actualUsername = resolveUsername(usernameOrEmail);  // ✅ PRAVI USERNAME!
 
-        // Proveri da li korisnik već nije član
-        if (party.isMember(actualUsername)) {
+        // Dodaj korisnika (kreator je već član od kreiranja sobe)
+        if (!room.addMember(actualUsername)) {
             System.out.println("⚠️ Korisnik je već član sobe!");
-            return party;
-        }
-        
-        
-        if (party.isCreator(actualUsername)) {
-            System.out.println("⚠️ Korisnik je kreator, već je član!");
-            return party;
+            return room.toDTO();
         }
 
-        // Dodaj korisnika sa pravim username-om
-        party.addMember(actualUsername);  // ✅ Dodaje USERNAME!
-
-        // Sačuvaj
-        WatchParty savedParty = watchPartyRepository.save(party);
+        // Članstvo se upisuje u bazu u pozadini
+        roomRegistry.markDirty(roomId);
 
         System.out.println("✅ Korisnik pridružen sobi!");
-        System.out.println("   Ukupno članova: " + savedParty.getMemberCount());
+        System.out.println("   Ukupno članova: " + room.getMemberCount());
 
-        return savedParty;
+        return room.toDTO();
     }
 
     // ============================================
@@ -202,43 +278,37 @@ public class WatchPartyService {
     // ============================================
 
    
-    @Transactional
-    public WatchParty leaveRoom(Long roomId, String usernameOrEmail) {
+    public WatchPartyDTO leaveRoom(Long roomId, String usernameOrEmail) {
         System.out.println("➖ Napuštanje sobe...");
         System.out.println("   Soba ID: " + roomId);
         System.out.println("   Korisnik: " + usernameOrEmail);
 
-        // Pronađi sobu
-        WatchParty party = getRoomById(roomId);
-
-        // PRONAĐI KORISNIKA da bi dobio pravi username
-        Optional<User> userOpt = userRepository.findByUsername(usernameOrEmail);
-        if (!userOpt.isPresent()) {
-            userOpt = userRepository.findByEmail(usernameOrEmail);
+        if (!cluster.isLocal(roomId)) {
+            return cluster.forward(roomId, "leave", Map.of("username", usernameOrEmail), WatchPartyDTO.class);
         }
-        if (!userOpt.isPresent()) {
-            throw new RuntimeException("Korisnik nije pronađen!");
-        }
-        
-        User user = userOpt.get();
-        String actualUsername = user.getUsername();
 
-        // Ukloni korisnika
-        party.removeMember(actualUsername);
+        // Pronađi aktivnu sobu
+        WatchPartyRoomRegistry.RoomState room = getActiveRoom(roomId);
 
-        // Ako je kreator napustio → zatvori sobu
-        if (party.isCreator(actualUsername)) {
+        // PRONAĐI KORISNIKA da bi dobio pravi username
+        String actualUsername = resolveUsername(usernameOrEmail);
+
+        // Ako je kreator napustio → zatvori sobu (upis u bazu)
+        if (room.isCreator(actualUsername)) {
             System.out.println("⚠️ Kreator je napustio sobu → zatvaranje sobe!");
-            party.setActive(false);
+            room.removeMember(actualUsername);
+            return persistClosure(room);
         }
 
-        // Sačuvaj
-        WatchParty savedParty = watchPartyRepository.save(party);
+        // Ukloni korisnika
+        if (room.removeMember(actualUsername)) {
+            roomRegistry.markDirty(roomId);
+        }
 
         System.out.println("✅ Korisnik napustio sobu!");
-        System.out.println("   Preostalo članova: " + savedParty.getMemberCount());
+        System.out.println("   Preostalo članova: " + room.getMemberCount());
 
-        return savedParty;
+        return room.toDTO();
     }
 
     // ============================================
@@ -246,18 +316,22 @@ public class WatchPartyService {
     // ============================================
 
    
-    @Transactional
-    public WatchParty startVideo(Long roomId, Long postId, String username) {
+    public WatchPartyDTO startVideo(Long roomId, Long postId, String username) {
         System.out.println("▶️ Pokretanje videa u sobi...");
         System.out.println("   Soba ID: " + roomId);
         System.out.println("   Video ID: " + postId);
         System.out.println("   Korisnik: " + username);
 
-        // Pronađi sobu
-        WatchParty party = getRoomById(roomId);
+        if (!cluster.isLocal(roomId)) {
+            return cluster.forward(roomId, "start-video",
+                    Map.of("username", username, "postId", postId), WatchPartyDTO.class);
+        }
+
+        // Pronađi aktivnu sobu
+        WatchPartyRoomRegistry.RoomState room = getActiveRoom(roomId);
 
         // VALIDACIJA: Samo kreator može pokrenuti video
-        if (!party.isCreator(username)) {
+        if (!room.isCreator(resolveUsername(username))) {
             throw new RuntimeException("Samo kreator sobe može pokrenuti video!");
         }
 
@@ -268,17 +342,15 @@ public class WatchPartyService {
         }
         Post post = postOpt.get();
 
-        // Postavi trenutni video
-        party.setCurrentPost(post);
-
-        // Sačuvaj
-        WatchParty savedParty = watchPartyRepository.save(party);
+        // Postavi trenutni video (u bazu ide u pozadini)
+        room.startVideo(WatchPartyRoomRegistry.toPostInfo(post));
+        roomRegistry.markDirty(roomId);
 
         System.out.println("✅ Video pokrenut!");
         System.out.println("   Video: " + post.getTitle());
         System.out.println("   Broadcast će se poslati svim članovima...");
 
-        return savedParty;
+        return room.toDTO();
     }
 
     // ============================================
@@ -286,28 +358,100 @@ public class WatchPartyService {
     // ============================================
 
     
-    @Transactional
-    public WatchParty closeRoom(Long roomId, String username) {
+    public WatchPartyDTO closeRoom(Long roomId, String username) {
         System.out.println("🚫 Zatvaranje sobe...");
         System.out.println("   Soba ID: " + roomId);
         System.out.println("   Korisnik: " + username);
 
-        // Pronađi sobu
-        WatchParty party = getRoomById(roomId);
+        if (!cluster.isLocal(roomId)) {
+            return cluster.forward(roomId, "close", Map.of("username", username), WatchPartyDTO.class);
+        }
+
+        // Pronađi aktivnu sobu
+        WatchPartyRoomRegistry.RoomState room = getActiveRoom(roomId);
 
         // VALIDACIJA: Samo kreator može zatvoriti sobu
-        if (!party.isCreator(username)) {
+        if (!room.isCreator(resolveUsername(username))) {
             throw new RuntimeException("Samo kreator sobe može je zatvoriti!");
         }
 
-        // Zatvori sobu
-        party.setActive(false);
-
-        // Sačuvaj
-        WatchParty savedParty = watchPartyRepository.save(party);
+        WatchPartyDTO closed = persistClosure(room);
 
         System.out.println("✅ Soba zatvorena!");
 
-        return savedParty;
+        return closed;
+    }
+
+    // ============================================
+    // POMOĆNE METODE
+    // ============================================
+
+    private WatchPartyRoomRegistry.RoomState getActiveRoom(Long roomId) {
+        Optional<WatchPartyRoomRegistry.RoomState> room = roomRegistry.get(roomId);
+        if (room.isEmpty()) {
+            room = cluster.adopt(roomId);  // Naša soba koju još nismo učitali (rebalans)
+        }
+        if (room.isPresent()) {
+            return room.get();
+        }
+        if (watchPartyRepository.existsById(roomId)) {
+            throw new RuntimeException("Soba nije aktivna!");
+        }
+        throw new RuntimeException("Soba nije pronađena! ID: " + roomId);
+    }
+
+    /**
+     * Zatvaranje: konačno stanje (active=false, članovi, trenutni video) se
+     * sinhrono upisuje u bazu, a soba izlazi iz registra tek posle commit-a -
+     * neuspeo upis ostavlja sobu aktivnu i u memoriji (kao createRoom, obrnuto).
+     */
+    private WatchPartyDTO persistClosure(WatchPartyRoomRegistry.RoomState room) {
+        return transactionTemplate.execute(status -> {
+            WatchParty party = watchPartyRepository.findById(room.getId())
+                    .orElseThrow(() -> new RuntimeException("Soba nije pronađena! ID: " + room.getId()));
+
+            List<String> members = room.getMembers();
+            party.getMembers().retainAll(members);
+            party.getMembers().addAll(members);
+
+            WatchPartyDTO.PostInfoDTO currentPost = room.getCurrentPost();
+            if (currentPost != null) {
+                party.setCurrentPost(postRepository.getReferenceById(currentPost.getId()));
+            }
+            party.setActive(false);
+
+            WatchParty savedParty = watchPartyRepository.save(party);
+            runAfterCommit(() -> {
+                roomRegistry.remove(room.getId());
+                syncService.forgetRoom(room.getId());
+            });
+            return WatchPartyRoomRegistry.toDTO(savedParty);
+        });
+    }
+
+    /**
+     * Username ili email → pravi username.
+     * Ranije je svaki join/leave išao u bazu po korisnika; sada se pamti.
+     */
+    public String resolveUsername(String usernameOrEmail) {
+        String cached = usernameCache.get(usernameOrEmail);
+        if (cached != null) {
+            return cached;
+        }
+
+        Optional<User> userOpt = userRepository.findByUsername(usernameOrEmail);
+        if (!userOpt.isPresent()) {
+            userOpt = userRepository.findByEmail(usernameOrEmail);
+        }
+        if (!userOpt.isPresent()) {
+            throw new RuntimeException("Korisnik nije pronađen!");
+        }
+
+        if (usernameCache.size() >= USERNAME_CACHE_MAX) {
+            usernameCache.clear();
+        }
+        String username = userOpt.get().getUsername();
+        usernameCache.put(usernameOrEmail, username);
+        return username;
     }
 }
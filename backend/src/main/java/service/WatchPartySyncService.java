@@ -0,0 +1,446 @@
+package service;
+
+import config.WatchPartyDestinations;
+import dto.PlaybackSyncMessage;
+import dto.WatchPartyDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * WatchPartySyncService - Sinhronizacija pozicije reprodukcije u Watch Party sobama.
+ *
+ * 1. Sat klijenta (ping/pong, NTP stil): za svaku WebSocket sesiju server
+ *    procenjuje offset (server - klijent) iz merenja sa najmanjim RTT-om.
+ * 2. Host heartbeat: kreator sobe periodično šalje poziciju; server je
+ *    prevodi u svoje vreme, čuva u registru i emituje STATE samo kada se
+ *    stanje promeni ili predviđanje odstupi (plus retki keepalive).
+ * 3. Korekcija drift-a: gledaoci javljaju svoju poziciju; ako odstupaju,
+ *    server šalje SAMO toj sesiji "rate" (blago ubrzanje/usporenje) ili
+ *    "seek" (veliko odstupanje).
+ *
+ * Sve stanje je u memoriji, po poruci nema upita u bazu.
+ */
+@Service
+public class WatchPartySyncService {
+
+    @Autowired
+    private WatchPartyRoomRegistry roomRegistry;
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private WatchPartyDestinations destinations;
+
+    @Autowired
+    private WatchPartyBroadcaster broadcaster;
+
+    @Autowired
+    private WatchPartyClusterService cluster;  // Sobe drugih čvorova → poruka ide vlasniku
+
+    // Ispod ovoga se drift ignoriše
+    @Value("${app.watch-party.sync.drift-tolerance-ms:150}")
+    private long driftToleranceMs;
+
+    // Preko ovoga klijent dobija seek umesto promene brzine
+    @Value("${app.watch-party.sync.seek-threshold-ms:1500}")
+    private long seekThresholdMs;
+
+    // Maksimalna promena brzine (0.05 = 0.95x .. 1.05x)
+    @Value("${app.watch-party.sync.max-rate-adjust:0.05}")
+    private double maxRateAdjust;
+
+    // Za koliko ms klijent treba da "stigne" drift promenom brzine
+    @Value("${app.watch-party.sync.rate-correction-window-ms:5000}")
+    private long rateCorrectionWindowMs;
+
+    // STATE se ponovo emituje najkasnije posle ovoliko ms (za nove gledaoce)
+    @Value("${app.watch-party.sync.state-keepalive-ms:5000}")
+    private long stateKeepaliveMs;
+
+    // Broj poslednjih merenja sata po sesiji
+    @Value("${app.watch-party.sync.clock-samples:8}")
+    private int clockSamples;
+
+    // Procena sata po WebSocket sesiji
+    private final Map<String, ClockEstimate> clocks = new ConcurrentHashMap<>();
+
+    // Poslednji emitovan STATE po sobi (za odluku da li treba novi)
+    private final Map<Long, WatchPartyDTO.PlaybackDTO> lastBroadcast = new ConcurrentHashMap<>();
+
+    private Counter stateBroadcastCounter;
+    private Counter stateSuppressedCounter;
+    private Counter correctionCounter;
+    private Counter rejectedCounter;
+
+    // ============================================
+    // PROCENA SATA JEDNE SESIJE
+    // ============================================
+
+    /**
+     * Čuva poslednjih N merenja; offset se uzima iz merenja sa najmanjim
+     * RTT-om (najmanje asimetrije mreže).
+     */
+    public static class ClockEstimate {
+        private final long[] offsets;
+        private final long[] rtts;
+        private int count;
+        private int next;
+
+        public ClockEstimate(int samples) {
+            this.offsets = new long[samples];
+            this.rtts = new long[samples];
+        }
+
+        public synchronized void addSample(long offsetMs, long rttMs) {
+            offsets[next] = offsetMs;
+            rtts[next] = rttMs;
+            next = (next + 1) % offsets.length;
+            if (count < offsets.length) {
+                count++;
+            }
+        }
+
+        public synchronized boolean hasSamples() {
+            return count > 0;
+        }
+
+        public synchronized long getOffsetMs() {
+            return offsets[bestIndex()];
+        }
+
+        public synchronized long getRttMs() {
+            return rtts[bestIndex()];
+        }
+
+        private int bestIndex() {
+            int best = 0;
+            for (int i = 1; i < count; i++) {
+                if (rtts[i] < rtts[best]) {
+                    best = i;
+                }
+            }
+            return best;
+        }
+    }
+
+    // ============================================
+    // LIFECYCLE
+    // ============================================
+
+    @PostConstruct
+    public void init() {
+        stateBroadcastCounter = Counter.builder("watchparty.sync.state")
+                .tag("result", "broadcast")
+                .description("Emitovana stanja reprodukcije")
+                .register(meterRegistry);
+
+        stateSuppressedCounter = Counter.builder("watchparty.sync.state")
+                .tag("result", "suppressed")
+                .description("Heartbeat-ovi koji nisu menjali stanje (bez emitovanja)")
+                .register(meterRegistry);
+
+        correctionCounter = Counter.builder("watchparty.sync.corrections")
+                .description("Poslate korekcije drift-a")
+                .register(meterRegistry);
+
+        rejectedCounter = Counter.builder("watchparty.sync.rejected")
+                .description("Odbijene sync poruke (nije host / soba ne postoji)")
+                .register(meterRegistry);
+
+        Gauge.builder("watchparty.sync.sessions", clocks, Map::size)
+                .description("Broj sesija sa procenom sata")
+                .register(meterRegistry);
+    }
+
+    // ============================================
+    // PING / PONG
+    // ============================================
+
+    /**
+     * Ping: klijent šalje svoje vreme (c) i, ako postoji, četvorku
+     * t0..t3 prethodnog merenja - iz nje server računa offset i RTT.
+     */
+    public PlaybackSyncMessage handlePing(String sessionId, PlaybackSyncMessage ping) {
+        long receivedAt = System.currentTimeMillis();
+
+        ClockEstimate clock = clocks.computeIfAbsent(sessionId, id -> new ClockEstimate(clockSamples));
+
+        if (ping.getT0() != null && ping.getT1() != null && ping.getT2() != null && ping.getT3() != null) {
+            long t0 = ping.getT0(), t1 = ping.getT1(), t2 = ping.getT2(), t3 = ping.getT3();
+            long rtt = (t3 - t0) - (t2 - t1);
+            long offset = ((t1 - t0) + (t2 - t3)) / 2;
+            if (rtt >= 0) {
+                clock.addSample(offset, rtt);
+            }
+        }
+
+        PlaybackSyncMessage pong = new PlaybackSyncMessage(PlaybackSyncMessage.TYPE_PONG);
+        pong.setT0(ping.getClientTime());
+        pong.setT1(receivedAt);
+        if (clock.hasSamples()) {
+            pong.setOffsetMs(clock.getOffsetMs());
+            pong.setRttMs(clock.getRttMs());
+        }
+        pong.setT2(System.currentTimeMillis());
+        return pong;
+    }
+
+    // ============================================
+    // HOST: HEARTBEAT I KOMANDE
+    // ============================================
+
+    /**
+     * Periodična pozicija od hosta. Emituje se samo ako se stanje
+     * promenilo više od tolerancije ili je prošao keepalive interval.
+     */
+    public void handleHostHeartbeat(Long roomId, String sessionId, String hostUser, PlaybackSyncMessage heartbeat) {
+        if (!cluster.isLocal(roomId)) {
+            forwardToOwner(roomId, sessionId, "heartbeat", withHost(heartbeat, hostUser));
+            return;
+        }
+        WatchPartyRoomRegistry.RoomState room = hostRoom(roomId, hostUser);
+        if (room == null || heartbeat.getPositionMs() == null) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        boolean playing = Boolean.TRUE.equals(heartbeat.getPlaying());
+        long positionNow = positionAtServerNow(sessionId, heartbeat, playing, now);
+
+        room.updatePlayback(playing, positionNow, now);
+
+        WatchPartyDTO.PlaybackDTO previous = lastBroadcast.get(roomId);
+        boolean mustBroadcast = previous == null
+                || previous.isPlaying() != playing
+                || Math.abs(positionNow - expectedPosition(previous, now)) > driftToleranceMs
+                || now - previous.getUpdatedAt() >= stateKeepaliveMs;
+
+        if (mustBroadcast) {
+            broadcastState(roomId, null, positionNow, playing, now);
+        } else {
+            stateSuppressedCounter.increment();
+        }
+    }
+
+    /**
+     * Eksplicitna komanda hosta (play / pause / seek) - uvek se emituje odmah.
+     */
+    public void handleHostCommand(Long roomId, String sessionId, String hostUser, PlaybackSyncMessage command) {
+        if (!cluster.isLocal(roomId)) {
+            forwardToOwner(roomId, sessionId, "command", withHost(command, hostUser));
+            return;
+        }
+        WatchPartyRoomRegistry.RoomState room = hostRoom(roomId, hostUser);
+        if (room == null || command.getAction() == null) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        WatchPartyDTO.PlaybackDTO current = room.getPlayback();
+
+        boolean playing;
+        switch (command.getAction()) {
+            case "play" -> playing = true;
+            case "pause" -> playing = false;
+            case "seek" -> playing = command.getPlaying() != null ? command.getPlaying() : current.isPlaying();
+            default -> {
+                rejectedCounter.increment();
+                return;
+            }
+        }
+
+        long position = command.getPositionMs() != null
+                ? positionAtServerNow(sessionId, command, playing, now)
+                : expectedPosition(current, now);
+
+        room.updatePlayback(playing, position, now);
+        broadcastState(roomId, command.getAction(), position, playing, now);
+    }
+
+    // ============================================
+    // GLEDAOCI: KOREKCIJA DRIFT-A
+    // ============================================
+
+    /**
+     * Gledalac javlja svoju poziciju. Ako odstupa od autoritativnog stanja,
+     * SAMO njegova sesija dobija korekciju.
+     *
+     * @return korekcija ili null ako je klijent dovoljno blizu
+     */
+    public PlaybackSyncMessage handleViewerReport(Long roomId, String sessionId, PlaybackSyncMessage report) {
+        if (!cluster.isLocal(roomId)) {
+            // Vlasnik računa korekciju, a šalje je čvor na kome je sesija
+            PlaybackSyncMessage correction = forwardToOwner(roomId, sessionId, "report", report);
+            if (correction != null) {
+                sendToSession(sessionId, correction);
+            }
+            return correction;
+        }
+        WatchPartyRoomRegistry.RoomState room = roomRegistry.get(roomId).orElse(null);
+        if (room == null || report.getPositionMs() == null) {
+            return null;
+        }
+
+        long now = System.currentTimeMillis();
+        WatchPartyDTO.PlaybackDTO state = room.getPlayback();
+        boolean reportedPlaying = Boolean.TRUE.equals(report.getPlaying());
+
+        long expected = expectedPosition(state, now);
+        long reported = positionAtServerNow(sessionId, report, reportedPlaying, now);
+        long drift = reported - expected;  // > 0 → klijent je ispred
+
+        PlaybackSyncMessage correction = computeCorrection(drift, expected, state.isPlaying(), reportedPlaying, now);
+        if (correction != null) {
+            correctionCounter.increment();
+            if (sessionId != null) {  // null → izveštaj prosleđen sa drugog čvora, korekcija ide nazad u odgovoru
+                sendToSession(sessionId, correction);
+            }
+        }
+        return correction;
+    }
+
+    PlaybackSyncMessage computeCorrection(long drift, long expected, boolean statePlaying,
+                                          boolean reportedPlaying, long now) {
+        // Pogrešno stanje (pauza vs play) ili veliki skok → seek na tačnu poziciju
+        if (statePlaying != reportedPlaying || Math.abs(drift) >= seekThresholdMs) {
+            PlaybackSyncMessage seek = PlaybackSyncMessage.correction("seek", expected, null, now);
+            seek.setPlaying(statePlaying);
+            return seek;
+        }
+
+        if (!statePlaying || Math.abs(drift) <= driftToleranceMs) {
+            return null;
+        }
+
+        // Blaga korekcija: klijent ispred → sporije, iza → brže
+        double adjust = (double) -drift / rateCorrectionWindowMs;
+        adjust = Math.max(-maxRateAdjust, Math.min(maxRateAdjust, adjust));
+        double rate = Math.round((1.0 + adjust) * 1000.0) / 1000.0;
+
+        return PlaybackSyncMessage.correction("rate", expected, rate, now);
+    }
+
+    // ============================================
+    // ČIŠĆENJE
+    // ============================================
+
+    @EventListener
+    public void onSessionDisconnect(SessionDisconnectEvent event) {
+        clocks.remove(event.getSessionId());
+    }
+
+    // Soba zatvorena - zaboravi poslednje stanje
+    public void forgetRoom(Long roomId) {
+        lastBroadcast.remove(roomId);
+    }
+
+    public long getClockOffset(String sessionId) {
+        ClockEstimate clock = clocks.get(sessionId);
+        return clock != null && clock.hasSamples() ? clock.getOffsetMs() : 0;
+    }
+
+    // ============================================
+    // POMOĆNE METODE
+    // ============================================
+
+    // hostUser = korisnik sesije (JWT pri CONNECT-u) ili, za poziv iz klastera, ime iz poruke
+    private WatchPartyRoomRegistry.RoomState hostRoom(Long roomId, String hostUser) {
+        WatchPartyRoomRegistry.RoomState room = roomRegistry.get(roomId).orElse(null);
+        if (room == null || hostUser == null || !room.isCreator(hostUser)) {
+            rejectedCounter.increment();
+            return null;
+        }
+        return room;
+    }
+
+    // Vlasnik sobe veruje imenu u prosleđenoj poruci (poziv nosi cluster token) - upisuje se proveren korisnik
+    private PlaybackSyncMessage withHost(PlaybackSyncMessage message, String hostUser) {
+        message.setUsername(hostUser);
+        return message;
+    }
+
+    /**
+     * Pozicija iz poruke prevedena na "sada" u serverskom vremenu:
+     * klijentsko vreme c + offset sesije = serversko vreme merenja.
+     */
+    private long positionAtServerNow(String sessionId, PlaybackSyncMessage message, boolean playing, long now) {
+        long position = message.getPositionMs();
+        if (!playing) {
+            return position;
+        }
+
+        long elapsed = Math.max(0, Math.min(now - sampledAt(sessionId, message, now), stateKeepaliveMs));
+        return position + elapsed;
+    }
+
+    // Serversko vreme merenja; poruka prosleđena sa drugog čvora već nosi ts umesto c
+    private long sampledAt(String sessionId, PlaybackSyncMessage message, long now) {
+        if (message.getClientTime() == null) {
+            return message.getServerTime() != null ? message.getServerTime() : now;
+        }
+
+        ClockEstimate clock = clocks.get(sessionId);
+        if (clock != null && clock.hasSamples()) {
+            return message.getClientTime() + clock.getOffsetMs();
+        }
+        return now;  // Bez procene sata - pretpostavi da je poruka sveža
+    }
+
+    /**
+     * Soba drugog čvora: klijentsko vreme se ovde prevodi u serversko (procena
+     * sata sesije postoji samo na ovom čvoru), pa poruka ide vlasniku sobe.
+     * Neuspelo prosleđivanje se ne ponavlja - sledeći heartbeat/izveštaj stiže uskoro.
+     */
+    private PlaybackSyncMessage forwardToOwner(Long roomId, String sessionId, String kind,
+                                               PlaybackSyncMessage message) {
+        message.setServerTime(sampledAt(sessionId, message, System.currentTimeMillis()));
+        message.setClientTime(null);
+        try {
+            return cluster.forward(roomId, "sync/" + kind, message, PlaybackSyncMessage.class);
+        } catch (RuntimeException e) {
+            rejectedCounter.increment();
+            return null;
+        }
+    }
+
+    private long expectedPosition(WatchPartyDTO.PlaybackDTO state, long now) {
+        if (!state.isPlaying()) {
+            return state.getPositionMs();
+        }
+        return state.getPositionMs() + Math.max(0, now - state.getUpdatedAt());
+    }
+
+    private void broadcastState(Long roomId, String action, long position, boolean playing, long now) {
+        lastBroadcast.put(roomId, new WatchPartyDTO.PlaybackDTO(playing, position, now));
+        // Niz seek-ova u istom prozoru → samo poslednje stanje
+        broadcaster.publish(destinations.sync(roomId), "state",
+                PlaybackSyncMessage.state(action, position, playing, now));
+        stateBroadcastCounter.increment();
+    }
+
+    // Poruka samo jednoj sesiji (/user/queue/watch-party-sync), bez Principal-a
+    private void sendToSession(String sessionId, PlaybackSyncMessage message) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setSessionId(sessionId);
+        headers.setLeaveMutable(true);
+        messagingTemplate.convertAndSendToUser(sessionId, "/queue/watch-party-sync", message,
+                headers.getMessageHeaders());
+    }
+}
@@ -0,0 +1,123 @@
+package service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * WebSocketRateLimitService - Token bucket po WebSocket sesiji za dolazne STOMP poruke.
+ *
+ * Svaka sesija ima {@code capacity} tokena (dozvoljen nalet) koji se dopunjuju
+ * brzinom {@code refill-per-second}. SEND bez tokena se odbacuje pre nego što
+ * stigne do kontrolera.
+ */
+@Service
+public class WebSocketRateLimitService {
+
+    // ============================================
+    // ZAVISNOSTI I KONFIGURACIJA
+    // ============================================
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.websocket.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.websocket.rate-limit.capacity:20}")
+    private int capacity;
+
+    @Value("${app.websocket.rate-limit.refill-per-second:10}")
+    private double refillPerSecond;
+
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    private Counter allowedCounter;
+    private Counter rejectedCounter;
+
+    // ============================================
+    // TOKEN BUCKET
+    // ============================================
+
+    static class TokenBucket {
+        private final int capacity;
+        private final double refillPerNano;
+        private double tokens;
+        private long lastRefill;
+
+        TokenBucket(int capacity, double refillPerSecond) {
+            this.capacity = capacity;
+            this.refillPerNano = refillPerSecond / 1_000_000_000.0;
+            this.tokens = capacity;
+            this.lastRefill = System.nanoTime();
+        }
+
+        synchronized boolean tryAcquire() {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * refillPerNano);
+            lastRefill = now;
+
+            if (tokens >= 1.0) {
+                tokens -= 1.0;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    // ============================================
+    // LIFECYCLE
+    // ============================================
+
+    @PostConstruct
+    public void init() {
+        allowedCounter = Counter.builder("websocket.inbound.rate")
+                .tag("result", "allowed")
+                .description("Dolazne STOMP poruke propuštene kroz rate limit")
+                .register(meterRegistry);
+
+        rejectedCounter = Counter.builder("websocket.inbound.rate")
+                .tag("result", "rejected")
+                .description("Dolazne STOMP poruke odbačene zbog rate limita")
+                .register(meterRegistry);
+
+        Gauge.builder("websocket.inbound.rate.sessions", buckets, Map::size)
+                .description("Broj sesija sa aktivnim token bucket-om")
+                .register(meterRegistry);
+    }
+
+    // ============================================
+    // PUBLIC METODE
+    // ============================================
+
+    public boolean tryAcquire(String sessionId) {
+        if (!enabled || sessionId == null) {
+            return true;
+        }
+
+        boolean allowed = buckets
+                .computeIfAbsent(sessionId, id -> new TokenBucket(capacity, refillPerSecond))
+                .tryAcquire();
+
+        if (allowed) {
+            allowedCounter.increment();
+        } else {
+            rejectedCounter.increment();
+        }
+        return allowed;
+    }
+
+    @EventListener
+    public void onSessionDisconnect(SessionDisconnectEvent event) {
+        buckets.remove(event.getSessionId());
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.project_backend;
+
+import model.ActivationToken;
+import model.User;
+import repository.ActivationTokenRepository;
+import repository.UserRepository;
+import service.AccountJanitorService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * AccountJanitorTest - Brisanje isteklih tokena i starih neaktiviranih naloga u grupama
+ */
+@SpringBootTest
+public class AccountJanitorTest {
+
+    @Autowired
+    private AccountJanitorService janitorService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ActivationTokenRepository tokenRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Long> createdUserIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        // Male grupe da bi se videlo više DELETE iteracija
+        ReflectionTestUtils.setField(janitorService, "batchSize", 3);
+        ReflectionTestUtils.setField(janitorService, "pauseBetweenBatchesMs", 0L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (Long id : createdUserIds) {
+            tokenRepository.findByUserId(id).ifPresent(tokenRepository::delete);
+            userRepository.findById(id).ifPresent(userRepository::delete);
+        }
+        createdUserIds.clear();
+        ReflectionTestUtils.setField(janitorService, "batchSize", 500);
+        ReflectionTestUtils.setField(janitorService, "pauseBetweenBatchesMs", 100L);
+    }
+
+    @Test
+    void testPurgesExpiredTokensAndStaleUnactivatedUsers() {
+        LocalDateTime longAgo = LocalDateTime.now().minusDays(5);
+
+        // 7 starih neaktiviranih naloga sa isteklim tokenom → brišu se
+        List<Long> stale = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            stale.add(createUser("stale_" + i, false, longAgo, longAgo.plusHours(24)));
+        }
+
+        // Svež neaktiviran nalog (token još važi) → ostaje
+        Long fresh = createUser("fresh", false, null, null);
+
+        // Star ali aktiviran nalog → ostaje (briše mu se samo istekli token)
+        Long activated = createUser("activated", true, longAgo, longAgo.plusHours(24));
+
+        int purged = janitorService.purge();
+
+        assertTrue(purged >= 15, "Očekivano bar 8 tokena + 7 naloga, obrisano: " + purged);
+        for (Long id : stale) {
+            assertFalse(userRepository.existsById(id));
+        }
+        assertTrue(userRepository.existsById(fresh));
+        assertTrue(tokenRepository.findByUserId(fresh).isPresent());
+        assertTrue(userRepository.existsById(activated));
+        assertFalse(tokenRepository.findByUserId(activated).isPresent());
+    }
+
+    @Test
+    void testRespectsMaxBatchesPerRun() {
+        LocalDateTime longAgo = LocalDateTime.now().minusDays(5);
+        for (int i = 0; i < 10; i++) {
+            createUser("limited_" + i, false, longAgo, longAgo.plusHours(24));
+        }
+
+        ReflectionTestUtils.setField(janitorService, "maxBatchesPerRun", 2);
+        try {
+            int firstRun = janitorService.purge();
+            assertEquals(6, firstRun, "2 grupe po 3 reda");
+        } finally {
+            ReflectionTestUtils.setField(janitorService, "maxBatchesPerRun", 200);
+        }
+
+        janitorService.purge();
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM users WHERE username LIKE 'jan_limited_%'", Integer.class));
+    }
+
+    // ============================================
+    // POMOĆNE METODE
+    // ============================================
+
+    private Long createUser(String name, boolean activated, LocalDateTime createdAt, LocalDateTime tokenExpiresAt) {
+        String unique = "jan_" + name + "_" + System.nanoTime();
+
+        User user = new User();
+        user.setUsername(unique.substring(0, Math.min(50, unique.length())));
+        user.setEmail(unique + "@example.com");
+        user.setPassword("hash");
+        user.setFirstName("Test");
+        user.setLastName("Janitor");
+        user.setAddress("Beograd");
+        user.setActivated(activated);
+        user.setEnabled(true);
+        user = userRepository.save(user);
+        createdUserIds.add(user.getId());
+
+        ActivationToken token = tokenRepository.save(new ActivationToken(user));
+
+        // createdAt je updatable=false - pomeramo ga direktno u bazi
+        if (createdAt != null) {
+            jdbcTemplate.update("UPDATE users SET created_at = ? WHERE id = ?", createdAt, user.getId());
+        }
+        if (tokenExpiresAt != null) {
+            jdbcTemplate.update("UPDATE activation_tokens SET expires_at = ? WHERE id = ?", tokenExpiresAt, token.getId());
+        }
+        return user.getId();
+    }
+}
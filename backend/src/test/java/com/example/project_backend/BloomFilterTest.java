@@ -0,0 +1,55 @@
+package com.example.project_backend;
+
+import org.junit.jupiter.api.Test;
+import service.BloomFilter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * BloomFilterTest - Nema lažno negativnih, lažno pozitivni u okviru fpp
+ */
+public class BloomFilterTest {
+
+    private static final int USERS = 10_000;
+
+    @Test
+    void testNoFalseNegatives() {
+        BloomFilter filter = new BloomFilter(USERS, 0.01);
+
+        for (int i = 0; i < USERS; i++) {
+            filter.put("user_" + i + "@example.com");
+        }
+
+        for (int i = 0; i < USERS; i++) {
+            assertTrue(filter.mightContain("user_" + i + "@example.com"));
+        }
+        assertEquals(USERS, filter.getInsertions());
+    }
+
+    @Test
+    void testFalsePositiveRateIsBounded() {
+        BloomFilter filter = new BloomFilter(USERS, 0.01);
+
+        for (int i = 0; i < USERS; i++) {
+            filter.put("taken_" + i);
+        }
+
+        int falsePositives = 0;
+        int probes = 100_000;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain("free_" + i)) {
+                falsePositives++;
+            }
+        }
+
+        double rate = (double) falsePositives / probes;
+        System.out.println("🌸 Lažno pozitivnih: " + falsePositives + "/" + probes + " (" + rate + ")");
+        assertTrue(rate < 0.02, "Stopa lažno pozitivnih prevelika: " + rate);
+    }
+
+    @Test
+    void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(100, 1.5));
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.project_backend;
+
+import org.junit.jupiter.api.Test;
+import service.ConsistentHashRing;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ConsistentHashRingTest - Raspodela soba po čvorovima i selidba pri promeni prstena
+ */
+public class ConsistentHashRingTest {
+
+    private static final int ROOMS = 10_000;
+    private static final int VIRTUAL_NODES = 128;
+
+    @Test
+    void testRoomsAreSpreadEvenly() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of("a", "b", "c", "d"), VIRTUAL_NODES);
+
+        Map<String, Integer> perNode = new HashMap<>();
+        for (long roomId = 1; roomId <= ROOMS; roomId++) {
+            perNode.merge(ring.ownerOf(roomId), 1, Integer::sum);
+        }
+
+        assertEquals(4, perNode.size());
+        for (int count : perNode.values()) {
+            // Idealno 2500 po čvoru; virtualni čvorovi drže odstupanje malim
+            assertTrue(count > 1750 && count < 3250, "Neravnomerno: " + perNode);
+        }
+    }
+
+    @Test
+    void testOnlyRoomsOfChangedNodeMove() {
+        ConsistentHashRing three = new ConsistentHashRing(List.of("a", "b", "c"), VIRTUAL_NODES);
+        ConsistentHashRing four = new ConsistentHashRing(List.of("a", "b", "c", "d"), VIRTUAL_NODES);
+
+        int moved = 0;
+        for (long roomId = 1; roomId <= ROOMS; roomId++) {
+            String before = three.ownerOf(roomId);
+            String after = four.ownerOf(roomId);
+            if (!before.equals(after)) {
+                assertEquals("d", after, "Soba se selila između starih čvorova");
+                moved++;
+            }
+        }
+
+        // Novi čvor preuzima ~1/4 soba, ostale ostaju na mestu
+        assertTrue(moved > ROOMS / 8 && moved < ROOMS / 2, "Preseljeno: " + moved);
+    }
+
+    @Test
+    void testOwnerIsStableAcrossInstancesAndOrder() {
+        ConsistentHashRing first = new ConsistentHashRing(List.of("node-1", "node-2"), VIRTUAL_NODES);
+        ConsistentHashRing second = new ConsistentHashRing(List.of("node-2", "node-1"), VIRTUAL_NODES);
+
+        for (long roomId = 1; roomId <= 1000; roomId++) {
+            assertEquals(first.ownerOf(roomId), second.ownerOf(roomId));
+        }
+        assertNull(new ConsistentHashRing(List.of(), VIRTUAL_NODES).ownerOf(1L));
+    }
+}
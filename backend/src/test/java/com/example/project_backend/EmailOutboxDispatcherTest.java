@@ -0,0 +1,158 @@
+package com.example.project_backend;
+
+import com.icegreen.greenmail.configuration.GreenMailConfiguration;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import jakarta.mail.internet.MimeMessage;
+import model.EmailOutboxMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import repository.EmailOutboxRepository;
+import service.EmailOutboxDispatcher;
+import service.EmailService;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * EmailOutboxDispatcherTest - Slanje iz outbox-a na lokalni SMTP (GreenMail)
+ *
+ * Bez baze: repository i transaction manager su mock-ovi, SMTP je pravi
+ * (GreenMail u istom procesu).
+ */
+public class EmailOutboxDispatcherTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP)
+            .withConfiguration(GreenMailConfiguration.aConfig().withDisabledAuthentication());
+
+    private EmailOutboxRepository outboxRepository;
+    private PlatformTransactionManager transactionManager;
+    private JavaMailSenderImpl mailSender;
+    private EmailOutboxDispatcher dispatcher;
+    private List<EmailOutboxMessage> pending;
+
+    @BeforeEach
+    void setUp() {
+        pending = new ArrayList<>();
+
+        outboxRepository = mock(EmailOutboxRepository.class);
+        when(outboxRepository.findDueForDispatch(any(LocalDateTime.class), any(Pageable.class)))
+                .thenAnswer(invocation -> pending.stream()
+                        .filter(m -> EmailOutboxMessage.STATUS_PENDING.equals(m.getStatus()))
+                        .toList());
+
+        transactionManager = mock(PlatformTransactionManager.class);
+
+        mailSender = spy(new JavaMailSenderImpl());
+        mailSender.setHost("localhost");
+        mailSender.setPort(ServerSetupTest.SMTP.getPort());
+
+        EmailService emailService = new EmailService();
+        ReflectionTestUtils.setField(emailService, "mailSender", mailSender);
+        ReflectionTestUtils.setField(emailService, "outboxRepository", outboxRepository);
+        ReflectionTestUtils.setField(emailService, "fromEmail", "noreply@videoapp.test");
+        ReflectionTestUtils.setField(emailService, "backendUrl", "http://localhost:9090");
+
+        dispatcher = new EmailOutboxDispatcher();
+        ReflectionTestUtils.setField(dispatcher, "outboxRepository", outboxRepository);
+        ReflectionTestUtils.setField(dispatcher, "emailService", emailService);
+        OutboxTestSupport.configure(dispatcher, transactionManager);
+        dispatcher.init();
+    }
+
+    @Test
+    void testBatchIsDeliveredAndMarkedSent() throws Exception {
+        for (int i = 1; i <= 5; i++) {
+            pending.add(new EmailOutboxMessage("user" + i + "@test.com", "Aktivacija naloga", "Token " + i));
+        }
+
+        int processed = dispatcher.dispatchBatch();
+
+        assertEquals(5, processed);
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        assertEquals(5, received.length);
+        assertEquals("Aktivacija naloga", received[0].getSubject());
+
+        for (EmailOutboxMessage message : pending) {
+            assertEquals(EmailOutboxMessage.STATUS_SENT, message.getStatus());
+            assertEquals(1, message.getAttempts());
+            assertNotNull(message.getSentAt());
+        }
+    }
+
+    @Test
+    void testSmtpDownSchedulesRetryWithBackoff() {
+        mailSender.setPort(1);  // Niko ne sluša → greška konekcije
+
+        EmailOutboxMessage message = new EmailOutboxMessage("retry@test.com", "Aktivacija naloga", "Token");
+        pending.add(message);
+
+        LocalDateTime before = LocalDateTime.now();
+        dispatcher.dispatchBatch();
+
+        assertEquals(EmailOutboxMessage.STATUS_PENDING, message.getStatus());
+        assertEquals(1, message.getAttempts());
+        assertNotNull(message.getLastError());
+        assertTrue(message.getNextAttemptAt().isAfter(before.plusNanos(900_000_000L)));
+    }
+
+    @Test
+    void testMessageFailsAfterMaxAttempts() {
+        mailSender.setPort(1);
+
+        EmailOutboxMessage message = new EmailOutboxMessage("dead@test.com", "Aktivacija naloga", "Token");
+        message.setAttempts(2);
+        pending.add(message);
+
+        dispatcher.dispatchBatch();
+
+        assertEquals(EmailOutboxMessage.STATUS_FAILED, message.getStatus());
+        assertEquals(3, message.getAttempts());
+        assertEquals(0, greenMail.getReceivedMessages().length);
+    }
+
+    @Test
+    void testBatchIsLeasedAndCommittedBeforeSmtp() {
+        EmailOutboxMessage message = new EmailOutboxMessage("lease@test.com", "Aktivacija naloga", "Token");
+        pending.add(message);
+
+        LocalDateTime before = LocalDateTime.now();
+        doAnswer(invocation -> {
+            // Preuzimanje je već commit-ovano - SMTP radi bez otvorene transakcije
+            verify(transactionManager, times(1)).commit(any());
+            assertEquals(1, message.getAttempts());
+            assertTrue(message.getNextAttemptAt().isAfter(before.plusNanos((OutboxTestSupport.LEASE_MS - 1000) * 1_000_000L)));
+            return invocation.callRealMethod();
+        }).when(mailSender).send(any(SimpleMailMessage[].class));
+
+        dispatcher.dispatchBatch();
+
+        verify(transactionManager, times(2)).commit(any());  // Preuzimanje + upis rezultata
+        assertEquals(EmailOutboxMessage.STATUS_SENT, message.getStatus());
+        assertEquals(1, greenMail.getReceivedMessages().length);
+    }
+
+    @Test
+    void testQueueActivationEmailDoesNotTouchSmtp() {
+        EmailService emailService = (EmailService) ReflectionTestUtils.getField(dispatcher, "emailService");
+        when(outboxRepository.save(any(EmailOutboxMessage.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        EmailOutboxMessage queued = emailService.queueActivationEmail("new@test.com", "novi", "abc-123");
+
+        assertEquals(EmailOutboxMessage.STATUS_PENDING, queued.getStatus());
+        assertTrue(queued.getBody().contains("/auth/activate?token=abc-123"));
+        assertEquals(0, greenMail.getReceivedMessages().length);
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.project_backend;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import config.RabbitMQConfig;
+import dto.EngagementEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import service.EngagementEventPublisher;
+import service.MessageCompressor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * EngagementEventPublisherTest - Micro-batch, sabiranje pregleda i slanje posle commit-a
+ */
+public class EngagementEventPublisherTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private RabbitTemplate rabbitTemplate;
+    private EngagementEventPublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        rabbitTemplate = mock(RabbitTemplate.class);
+        when(rabbitTemplate.getMessageConverter()).thenReturn(new Jackson2JsonMessageConverter());
+
+        MessageCompressor compressor = new MessageCompressor();
+        ReflectionTestUtils.setField(compressor, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(compressor, "enabled", false);
+        ReflectionTestUtils.setField(compressor, "algorithm", "gzip");
+        compressor.init();
+
+        publisher = new EngagementEventPublisher();
+        ReflectionTestUtils.setField(publisher, "rabbitTemplate", rabbitTemplate);
+        ReflectionTestUtils.setField(publisher, "messageCompressor", compressor);
+        ReflectionTestUtils.setField(publisher, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(publisher, "enabled", true);
+        ReflectionTestUtils.setField(publisher, "bufferCapacity", 100);
+        ReflectionTestUtils.setField(publisher, "maxBatchSize", 50);
+        publisher.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testViralPostViewsAreOneEventPerFlush() throws Exception {
+        for (int i = 0; i < 10_000; i++) {
+            publisher.recordView(1L);
+        }
+        for (int i = 0; i < 3; i++) {
+            publisher.recordView(2L);
+        }
+
+        publisher.flush();
+
+        Map<String, List<Message>> sent = captureSent(1);
+        JsonNode events = body(sent.get("engagement.view").get(0));
+        assertEquals(2, events.size());
+
+        Map<Long, Long> counts = new HashMap<>();
+        events.forEach(e -> counts.put(e.get("postId").asLong(), e.get("count").asLong()));
+        assertEquals(Map.of(1L, 10_000L, 2L, 3L), counts);
+
+        // Sledeći flush nema šta da pošalje
+        publisher.flush();
+        verify(rabbitTemplate, times(1)).send(anyString(), anyString(), any(Message.class));
+    }
+
+    @Test
+    void testEventsAreGroupedByTypeIntoBatches() throws Exception {
+        for (long postId = 1; postId <= 120; postId++) {
+            publisher.record(EngagementEvent.byUser(EngagementEvent.TYPE_LIKE, postId, "ana"));
+        }
+        // Bafer (100) je pun - ovaj se odbacuje
+        publisher.record(EngagementEvent.comment(EngagementEvent.TYPE_COMMENT_DELETE, 7L, 70L, "ana"));
+
+        publisher.flush();
+
+        Map<String, List<Message>> sent = captureSent(2);
+        assertEquals(List.of("engagement.like"), List.copyOf(sent.keySet()));
+        assertEquals(50, body(sent.get("engagement.like").get(0)).size());
+        assertEquals(50, body(sent.get("engagement.like").get(1)).size());
+        assertEquals(50, (Integer) sent.get("engagement.like").get(0).getMessageProperties()
+                .getHeader(EngagementEventPublisher.HEADER_EVENT_COUNT));
+
+        assertEquals(21.0, meterRegistry.get("engagement.events").tag("result", "dropped").counter().count());
+        assertEquals(100.0, meterRegistry.get("engagement.events").tag("result", "published").counter().count());
+    }
+
+    @Test
+    void testEventIsBufferedOnlyAfterCommit() throws Exception {
+        TransactionSynchronizationManager.initSynchronization();
+
+        publisher.record(EngagementEvent.comment(EngagementEvent.TYPE_COMMENT, 5L, 50L, "marko"));
+        publisher.recordView(5L);
+        publisher.flush();
+        verify(rabbitTemplate, never()).send(anyString(), anyString(), any(Message.class));
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        assertEquals(2, synchronizations.size());
+        synchronizations.forEach(TransactionSynchronization::afterCommit);  // Rollback ne bi pozvao afterCommit
+
+        publisher.flush();
+
+        Map<String, List<Message>> sent = captureSent(2);
+        JsonNode comment = body(sent.get("engagement.comment").get(0)).get(0);
+        assertEquals("COMMENT", comment.get("type").asText());
+        assertEquals(50L, comment.get("commentId").asLong());
+        assertEquals("marko", comment.get("username").asText());
+        assertFalse(comment.has("count"));  // NON_NULL
+        assertEquals(1L, body(sent.get("engagement.view").get(0)).get(0).get("count").asLong());
+    }
+
+    @Test
+    void testRoutingKeys() {
+        assertEquals("engagement.view", EngagementEventPublisher.routingKey(EngagementEvent.TYPE_VIEW));
+        assertEquals("engagement.comment.delete",
+                EngagementEventPublisher.routingKey(EngagementEvent.TYPE_COMMENT_DELETE));
+        assertEquals("engagement.post.delete",
+                EngagementEventPublisher.routingKey(EngagementEvent.TYPE_POST_DELETE));
+    }
+
+    // ============================================
+    // POMOĆNE METODE
+    // ============================================
+
+    private Map<String, List<Message>> captureSent(int expectedMessages) {
+        ArgumentCaptor<String> routingKeys = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<Message> messages = ArgumentCaptor.forClass(Message.class);
+        verify(rabbitTemplate, times(expectedMessages))
+                .send(eq(RabbitMQConfig.ENGAGEMENT_EXCHANGE), routingKeys.capture(), messages.capture());
+
+        Map<String, List<Message>> byRoutingKey = new LinkedHashMap<>();
+        for (int i = 0; i < expectedMessages; i++) {
+            byRoutingKey.computeIfAbsent(routingKeys.getAllValues().get(i), k -> new ArrayList<>())
+                    .add(messages.getAllValues().get(i));
+        }
+        return byRoutingKey;
+    }
+
+    private JsonNode body(Message message) throws Exception {
+        return objectMapper.readTree(message.getBody());
+    }
+}
@@ -0,0 +1,251 @@
+package com.example.project_backend;
+
+import com.example.proto.UploadEventProto;
+import model.UploadEvent;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import service.ProtobufMessageConverter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MessageCodecBenchmark - JMH poređenje codec-a za UploadEvent
+ *
+ * Pokretanje (profil jmh, poseban JVM sa fork-ovima):
+ *   mvn -B -Pjmh test-compile exec:exec
+ *   mvn -B -Pjmh test-compile exec:exec -Djmh.args="MessageCodecBenchmark.protobuf -p shape=LARGE -prof gc"
+ *
+ * CODEC-I:
+ * - json*      - Jackson2JsonMessageConverter, isti put kao JsonMessageProducer (sa MessageProperties)
+ * - protobuf*  - ProtobufMessageConverter (model.UploadEvent ↔ generisana klasa ↔ bajtovi)
+ * - generated* - samo generisani codec (bez mapiranja iz/u model.UploadEvent)
+ * - legacy*    - raniji ručni codec (DataOutputStream, ISO string timestamp) - referentna tačka
+ *
+ * Rezultat: ops/ms po codec-u i obliku event-a; sa -prof gc i gc.alloc.rate.norm
+ * (bajtova alocirano po operaciji). Veličine payload-a ispisuje setup svakog fork-a.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class MessageCodecBenchmark {
+
+    /**
+     * MINIMAL - samo obavezna polja; TYPICAL - realan upload; LARGE - dug opis sa dijakriticima
+     */
+    public enum Shape { MINIMAL, TYPICAL, LARGE }
+
+    @Param
+    public Shape shape;
+
+    private UploadEvent event;
+    private UploadEventProto.UploadEvent generatedEvent;
+
+    private final Jackson2JsonMessageConverter jsonConverter = new Jackson2JsonMessageConverter();
+    private final ProtobufMessageConverter protobufConverter = new ProtobufMessageConverter();
+
+    private Message jsonMessage;
+    private byte[] protobufBytes;
+    private byte[] legacyBytes;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        event = createEvent(shape);
+        jsonMessage = jsonConverter.toMessage(event, new MessageProperties());
+        protobufBytes = protobufConverter.toProtobuf(event);
+        generatedEvent = UploadEventProto.UploadEvent.parseFrom(protobufBytes);
+        legacyBytes = LegacyCodec.toProtobuf(event);
+
+        System.out.printf("%n📦 Payload [%s]: JSON %d B, Protobuf %d B, stari Protobuf %d B%n",
+                shape, jsonMessage.getBody().length, protobufBytes.length, legacyBytes.length);
+    }
+
+    // ============================================
+    // JSON
+    // ============================================
+
+    @Benchmark
+    public byte[] jsonSerialize() {
+        return jsonConverter.toMessage(event, new MessageProperties()).getBody();
+    }
+
+    @Benchmark
+    public Object jsonDeserialize() {
+        return jsonConverter.fromMessage(jsonMessage);
+    }
+
+    // ============================================
+    // PROTOBUF - ProtobufMessageConverter
+    // ============================================
+
+    @Benchmark
+    public byte[] protobufSerialize() throws IOException {
+        return protobufConverter.toProtobuf(event);
+    }
+
+    @Benchmark
+    public UploadEvent protobufDeserialize() throws IOException {
+        return protobufConverter.fromProtobuf(protobufBytes);
+    }
+
+    // ============================================
+    // PROTOBUF - samo generisani codec
+    // ============================================
+
+    @Benchmark
+    public byte[] generatedSerialize() {
+        return generatedEvent.toByteArray();
+    }
+
+    @Benchmark
+    public UploadEventProto.UploadEvent generatedDeserialize() throws IOException {
+        return UploadEventProto.UploadEvent.parseFrom(protobufBytes);
+    }
+
+    // ============================================
+    // PROTOBUF - raniji ručni codec
+    // ============================================
+
+    @Benchmark
+    public byte[] legacySerialize() throws IOException {
+        return LegacyCodec.toProtobuf(event);
+    }
+
+    @Benchmark
+    public UploadEvent legacyDeserialize() throws IOException {
+        return LegacyCodec.fromProtobuf(legacyBytes);
+    }
+
+    // ============================================
+    // POMOĆNE METODE
+    // ============================================
+
+    static UploadEvent createEvent(Shape shape) {
+        UploadEvent event = new UploadEvent();
+        event.setPostId(1_234_567L);
+        event.setTimestamp(LocalDateTime.of(2024, 6, 1, 12, 30, 15, 123_000_000));
+
+        if (shape == Shape.MINIMAL) {
+            return event;
+        }
+
+        event.setTitle("Zalazak sunca na Petrovaradinu");
+        event.setDescription("Snimak sa tvrđave, 4K");
+        event.setAuthor("marko.petrovic");
+        event.setAuthorEmail("marko.petrovic@example.com");
+        event.setVideoUrl("/uploads/videos/3f2a9c1e-7b4d-4e8a-9f0c-2d6b1a8e5c3f.mp4");
+        event.setThumbnailUrl("/uploads/thumbnails/3f2a9c1e-7b4d-4e8a-9f0c-2d6b1a8e5c3f.jpg");
+        event.setFileSize(187_654_321L);
+        event.setDuration(754);
+
+        if (shape == Shape.LARGE) {
+            event.setDescription("Čitav dan na Petrovaradinskoj tvrđavi - šetnja, muzika, žurka do zore. ".repeat(30));
+        }
+        return event;
+    }
+
+    /**
+     * Ručni Protobuf codec pre generisanih klasa (isti bajtovi na žici kao tada).
+     */
+    static final class LegacyCodec {
+
+        private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+
+        static byte[] toProtobuf(UploadEvent event) throws IOException {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(baos);
+
+            writeVarIntField(out, 1, event.getPostId());
+            writeStringField(out, 2, event.getTitle());
+            writeStringField(out, 3, event.getDescription());
+            writeStringField(out, 4, event.getAuthor());
+            writeStringField(out, 5, event.getAuthorEmail());
+            writeStringField(out, 6, event.getVideoUrl());
+            writeStringField(out, 7, event.getThumbnailUrl());
+            writeVarIntField(out, 8, event.getFileSize());
+            writeVarIntField(out, 9, event.getDuration() != null ? event.getDuration().longValue() : null);
+            writeStringField(out, 10, event.getTimestamp() != null ? event.getTimestamp().format(FORMATTER) : null);
+            writeStringField(out, 11, event.getEventType());
+
+            return baos.toByteArray();
+        }
+
+        static UploadEvent fromProtobuf(byte[] data) throws IOException {
+            ByteArrayInputStream bais = new ByteArrayInputStream(data);
+            DataInputStream in = new DataInputStream(bais);
+            UploadEvent event = new UploadEvent();
+
+            while (bais.available() > 0) {
+                int tag = (int) readVarInt(in);
+                switch (tag >> 3) {
+                    case 1 -> event.setPostId(readVarInt(in));
+                    case 2 -> event.setTitle(readString(in));
+                    case 3 -> event.setDescription(readString(in));
+                    case 4 -> event.setAuthor(readString(in));
+                    case 5 -> event.setAuthorEmail(readString(in));
+                    case 6 -> event.setVideoUrl(readString(in));
+                    case 7 -> event.setThumbnailUrl(readString(in));
+                    case 8 -> event.setFileSize(readVarInt(in));
+                    case 9 -> event.setDuration((int) readVarInt(in));
+                    case 10 -> event.setTimestamp(LocalDateTime.parse(readString(in), FORMATTER));
+                    case 11 -> event.setEventType(readString(in));
+                    default -> throw new IOException("Nepoznato polje: " + (tag >> 3));
+                }
+            }
+            return event;
+        }
+
+        private static void writeVarIntField(DataOutputStream out, int field, Long value) throws IOException {
+            if (value != null) {
+                writeVarInt(out, (long) field << 3);
+                writeVarInt(out, value);
+            }
+        }
+
+        private static void writeStringField(DataOutputStream out, int field, String value) throws IOException {
+            if (value != null) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                writeVarInt(out, ((long) field << 3) | 2);
+                writeVarInt(out, bytes.length);
+                out.write(bytes);
+            }
+        }
+
+        private static void writeVarInt(DataOutputStream out, long value) throws IOException {
+            while ((value & ~0x7FL) != 0) {
+                out.writeByte(((int) value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            out.writeByte((int) value);
+        }
+
+        private static long readVarInt(DataInputStream in) throws IOException {
+            long result = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = in.readByte();
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+        }
+
+        private static String readString(DataInputStream in) throws IOException {
+            byte[] bytes = new byte[(int) readVarInt(in)];
+            in.readFully(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.project_backend;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.postprocessor.AbstractDeflaterPostProcessor;
+import org.springframework.amqp.support.postprocessor.DeflaterPostProcessor;
+import org.springframework.amqp.support.postprocessor.DelegatingDecompressingPostProcessor;
+import org.springframework.amqp.support.postprocessor.GZipPostProcessor;
+import service.ProtobufMessageConverter;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MessageCompressionBenchmark - Cena kompresije naspram uštede na žici
+ *
+ * Pokretanje (profil jmh):
+ *   mvn -B -Pjmh test-compile exec:exec -Djmh.args="MessageCompressionBenchmark -prof gc"
+ *
+ * Isti post-processor-i kao MessageCompressor (producer) i DelegatingDecompressingPostProcessor
+ * (consumer-app). Setup ispisuje veličinu pre/posle kompresije za svaku kombinaciju;
+ * compress/decompress daju CPU cenu po poruci. Zajedno određuju threshold-bytes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class MessageCompressionBenchmark {
+
+    public enum Format { JSON, PROTOBUF }
+
+    @Param
+    public Format format;
+
+    @Param({"MINIMAL", "TYPICAL", "LARGE"})
+    public MessageCodecBenchmark.Shape shape;
+
+    @Param({"gzip", "deflate"})
+    public String algorithm;
+
+    @Param({"1", "6"})
+    public int level;
+
+    private AbstractDeflaterPostProcessor compressor;
+    private final DelegatingDecompressingPostProcessor decompressor = new DelegatingDecompressingPostProcessor();
+
+    private byte[] body;
+    private MessageProperties properties;
+    private Message compressed;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        if (format == Format.JSON) {
+            Message json = new Jackson2JsonMessageConverter()
+                    .toMessage(MessageCodecBenchmark.createEvent(shape), new MessageProperties());
+            body = json.getBody();
+            properties = json.getMessageProperties();
+        } else {
+            body = new ProtobufMessageConverter().toProtobuf(MessageCodecBenchmark.createEvent(shape));
+            properties = new MessageProperties();
+            properties.setContentType("application/x-protobuf");
+        }
+
+        compressor = "deflate".equals(algorithm) ? new DeflaterPostProcessor() : new GZipPostProcessor();
+        compressor.setLevel(level);
+        compressor.setCopyProperties(true);
+        compressed = compressor.postProcessMessage(new Message(body, properties));
+
+        System.out.printf("%n🗜️ %s/%s %s-%d: %d B → %d B (%.0f%%)%n", format, shape, algorithm, level,
+                body.length, compressed.getBody().length, 100.0 * compressed.getBody().length / body.length);
+    }
+
+    @Benchmark
+    public Message compress() {
+        return compressor.postProcessMessage(new Message(body, properties));
+    }
+
+    @Benchmark
+    public Message decompress() {
+        // Decompressor menja header-e - svaka iteracija dobija svoju kopiju
+        MessageProperties copy = new MessageProperties();
+        copy.setContentType(properties.getContentType());
+        copy.setContentEncoding(compressed.getMessageProperties().getContentEncoding());
+        return decompressor.postProcessMessage(new Message(compressed.getBody(), copy));
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.project_backend;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.postprocessor.DelegatingDecompressingPostProcessor;
+import org.springframework.test.util.ReflectionTestUtils;
+import service.MessageCompressor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * MessageCompressorTest - Prag, content-encoding i povratak na original
+ */
+public class MessageCompressorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void testSmallMessageIsNotCompressed() {
+        MessageCompressor compressor = compressor("gzip", 1024);
+        Message message = json("{\"postId\":1}");
+
+        assertSame(message, compressor.compress(message));
+        assertNull(message.getMessageProperties().getContentEncoding());
+    }
+
+    @Test
+    void testLargeMessageIsCompressedAndDecompressible() {
+        for (String algorithm : new String[] {"gzip", "deflate"}) {
+            MessageCompressor compressor = compressor(algorithm, 1024);
+            String body = "{\"postId\":1,\"description\":\"" + "Šetnja po tvrđavi, muzika do zore. ".repeat(60) + "\"}";
+            Message original = json(body);
+
+            Message compressed = compressor.compress(original);
+
+            assertEquals(algorithm, compressed.getMessageProperties().getContentEncoding());
+            assertEquals(MessageProperties.CONTENT_TYPE_JSON, compressed.getMessageProperties().getContentType());
+            assertTrue(compressed.getBody().length < original.getBody().length / 4, algorithm);
+            assertNull(original.getMessageProperties().getContentEncoding());  // Original nepromenjen
+
+            // Isto što radi consumer-app container
+            Message restored = new DelegatingDecompressingPostProcessor().postProcessMessage(compressed);
+            assertEquals(body, new String(restored.getBody(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void testIncompressiblePayloadIsSentAsIs() {
+        MessageCompressor compressor = compressor("gzip", 16);
+        byte[] random = new byte[4096];
+        new Random(42).nextBytes(random);
+        Message message = new Message(random, new MessageProperties());
+
+        assertSame(message, compressor.compress(message));
+    }
+
+    @Test
+    void testDisabledCompressionKeepsMessage() {
+        MessageCompressor compressor = compressor("gzip", 1);
+        ReflectionTestUtils.setField(compressor, "enabled", false);
+        Message message = json("x".repeat(5000));
+
+        assertSame(message, compressor.compress(message));
+    }
+
+    // ============================================
+    // POMOĆNE METODE
+    // ============================================
+
+    private MessageCompressor compressor(String algorithm, int thresholdBytes) {
+        MessageCompressor compressor = new MessageCompressor();
+        ReflectionTestUtils.setField(compressor, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(compressor, "enabled", true);
+        ReflectionTestUtils.setField(compressor, "algorithm", algorithm);
+        ReflectionTestUtils.setField(compressor, "thresholdBytes", thresholdBytes);
+        ReflectionTestUtils.setField(compressor, "level", 6);
+        compressor.init();
+        return compressor;
+    }
+
+    private static Message json(String body) {
+        MessageProperties props = new MessageProperties();
+        props.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        return new Message(body.getBytes(StandardCharsets.UTF_8), props);
+    }
+}
@@ -17,6 +17,9 @@ import java.util.List;
 
 /**
  * MessageQueueComparisonTest - Poređenje JSON vs Protobuf (3.14 zahtev)
+ *
+ * Gruba demonstracija (50 poruka, bez zagrevanja JIT-a). Za brojeve na
+ * osnovu kojih se bira codec: MessageCodecBenchmark (mvn -B -Pjmh test-compile exec:exec).
  */
 @SpringBootTest
 public class MessageQueueComparisonTest {
@@ -0,0 +1,30 @@
+package com.example.project_backend;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import service.OutboxProcessor;
+
+/**
+ * OutboxTestSupport - Zajednička podešavanja outbox-a za testove (bez baze)
+ *
+ * batch 50, 3 pokušaja, backoff 1s..4s, lease 60s; init() podklase se poziva posle.
+ */
+final class OutboxTestSupport {
+
+    static final long LEASE_MS = 60_000L;
+
+    private OutboxTestSupport() {}
+
+    static void configure(OutboxProcessor<?> processor, PlatformTransactionManager transactionManager) {
+        ReflectionTestUtils.setField(processor, "transactionManager", transactionManager);
+        ReflectionTestUtils.setField(processor, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(processor, "enabled", true);
+        ReflectionTestUtils.setField(processor, "batchSize", 50);
+        ReflectionTestUtils.setField(processor, "maxBatchesPerRun", 10);
+        ReflectionTestUtils.setField(processor, "maxAttempts", 3);
+        ReflectionTestUtils.setField(processor, "backoffInitialMs", 1000L);
+        ReflectionTestUtils.setField(processor, "backoffMaxMs", 4000L);
+        ReflectionTestUtils.setField(processor, "leaseMs", LEASE_MS);
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.project_backend;
+
+import com.google.protobuf.CodedOutputStream;
+import model.UploadEvent;
+import org.junit.jupiter.api.Test;
+import service.ProtobufMessageConverter;
+
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ProtobufMessageConverterTest - Generisani codec i kompatibilnost sa starim porukama
+ */
+public class ProtobufMessageConverterTest {
+
+    private final ProtobufMessageConverter converter = new ProtobufMessageConverter();
+
+    @Test
+    void testRoundTripKeepsAllFields() throws Exception {
+        UploadEvent event = new UploadEvent(42L, "Naslov", "Opis", "marko", "marko@example.com",
+                "/videos/42.mp4", "/thumbnails/42.jpg", 123_456_789L, 95);
+        event.setTimestamp(LocalDateTime.of(2024, 3, 15, 10, 30, 45, 123_000_000));
+
+        UploadEvent decoded = converter.fromProtobuf(converter.toProtobuf(event));
+
+        assertEquals(42L, decoded.getPostId());
+        assertEquals("Naslov", decoded.getTitle());
+        assertEquals("Opis", decoded.getDescription());
+        assertEquals("marko", decoded.getAuthor());
+        assertEquals("marko@example.com", decoded.getAuthorEmail());
+        assertEquals("/videos/42.mp4", decoded.getVideoUrl());
+        assertEquals("/thumbnails/42.jpg", decoded.getThumbnailUrl());
+        assertEquals(123_456_789L, decoded.getFileSize());
+        assertEquals(95, decoded.getDuration());
+        assertEquals(event.getTimestamp(), decoded.getTimestamp());
+        assertEquals(event.getEventType(), decoded.getEventType());
+    }
+
+    @Test
+    void testMissingFieldsStayNull() throws Exception {
+        UploadEvent event = new UploadEvent();
+        event.setPostId(7L);
+        event.setTitle("Samo naslov");
+
+        UploadEvent decoded = converter.fromProtobuf(converter.toProtobuf(event));
+
+        assertEquals(7L, decoded.getPostId());
+        assertNull(decoded.getDescription());
+        assertNull(decoded.getDuration());
+        assertNull(decoded.getFileSize());
+    }
+
+    @Test
+    void testLegacyPayloadWithIsoTimestampIsReadable() throws Exception {
+        LocalDateTime timestamp = LocalDateTime.of(2024, 1, 2, 3, 4, 5, 678_901_234);
+
+        // Isti bajtovi kao stari ručni converter: string timestamp u polju 10
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        CodedOutputStream out = CodedOutputStream.newInstance(baos);
+        out.writeInt64(1, 9L);
+        out.writeString(2, "Stari event");
+        out.writeInt64(8, 2048L);
+        out.writeString(10, timestamp.toString());
+        out.writeString(11, "VIDEO_UPLOADED");
+        out.writeString(99, "nepoznato polje");  // Novija verzija producer-a
+        out.flush();
+
+        UploadEvent decoded = converter.fromProtobuf(baos.toByteArray());
+
+        assertEquals(9L, decoded.getPostId());
+        assertEquals("Stari event", decoded.getTitle());
+        assertEquals(2048L, decoded.getFileSize());
+        assertEquals(timestamp, decoded.getTimestamp());
+        assertEquals("VIDEO_UPLOADED", decoded.getEventType());
+    }
+
+    @Test
+    void testEpochTimestampIsSmallerThanIsoString() throws Exception {
+        UploadEvent event = new UploadEvent();
+        event.setPostId(1L);
+        event.setEventType(null);
+        event.setTimestamp(LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS));
+
+        byte[] data = converter.toProtobuf(event);
+
+        // tag + varint (~7B) umesto tag + dužina + ~23-29 znakova
+        assertTrue(data.length < 12, "Veličina: " + data.length);
+        assertEquals(event.getTimestamp(), converter.fromProtobuf(data).getTimestamp());
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.project_backend;
+
+import config.SlowConsumerWebSocketHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator.OverflowStrategy;
+import org.springframework.web.socket.messaging.StompSubProtocolHandler;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * SlowConsumerWebSocketHandlerTest - Pun bafer sporog klijenta: DROP vs TERMINATE
+ */
+public class SlowConsumerWebSocketHandlerTest {
+
+    private static final String SESSION_ID = "slow-1";
+    private static final int BUFFER_LIMIT = 2048;
+
+    @Test
+    void testDropStrategyKeepsSessionAndDropsOldest() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        SlowClient client = new SlowClient();
+        SlowConsumerWebSocketHandler handler = handler(OverflowStrategy.DROP, meterRegistry);
+        handler.afterConnectionEstablished(client.session);
+
+        // Prvo slanje "visi" na sporom klijentu, ostale poruke idu u bafer
+        Thread stuck = new Thread(() -> handler.handleMessage(roomEvent(0)));
+        stuck.start();
+        assertTrue(client.firstSendStarted.await(5, TimeUnit.SECONDS));
+
+        for (int i = 1; i <= 100; i++) {
+            handler.handleMessage(roomEvent(i));
+        }
+
+        double buffered = meterRegistry.get("websocket.outbound.buffered").gauge().value();
+        assertTrue(buffered > 0 && buffered <= BUFFER_LIMIT, "Bafer: " + buffered);
+
+        client.release.countDown();
+        stuck.join(5000);
+
+        // Sesija nije zatvorena, ali nisu sve poruke isporučene
+        verify(client.session, never()).close(any(CloseStatus.class));
+        assertTrue(client.delivered.get() < 101, "Isporučeno: " + client.delivered.get());
+        assertEquals(0.0, meterRegistry.get("websocket.sessions.forced.disconnects")
+                .tag("reason", "slow-consumer").functionCounter().count());
+
+        handler.afterConnectionClosed(client.session, CloseStatus.NORMAL);
+        assertTrue(meterRegistry.get("websocket.outbound.undelivered").counter().count() > 0);
+    }
+
+    @Test
+    void testTerminateStrategyDisconnectsSlowClient() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        SlowClient client = new SlowClient();
+        SlowConsumerWebSocketHandler handler = handler(OverflowStrategy.TERMINATE, meterRegistry);
+        handler.afterConnectionEstablished(client.session);
+
+        Thread stuck = new Thread(() -> handler.handleMessage(roomEvent(0)));
+        stuck.start();
+        assertTrue(client.firstSendStarted.await(5, TimeUnit.SECONDS));
+
+        for (int i = 1; i <= 100; i++) {
+            handler.handleMessage(roomEvent(i));
+        }
+
+        verify(client.session).close(CloseStatus.SESSION_NOT_RELIABLE);
+        assertEquals(1.0, meterRegistry.get("websocket.sessions.forced.disconnects")
+                .tag("reason", "slow-consumer").functionCounter().count());
+
+        client.release.countDown();
+        stuck.join(5000);
+    }
+
+    // ============================================
+    // POMOĆNE METODE
+    // ============================================
+
+    private SlowConsumerWebSocketHandler handler(OverflowStrategy strategy, SimpleMeterRegistry meterRegistry) {
+        SlowConsumerWebSocketHandler handler = new SlowConsumerWebSocketHandler(
+                new ExecutorSubscribableChannel(), new ExecutorSubscribableChannel(), strategy, meterRegistry);
+        handler.addProtocolHandler(new StompSubProtocolHandler());
+        handler.setSendTimeLimit(60_000);
+        handler.setSendBufferSizeLimit(BUFFER_LIMIT);
+        return handler;
+    }
+
+    private Message<byte[]> roomEvent(int sequence) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(SESSION_ID);
+        accessor.setSubscriptionId("sub-0");
+        accessor.setDestination("/topic/watch-party/1");
+        String payload = "{\"type\":\"USER_JOINED\",\"seq\":" + sequence + ",\"pad\":\"" + "x".repeat(200) + "\"}";
+        return MessageBuilder.createMessage(payload.getBytes(StandardCharsets.UTF_8), accessor.getMessageHeaders());
+    }
+
+    // Klijent čije prvo primanje traje dok test ne pusti latch
+    private static class SlowClient {
+        final WebSocketSession session = mock(WebSocketSession.class);
+        final CountDownLatch firstSendStarted = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger delivered = new AtomicInteger();
+
+        SlowClient() {
+            try {
+                when(session.getId()).thenReturn(SESSION_ID);
+                when(session.isOpen()).thenReturn(true);
+                doAnswer(invocation -> {
+                    firstSendStarted.countDown();
+                    release.await(10, TimeUnit.SECONDS);
+                    delivered.incrementAndGet();
+                    return null;
+                }).when(session).sendMessage(any());
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
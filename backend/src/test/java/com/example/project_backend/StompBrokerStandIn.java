@@ -0,0 +1,227 @@
+package com.example.project_backend;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * StompBrokerStandIn - Minimalan STOMP 1.2 broker u istom procesu (zamena za
+ * RabbitMQ STOMP plugin u testovima).
+ *
+ * Podržava CONNECT/STOMP, SUBSCRIBE, UNSUBSCRIBE, SEND, DISCONNECT i RECEIPT.
+ * SEND se isporučuje svim pretplatama sa istom destinacijom, bez obzira na to
+ * sa koje konekcije (tj. sa kog backend čvora) je stigla.
+ */
+public class StompBrokerStandIn implements AutoCloseable {
+
+    private final ServerSocket serverSocket;
+    private final List<Connection> connections = new CopyOnWriteArrayList<>();
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final AtomicLong messageIds = new AtomicLong();
+    private volatile boolean running = true;
+
+    private record Subscription(Connection connection, String id, String destination) {}
+
+    public StompBrokerStandIn() throws IOException {
+        serverSocket = new ServerSocket(0);
+        Thread acceptor = new Thread(this::acceptLoop, "stomp-standin-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public long countSubscriptions(String destination) {
+        return subscriptions.stream().filter(s -> s.destination().equals(destination)).count();
+    }
+
+    public int getConnectionCount() {
+        return connections.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        serverSocket.close();
+        for (Connection connection : connections) {
+            connection.close();
+        }
+    }
+
+    // ============================================
+    // KONEKCIJE
+    // ============================================
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                Connection connection = new Connection(socket);
+                connections.add(connection);
+                Thread reader = new Thread(connection::readLoop, "stomp-standin-conn");
+                reader.setDaemon(true);
+                reader.start();
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private class Connection {
+        private final Socket socket;
+        private final InputStream in;
+        private final OutputStream out;
+
+        Connection(Socket socket) throws IOException {
+            this.socket = socket;
+            this.in = socket.getInputStream();
+            this.out = socket.getOutputStream();
+        }
+
+        void readLoop() {
+            try {
+                while (running) {
+                    Frame frame = readFrame();
+                    if (frame == null) {
+                        break;
+                    }
+                    handle(frame);
+                }
+            } catch (IOException e) {
+                // Konekcija zatvorena
+            } finally {
+                close();
+            }
+        }
+
+        private void handle(Frame frame) throws IOException {
+            switch (frame.command) {
+                case "CONNECT", "STOMP" -> write("CONNECTED", Map.of("version", "1.2", "heart-beat", "0,0"), new byte[0]);
+                case "SUBSCRIBE" -> subscriptions.add(
+                        new Subscription(this, frame.headers.get("id"), frame.headers.get("destination")));
+                case "UNSUBSCRIBE" -> subscriptions.removeIf(
+                        s -> s.connection() == this && s.id().equals(frame.headers.get("id")));
+                case "SEND" -> deliver(frame);
+                case "DISCONNECT" -> {
+                    sendReceipt(frame);
+                    close();
+                    return;
+                }
+                default -> { }
+            }
+            sendReceipt(frame);
+        }
+
+        private void deliver(Frame frame) {
+            String destination = frame.headers.get("destination");
+            for (Subscription subscription : subscriptions) {
+                if (!subscription.destination().equals(destination)) {
+                    continue;
+                }
+                Map<String, String> headers = new LinkedHashMap<>(frame.headers);
+                headers.remove("receipt");
+                headers.remove("content-length");
+                headers.put("subscription", subscription.id());
+                headers.put("message-id", String.valueOf(messageIds.incrementAndGet()));
+                try {
+                    subscription.connection().write("MESSAGE", headers, frame.body);
+                } catch (IOException e) {
+                    subscription.connection().close();
+                }
+            }
+        }
+
+        private void sendReceipt(Frame frame) throws IOException {
+            String receipt = frame.headers.get("receipt");
+            if (receipt != null) {
+                write("RECEIPT", Map.of("receipt-id", receipt), new byte[0]);
+            }
+        }
+
+        synchronized void write(String command, Map<String, String> headers, byte[] body) throws IOException {
+            StringBuilder head = new StringBuilder(command).append('\n');
+            headers.forEach((name, value) -> head.append(name).append(':').append(value).append('\n'));
+            head.append("content-length:").append(body.length).append("\n\n");
+            out.write(head.toString().getBytes(StandardCharsets.UTF_8));
+            out.write(body);
+            out.write(0);
+            out.flush();
+        }
+
+        private Frame readFrame() throws IOException {
+            // Preskoči heartbeat-ove (prazni redovi)
+            int b;
+            do {
+                b = in.read();
+                if (b == -1) {
+                    return null;
+                }
+            } while (b == '\n' || b == '\r');
+
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            line.write(b);
+            String command = readLine(line);
+
+            Map<String, String> headers = new LinkedHashMap<>();
+            while (true) {
+                String header = readLine(new ByteArrayOutputStream());
+                if (header.isEmpty()) {
+                    break;
+                }
+                int colon = header.indexOf(':');
+                if (colon > 0) {
+                    headers.putIfAbsent(header.substring(0, colon), header.substring(colon + 1));
+                }
+            }
+
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            String contentLength = headers.get("content-length");
+            if (contentLength != null) {
+                byte[] data = in.readNBytes(Integer.parseInt(contentLength.trim()));
+                body.write(data);
+                in.read();  // NUL
+            } else {
+                while ((b = in.read()) > 0) {
+                    body.write(b);
+                }
+            }
+            return new Frame(command, headers, body.toByteArray());
+        }
+
+        private String readLine(ByteArrayOutputStream buffer) throws IOException {
+            int b;
+            while ((b = in.read()) != -1 && b != '\n') {
+                if (b != '\r') {
+                    buffer.write(b);
+                }
+            }
+            if (b == -1 && buffer.size() == 0) {
+                throw new IOException("Konekcija zatvorena");
+            }
+            return buffer.toString(StandardCharsets.UTF_8);
+        }
+
+        void close() {
+            connections.remove(this);
+            subscriptions.removeIf(s -> s.connection() == this);
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // već zatvoreno
+            }
+        }
+    }
+
+    private record Frame(String command, Map<String, String> headers, byte[] body) {}
+}
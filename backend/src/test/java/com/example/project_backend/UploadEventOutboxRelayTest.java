@@ -0,0 +1,159 @@
+package com.example.project_backend;
+
+import model.UploadEventOutboxMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import repository.UploadEventOutboxRepository;
+import service.UploadEventOutboxRelay;
+import service.UploadEventPublisher;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * UploadEventOutboxRelayTest - Upis u outbox i prosleđivanje grupa ka broker-u
+ *
+ * Bez baze i broker-a: repository, transaction manager i publisher.sendBatch
+ * su mock-ovi; test proverava prelaze statusa i backoff.
+ */
+public class UploadEventOutboxRelayTest {
+
+    private UploadEventOutboxRepository outboxRepository;
+    private PlatformTransactionManager transactionManager;
+    private UploadEventPublisher publisher;
+    private UploadEventOutboxRelay relay;
+    private List<UploadEventOutboxMessage> pending;
+    private Map<UploadEventOutboxMessage, String> brokerFailures;
+
+    @BeforeEach
+    void setUp() {
+        pending = new ArrayList<>();
+        brokerFailures = new HashMap<>();
+
+        outboxRepository = mock(UploadEventOutboxRepository.class);
+        when(outboxRepository.findDueForRelay(any(LocalDateTime.class), any(Pageable.class)))
+                .thenAnswer(invocation -> pending.stream()
+                        .filter(m -> UploadEventOutboxMessage.STATUS_PENDING.equals(m.getStatus()))
+                        .toList());
+        when(outboxRepository.save(any(UploadEventOutboxMessage.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        publisher = spy(new UploadEventPublisher());
+        ReflectionTestUtils.setField(publisher, "outboxRepository", outboxRepository);
+        doAnswer(invocation -> brokerFailures).when(publisher).sendBatch(anyList());
+
+        transactionManager = mock(PlatformTransactionManager.class);
+
+        relay = new UploadEventOutboxRelay();
+        ReflectionTestUtils.setField(relay, "outboxRepository", outboxRepository);
+        ReflectionTestUtils.setField(relay, "publisher", publisher);
+        OutboxTestSupport.configure(relay, transactionManager);
+        relay.init();
+    }
+
+    @Test
+    void testPublishOnlyWritesOutboxRow() {
+        MessageProperties props = new MessageProperties();
+        props.setContentType("application/x-protobuf");
+
+        UploadEventOutboxMessage row = publisher.publish(42L, new Message(new byte[]{1, 2, 3}, props));
+
+        assertEquals(42L, row.getPostId());
+        assertEquals("application/x-protobuf", row.getContentType());
+        assertArrayEquals(new byte[]{1, 2, 3}, row.getPayload());
+        assertEquals(UploadEventOutboxMessage.STATUS_PENDING, row.getStatus());
+        verify(publisher, never()).sendBatch(anyList());
+    }
+
+    @Test
+    void testConfirmedBatchIsMarkedSent() {
+        for (long postId = 1; postId <= 5; postId++) {
+            pending.add(row(postId));
+        }
+
+        int processed = relay.relayBatch();
+
+        assertEquals(5, processed);
+        for (UploadEventOutboxMessage message : pending) {
+            assertEquals(UploadEventOutboxMessage.STATUS_SENT, message.getStatus());
+            assertEquals(1, message.getAttempts());
+            assertNotNull(message.getSentAt());
+        }
+    }
+
+    @Test
+    void testConfirmsAreAwaitedOutsideTheClaimTransaction() {
+        UploadEventOutboxMessage message = row(3L);
+        pending.add(message);
+
+        LocalDateTime before = LocalDateTime.now();
+        doAnswer(invocation -> {
+            // Preuzimanje je već commit-ovano - čekanje potvrda ne drži lock-ove
+            verify(transactionManager, times(1)).commit(any());
+            assertEquals(1, message.getAttempts());
+            assertEquals(UploadEventOutboxMessage.STATUS_PENDING, message.getStatus());  // Naslednici posta čekaju
+            assertTrue(message.getNextAttemptAt().isAfter(
+                    before.plusNanos((OutboxTestSupport.LEASE_MS - 1000) * 1_000_000L)));
+            return brokerFailures;
+        }).when(publisher).sendBatch(anyList());
+
+        relay.relayBatch();
+
+        verify(transactionManager, times(2)).commit(any());  // Preuzimanje + upis rezultata
+        assertEquals(UploadEventOutboxMessage.STATUS_SENT, message.getStatus());
+    }
+
+    @Test
+    void testNackSchedulesRetryOnlyForThatEvent() {
+        UploadEventOutboxMessage ok = row(1L);
+        UploadEventOutboxMessage nacked = row(2L);
+        pending.add(ok);
+        pending.add(nacked);
+        brokerFailures.put(nacked, "Nack: queue full");
+
+        LocalDateTime before = LocalDateTime.now();
+        relay.relayBatch();
+
+        assertEquals(UploadEventOutboxMessage.STATUS_SENT, ok.getStatus());
+        assertEquals(UploadEventOutboxMessage.STATUS_PENDING, nacked.getStatus());
+        assertEquals(1, nacked.getAttempts());
+        assertEquals("Nack: queue full", nacked.getLastError());
+        assertTrue(nacked.getNextAttemptAt().isAfter(before.plusNanos(900_000_000L)));
+    }
+
+    @Test
+    void testEventFailsAfterMaxAttempts() {
+        UploadEventOutboxMessage message = row(7L);
+        message.setAttempts(2);
+        pending.add(message);
+        brokerFailures.put(message, "Bez potvrde u roku od 5000ms");
+
+        relay.relayBatch();
+
+        assertEquals(UploadEventOutboxMessage.STATUS_FAILED, message.getStatus());
+        assertEquals(3, message.getAttempts());
+    }
+
+    // ============================================
+    // POMOĆNE METODE
+    // ============================================
+
+    private static UploadEventOutboxMessage row(Long postId) {
+        UploadEventOutboxMessage message = new UploadEventOutboxMessage(postId, "application/json", "{}".getBytes());
+        message.setId(postId);
+        message.setCreatedAt(LocalDateTime.now());
+        return message;
+    }
+}
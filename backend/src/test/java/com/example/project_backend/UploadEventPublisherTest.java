@@ -0,0 +1,225 @@
+package com.example.project_backend;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import model.UploadEventOutboxMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.AmqpConnectException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.ReturnedMessage;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import repository.UploadEventOutboxRepository;
+import service.UploadEventPublisher;
+import service.UploadPartitioner;
+
+import java.net.ConnectException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * UploadEventPublisherTest - Potvrde broker-a po poruci i prozor poruka u toku
+ *
+ * Bez broker-a: RabbitTemplate je mock, a test odlučuje kako "broker"
+ * odgovara na svaku poslatu poruku (ack, nack, return, bez odgovora).
+ */
+public class UploadEventPublisherTest {
+
+    private UploadEventPublisher publisher;
+    private RabbitTemplate rabbitTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private final ExecutorService broker = Executors.newSingleThreadExecutor();
+
+    private final List<Message> sentMessages = new ArrayList<>();
+    private final List<String> sentRoutingKeys = new ArrayList<>();
+    private Consumer<CorrelationData> brokerResponse = correlation -> ack(correlation);
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        rabbitTemplate = mock(RabbitTemplate.class);
+        when(rabbitTemplate.invoke(any(RabbitOperations.OperationsCallback.class)))
+                .thenAnswer(invocation -> ((RabbitOperations.OperationsCallback<Object>) invocation.getArgument(0))
+                        .doInRabbit(rabbitTemplate));
+        doAnswer(invocation -> {
+            sentRoutingKeys.add(invocation.getArgument(1));
+            sentMessages.add(invocation.getArgument(2));
+            CorrelationData correlation = invocation.getArgument(3);
+            broker.execute(() -> brokerResponse.accept(correlation));  // Potvrde stižu na drugoj niti
+            return null;
+        }).when(rabbitTemplate).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+
+        meterRegistry = new SimpleMeterRegistry();
+        publisher = new UploadEventPublisher();
+        ReflectionTestUtils.setField(publisher, "rabbitTemplate", rabbitTemplate);
+        ReflectionTestUtils.setField(publisher, "outboxRepository", mock(UploadEventOutboxRepository.class));
+        ReflectionTestUtils.setField(publisher, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(publisher, "maxInFlight", 4);
+        ReflectionTestUtils.setField(publisher, "confirmTimeoutMs", 300L);
+        ReflectionTestUtils.setField(publisher, "partitioner", partitioner(4));
+        publisher.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        broker.shutdownNow();
+    }
+
+    @Test
+    void testAckedBatchHasNoFailures() {
+        List<UploadEventOutboxMessage> batch = outbox(1L, 2L, 3L);
+
+        Map<UploadEventOutboxMessage, String> failures = publisher.sendBatch(batch);
+
+        assertTrue(failures.isEmpty());
+        assertEquals(3.0, count("acked"));
+        assertEquals("upload-1", sentMessages.get(0).getMessageProperties().getMessageId());
+        assertEquals(1L, (Long) sentMessages.get(0).getMessageProperties().getHeader("postId"));
+        assertEquals("application/json", sentMessages.get(0).getMessageProperties().getContentType());
+        assertEquals(0, publisher.getInFlight());
+    }
+
+    @Test
+    void testCompressedPayloadKeepsContentEncoding() {
+        UploadEventOutboxMessage gzip = new UploadEventOutboxMessage(5L, "application/json", "gzip", new byte[] {1, 2});
+        gzip.setId(5L);
+
+        assertTrue(publisher.sendBatch(List.of(gzip)).isEmpty());
+        assertEquals("gzip", sentMessages.get(0).getMessageProperties().getContentEncoding());
+    }
+
+    @Test
+    void testNackReturnAndTimeoutAreReportedPerMessage() {
+        brokerResponse = correlation -> {
+            if (correlation.getId().startsWith("upload-2-")) {
+                correlation.getFuture().complete(new CorrelationData.Confirm(false, "queue full"));
+            } else if (correlation.getId().startsWith("upload-3-")) {
+                correlation.setReturned(new ReturnedMessage(null, 312, "NO_ROUTE", "ex", "rk"));
+                ack(correlation);
+            } else if (!correlation.getId().startsWith("upload-4-")) {
+                ack(correlation);
+            }
+            // upload-4: broker ne odgovara → istek roka
+        };
+        List<UploadEventOutboxMessage> batch = outbox(1L, 2L, 3L, 4L);
+
+        Map<UploadEventOutboxMessage, String> failures = publisher.sendBatch(batch);
+
+        assertEquals(3, failures.size());
+        assertFalse(failures.containsKey(batch.get(0)));
+        assertTrue(failures.get(batch.get(1)).contains("queue full"));
+        assertTrue(failures.get(batch.get(2)).contains("NO_ROUTE"));
+        assertTrue(failures.get(batch.get(3)).contains("Bez potvrde"));
+        assertEquals(1.0, count("acked"));
+        assertEquals(2.0, count("nacked"));
+        assertEquals(1.0, count("returned"));
+        assertEquals(0, publisher.getInFlight());
+    }
+
+    @Test
+    void testInFlightWindowIsNeverExceeded() {
+        AtomicInteger maxSeen = new AtomicInteger();
+        brokerResponse = correlation -> {
+            maxSeen.accumulateAndGet(publisher.getInFlight(), Math::max);
+            sleep(5);
+            ack(correlation);
+        };
+
+        Map<UploadEventOutboxMessage, String> failures =
+                publisher.sendBatch(outbox(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L));
+
+        assertTrue(failures.isEmpty());
+        assertEquals(10, sentMessages.size());
+        assertTrue(maxSeen.get() <= 4, "Prozor prekoračen: " + maxSeen.get());
+        assertEquals(0, publisher.getInFlight());
+    }
+
+    @Test
+    void testEventsOfOnePostShareOnePartitionInOutboxOrder() {
+        // Outbox redovi 1..6: post 7 tri puta, izmešano sa drugim postovima
+        long[] postIds = {7, 8, 7, 9, 7, 10};
+        List<UploadEventOutboxMessage> batch = new ArrayList<>();
+        for (int i = 0; i < postIds.length; i++) {
+            UploadEventOutboxMessage message = new UploadEventOutboxMessage(postIds[i], "application/json", "{}".getBytes());
+            message.setId(i + 1L);
+            batch.add(message);
+        }
+
+        assertTrue(publisher.sendBatch(batch).isEmpty());
+
+        String post7 = sentRoutingKeys.get(0);
+        assertTrue(post7.startsWith("video.upload.p"), post7);
+        List<String> post7Messages = new ArrayList<>();
+        for (int i = 0; i < sentMessages.size(); i++) {
+            if (postIds[i] == 7) {
+                assertEquals(post7, sentRoutingKeys.get(i));
+                post7Messages.add(sentMessages.get(i).getMessageProperties().getMessageId());
+            }
+        }
+        assertEquals(List.of("upload-1", "upload-3", "upload-5"), post7Messages);
+    }
+
+    @Test
+    void testBrokerDownFailsWholeBatch() {
+        when(rabbitTemplate.invoke(any(RabbitOperations.OperationsCallback.class)))
+                .thenThrow(new AmqpConnectException(new ConnectException("Connection refused")));
+        List<UploadEventOutboxMessage> batch = outbox(1L, 2L);
+
+        Map<UploadEventOutboxMessage, String> failures = publisher.sendBatch(batch);
+
+        assertEquals(2, failures.size());
+        assertTrue(failures.get(batch.get(0)).contains("Connection refused"));
+        assertEquals(0, publisher.getInFlight());
+    }
+
+    // ============================================
+    // POMOĆNE METODE
+    // ============================================
+
+    private static List<UploadEventOutboxMessage> outbox(Long... ids) {
+        List<UploadEventOutboxMessage> batch = new ArrayList<>();
+        for (Long id : ids) {
+            UploadEventOutboxMessage message = new UploadEventOutboxMessage(id, "application/json", "{}".getBytes());
+            message.setId(id);
+            batch.add(message);
+        }
+        return batch;
+    }
+
+    private static UploadPartitioner partitioner(int partitions) {
+        UploadPartitioner partitioner = new UploadPartitioner();
+        ReflectionTestUtils.setField(partitioner, "partitions", partitions);
+        partitioner.init();
+        return partitioner;
+    }
+
+    private static void ack(CorrelationData correlation) {
+        correlation.getFuture().complete(new CorrelationData.Confirm(true, null));
+    }
+
+    private static void sleep(long ms) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private double count(String result) {
+        return meterRegistry.get("upload.events.published").tag("result", result).counter().count();
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.project_backend;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import service.UploadPartitioner;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * UploadPartitionerTest - Routing key po postId, isključene particije i dodavanje particije
+ */
+public class UploadPartitionerTest {
+
+    private static final int POSTS = 10_000;
+
+    @Test
+    void testPostAlwaysMapsToSamePartition() {
+        UploadPartitioner first = partitioner(4);
+        UploadPartitioner second = partitioner(4);  // Druga backend instanca
+
+        Set<String> routingKeys = new HashSet<>();
+        for (long postId = 1; postId <= POSTS; postId++) {
+            String routingKey = first.routingKey(postId);
+            assertEquals(routingKey, second.routingKey(postId));
+            routingKeys.add(routingKey);
+        }
+
+        assertEquals(Set.of("video.upload.p0", "video.upload.p1", "video.upload.p2", "video.upload.p3"), routingKeys);
+    }
+
+    @Test
+    void testWithoutPartitionsUsesLegacyQueue() {
+        assertEquals("video.upload", partitioner(0).routingKey(42L));
+        assertEquals(-1, partitioner(0).partitionOf(42L));
+        assertEquals("video.upload", partitioner(4).routingKey(null));
+    }
+
+    @Test
+    void testAddingPartitionMovesFewPosts() {
+        UploadPartitioner four = partitioner(4);
+        UploadPartitioner five = partitioner(5);
+
+        int moved = 0;
+        for (long postId = 1; postId <= POSTS; postId++) {
+            int before = four.partitionOf(postId);
+            int after = five.partitionOf(postId);
+            if (before != after) {
+                assertEquals(4, after, "Post se sme preseliti samo u novu particiju");
+                moved++;
+            }
+        }
+
+        // Idealno 1/5 postova; modulo bi preselio ~80%
+        assertTrue(moved > POSTS / 10 && moved < POSTS * 3 / 10, "Preseljeno: " + moved);
+    }
+
+    private static UploadPartitioner partitioner(int partitions) {
+        UploadPartitioner partitioner = new UploadPartitioner();
+        ReflectionTestUtils.setField(partitioner, "partitions", partitions);
+        partitioner.init();
+        return partitioner;
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.project_backend;
+
+import dto.RegisterRequest;
+import model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import repository.ActivationTokenRepository;
+import repository.UserRepository;
+import service.EmailService;
+import service.PasswordHashingService;
+import service.UserExistenceFilter;
+import service.UserService;
+import service.ValidationService;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * UserServiceTest - Registracija kad filter drugog čvora ne zna za zauzeto ime / email
+ */
+public class UserServiceTest {
+
+    private UserService userService;
+    private UserRepository userRepository;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        when(userRepository.save(any(User.class)))
+                .thenThrow(new DataIntegrityViolationException("duplicate key value violates unique constraint"));
+
+        // Filter ovog čvora: "sigurno ne postoji" (korisnik registrovan na drugom čvoru)
+        UserExistenceFilter filter = mock(UserExistenceFilter.class);
+        PasswordHashingService passwordHashingService = mock(PasswordHashingService.class);
+        when(passwordHashingService.encode(anyString())).thenReturn("hash");
+
+        userService = new UserService();
+        ReflectionTestUtils.setField(userService, "userRepository", userRepository);
+        ReflectionTestUtils.setField(userService, "tokenRepository", mock(ActivationTokenRepository.class));
+        ReflectionTestUtils.setField(userService, "emailService", mock(EmailService.class));
+        ReflectionTestUtils.setField(userService, "passwordHashingService", passwordHashingService);
+        ReflectionTestUtils.setField(userService, "validationService", mock(ValidationService.class));
+        ReflectionTestUtils.setField(userService, "userExistenceFilter", filter);
+        ReflectionTestUtils.setField(userService, "transactionManager", mock(PlatformTransactionManager.class));
+        userService.init();
+    }
+
+    @Test
+    void testUniqueViolationMapsToExistingMessages() {
+        when(userRepository.existsByUsername("marko")).thenReturn(true);
+        RuntimeException username = assertThrows(RuntimeException.class,
+                () -> userService.registerUser(request("marko", "marko@example.com")));
+        assertEquals("Username već postoji!", username.getMessage());
+
+        when(userRepository.existsByEmail("ana@example.com")).thenReturn(true);
+        RuntimeException email = assertThrows(RuntimeException.class,
+                () -> userService.registerUser(request("ana", "ana@example.com")));
+        assertEquals("Email već postoji!", email.getMessage());
+
+        // Neka druga povreda ograničenja ostaje originalni izuzetak
+        assertThrows(DataIntegrityViolationException.class,
+                () -> userService.registerUser(request("novi", "novi@example.com")));
+    }
+
+    // ============================================
+    // POMOĆNE METODE
+    // ============================================
+
+    private static RegisterRequest request(String username, String email) {
+        RegisterRequest request = new RegisterRequest();
+        request.setUsername(username);
+        request.setEmail(email);
+        request.setPassword("Lozinka123!");
+        request.setConfirmPassword("Lozinka123!");
+        request.setFirstName("Test");
+        request.setLastName("Korisnik");
+        request.setAddress("Bulevar 1");
+        return request;
+    }
+}
@@ -0,0 +1,228 @@
+package com.example.project_backend;
+
+import com.example.proto.WatchPartyEventProto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import config.WatchPartyDestinations;
+import dto.WatchPartyEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import service.WatchPartyBinarySubscriptions;
+import service.WatchPartyBroadcaster;
+import service.WatchPartyEventCodec;
+import service.WebSocketRateLimitService;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * WatchPartyBroadcasterTest - Spajanje događaja po sobi i rate limit po sesiji
+ */
+public class WatchPartyBroadcasterTest {
+
+    private static final String ROOM = "/topic/watch-party/9";
+
+    private WatchPartyBroadcaster broadcaster;
+    private SimpMessagingTemplate messagingTemplate;
+    private WatchPartyBinarySubscriptions binarySubscriptions;
+    private final WatchPartyEventCodec codec = new WatchPartyEventCodec();
+
+    @BeforeEach
+    void setUp() {
+        messagingTemplate = mock(SimpMessagingTemplate.class);
+        WatchPartyDestinations destinations = new WatchPartyDestinations("simple");
+
+        binarySubscriptions = new WatchPartyBinarySubscriptions();
+        ReflectionTestUtils.setField(binarySubscriptions, "destinations", destinations);
+
+        broadcaster = new WatchPartyBroadcaster();
+        ReflectionTestUtils.setField(broadcaster, "messagingTemplate", messagingTemplate);
+        ReflectionTestUtils.setField(broadcaster, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(broadcaster, "windowMs", 50L);
+        ReflectionTestUtils.setField(broadcaster, "maxPending", 4);
+        ReflectionTestUtils.setField(broadcaster, "destinations", destinations);
+        ReflectionTestUtils.setField(broadcaster, "codec", codec);
+        ReflectionTestUtils.setField(broadcaster, "binarySubscriptions", binarySubscriptions);
+        broadcaster.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        broadcaster.shutdown();
+    }
+
+    @Test
+    void testChattyHostIsCoalescedToLatestEvent() throws Exception {
+        for (int i = 0; i < 500; i++) {
+            broadcaster.publish(ROOM, "video", Map.of("type", "VIDEO_STARTED", "postId", i));
+        }
+
+        Thread.sleep(300);
+
+        ArgumentCaptor<Object> sent = ArgumentCaptor.forClass(Object.class);
+        verify(messagingTemplate, times(1)).convertAndSend(eq(ROOM), sent.capture());
+        assertEquals(499, ((Map<?, ?>) sent.getValue()).get("postId"));
+    }
+
+    @Test
+    void testFullWindowFlushesEarlyInsteadOfDropping() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            broadcaster.publish(ROOM, "member:user" + i, Map.of("type", "USER_JOINED", "username", "user" + i));
+        }
+
+        Thread.sleep(300);
+
+        // Različiti ključevi se ne spajaju - svi join-ovi stižu, redom
+        ArgumentCaptor<Object> sent = ArgumentCaptor.forClass(Object.class);
+        verify(messagingTemplate, times(100)).convertAndSend(eq(ROOM), sent.capture());
+        assertEquals("user0", ((Map<?, ?>) sent.getAllValues().get(0)).get("username"));
+        assertEquals("user99", ((Map<?, ?>) sent.getAllValues().get(99)).get("username"));
+        assertEquals(0, broadcaster.getPendingDestinations());
+    }
+
+    @Test
+    void testOutboxIsRemovedOnceSent() throws Exception {
+        broadcaster.publish(ROOM + "/sync", "state", Map.of("type", "SYNC"));
+        broadcaster.publish(ROOM, "member:ana", Map.of("type", "USER_JOINED"));
+        assertEquals(2, broadcaster.getPendingDestinations());
+
+        broadcaster.publishNow(ROOM, Map.of("type", "ROOM_CLOSED"));
+        // Događaj posle publishNow dobija novi outbox i svoj flush - ne gubi se
+        broadcaster.publish(ROOM, "member:bojan", Map.of("type", "USER_LEFT"));
+
+        Thread.sleep(300);
+
+        ArgumentCaptor<Object> sent = ArgumentCaptor.forClass(Object.class);
+        verify(messagingTemplate, times(3)).convertAndSend(eq(ROOM), sent.capture());
+        assertEquals("USER_LEFT", ((Map<?, ?>) sent.getAllValues().get(2)).get("type"));
+        verify(messagingTemplate, times(1)).convertAndSend(eq(ROOM + "/sync"), any(Object.class));
+        assertEquals(0, broadcaster.getPendingDestinations());
+    }
+
+    @Test
+    void testPublishNowFlushesPendingFirst() {
+        broadcaster.publish(ROOM, "member:ana", Map.of("type", "USER_LEFT"));
+        broadcaster.publishNow(ROOM, Map.of("type", "ROOM_CLOSED"));
+
+        ArgumentCaptor<Object> sent = ArgumentCaptor.forClass(Object.class);
+        verify(messagingTemplate, times(2)).convertAndSend(eq(ROOM), sent.capture());
+        List<Object> events = sent.getAllValues();
+        assertEquals("USER_LEFT", ((Map<?, ?>) events.get(0)).get("type"));
+        assertEquals("ROOM_CLOSED", ((Map<?, ?>) events.get(1)).get("type"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRoomEventSerializedOncePerFormat() throws Exception {
+        binarySubscriptions.subscribe("native-1", "sub-0", ROOM + "/bin");
+
+        WatchPartyEvent joined = WatchPartyEvent.userJoined(9L, "ana", 3);
+        broadcaster.publishNow(ROOM, joined);
+
+        ArgumentCaptor<Message<byte[]>> json = ArgumentCaptor.forClass(Message.class);
+        ArgumentCaptor<Message<byte[]>> binary = ArgumentCaptor.forClass(Message.class);
+        verify(messagingTemplate, times(1)).send(eq(ROOM), json.capture());
+        verify(messagingTemplate, times(1)).send(eq(ROOM + "/bin"), binary.capture());
+        verify(messagingTemplate, never()).convertAndSend(anyString(), any(Object.class));
+
+        // JSON oblik isti kao ranije (HashMap događaj)
+        Map<String, Object> decodedJson = new ObjectMapper().readValue(json.getValue().getPayload(), Map.class);
+        assertEquals("USER_JOINED", decodedJson.get("type"));
+        assertEquals("ana", decodedJson.get("username"));
+        assertEquals(3, decodedJson.get("memberCount"));
+        assertNotNull(decodedJson.get("timestamp"));
+        assertFalse(decodedJson.containsKey("postId"));
+
+        WatchPartyEvent decoded = codec.fromProtobuf(binary.getValue().getPayload());
+        assertEquals("USER_JOINED", decoded.getType());
+        assertEquals(9L, decoded.getRoomId());
+        assertEquals("ana", decoded.getUsername());
+        assertEquals(3, decoded.getMemberCount());
+        assertEquals(joined.getTimestampMs(), decoded.getTimestampMs());
+
+        assertTrue(binary.getValue().getPayload().length * 3 < json.getValue().getPayload().length,
+                "Protobuf " + binary.getValue().getPayload().length + "B vs JSON " + json.getValue().getPayload().length + "B");
+    }
+
+    @Test
+    void testBinaryCopyOnlyWhileRoomHasBinarySubscribers() {
+        // Samo JSON klijenti - nema /bin poruke
+        broadcaster.publishNow(ROOM, WatchPartyEvent.userJoined(9L, "ana", 1));
+        verify(messagingTemplate, times(1)).send(eq(ROOM), any());
+        verify(messagingTemplate, never()).send(eq(ROOM + "/bin"), any());
+
+        // Pretplata na drugu sobu ne utiče na ovu
+        binarySubscriptions.subscribe("native-1", "sub-0", "/topic/watch-party/10/bin");
+        broadcaster.publishNow(ROOM, WatchPartyEvent.userLeft(9L, "ana"));
+        verify(messagingTemplate, never()).send(eq(ROOM + "/bin"), any());
+
+        binarySubscriptions.subscribe("native-1", "sub-1", ROOM + "/bin");
+        binarySubscriptions.subscribe("native-2", "sub-0", ROOM + "/bin");
+        broadcaster.publishNow(ROOM, WatchPartyEvent.userJoined(9L, "bojan", 2));
+        verify(messagingTemplate, times(1)).send(eq(ROOM + "/bin"), any());
+
+        // Jedan od dva pretplatnika ode - drugi i dalje dobija
+        binarySubscriptions.unsubscribe("native-1", "sub-1");
+        broadcaster.publishNow(ROOM, WatchPartyEvent.userLeft(9L, "bojan"));
+        verify(messagingTemplate, times(2)).send(eq(ROOM + "/bin"), any());
+
+        binarySubscriptions.disconnect("native-2");
+        broadcaster.publishNow(ROOM, WatchPartyEvent.roomClosed(9L, "host"));
+        verify(messagingTemplate, times(2)).send(eq(ROOM + "/bin"), any());
+        verify(messagingTemplate, times(5)).send(eq(ROOM), any());
+    }
+
+    @Test
+    void testProtobufRoundTripForPresenceAndVideo() throws Exception {
+        WatchPartyEvent presence = WatchPartyEvent.presence(9L, List.of("ana", "bojan"), List.of("ceca"), 4, 5);
+        WatchPartyEvent decodedPresence = codec.fromProtobuf(codec.toProtobuf(presence));
+        assertEquals(List.of("ana", "bojan"), decodedPresence.getJoined());
+        assertEquals(List.of("ceca"), decodedPresence.getLeft());
+        assertEquals(4L, decodedPresence.getVersion());
+
+        WatchPartyEvent closed = WatchPartyEvent.roomClosed(9L, "host");
+        assertEquals("host", codec.fromProtobuf(codec.toProtobuf(closed)).getClosedBy());
+
+        // Generisana klasa iz watch_party_event.proto čita iste bajtove; 0 ostaje 0, null ostaje null
+        WatchPartyEvent empty = WatchPartyEvent.userJoined(9L, "ana", 0);
+        WatchPartyEventProto.WatchPartyEvent proto = WatchPartyEventProto.WatchPartyEvent.parseFrom(codec.toProtobuf(empty));
+        assertEquals(WatchPartyEventProto.WatchPartyEvent.Type.USER_JOINED, proto.getType());
+        assertTrue(proto.hasMemberCount());
+        assertFalse(proto.hasPostId());
+        WatchPartyEvent decodedEmpty = codec.fromProtobuf(proto.toByteArray());
+        assertEquals(0, decodedEmpty.getMemberCount());
+        assertNull(decodedEmpty.getPostId());
+    }
+
+    @Test
+    void testInboundRateLimitPerSession() {
+        WebSocketRateLimitService rateLimit = new WebSocketRateLimitService();
+        ReflectionTestUtils.setField(rateLimit, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(rateLimit, "enabled", true);
+        ReflectionTestUtils.setField(rateLimit, "capacity", 5);
+        ReflectionTestUtils.setField(rateLimit, "refillPerSecond", 1.0);
+        rateLimit.init();
+
+        int allowed = 0;
+        for (int i = 0; i < 50; i++) {
+            if (rateLimit.tryAcquire("chatty")) {
+                allowed++;
+            }
+        }
+
+        assertTrue(allowed >= 5 && allowed <= 6, "Propušteno: " + allowed);
+        // Druga sesija ima svoj bucket
+        assertTrue(rateLimit.tryAcquire("quiet"));
+    }
+}
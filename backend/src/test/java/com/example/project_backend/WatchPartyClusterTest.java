@@ -0,0 +1,166 @@
+package com.example.project_backend;
+
+import dto.WatchPartyDTO;
+import model.Post;
+import model.User;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import repository.PostRepository;
+import repository.UserRepository;
+import service.WatchPartyClusterService;
+import service.WatchPartyRoomRegistry;
+import service.WatchPartyService;
+
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * WatchPartyClusterTest - Vlasništvo nad sobom i prosleđivanje komandi između dva čvora
+ *
+ * Dve instance dele bazu (H2 u istom JVM-u); prsten se gradi iz backend_instances.
+ * Komanda za sobu drugog čvora mora da završi u registru vlasnika, a kada
+ * vlasnik ode, preostali čvor preuzima sobu iz baze.
+ */
+public class WatchPartyClusterTest {
+
+    private static ConfigurableApplicationContext node1;
+    private static ConfigurableApplicationContext node2;
+    private static Long postId;
+
+    @BeforeAll
+    static void startNodes() throws Exception {
+        node1 = startNode("node-1");
+        node2 = startNode("node-2");
+
+        waitFor(() -> cluster(node1).getLiveNodes().size() == 2
+                && cluster(node2).getLiveNodes().size() == 2, "oba čvora u prstenu");
+
+        UserRepository users = node1.getBean(UserRepository.class);
+        User host = users.save(user("domacin"));
+        users.save(user("gost"));
+
+        Post post = new Post();
+        post.setTitle("Klaster video");
+        post.setDescription("Video za test klastera");
+        post.setVideoUrl("http://example.com/video.mp4");
+        post.setThumbnailUrl("http://example.com/thumb.jpg");
+        post.setUser(host);
+        postId = node1.getBean(PostRepository.class).save(post).getId();
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        if (node1 != null) {
+            node1.close();
+        }
+        if (node2 != null && node2.isActive()) {
+            node2.close();
+        }
+    }
+
+    @Test
+    void testCommandsReachOwnerAndRoomMovesWhenOwnerLeaves() throws Exception {
+        WatchPartyService service1 = node1.getBean(WatchPartyService.class);
+
+        // Soba čiji je vlasnik čvor 2, kreirana preko čvora 1
+        Long roomId = null;
+        for (int i = 0; i < 50 && roomId == null; i++) {
+            WatchPartyDTO room = service1.createRoom("domacin", "Soba " + i);
+            if ("node-2".equals(cluster(node1).ownerOf(room.getId()))) {
+                roomId = room.getId();
+            }
+        }
+        assertNotNull(roomId, "Nijedna soba nije pripala čvoru 2");
+        Long remoteRoom = roomId;
+
+        // Join preko čvora 1 → stanje menja samo vlasnik
+        WatchPartyDTO joined = service1.joinRoom(remoteRoom, "gost");
+        assertTrue(joined.getMembers().contains("gost"));
+        assertTrue(registry(node2).get(remoteRoom).orElseThrow().isMember("gost"));
+        assertTrue(registry(node1).get(remoteRoom).isEmpty());
+
+        // Validacija kod vlasnika → ista poruka kao lokalno
+        RuntimeException error = assertThrows(RuntimeException.class,
+                () -> service1.startVideo(remoteRoom, postId, "gost"));
+        assertEquals("Samo kreator sobe može pokrenuti video!", error.getMessage());
+
+        service1.startVideo(remoteRoom, postId, "domacin");
+        assertEquals(postId, service1.getRoomById(remoteRoom).getCurrentPost().getId());
+
+        // Vlasnik odlazi → čvor 1 posle TTL-a preuzima sobu sa upisanim članstvom
+        node2.close();
+        waitFor(() -> registry(node1).get(remoteRoom).isPresent(), "preuzimanje sobe na čvoru 1");
+
+        WatchPartyRoomRegistry.RoomState adopted = registry(node1).get(remoteRoom).orElseThrow();
+        assertTrue(adopted.isMember("gost"));
+        assertEquals(postId, adopted.getCurrentPost().getId());
+        assertEquals("node-1", cluster(node1).ownerOf(remoteRoom));
+
+        // Sada lokalno, bez prosleđivanja
+        service1.leaveRoom(remoteRoom, "gost");
+        assertFalse(adopted.isMember("gost"));
+    }
+
+    // ============================================
+    // POMOĆNE METODE
+    // ============================================
+
+    private static ConfigurableApplicationContext startNode(String name) {
+        return new SpringApplicationBuilder(ProjectBackendApplication.class)
+                .run(
+                    "--server.port=0",
+                    "--spring.datasource.url=jdbc:h2:mem:cluster;DB_CLOSE_DELAY=-1",
+                    "--spring.datasource.username=sa",
+                    "--spring.datasource.password=",
+                    "--spring.datasource.driver-class-name=org.h2.Driver",
+                    "--spring.jpa.database.platform=org.hibernate.dialect.H2Dialect",
+                    "--spring.jpa.hibernate.ddl-auto=update",  // Drugi čvor ne briše šemu prvog
+                    "--spring.datasource.hikari.minimum-idle=1",
+                    "--spring.datasource.hikari.maximum-pool-size=5",
+                    "--spring.devtools.restart.enabled=false",
+                    "--app.email-outbox.enabled=false",
+                    "--app.janitor.enabled=false",
+                    "--app.watch-party.cluster.enabled=true",
+                    "--app.watch-party.cluster.node-id=" + name,
+                    "--app.watch-party.cluster.advertised-host=localhost",
+                    "--app.watch-party.cluster.token=test-token",
+                    "--app.watch-party.cluster.heartbeat-interval-ms=200",
+                    "--app.watch-party.cluster.instance-ttl-ms=1500"
+                );
+    }
+
+    private static User user(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        user.setPassword("password123");
+        user.setFirstName("Test");
+        user.setLastName("User");
+        user.setAddress("Test Address 123");
+        user.setActivated(true);
+        user.setEnabled(true);
+        return user;
+    }
+
+    private static WatchPartyClusterService cluster(ConfigurableApplicationContext node) {
+        return node.getBean(WatchPartyClusterService.class);
+    }
+
+    private static WatchPartyRoomRegistry registry(ConfigurableApplicationContext node) {
+        return node.getBean(WatchPartyRoomRegistry.class);
+    }
+
+    private static void waitFor(BooleanSupplier condition, String description) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 15_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Isteklo vreme čekanja: " + description);
+            }
+            Thread.sleep(100);
+        }
+    }
+}
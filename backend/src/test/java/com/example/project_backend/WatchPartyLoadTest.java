@@ -0,0 +1,465 @@
+package com.example.project_backend;
+
+import dto.WatchPartyDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import model.Post;
+import model.User;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import repository.PostRepository;
+import repository.UserRepository;
+import service.WatchPartyService;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * WatchPartyLoadTest - Kapacitet jedne backend instance za Watch Party
+ *
+ * Pokreće backend u istom JVM-u (H2, simple broker) i otvara hiljade
+ * STOMP-over-WebSocket klijenata raspoređenih po sobama. Saobraćaj:
+ * - join (USER_JOINED) po klijentu, pa start-video od hosta svake sobe
+ * - host šalje sync komande, gledaoci šalju izveštaje o poziciji
+ * - na kraju leave i disconnect
+ *
+ * Meri latenciju fan-out-a (od slanja hosta do prijema kod svakog gledaoca,
+ * HdrHistogram), primljeno/očekivano, gledaoce bez poslednjeg stanja (stvarni
+ * gubitak - spajanje u broadcaster-u to nije) i CPU serverskih niti.
+ * Klijenti rade u istom procesu, pa se CPU deli po grupama niti.
+ *
+ * Ne pokreće se uz obične testove:
+ *   mvn -B test -Ploadtest -Dloadtest.clients=5000 -Dloadtest.rooms=250
+ */
+@Tag("loadtest")
+public class WatchPartyLoadTest {
+
+    // ============================================
+    // KONSTANTE (-Dloadtest.*)
+    // ============================================
+
+    private static final int CLIENTS = Integer.getInteger("loadtest.clients", 2000);
+    private static final int ROOMS = Integer.getInteger("loadtest.rooms", 100);
+    private static final int DURATION_S = Integer.getInteger("loadtest.duration-s", 30);
+    private static final long COMMAND_INTERVAL_MS = Long.getLong("loadtest.command-interval-ms", 500);
+    private static final long VIDEO_INTERVAL_MS = Long.getLong("loadtest.video-interval-ms", 5000);
+    private static final long REPORT_INTERVAL_MS = Long.getLong("loadtest.report-interval-ms", 2000);
+    private static final int REPORT_SLICES = 20;
+    private static final int CONNECT_BATCH = Integer.getInteger("loadtest.connect-batch", 200);
+    private static final double MAX_DROP_RATIO =
+            Double.parseDouble(System.getProperty("loadtest.max-drop-ratio", "0.01"));
+
+    private static final String HOST = "loadtest_host";
+    private static final long HIGHEST_LATENCY_US = TimeUnit.MINUTES.toMicros(1);
+
+    // Serverske niti (ostalo su klijenti i JVM)
+    private static final List<String> SERVER_THREADS = List.of(
+            "clientInboundChannel", "clientOutboundChannel", "brokerChannel",
+            "MessageBroker", "http-nio", "ws-heartbeat", "scheduling");
+
+    private static ConfigurableApplicationContext node;
+    private static WebSocketStompClient stompClient;
+    private static Long postId;
+    private static final List<Long> roomIds = new ArrayList<>();
+
+    // Latencija u mikrosekundama
+    private final Histogram syncLatency = new ConcurrentHistogram(HIGHEST_LATENCY_US, 3);
+    private final Histogram roomLatency = new ConcurrentHistogram(HIGHEST_LATENCY_US, 3);
+
+    // Vreme slanja: (soba, redni broj komande) → nanoTime
+    private final Map<Long, Long> syncSentAt = new ConcurrentHashMap<>();
+    private final Map<Long, AtomicLong> videoSentAt = new ConcurrentHashMap<>();
+
+    private final LongAdder syncExpected = new LongAdder();
+    private final LongAdder syncReceived = new LongAdder();
+    private final LongAdder videoExpected = new LongAdder();
+    private final LongAdder videoReceived = new LongAdder();
+    private final LongAdder sent = new LongAdder();
+
+    @BeforeAll
+    static void startNode() {
+        node = new SpringApplicationBuilder(ProjectBackendApplication.class)
+                .run(
+                    "--server.port=0",
+                    "--spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1",
+                    "--spring.datasource.username=sa",
+                    "--spring.datasource.password=",
+                    "--spring.datasource.driver-class-name=org.h2.Driver",
+                    "--spring.jpa.database.platform=org.hibernate.dialect.H2Dialect",
+                    "--spring.devtools.restart.enabled=false",
+                    "--app.email-outbox.enabled=false",
+                    "--app.janitor.enabled=false",
+                    "--app.websocket.broker=simple"
+                );
+
+        seed();
+
+        stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+        stompClient.setMessageConverter(new MappingJackson2MessageConverter());
+    }
+
+    @AfterAll
+    static void stopNode() {
+        if (stompClient != null) {
+            stompClient.stop();
+        }
+        if (node != null) {
+            node.close();
+        }
+    }
+
+    @Test
+    void testFanOutCapacity() throws Exception {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+        System.out.println("=".repeat(80));
+        System.out.println("🏋️ WATCH PARTY LOAD TEST");
+        System.out.println("   Klijenti: " + CLIENTS + ", sobe: " + ROOMS + ", trajanje: " + DURATION_S + "s");
+        System.out.println("=".repeat(80));
+
+        // FAZA 1: Konekcije (host svake sobe = prvi klijent te sobe)
+        long connectStart = System.nanoTime();
+        List<LoadClient> clients = connectAll();
+        long connectMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - connectStart);
+        System.out.println("✅ Povezano " + clients.size() + " klijenata za " + connectMs + " ms");
+
+        Map<Long, Integer> viewersPerRoom = new HashMap<>();
+        for (LoadClient client : clients) {
+            viewersPerRoom.merge(client.roomId, client.host ? 0 : 1, Integer::sum);
+        }
+
+        for (LoadClient client : clients) {
+            client.send("/app/watch-party/" + client.roomId + "/join", Map.of("username", client.username));
+        }
+        Thread.sleep(1000);
+
+        // FAZA 2: Saobraćaj
+        Map<String, Long> cpuBefore = cpuByThreadGroup(threads);
+        long runStart = System.nanoTime();
+
+        ScheduledExecutorService driver = Executors.newScheduledThreadPool(4);
+        AtomicLong commandSeq = new AtomicLong();
+
+        List<LoadClient> hosts = clients.stream().filter(c -> c.host).toList();
+        List<LoadClient> viewers = clients.stream().filter(c -> !c.host).toList();
+
+        driver.scheduleAtFixedRate(() -> {
+            for (LoadClient host : hosts) {
+                videoSentAt.computeIfAbsent(host.roomId, id -> new AtomicLong()).set(System.nanoTime());
+                videoExpected.add(viewersPerRoom.get(host.roomId));
+                host.send("/app/watch-party/" + host.roomId + "/start-video",
+                        Map.of("postId", postId, "username", HOST));
+            }
+        }, 0, VIDEO_INTERVAL_MS, TimeUnit.MILLISECONDS);
+
+        driver.scheduleAtFixedRate(() -> {
+            long seq = commandSeq.incrementAndGet();
+            for (LoadClient host : hosts) {
+                syncSentAt.put(syncKey(host.roomId, seq), System.nanoTime());
+                syncExpected.add(viewersPerRoom.get(host.roomId));
+                // Pauza → server ne pomera poziciju, p jednoznačno nosi redni broj
+                host.send("/app/watch-party/" + host.roomId + "/sync/command",
+                        Map.of("u", HOST, "a", "seek", "p", seq * 1000, "pl", false,
+                               "c", System.currentTimeMillis()));
+            }
+        }, COMMAND_INTERVAL_MS, COMMAND_INTERVAL_MS, TimeUnit.MILLISECONDS);
+
+        // Izveštaji gledalaca raspoređeni kroz interval (kao pravi klijenti), ne svi odjednom
+        AtomicLong reportTick = new AtomicLong();
+        driver.scheduleAtFixedRate(() -> {
+            long slice = reportTick.getAndIncrement() % REPORT_SLICES;
+            long position = commandSeq.get() * 1000;
+            for (int i = (int) slice; i < viewers.size(); i += REPORT_SLICES) {
+                LoadClient viewer = viewers.get(i);
+                viewer.send("/app/watch-party/" + viewer.roomId + "/sync/report",
+                        Map.of("p", position, "pl", false, "c", System.currentTimeMillis()));
+            }
+        }, REPORT_INTERVAL_MS, REPORT_INTERVAL_MS / REPORT_SLICES, TimeUnit.MILLISECONDS);
+
+        Thread.sleep(TimeUnit.SECONDS.toMillis(DURATION_S));
+        driver.shutdown();
+        driver.awaitTermination(10, TimeUnit.SECONDS);
+
+        // Poslednje poruke još putuju (coalescing prozor + red za slanje)
+        Thread.sleep(2000);
+
+        long runNanos = System.nanoTime() - runStart;
+        Map<String, Long> cpuAfter = cpuByThreadGroup(threads);
+
+        // Stanja spojena u coalescing prozoru nisu gubitak; gubitak je kada poslednje stanje ne stigne
+        long finalSeq = commandSeq.get();
+        long staleViewers = viewers.stream().filter(v -> v.lastSyncSeq.get() != finalSeq).count();
+        long closed = clients.stream().filter(c -> !c.session.isConnected()).count();
+        report(clients.size(), closed, staleViewers, viewers.size(), runNanos, cpuBefore, cpuAfter);
+
+        // FAZA 3: Odlazak
+        for (LoadClient client : clients) {
+            if (client.session.isConnected()) {
+                client.send("/app/watch-party/" + client.roomId + "/leave", Map.of("username", client.username));
+                client.session.disconnect();
+            }
+        }
+
+        assertTrue(syncReceived.sum() > 0, "Nijedan sync događaj nije stigao");
+        double staleRatio = staleViewers / (double) viewers.size();
+        assertTrue(staleRatio <= MAX_DROP_RATIO,
+                String.format("%.2f%% gledalaca nema poslednje stanje (dozvoljeno %.2f%%)",
+                        staleRatio * 100, MAX_DROP_RATIO * 100));
+    }
+
+    // ============================================
+    // KLIJENTI
+    // ============================================
+
+    private class LoadClient {
+        final String username;
+        final Long roomId;
+        final boolean host;
+        StompSession session;
+        final AtomicLong lastSyncSeq = new AtomicLong();
+
+        LoadClient(int index) {
+            this.roomId = roomIds.get(index % ROOMS);
+            this.host = index < ROOMS;
+            this.username = host ? HOST : "viewer_" + index;
+        }
+
+        void subscribe() {
+            session.subscribe("/topic/watch-party/" + roomId, new MapFrameHandler(this::onRoomEvent));
+            session.subscribe("/topic/watch-party/" + roomId + "/sync", new MapFrameHandler(this::onSyncState));
+        }
+
+        void send(String destination, Object payload) {
+            try {
+                session.send(destination, payload);
+                sent.increment();
+            } catch (Exception e) {
+                // Sesija zatvorena (npr. TERMINATE zbog sporog klijenta) - računa se kao gubitak
+            }
+        }
+
+        private void onRoomEvent(Map<String, Object> event) {
+            if (host || !"VIDEO_STARTED".equals(event.get("type"))) {
+                return;
+            }
+            AtomicLong sentAt = videoSentAt.get(roomId);
+            if (sentAt != null) {
+                record(roomLatency, sentAt.get());
+                videoReceived.increment();
+            }
+        }
+
+        private void onSyncState(Map<String, Object> state) {
+            if (host || !(state.get("p") instanceof Number position)) {
+                return;
+            }
+            long seq = position.longValue() / 1000;
+            Long sentAt = syncSentAt.get(syncKey(roomId, seq));
+            if (sentAt != null) {
+                lastSyncSeq.accumulateAndGet(seq, Math::max);
+                record(syncLatency, sentAt);
+                syncReceived.increment();
+            }
+        }
+    }
+
+    private List<LoadClient> connectAll() throws Exception {
+        int port = ((WebServerApplicationContext) node).getWebServer().getPort();
+        String url = "ws://localhost:" + port + "/ws-native";
+
+        List<LoadClient> clients = new ArrayList<>(CLIENTS);
+        for (int batchStart = 0; batchStart < CLIENTS; batchStart += CONNECT_BATCH) {
+            List<LoadClient> batch = new ArrayList<>();
+            List<CompletableFuture<StompSession>> futures = new ArrayList<>();
+
+            for (int i = batchStart; i < Math.min(CLIENTS, batchStart + CONNECT_BATCH); i++) {
+                batch.add(new LoadClient(i));
+                futures.add(stompClient.connectAsync(url, new StompSessionHandlerAdapter() {}));
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                LoadClient client = batch.get(i);
+                client.session = futures.get(i).get(30, TimeUnit.SECONDS);
+                client.subscribe();
+                clients.add(client);
+            }
+        }
+        return clients;
+    }
+
+    private static class MapFrameHandler implements StompFrameHandler {
+        private final Consumer<Map<String, Object>> consumer;
+
+        MapFrameHandler(Consumer<Map<String, Object>> consumer) {
+            this.consumer = consumer;
+        }
+
+        @Override
+        public Type getPayloadType(StompHeaders headers) {
+            return Map.class;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void handleFrame(StompHeaders headers, Object payload) {
+            consumer.accept((Map<String, Object>) payload);
+        }
+    }
+
+    // ============================================
+    // IZVEŠTAJ
+    // ============================================
+
+    private void report(int connected, long closed, long staleViewers, int viewers, long runNanos, Map<String, Long> cpuBefore, Map<String, Long> cpuAfter) {
+        double seconds = runNanos / 1e9;
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        System.out.println("=".repeat(80));
+        System.out.println("📊 REZULTAT (" + connected + " klijenata, " + ROOMS + " soba, " + String.format("%.1f", seconds) + "s)");
+        System.out.println("   Sesije zatvorene od strane servera: " + closed);
+        System.out.println("   Poslato poruka: " + sent.sum()
+                + " (" + String.format("%.0f", sent.sum() / seconds) + "/s)");
+        printLatency("sync STATE", syncLatency, syncExpected.sum(), syncReceived.sum(), seconds);
+        printLatency("VIDEO_STARTED", roomLatency, videoExpected.sum(), videoReceived.sum(), seconds);
+        System.out.printf("   Izgubljeno (bez poslednjeg stanja): %d/%d gledalaca%n", staleViewers, viewers);
+
+        System.out.println("   CPU po grupi niti (jezgara, od " + cores + "):");
+        long serverCpu = 0;
+        Map<String, Long> delta = new HashMap<>();
+        for (Map.Entry<String, Long> entry : cpuAfter.entrySet()) {
+            long used = entry.getValue() - cpuBefore.getOrDefault(entry.getKey(), 0L);
+            delta.put(entry.getKey(), used);
+            if (!entry.getKey().equals("ostalo")) {
+                serverCpu += used;
+            }
+        }
+        delta.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .forEach(e -> System.out.printf("      %-22s %6.2f%n", e.getKey(), e.getValue() / (double) runNanos));
+        System.out.printf("   CPU servera: %.2f jezgara (%.0f%% čvora)%n",
+                serverCpu / (double) runNanos, 100.0 * serverCpu / runNanos / cores);
+
+        MeterRegistry meters = node.getBean(MeterRegistry.class);
+        System.out.println("   Server: coalesced=" + counter(meters, "watchparty.broadcast.events", "result", "coalesced")
+                + ", dropped=" + counter(meters, "watchparty.broadcast.events", "result", "dropped")
+                + ", rate-limited=" + counter(meters, "websocket.inbound.rate", "result", "rejected")
+                + ", undelivered-bytes=" + counter(meters, "websocket.outbound.undelivered", null, null)
+                + ", slow-consumer-disconnects=" + counter(meters, "websocket.sessions.forced.disconnects",
+                        "reason", "slow-consumer"));
+        System.out.println("=".repeat(80));
+    }
+
+    private void printLatency(String name, Histogram histogram, long expected, long received, double seconds) {
+        System.out.printf("   %s: primljeno %d/%d (spojeno ili izgubljeno %.2f%%), %.0f/s%n",
+                name, received, expected, dropRatio(expected, received) * 100, received / seconds);
+        System.out.printf("      latencija ms: p50=%.2f p90=%.2f p99=%.2f p99.9=%.2f max=%.2f%n",
+                histogram.getValueAtPercentile(50) / 1000.0,
+                histogram.getValueAtPercentile(90) / 1000.0,
+                histogram.getValueAtPercentile(99) / 1000.0,
+                histogram.getValueAtPercentile(99.9) / 1000.0,
+                histogram.getMaxValue() / 1000.0);
+    }
+
+    // ============================================
+    // POMOĆNE METODE
+    // ============================================
+
+    private static void seed() {
+        UserRepository userRepository = node.getBean(UserRepository.class);
+        PostRepository postRepository = node.getBean(PostRepository.class);
+        WatchPartyService watchPartyService = node.getBean(WatchPartyService.class);
+
+        User host = new User();
+        host.setUsername(HOST);
+        host.setEmail("loadtest_host@example.com");
+        host.setPassword("password123");
+        host.setFirstName("Load");
+        host.setLastName("Test");
+        host.setAddress("Test Address 123");
+        host.setActivated(true);
+        host.setEnabled(true);
+        host = userRepository.save(host);
+
+        Post post = new Post();
+        post.setTitle("Load test video");
+        post.setDescription("Video za load test");
+        post.setVideoUrl("http://example.com/video.mp4");
+        post.setThumbnailUrl("http://example.com/thumb.jpg");
+        post.setUser(host);
+        postId = postRepository.save(post).getId();
+
+        for (int i = 0; i < ROOMS; i++) {
+            WatchPartyDTO room = watchPartyService.createRoom(HOST, "Load soba " + i);
+            roomIds.add(room.getId());
+        }
+    }
+
+    private static long syncKey(Long roomId, long seq) {
+        return (roomId << 32) | seq;
+    }
+
+    private static void record(Histogram histogram, long sentAtNanos) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - sentAtNanos);
+        histogram.recordValue(Math.min(micros, HIGHEST_LATENCY_US));
+    }
+
+    private static double dropRatio(long expected, long received) {
+        return expected == 0 ? 0 : Math.max(0, expected - received) / (double) expected;
+    }
+
+    private static Map<String, Long> cpuByThreadGroup(ThreadMXBean threads) {
+        Map<String, Long> cpu = new HashMap<>();
+        for (long id : threads.getAllThreadIds()) {
+            var info = threads.getThreadInfo(id);
+            long time = threads.getThreadCpuTime(id);
+            if (info == null || time < 0) {
+                continue;
+            }
+            String group = SERVER_THREADS.stream()
+                    .filter(prefix -> info.getThreadName().startsWith(prefix))
+                    .findFirst()
+                    .orElse("ostalo");
+            cpu.merge(group, time, Long::sum);
+        }
+        return cpu;
+    }
+
+    private static double counter(MeterRegistry meters, String name, String tagKey, String tagValue) {
+        var search = tagKey == null ? meters.find(name) : meters.find(name).tag(tagKey, tagValue);
+        Counter counter = search.counter();
+        if (counter != null) {
+            return counter.count();
+        }
+        FunctionCounter functionCounter = search.functionCounter();
+        return functionCounter != null ? functionCounter.count() : 0;
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.project_backend;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.messaging.simp.stomp.StompBrokerRelayMessageHandler;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * WatchPartyMultiNodeTest - Fan-out Watch Party događaja preko dva backend čvora
+ *
+ * Dve instance aplikacije (svaka sa svojom H2 bazom) rade u broker-relay modu
+ * prema istom STOMP broker-u (StompBrokerStandIn umesto RabbitMQ STOMP plugin-a).
+ * Klijent na čvoru 1 mora da primi događaj koji je poslat preko čvora 2.
+ */
+public class WatchPartyMultiNodeTest {
+
+    private static final Long ROOM_ID = 77L;
+
+    private static StompBrokerStandIn broker;
+    private static ConfigurableApplicationContext node1;
+    private static ConfigurableApplicationContext node2;
+    private static WebSocketStompClient stompClient;
+
+    @BeforeAll
+    static void startNodes() throws Exception {
+        broker = new StompBrokerStandIn();
+        node1 = startNode("node1");
+        node2 = startNode("node2");
+
+        waitFor(() -> relayAvailable(node1) && relayAvailable(node2), "relay konekcija ka broker-u");
+
+        stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+        stompClient.setMessageConverter(new MappingJackson2MessageConverter());
+    }
+
+    @AfterAll
+    static void stopNodes() throws Exception {
+        if (stompClient != null) {
+            stompClient.stop();
+        }
+        if (node1 != null) {
+            node1.close();
+        }
+        if (node2 != null) {
+            node2.close();
+        }
+        if (broker != null) {
+            broker.close();
+        }
+    }
+
+    @Test
+    void testEventSentOnOneNodeReachesSubscribersOnBothNodes() throws Exception {
+        StompSession viewerOnNode1 = connect(node1);
+        StompSession viewerOnNode2 = connect(node2);
+        StompSession hostOnNode2 = connect(node2);
+
+        BlockingQueue<Map<String, Object>> node1Events = subscribe(viewerOnNode1, "/topic/watch-party/" + ROOM_ID);
+        BlockingQueue<Map<String, Object>> node2Events = subscribe(viewerOnNode2, "/topic/watch-party/" + ROOM_ID);
+
+        // Klijentske pretplate se prepisuju u relay oblik (/topic/watch-party.77)
+        waitFor(() -> broker.countSubscriptions("/topic/watch-party." + ROOM_ID) == 2, "2 pretplate na broker-u");
+
+        // Host na čvoru 2 šalje notifikaciju → WatchPartyWebSocketController na čvoru 2 → broker
+        hostOnNode2.send("/app/watch-party/" + ROOM_ID + "/leave", Map.of("username", "gost_sa_cvora_2"));
+
+        Map<String, Object> onNode1 = node1Events.poll(10, TimeUnit.SECONDS);
+        Map<String, Object> onNode2 = node2Events.poll(10, TimeUnit.SECONDS);
+
+        assertNotNull(onNode1, "Klijent na čvoru 1 nije primio događaj sa čvora 2");
+        assertNotNull(onNode2, "Klijent na čvoru 2 nije primio događaj");
+        assertEquals("USER_LEFT", onNode1.get("type"));
+        assertEquals("gost_sa_cvora_2", onNode1.get("username"));
+        assertEquals(onNode1, onNode2);
+
+        viewerOnNode1.disconnect();
+        viewerOnNode2.disconnect();
+        hostOnNode2.disconnect();
+    }
+
+    // ============================================
+    // POMOĆNE METODE
+    // ============================================
+
+    private static ConfigurableApplicationContext startNode(String name) {
+        return new SpringApplicationBuilder(ProjectBackendApplication.class)
+                .run(
+                    "--server.port=0",
+                    "--spring.datasource.url=jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1",
+                    "--spring.datasource.username=sa",
+                    "--spring.datasource.password=",
+                    "--spring.datasource.driver-class-name=org.h2.Driver",
+                    "--spring.jpa.database.platform=org.hibernate.dialect.H2Dialect",
+                    "--spring.datasource.hikari.minimum-idle=1",
+                    "--spring.datasource.hikari.maximum-pool-size=5",
+                    "--spring.devtools.restart.enabled=false",
+                    "--app.email-outbox.enabled=false",
+                    "--app.janitor.enabled=false",
+                    "--app.websocket.broker=relay",
+                    "--app.websocket.relay.host=localhost",
+                    "--app.websocket.relay.port=" + broker.getPort()
+                );
+    }
+
+    private static boolean relayAvailable(ConfigurableApplicationContext context) {
+        return context.getBean(StompBrokerRelayMessageHandler.class).isBrokerAvailable();
+    }
+
+    private StompSession connect(ConfigurableApplicationContext node) throws Exception {
+        int port = ((WebServerApplicationContext) node).getWebServer().getPort();
+        return stompClient
+                .connectAsync("ws://localhost:" + port + "/ws/websocket", new StompSessionHandlerAdapter() {})
+                .get(10, TimeUnit.SECONDS);
+    }
+
+    private BlockingQueue<Map<String, Object>> subscribe(StompSession session, String destination) {
+        BlockingQueue<Map<String, Object>> received = new LinkedBlockingQueue<>();
+        session.subscribe(destination, new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return Map.class;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public void handleFrame(StompHeaders headers, Object payload) {
+                received.add((Map<String, Object>) payload);
+            }
+        });
+        return received;
+    }
+
+    private static void waitFor(BooleanSupplier condition, String description) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 15_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Isteklo vreme čekanja: " + description);
+            }
+            Thread.sleep(100);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.project_backend;
+
+import config.WatchPartyDestinations;
+import dto.WatchPartyEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import model.User;
+import model.WatchParty;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import service.WatchPartyBroadcaster;
+import service.WatchPartyPresenceService;
+import service.WatchPartyRoomRegistry;
+import service.WatchPartyService;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * WatchPartyPresenceServiceTest - Ulazak/izlazak iz sobe na osnovu WebSocket sesija
+ */
+public class WatchPartyPresenceServiceTest {
+
+    private static final Long ROOM_ID = 7L;
+    private static final String ROOM = "/topic/watch-party/7";
+
+    private WatchPartyPresenceService presence;
+    private WatchPartyRoomRegistry registry;
+    private WatchPartyBroadcaster broadcaster;
+
+    @BeforeEach
+    void setUp() {
+        registry = new WatchPartyRoomRegistry();
+
+        User host = new User();
+        host.setId(1L);
+        host.setUsername("host");
+        host.setEmail("host@example.com");
+        WatchParty party = new WatchParty("Presence soba", host);
+        party.setId(ROOM_ID);
+        registry.register(party);
+
+        // Principal je već username
+        WatchPartyService watchPartyService = mock(WatchPartyService.class);
+        when(watchPartyService.resolveUsername(anyString())).thenAnswer(inv -> inv.getArgument(0));
+
+        broadcaster = mock(WatchPartyBroadcaster.class);
+
+        presence = new WatchPartyPresenceService();
+        ReflectionTestUtils.setField(presence, "roomRegistry", registry);
+        ReflectionTestUtils.setField(presence, "watchPartyService", watchPartyService);
+        ReflectionTestUtils.setField(presence, "broadcaster", broadcaster);
+        ReflectionTestUtils.setField(presence, "destinations", new WatchPartyDestinations("simple"));
+        ReflectionTestUtils.setField(presence, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(presence, "sessionTimeoutMs", 30_000L);
+        presence.init();
+    }
+
+    @Test
+    void testSubscribeAndDisconnectProduceOneBatchedDiff() {
+        presence.connect("s1", "ana", true);
+        presence.connect("s2", "bojan", true);
+        presence.connect("s3", "ceca", true);
+
+        presence.join("s1", "sub-1", ROOM_ID);
+        presence.join("s2", "sub-1", ROOM_ID);
+        presence.join("s3", "sub-1", ROOM_ID);
+        presence.disconnect("s3");  // Ušla i izašla u istom intervalu → ne pojavljuje se
+
+        assertTrue(room().isMember("ana"));
+        assertTrue(room().isMember("bojan"));
+        assertFalse(room().isMember("ceca"));
+
+        presence.flushDiffs();
+
+        WatchPartyEvent event = capturePresence(1);
+        assertEquals("PRESENCE", event.getType());
+        assertEquals(List.of("ana", "bojan"), event.getJoined());
+        assertEquals(List.of(), event.getLeft());
+        assertEquals(3, event.getMemberCount());  // host + ana + bojan
+
+        // Nema promena → nema poruke
+        presence.flushDiffs();
+        verify(broadcaster, times(1)).publish(eq(ROOM), anyString(), any());
+    }
+
+    @Test
+    void testUserLeavesOnlyWhenLastSessionCloses() {
+        presence.connect("tab-1", "ana", true);
+        presence.connect("tab-2", "ana", true);
+        presence.join("tab-1", "sub-1", ROOM_ID);
+        presence.join("tab-2", "sub-1", ROOM_ID);
+
+        presence.disconnect("tab-1");
+        assertTrue(room().isMember("ana"));
+
+        presence.unsubscribe("tab-2", "sub-1");
+        assertFalse(room().isMember("ana"));
+    }
+
+    @Test
+    void testRestMemberStaysWhenPageCloses() {
+        room().addMember("ana");  // REST /join
+
+        presence.connect("s1", "ana", true);
+        presence.join("s1", "sub-1", ROOM_ID);
+        presence.disconnect("s1");
+
+        assertTrue(room().isMember("ana"));
+
+        // Posle REST /leave, ulazak preko stranice je članstvo prisustva
+        room().removeMember("ana");
+        presence.connect("s2", "ana", true);
+        presence.join("s2", "sub-1", ROOM_ID);
+        assertTrue(room().isMember("ana"));
+        presence.disconnect("s2");
+        assertFalse(room().isMember("ana"));
+    }
+
+    @Test
+    void testSilentSessionExpires() {
+        presence.connect("crashed", "ana", true);
+        presence.connect("quiet", "bojan", false);  // Bez heartbeat-a → ne ističe
+        presence.join("crashed", "sub-1", ROOM_ID);
+        presence.join("quiet", "sub-1", ROOM_ID);
+
+        ReflectionTestUtils.setField(presence, "sessionTimeoutMs", -1L);
+        presence.expireIdleSessions();
+
+        assertFalse(presence.isTracked("crashed"));
+        assertFalse(room().isMember("ana"));
+        assertTrue(room().isMember("bojan"));
+    }
+
+    @Test
+    void testCreatorStaysWhenSessionDrops() {
+        presence.connect("host-tab", "host", true);
+        presence.join("host-tab", "sub-1", ROOM_ID);
+        presence.disconnect("host-tab");
+
+        assertTrue(room().isMember("host"));
+    }
+
+    @Test
+    void testRoomIdParsedFromBothDestinationForms() {
+        WatchPartyDestinations destinations = new WatchPartyDestinations("relay");
+
+        assertEquals(7L, destinations.roomIdOf("/topic/watch-party/7"));
+        assertEquals(7L, destinations.roomIdOf("/topic/watch-party.7"));
+        assertNull(destinations.roomIdOf("/topic/watch-party/7/sync"));
+        assertNull(destinations.roomIdOf("/topic/watch-party.7.sync"));
+        assertEquals(7L, destinations.roomIdOf("/topic/watch-party.7.bin"));
+        assertNull(destinations.roomIdOf("/queue/errors"));
+    }
+
+    // ============================================
+    // POMOĆNE METODE
+    // ============================================
+
+    private WatchPartyRoomRegistry.RoomState room() {
+        return registry.get(ROOM_ID).orElseThrow();
+    }
+
+    private WatchPartyEvent capturePresence(int times) {
+        ArgumentCaptor<Object> captor = ArgumentCaptor.forClass(Object.class);
+        verify(broadcaster, times(times)).publish(eq(ROOM), anyString(), captor.capture());
+        return (WatchPartyEvent) captor.getValue();
+    }
+}
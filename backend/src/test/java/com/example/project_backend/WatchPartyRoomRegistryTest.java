@@ -0,0 +1,282 @@
+package com.example.project_backend;
+
+import dto.WatchPartyDTO;
+import dto.WatchPartySummaryDTO;
+import model.Post;
+import model.User;
+import model.WatchParty;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import repository.UserRepository;
+import repository.WatchPartyRepository;
+import service.WatchPartyClusterService;
+import service.WatchPartyRoomRegistry;
+import service.WatchPartyService;
+import service.WatchPartySyncService;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * WatchPartyRoomRegistryTest - Stanje sobe u memoriji (bez baze)
+ */
+public class WatchPartyRoomRegistryTest {
+
+    private WatchPartyRoomRegistry registry;
+    private WatchParty party;
+
+    @BeforeEach
+    void setUp() {
+        registry = new WatchPartyRoomRegistry();
+
+        User creator = new User();
+        creator.setId(1L);
+        creator.setUsername("petar123");
+        creator.setEmail("petar@example.com");
+
+        party = new WatchParty("Filmsko veče", creator);
+        party.setId(42L);
+    }
+
+    @Test
+    void testRegisteredRoomMatchesEntityShape() {
+        registry.register(party);
+
+        WatchPartyDTO dto = registry.get(42L).orElseThrow().toDTO();
+
+        assertEquals(42L, dto.getId());
+        assertEquals("Filmsko veče", dto.getName());
+        assertEquals("petar123", dto.getCreator().getUsername());
+        assertTrue(dto.getActive());
+        assertNull(dto.getCurrentPost());
+        assertEquals(1, dto.getMemberCount());
+        assertTrue(dto.getMembers().contains("petar123"));
+    }
+
+    @Test
+    void testCreatedRoomIsRegisteredOnlyAfterCommit() {
+        WatchPartyRepository watchPartyRepository = mock(WatchPartyRepository.class);
+        when(watchPartyRepository.save(any(WatchParty.class))).thenAnswer(invocation -> {
+            WatchParty saved = invocation.getArgument(0);
+            saved.setId(7L);
+            return saved;
+        });
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findByUsername("petar123")).thenReturn(Optional.of(party.getCreator()));
+        WatchPartyClusterService cluster = mock(WatchPartyClusterService.class);
+        when(cluster.isLocal(anyLong())).thenReturn(true);
+
+        WatchPartyService service = new WatchPartyService();
+        ReflectionTestUtils.setField(service, "watchPartyRepository", watchPartyRepository);
+        ReflectionTestUtils.setField(service, "userRepository", userRepository);
+        ReflectionTestUtils.setField(service, "roomRegistry", registry);
+        ReflectionTestUtils.setField(service, "cluster", cluster);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            WatchPartyDTO created = service.createRoom("petar123", "Nova soba");
+            assertEquals(7L, created.getId());
+            assertTrue(registry.get(7L).isEmpty());  // Rollback ovde ne bi ostavio sobu u memoriji
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals("Nova soba", registry.get(7L).orElseThrow().toDTO().getName());
+    }
+
+    @Test
+    void testFailedClosureKeepsRoomActive() {
+        WatchPartyRepository watchPartyRepository = mock(WatchPartyRepository.class);
+        when(watchPartyRepository.findById(42L))
+                .thenThrow(new IllegalStateException("baza nedostupna"))
+                .thenReturn(Optional.of(party));
+        when(watchPartyRepository.save(any(WatchParty.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findByUsername("petar123")).thenReturn(Optional.of(party.getCreator()));
+        WatchPartyClusterService cluster = mock(WatchPartyClusterService.class);
+        when(cluster.isLocal(anyLong())).thenReturn(true);
+        WatchPartySyncService syncService = mock(WatchPartySyncService.class);
+
+        WatchPartyService service = new WatchPartyService();
+        ReflectionTestUtils.setField(service, "watchPartyRepository", watchPartyRepository);
+        ReflectionTestUtils.setField(service, "userRepository", userRepository);
+        ReflectionTestUtils.setField(service, "roomRegistry", registry);
+        ReflectionTestUtils.setField(service, "cluster", cluster);
+        ReflectionTestUtils.setField(service, "syncService", syncService);
+        ReflectionTestUtils.setField(service, "transactionManager", new NoOpTransactionManager());
+        service.init();
+        registry.register(party);
+
+        // Upis nije uspeo → soba ostaje u memoriji, može se ponovo zatvoriti
+        assertThrows(IllegalStateException.class, () -> service.closeRoom(42L, "petar123"));
+        assertTrue(registry.get(42L).isPresent());
+        verify(syncService, never()).forgetRoom(42L);
+
+        WatchPartyDTO closed = service.closeRoom(42L, "petar123");
+        assertFalse(closed.getActive());
+        assertTrue(registry.get(42L).isEmpty());
+        verify(syncService).forgetRoom(42L);
+    }
+
+    @Test
+    void testConcurrentJoinsAreNotLost() throws Exception {
+        WatchPartyRoomRegistry.RoomState room = registry.register(party);
+
+        int threads = 50;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+
+        for (int i = 0; i < threads; i++) {
+            String username = "gost_" + i;
+            executor.submit(() -> {
+                start.await();
+                room.addMember(username);
+                room.toDTO();  // Paralelna čitanja tokom izmena
+                return null;
+            });
+        }
+
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(threads + 1, room.getMemberCount());
+        assertEquals(threads + 1, room.toDTO().getMembers().size());
+    }
+
+    @Test
+    void testSnapshotIsCachedUntilStateChanges() {
+        WatchPartyRoomRegistry.RoomState room = registry.register(party);
+
+        WatchPartyDTO first = room.toDTO();
+        assertSame(first, room.toDTO());
+
+        Post post = new Post();
+        post.setId(7L);
+        post.setTitle("Video");
+        post.setVideoUrl("https://www.youtube.com/watch?v=test");
+        room.startVideo(WatchPartyRoomRegistry.toPostInfo(post));
+
+        WatchPartyDTO second = room.toDTO();
+        assertNotSame(first, second);
+        assertEquals(7L, second.getCurrentPost().getId());
+        assertTrue(second.getPlayback().isPlaying());
+
+        // Isti član dva puta ne menja snapshot
+        assertFalse(room.addMember("petar123"));
+        assertSame(second, room.toDTO());
+    }
+
+    @Test
+    void testRemoveDropsRoom() {
+        registry.register(party);
+        registry.markDirty(42L);
+
+        assertNotNull(registry.remove(42L));
+        assertTrue(registry.get(42L).isEmpty());
+    }
+
+    @Test
+    void testReverseIndexFollowsMembership() {
+        WatchPartyRoomRegistry.RoomState first = registry.register(party);
+        WatchPartyRoomRegistry.RoomState second = registry.register(room(43L, "Drugo veče", LocalDateTime.now()));
+
+        first.addMember("ana");
+        second.addMember("ana");
+        assertEquals(2, registry.getRoomsForMember("ana").size());
+
+        first.removeMember("ana");
+        assertEquals(List.of(43L), ids(registry.getRoomsForMember("ana")));
+
+        // Zatvorena soba nestaje iz indeksa za sve članove
+        registry.remove(43L);
+        assertTrue(registry.getRoomsForMember("ana").isEmpty());
+        assertTrue(registry.getRoomsForMember("petar123").stream().allMatch(r -> r.getId() == 42L));
+
+        // Kasni join na zatvorenu sobu ne vraća je u indeks
+        assertFalse(second.addMember("bojan"));
+        assertTrue(registry.getRoomsForMember("bojan").isEmpty());
+    }
+
+    @Test
+    void testActiveSummariesAreSortedAndCached() {
+        LocalDateTime now = LocalDateTime.now();
+        registry.register(room(1L, "Stara", now.minusHours(2)));
+        registry.register(room(2L, "Nova", now));
+        registry.register(room(3L, "Srednja", now.minusHours(1)));
+
+        List<WatchPartySummaryDTO> summaries = registry.getActiveSummaries();
+        assertEquals(List.of("Nova", "Srednja", "Stara"),
+                summaries.stream().map(WatchPartySummaryDTO::getName).toList());
+
+        // Bez promena - ista lista; promena reprodukcije ne utiče na /active
+        registry.get(2L).orElseThrow().updatePlayback(true, 1000);
+        assertSame(summaries, registry.getActiveSummaries());
+
+        registry.get(3L).orElseThrow().addMember("ana");
+        List<WatchPartySummaryDTO> updated = registry.getActiveSummaries();
+        assertNotSame(summaries, updated);
+        assertEquals(2, updated.get(1).getMemberCount());
+        assertSame(summaries.get(0), updated.get(0));  // Nepromenjena soba - isti summary
+
+        registry.remove(2L);
+        assertEquals(2, registry.getActiveSummaries().size());
+    }
+
+    // ============================================
+    // POMOĆNE METODE
+    // ============================================
+
+    private WatchParty room(Long id, String name, LocalDateTime createdAt) {
+        WatchParty room = new WatchParty(name, party.getCreator());
+        room.setId(id);
+        room.setCreatedAt(createdAt);
+        return room;
+    }
+
+    private List<Long> ids(List<WatchPartyRoomRegistry.RoomState> rooms) {
+        return rooms.stream().map(WatchPartyRoomRegistry.RoomState::getId).toList();
+    }
+
+    // Bez baze, ali sa pravom sinhronizacijom transakcije (afterCommit se poziva)
+    private static class NoOpTransactionManager extends AbstractPlatformTransactionManager {
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.project_backend;
+
+import config.WatchPartyDestinations;
+import dto.PlaybackSyncMessage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import model.User;
+import model.WatchParty;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import service.WatchPartyBroadcaster;
+import service.WatchPartyClusterService;
+import service.WatchPartyRoomRegistry;
+import service.WatchPartySyncService;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * WatchPartySyncServiceTest - Procena sata, heartbeat i korekcija drift-a (bez mreže)
+ */
+public class WatchPartySyncServiceTest {
+
+    private static final Long ROOM_ID = 5L;
+
+    private WatchPartySyncService syncService;
+    private WatchPartyRoomRegistry registry;
+    private SimpMessagingTemplate messagingTemplate;
+
+    @BeforeEach
+    void setUp() {
+        registry = new WatchPartyRoomRegistry();
+        messagingTemplate = mock(SimpMessagingTemplate.class);
+
+        User host = new User();
+        host.setId(1L);
+        host.setUsername("host");
+        host.setEmail("host@example.com");
+        WatchParty party = new WatchParty("Sync soba", host);
+        party.setId(ROOM_ID);
+        registry.register(party);
+
+        syncService = new WatchPartySyncService();
+        ReflectionTestUtils.setField(syncService, "roomRegistry", registry);
+        ReflectionTestUtils.setField(syncService, "messagingTemplate", messagingTemplate);
+        ReflectionTestUtils.setField(syncService, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(syncService, "destinations", new WatchPartyDestinations("simple"));
+        ReflectionTestUtils.setField(syncService, "cluster", new WatchPartyClusterService());  // Bez klastera - sve lokalno
+
+        // Broadcaster bez prozora - poruke odmah idu na template
+        WatchPartyBroadcaster broadcaster = new WatchPartyBroadcaster();
+        ReflectionTestUtils.setField(broadcaster, "messagingTemplate", messagingTemplate);
+        ReflectionTestUtils.setField(broadcaster, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(broadcaster, "windowMs", 0L);
+        ReflectionTestUtils.setField(broadcaster, "maxPending", 32);
+        broadcaster.init();
+        ReflectionTestUtils.setField(syncService, "broadcaster", broadcaster);
+        ReflectionTestUtils.setField(syncService, "driftToleranceMs", 150L);
+        ReflectionTestUtils.setField(syncService, "seekThresholdMs", 1500L);
+        ReflectionTestUtils.setField(syncService, "maxRateAdjust", 0.05);
+        ReflectionTestUtils.setField(syncService, "rateCorrectionWindowMs", 5000L);
+        ReflectionTestUtils.setField(syncService, "stateKeepaliveMs", 5000L);
+        ReflectionTestUtils.setField(syncService, "clockSamples", 8);
+        syncService.init();
+    }
+
+    @Test
+    void testClockOffsetUsesLowestRttSample() {
+        // Klijent kasni 2000ms za serverom
+        // Merenje 1: RTT 400ms (asimetrično), merenje 2: RTT 20ms
+        syncService.handlePing("s1", ping(1_000L, 3_300L, 3_300L, 1_400L));
+        syncService.handlePing("s1", ping(5_000L, 7_010L, 7_010L, 5_020L));
+
+        assertEquals(2000L, syncService.getClockOffset("s1"));
+    }
+
+    @Test
+    void testPongEchoesClientTime() {
+        PlaybackSyncMessage ping = new PlaybackSyncMessage();
+        ping.setClientTime(123L);
+
+        PlaybackSyncMessage pong = syncService.handlePing("s1", ping);
+
+        assertEquals(PlaybackSyncMessage.TYPE_PONG, pong.getType());
+        assertEquals(123L, pong.getT0());
+        assertNotNull(pong.getT1());
+        assertTrue(pong.getT2() >= pong.getT1());
+    }
+
+    @Test
+    void testHeartbeatFromNonHostIsIgnored() {
+        // Gost u poruci tvrdi da je host - važi korisnik sesije
+        PlaybackSyncMessage heartbeat = heartbeat("host", 1000L, true);
+
+        syncService.handleHostHeartbeat(ROOM_ID, "s2", "gost@example.com", heartbeat);
+        syncService.handleHostCommand(ROOM_ID, "s2", "gost@example.com", heartbeat);
+        syncService.handleHostHeartbeat(ROOM_ID, "s3", null, heartbeat);  // Sesija bez prijave
+
+        verifyNoInteractions(messagingTemplate);
+    }
+
+    @Test
+    void testRepeatedHeartbeatsAreSuppressed() {
+        long start = System.currentTimeMillis();
+        syncService.handleHostHeartbeat(ROOM_ID, "host-session", "host@example.com", heartbeat("host", 10_000L, true));
+        // Isto stanje (pozicija prati vreme, kao kod pravog host-a) → nema novog emitovanja
+        long elapsed = System.currentTimeMillis() - start;
+        syncService.handleHostHeartbeat(ROOM_ID, "host-session", "host@example.com",
+                heartbeat("host", 10_020L + elapsed, true));
+
+        verify(messagingTemplate, times(1))
+                .convertAndSend(eq("/topic/watch-party/5/sync"), any(Object.class));
+
+        // Pauza je promena stanja → emituje se
+        syncService.handleHostHeartbeat(ROOM_ID, "host-session", "host@example.com", heartbeat("host", 10_050L + elapsed, false));
+        verify(messagingTemplate, times(2))
+                .convertAndSend(eq("/topic/watch-party/5/sync"), any(Object.class));
+        assertFalse(registry.get(ROOM_ID).orElseThrow().getPlayback().isPlaying());
+    }
+
+    @Test
+    void testDriftCorrectionKinds() {
+        long now = System.currentTimeMillis();
+
+        // U toleranciji → ništa
+        assertNull(invokeCorrection(100, true, true, now));
+
+        // Klijent 500ms ispred → sporije (rate < 1)
+        PlaybackSyncMessage slowDown = invokeCorrection(500, true, true, now);
+        assertEquals("rate", slowDown.getAction());
+        assertTrue(slowDown.getRate() < 1.0);
+
+        // Klijent 1400ms iza → brže, ali najviše +5%
+        PlaybackSyncMessage speedUp = invokeCorrection(-1400, true, true, now);
+        assertEquals("rate", speedUp.getAction());
+        assertTrue(speedUp.getRate() > 1.0 && speedUp.getRate() <= 1.05);
+
+        // Veliki skok ili pogrešno play/pause stanje → seek
+        assertEquals("seek", invokeCorrection(4000, true, true, now).getAction());
+        assertEquals("seek", invokeCorrection(0, true, false, now).getAction());
+    }
+
+    // ============================================
+    // POMOĆNE METODE
+    // ============================================
+
+    private PlaybackSyncMessage ping(long t0, long t1, long t2, long t3) {
+        PlaybackSyncMessage ping = new PlaybackSyncMessage();
+        ping.setClientTime(t3 + 1000);
+        ping.setT0(t0);
+        ping.setT1(t1);
+        ping.setT2(t2);
+        ping.setT3(t3);
+        return ping;
+    }
+
+    private PlaybackSyncMessage heartbeat(String username, long positionMs, boolean playing) {
+        PlaybackSyncMessage heartbeat = new PlaybackSyncMessage();
+        heartbeat.setUsername(username);
+        heartbeat.setPositionMs(positionMs);
+        heartbeat.setPlaying(playing);
+        return heartbeat;
+    }
+
+    private PlaybackSyncMessage invokeCorrection(long drift, boolean statePlaying, boolean reportedPlaying, long now) {
+        return ReflectionTestUtils.invokeMethod(syncService, "computeCorrection",
+                drift, 60_000L, statePlaying, reportedPlaying, now);
+    }
+}
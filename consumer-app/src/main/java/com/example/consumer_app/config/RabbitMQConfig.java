@@ -1,11 +1,28 @@
 package com.example.consumer_app.config;
 
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Declarable;
+import org.springframework.amqp.core.Declarables;
+import org.springframework.amqp.core.DirectExchange;
 import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import com.example.consumer_app.service.ProtobufMessageConverter;
+import org.springframework.amqp.support.converter.ContentTypeDelegatingMessageConverter;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.amqp.support.postprocessor.DelegatingDecompressingPostProcessor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * RabbitMQConfig - Consumer konfiguracija (3.14 zahtev)
@@ -16,6 +33,13 @@ import org.springframework.context.annotation.Configuration;
  * 
  * Consumer MORA znati:
  * - Queue name (mora biti ISTI kao u producer app-u!)
+ * - Argumente queue-a (dead-letter exchange) - takođe ISTI kao u producer-u
+ *
+ * Retry i dead-letter queue-ove kreira consumer (njegova odgovornost):
+ * - video.upload.retry.N.pP: poruka čeka TTL tog nivoa, pa se vraća u svoju
+ *   particiju video.upload.queue.pP (video.upload.retry.N za video.upload.queue)
+ * - video.upload.dlq: poruke koje nisu mogle biti obrađene (čekaju ručni replay
+ *   u queue iz kog su došle)
  */
 @Configuration
 public class RabbitMQConfig {
@@ -29,6 +53,28 @@ public class RabbitMQConfig {
      */
     public static final String UPLOAD_QUEUE = "video.upload.queue";
 
+    /**
+     * Dead-letter exchange i queue (isti nazivi kao u backend app-u)
+     */
+    public static final String DEAD_LETTER_EXCHANGE = "video.upload.dlx";
+    public static final String DEAD_LETTER_QUEUE = "video.upload.dlq";
+
+    /**
+     * Exchange za retry nivoe; routing key = ime queue-a nivoa (video.upload.retry.1, ...)
+     */
+    public static final String RETRY_EXCHANGE = "video.upload.retry";
+    public static final String RETRY_QUEUE_PREFIX = "video.upload.retry.";
+
+    /**
+     * Partition queue-ovi (backend bira particiju po postId): video.upload.queue.p0, p1, ...
+     */
+    public static final String UPLOAD_PARTITION_QUEUE_PREFIX = "video.upload.queue.p";
+
+    /**
+     * Engagement event-i za analitiku (backend kreira exchange, queue i binding engagement.#)
+     */
+    public static final String ENGAGEMENT_ANALYTICS_QUEUE = "engagement.analytics.queue";
+
     // ============================================
     // QUEUE - Samo referenca (ne kreira!)
     // ============================================
@@ -40,13 +86,194 @@ public class RabbitMQConfig {
      * - durable = true: Queue ostaje nakon restarta
      * - Queue već postoji (kreirao ga producer)
      * - Ovo je samo deklaracija za consumer
+     * - Odbijena poruka (reject bez requeue) ide u DLX umesto da nestane
      * 
      * @return Queue instanca
      */
     @Bean
     public Queue uploadQueue() {
         System.out.println("🔧 [CONSUMER] Referenca na RabbitMQ Queue: " + UPLOAD_QUEUE);
-        return new Queue(UPLOAD_QUEUE, true); // durable = true
+        return QueueBuilder.durable(UPLOAD_QUEUE)
+                .deadLetterExchange(DEAD_LETTER_EXCHANGE)
+                .deadLetterRoutingKey(DEAD_LETTER_QUEUE)
+                .build();
+    }
+
+    /**
+     * Referenca na engagement queue (isti argumenti kao u backend app-u).
+     *
+     * @return Queue instanca
+     */
+    @Bean
+    public Queue engagementAnalyticsQueue() {
+        System.out.println("🔧 [CONSUMER] Referenca na RabbitMQ Queue: " + ENGAGEMENT_ANALYTICS_QUEUE);
+        return QueueBuilder.durable(ENGAGEMENT_ANALYTICS_QUEUE).build();
+    }
+
+    /**
+     * Reference na partition queue-ove (isti argumenti kao u backend app-u).
+     *
+     * x-single-active-consumer: sve consumer-app instance se pretplate na sve
+     * particije, broker isporučuje samo jednom consumer-u po queue-u; kad on
+     * ode, preuzima sledeći. Binding-e kreira backend.
+     *
+     * @param partitions - Broj particija (app.consumer.partitions, isto kao u backend-u)
+     * @return Queue-ovi
+     */
+    @Bean
+    public Declarables uploadPartitionQueues(@Value("${app.consumer.partitions:4}") int partitions) {
+        List<Declarable> declarables = new ArrayList<>();
+        for (int partition = 0; partition < partitions; partition++) {
+            declarables.add(QueueBuilder.durable(partitionQueue(partition))
+                    .singleActiveConsumer()
+                    .deadLetterExchange(DEAD_LETTER_EXCHANGE)
+                    .deadLetterRoutingKey(DEAD_LETTER_QUEUE)
+                    .build());
+        }
+        return new Declarables(declarables);
+    }
+
+    public static String partitionQueue(int partition) {
+        return UPLOAD_PARTITION_QUEUE_PREFIX + partition;
+    }
+
+    /**
+     * Particija iz imena queue-a (video.upload.queue.p2 → 2) ili -1.
+     */
+    public static int partitionOf(String queue) {
+        if (queue == null || !queue.startsWith(UPLOAD_PARTITION_QUEUE_PREFIX)) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(queue.substring(UPLOAD_PARTITION_QUEUE_PREFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Queue u koji se poruka vraća: postojeća particija ili video.upload.queue
+     * (nepoznat queue ili particija koje više nema).
+     *
+     * @param queue - Queue iz kog je poruka stigla (header x-source-queue)
+     * @param partitions - Broj particija (app.consumer.partitions)
+     */
+    public static String uploadQueueOrDefault(String queue, int partitions) {
+        int partition = partitionOf(queue);
+        return partition >= 0 && partition < partitions ? partitionQueue(partition) : UPLOAD_QUEUE;
+    }
+
+    /**
+     * Retry nivo za queue: video.upload.retry.N.pP za particiju, video.upload.retry.N za glavni queue.
+     */
+    public static String retryQueue(int level, String uploadQueue) {
+        int partition = partitionOf(uploadQueue);
+        return partition >= 0 ? RETRY_QUEUE_PREFIX + level + ".p" + partition : RETRY_QUEUE_PREFIX + level;
+    }
+
+    // ============================================
+    // RETRY I DEAD-LETTER - Neuspeli event-i
+    // ============================================
+
+    /**
+     * Retry nivoi i dead-letter queue.
+     *
+     * Svaki nivo je poseban queue sa svojim x-message-ttl (npr. 5s, 30s, 5min).
+     * U queue-u nema consumer-a - kad TTL istekne, broker poruku dead-letter-uje
+     * nazad u queue iz kog je došla. Poseban queue po nivou (umesto expiration po
+     * poruci) znači da kratko kašnjenje nikad ne čeka iza dugog.
+     *
+     * Nivoi postoje po particiji (dead-letter routing key je fiksan po queue-u):
+     * event se vraća svom jedinom aktivnom consumer-u, ne u video.upload.queue
+     * gde bi ga obradila bilo koja instanca mimo redosleda posta.
+     *
+     * NAPOMENA: TTL postojećeg queue-a se ne može promeniti - nova lista kašnjenja
+     * sa istim brojem nivoa traži brisanje starih retry queue-ova.
+     *
+     * @param retryDelaysMs - Kašnjenje po nivou (app.consumer.retry.delays-ms)
+     * @param partitions - Broj particija (app.consumer.partitions)
+     * @return Exchange-i, queue-ovi i binding-zi
+     */
+    @Bean
+    public Declarables uploadRetryTopology(
+            @Value("${app.consumer.retry.delays-ms:5000,30000,300000}") long[] retryDelaysMs,
+            @Value("${app.consumer.partitions:4}") int partitions) {
+
+        List<Declarable> declarables = new ArrayList<>();
+
+        List<String> uploadQueues = new ArrayList<>();
+        uploadQueues.add(UPLOAD_QUEUE);
+        for (int partition = 0; partition < partitions; partition++) {
+            uploadQueues.add(partitionQueue(partition));
+        }
+
+        DirectExchange retryExchange = new DirectExchange(RETRY_EXCHANGE);
+        declarables.add(retryExchange);
+        for (String uploadQueue : uploadQueues) {
+            for (int level = 1; level <= retryDelaysMs.length; level++) {
+                Queue retryQueue = QueueBuilder.durable(retryQueue(level, uploadQueue))
+                        .ttl((int) retryDelaysMs[level - 1])
+                        .deadLetterExchange("")                 // Default exchange...
+                        .deadLetterRoutingKey(uploadQueue)      // ...direktno nazad u queue iz kog je došla
+                        .build();
+                declarables.add(retryQueue);
+                declarables.add(BindingBuilder.bind(retryQueue).to(retryExchange).with(retryQueue.getName()));
+            }
+        }
+
+        DirectExchange deadLetterExchange = new DirectExchange(DEAD_LETTER_EXCHANGE);
+        Queue deadLetterQueue = QueueBuilder.durable(DEAD_LETTER_QUEUE).build();
+        Binding deadLetterBinding = BindingBuilder.bind(deadLetterQueue).to(deadLetterExchange).with(DEAD_LETTER_QUEUE);
+        declarables.add(deadLetterExchange);
+        declarables.add(deadLetterQueue);
+        declarables.add(deadLetterBinding);
+
+        System.out.println("🔧 [CONSUMER] Retry nivoi: " + retryDelaysMs.length + " x " + uploadQueues.size()
+                + " queue-a, DLQ: " + DEAD_LETTER_QUEUE);
+
+        return new Declarables(declarables);
+    }
+
+    // ============================================
+    // LISTENER CONTAINER - Paralelni consumer-i i grupe poruka
+    // ============================================
+
+    /**
+     * Container factory za @RabbitListener (zamenjuje Boot-ov podrazumevani).
+     *
+     * Iz spring.rabbitmq.listener.simple.* (Boot configurer):
+     * - concurrency / max-concurrency: broj consumer-a (svaki ima svoj kanal i nit)
+     * - prefetch: poruke koje broker šalje unapred po consumer-u (mora biti >= batch-size)
+     * - batch-size: listener dobija List do batch-size poruka, jedan ack po grupi
+     *   (1 = poruka po poruka)
+     *
+     * Grupe su uvek uključene - listener metoda prima List<Message>.
+     * batch-receive-timeout-ms: koliko se čeka na dopunu grupe pre isporuke nepune grupe.
+     *
+     * Kompresovane poruke (content-encoding gzip/deflate) se raspakuju pre listener-a;
+     * poruke bez content-encoding prolaze nepromenjene.
+     *
+     * @param configurer - Boot configurer (primenjuje gornja podešavanja)
+     * @param connectionFactory - Auto-injected
+     * @return Factory za sve listener-e u aplikaciji
+     */
+    @Bean
+    public SimpleRabbitListenerContainerFactory rabbitListenerContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            ConnectionFactory connectionFactory,
+            @Value("${app.consumer.batch-receive-timeout-ms:200}") long batchReceiveTimeoutMs) {
+
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setConsumerBatchEnabled(true);  // Uključuje i batch listener
+        factory.setReceiveTimeout(batchReceiveTimeoutMs);
+
+        // content-encoding gzip / deflate (MessageCompressor u backend-u) → raspakovano telo
+        factory.setAfterReceivePostProcessors(new DelegatingDecompressingPostProcessor());
+
+        System.out.println("🔧 [CONSUMER] Listener container: batch receive timeout " + batchReceiveTimeoutMs + "ms");
+
+        return factory;
     }
 
     // ============================================
@@ -81,6 +308,29 @@ public class RabbitMQConfig {
         return new Jackson2JsonMessageConverter();
     }
 
+    /**
+     * Converter za prijem upload event-a - bira format po content-type header-u.
+     *
+     * - application/x-protobuf → ProtobufMessageConverter (zajednički upload_event.proto)
+     * - sve ostalo (application/json) → JSON
+     *
+     * Consumer čita oba formata istovremeno, pa producer može preći na Protobuf
+     * bez zaustavljanja consumer-a (poruke u queue-u mogu biti mešane).
+     *
+     * @return Converter koji koristi MessageConsumerService
+     */
+    @Bean
+    @Primary
+    public MessageConverter uploadEventMessageConverter() {
+        ContentTypeDelegatingMessageConverter converter =
+                new ContentTypeDelegatingMessageConverter(jackson2JsonMessageConverter());
+        converter.addDelegate(ProtobufMessageConverter.CONTENT_TYPE, new ProtobufMessageConverter());
+
+        System.out.println("🔧 [CONSUMER] Message converter: JSON + Protobuf (" + ProtobufMessageConverter.CONTENT_TYPE + ")");
+
+        return converter;
+    }
+
     // ============================================
     // LIFECYCLE
     // ============================================
@@ -89,6 +339,7 @@ public class RabbitMQConfig {
         System.out.println("=".repeat(80));
         System.out.println("🐰 [CONSUMER] RabbitMQ Configuration - Inicijalizacija");
         System.out.println("   Queue: " + UPLOAD_QUEUE);
+        System.out.println("   DLQ:   " + DEAD_LETTER_QUEUE);
         System.out.println("=".repeat(80));
     }
 }
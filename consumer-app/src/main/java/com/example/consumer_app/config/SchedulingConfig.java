@@ -0,0 +1,13 @@
+package com.example.consumer_app.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling  // Omogućava @Scheduled poslove (checkpoint analitike)
+public class SchedulingConfig {
+
+    public SchedulingConfig() {
+        System.out.println("🔧 [CONSUMER] SchedulingConfig se inicijalizuje...");
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.consumer_app.config;
+
+import com.example.consumer_app.service.MessageConsumerService;
+import org.springframework.amqp.core.BatchMessageListener;
+import org.springframework.amqp.rabbit.annotation.RabbitListenerConfigurer;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerEndpoint;
+import org.springframework.amqp.rabbit.listener.MessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistrar;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * UploadPartitionListenerConfig - Po jedan listener container za svaku particiju
+ *
+ * Svaki partition queue dobija svoj container sa jednim consumer-om (concurrency 1):
+ * grupe iz jednog queue-a se obrađuju redom na jednoj niti, pa event-i jednog posta
+ * (upload, pa brisanje) stižu u MessageConsumerService onim redom kojim ih je backend
+ * poslao. Particije rade paralelno - protok raste sa brojem particija.
+ *
+ * Više instanci: broker (x-single-active-consumer) bira aktivnog consumer-a po
+ * queue-u - prvog koji se pretplatio. Bez podešavanja to je prva pokrenuta instanca
+ * za sve particije. Sa {@code app.consumer.preferred-partitions} (npr. "0,1" na
+ * jednoj, "2,3" na drugoj) instanca se odmah pretplati samo na svoje particije, a na
+ * ostale tek posle {@code standby-delay-ms} - kao rezerva kada vlasnik ode.
+ *
+ * Neuspeo event se iz retry nivoa (i DLQ replay-a) vraća u svoju particiju
+ * (video.upload.retry.N.pP → video.upload.queue.pP), pa ga obrađuje isti aktivni
+ * consumer. Kasniji event-i tog posta za to vreme idu za njim u isti nivo
+ * (UploadFailureHandler.holdIfBlocked), pa se obrađuju posle njega.
+ *
+ * video.upload.queue (stari producer-i) i dalje sluša @RabbitListener u
+ * MessageConsumerService, bez garancije redosleda.
+ */
+@Configuration
+public class UploadPartitionListenerConfig implements RabbitListenerConfigurer {
+
+    public static final String ENDPOINT_ID_PREFIX = "upload-partition-";
+
+    @Autowired
+    private MessageConsumerService consumerService;
+
+    @Autowired
+    private RabbitListenerEndpointRegistry endpointRegistry;
+
+    @Value("${app.consumer.partitions:4}")
+    private int partitions;
+
+    // Prazno = sve particije odmah
+    @Value("${app.consumer.preferred-partitions:}")
+    private Set<Integer> preferredPartitions;
+
+    @Value("${app.consumer.partition-standby-delay-ms:10000}")
+    private long standbyDelayMs;
+
+    private final List<String> standbyEndpoints = new ArrayList<>();
+
+    // ============================================
+    // REGISTRACIJA LISTENER-A
+    // ============================================
+
+    @Override
+    public void configureRabbitListeners(RabbitListenerEndpointRegistrar registrar) {
+        BatchMessageListener listener = consumerService::handleVideoUploadBatch;
+
+        for (int partition = 0; partition < partitions; partition++) {
+            SimpleRabbitListenerEndpoint endpoint = new SimpleRabbitListenerEndpoint();
+            endpoint.setId(ENDPOINT_ID_PREFIX + partition);
+            endpoint.setQueueNames(RabbitMQConfig.partitionQueue(partition));
+            endpoint.setConcurrency("1");  // Jedna nit po particiji = redosled
+            endpoint.setMessageListener(listener);
+
+            if (!isPreferred(partition)) {
+                endpoint.setAutoStartup(false);  // Rezerva - pokreće se posle standby-delay-ms
+                standbyEndpoints.add(endpoint.getId());
+            }
+
+            registrar.registerEndpoint(endpoint);  // rabbitListenerContainerFactory (grupe, raspakivanje)
+        }
+
+        System.out.println("🔀 [CONSUMER] Particije: " + partitions
+                + (standbyEndpoints.isEmpty() ? "" : ", rezerva za " + standbyEndpoints.size()
+                        + " (start posle " + standbyDelayMs + "ms)"));
+    }
+
+    /**
+     * Rezervni consumer-i se pretplaćuju tek kad su instance sa preferencom već aktivne.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startStandbyPartitions() {
+        if (standbyEndpoints.isEmpty()) {
+            return;
+        }
+        CompletableFuture.delayedExecutor(standbyDelayMs, TimeUnit.MILLISECONDS).execute(() ->
+                standbyEndpoints.forEach(id -> {
+                    MessageListenerContainer container = endpointRegistry.getListenerContainer(id);
+                    if (container != null && !container.isRunning()) {
+                        container.start();
+                    }
+                }));
+    }
+
+    private boolean isPreferred(int partition) {
+        return preferredPartitions == null || preferredPartitions.isEmpty() || preferredPartitions.contains(partition);
+    }
+
+    public List<String> getStandbyEndpoints() {
+        return standbyEndpoints;
+    }
+}
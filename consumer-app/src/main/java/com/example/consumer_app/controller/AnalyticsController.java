@@ -0,0 +1,75 @@
+package com.example.consumer_app.controller;
+
+import com.example.consumer_app.service.EngagementEventConsumer;
+import com.example.consumer_app.service.WindowedAnalyticsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/analytics")
+public class AnalyticsController {
+
+    private static final int MAX_TOP = 100;
+
+    @Autowired
+    private WindowedAnalyticsService analyticsService;
+
+    @Autowired
+    private EngagementEventConsumer engagementConsumer;
+
+    // GET /api/analytics?window=1h&top=10 - Sliding prozor do sada (15m, 24h, 7d...)
+    @GetMapping
+    public ResponseEntity<?> slidingWindow(@RequestParam(defaultValue = "1h") String window,
+                                           @RequestParam(defaultValue = "10") int top) {
+        try {
+            return ResponseEntity.ok(analyticsService.slidingWindow(window, clampTop(top)));
+        } catch (IllegalArgumentException e) {
+            return badRequest(e);
+        }
+    }
+
+    // GET /api/analytics/windows?granularity=minute&limit=60 - Tumbling bucket-i, najnoviji prvi
+    @GetMapping("/windows")
+    public ResponseEntity<?> tumblingWindows(@RequestParam(defaultValue = "minute") String granularity,
+                                             @RequestParam(defaultValue = "60") int limit,
+                                             @RequestParam(defaultValue = "3") int top) {
+        try {
+            WindowedAnalyticsService.Granularity parsed =
+                    WindowedAnalyticsService.Granularity.valueOf(granularity.toUpperCase());
+            if (limit <= 0) {
+                throw new IllegalArgumentException("limit mora biti veći od 0");
+            }
+            return ResponseEntity.ok(Map.of(
+                    "granularity", parsed.name(),
+                    "windows", analyticsService.tumblingWindows(parsed, limit, clampTop(top))
+            ));
+        } catch (IllegalArgumentException e) {
+            return badRequest(e);
+        }
+    }
+
+    // GET /api/analytics/status - Obrađeni i zakasneli event-i, bucket-i u memoriji, checkpoint
+    @GetMapping("/status")
+    public ResponseEntity<?> status() {
+        Map<String, Object> status = new LinkedHashMap<>(analyticsService.getStatus());
+        status.put("engagementMessages", engagementConsumer.getMessagesReceived());
+        status.put("engagementEvents", engagementConsumer.getEventsReceived());
+        status.put("malformedMessages", engagementConsumer.getMalformedMessages());
+        return ResponseEntity.ok(status);
+    }
+
+    private int clampTop(int top) {
+        return Math.max(0, Math.min(top, MAX_TOP));
+    }
+
+    private ResponseEntity<?> badRequest(IllegalArgumentException e) {
+        return ResponseEntity
+                .status(HttpStatus.BAD_REQUEST)
+                .body(Map.of("error", e.getMessage()));
+    }
+}
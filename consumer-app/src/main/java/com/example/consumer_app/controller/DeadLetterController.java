@@ -0,0 +1,71 @@
+package com.example.consumer_app.controller;
+
+import com.example.consumer_app.config.RabbitMQConfig;
+import com.example.consumer_app.service.DeadLetterReplayService;
+import com.example.consumer_app.service.MessageConsumerService;
+import com.example.consumer_app.service.UploadFailureHandler;
+import org.springframework.amqp.AmqpException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/dlq")
+public class DeadLetterController {
+
+    @Autowired
+    private DeadLetterReplayService replayService;
+
+    @Autowired
+    private UploadFailureHandler failureHandler;
+
+    @Autowired
+    private MessageConsumerService consumerService;
+
+    // GET /api/dlq - Broj poruka u DLQ i statistika neuspeha od pokretanja
+    @GetMapping
+    public ResponseEntity<?> status() {
+        try {
+            return ResponseEntity.ok(Map.of(
+                    "queue", RabbitMQConfig.DEAD_LETTER_QUEUE,
+                    "messageCount", replayService.countDeadLetters(),
+                    "failedMessages", consumerService.getFailedMessages(),
+                    "retried", failureHandler.getRetried(),
+                    "deadLettered", failureHandler.getDeadLettered(),
+                    "poison", failureHandler.getPoison(),
+                    "retryLevels", failureHandler.getRetryLevels()
+            ));
+        } catch (AmqpException e) {
+            return brokerUnavailable(e);
+        }
+    }
+
+    // POST /api/dlq/replay?limit=100 - Vraća najstarije poruke iz DLQ u queue iz kog su došle
+    @PostMapping("/replay")
+    public ResponseEntity<?> replay(@RequestParam(defaultValue = "100") int limit) {
+        if (limit <= 0) {
+            return ResponseEntity
+                    .status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", "limit mora biti veći od 0"));
+        }
+
+        try {
+            int replayed = replayService.replay(limit);
+            return ResponseEntity.ok(Map.of(
+                    "replayed", replayed,
+                    "remaining", replayService.countDeadLetters()
+            ));
+        } catch (AmqpException e) {
+            return brokerUnavailable(e);
+        }
+    }
+
+    private ResponseEntity<?> brokerUnavailable(AmqpException e) {
+        return ResponseEntity
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(Map.of("error", "RabbitMQ nedostupan: " + e.getMessage()));
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.consumer_app.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * EngagementEvent - Pregled, lajk, komentar ili brisanje (backend dto.EngagementEvent)
+ *
+ * NAPOMENA:
+ * Polja MORAJU odgovarati backend klasi; poruka je JSON niz ovih event-a
+ * (jedna poruka po tipu i flush-u backend-a). VIEW nosi count - sabrane preglede.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class EngagementEvent {
+
+    public static final String TYPE_VIEW = "VIEW";
+    public static final String TYPE_LIKE = "LIKE";
+    public static final String TYPE_UNLIKE = "UNLIKE";
+    public static final String TYPE_COMMENT = "COMMENT";
+    public static final String TYPE_COMMENT_DELETE = "COMMENT_DELETE";
+    public static final String TYPE_POST_DELETE = "POST_DELETE";
+
+    // ============================================
+    // POLJA
+    // ============================================
+
+    private String type;
+    private Long postId;
+    private String username;
+    private Long commentId;
+    private Long count;
+    private long timestampMs;
+
+    // ============================================
+    // KONSTRUKTORI
+    // ============================================
+
+    public EngagementEvent() {
+    }
+
+    public EngagementEvent(String type, Long postId, long timestampMs) {
+        this.type = type;
+        this.postId = postId;
+        this.timestampMs = timestampMs;
+    }
+
+    // ============================================
+    // GETTERS & SETTERS
+    // ============================================
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public Long getPostId() {
+        return postId;
+    }
+
+    public void setPostId(Long postId) {
+        this.postId = postId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public Long getCommentId() {
+        return commentId;
+    }
+
+    public void setCommentId(Long commentId) {
+        this.commentId = commentId;
+    }
+
+    public Long getCount() {
+        return count;
+    }
+
+    public void setCount(Long count) {
+        this.count = count;
+    }
+
+    public long getTimestampMs() {
+        return timestampMs;
+    }
+
+    public void setTimestampMs(long timestampMs) {
+        this.timestampMs = timestampMs;
+    }
+
+    /**
+     * Broj događaja koje event predstavlja (VIEW sa count, ostali 1).
+     */
+    @JsonIgnore
+    public long getWeight() {
+        return count != null ? count : 1;
+    }
+
+    @Override
+    public String toString() {
+        return "EngagementEvent{type='" + type + "', postId=" + postId
+                + (count != null ? ", count=" + count : "") + "}";
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.consumer_app.service;
+
+import com.example.consumer_app.config.RabbitMQConfig;
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.GetResponse;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DeadLetterReplayService - Vraća poruke iz video.upload.dlq u queue iz kog su došle
+ *
+ * Koristi se kad je uzrok greške otklonjen (npr. ispravljen consumer).
+ * Odredište je header x-source-queue (particija posta); poruke bez njega
+ * (ili particije koje više nema) idu u video.upload.queue.
+ * Poruka se uklanja iz DLQ tek kad broker potvrdi da je stigla u glavni queue;
+ * ako nešto pukne između, može završiti na oba mesta - duplikat preskače
+ * deduplikacija po messageId.
+ */
+@Service
+public class DeadLetterReplayService {
+
+    // ============================================
+    // KONSTANTE
+    // ============================================
+
+    public static final String REPLAY_COUNT_HEADER = "x-replay-count";
+
+    // Header-i prethodnog neuspeha - replay kreće od nule
+    private static final List<String> FAILURE_HEADERS = List.of(
+            UploadFailureHandler.RETRY_COUNT_HEADER,
+            UploadFailureHandler.FAILURE_REASON_HEADER,
+            UploadFailureHandler.EXCEPTION_HEADER,
+            UploadFailureHandler.STACKTRACE_HEADER,
+            UploadFailureHandler.FAILED_AT_HEADER,
+            "x-death");
+
+    private static final int PERSISTENT = 2;
+
+    @Autowired
+    private RabbitTemplate rabbitTemplate;
+
+    @Value("${app.consumer.dlq.max-replay-batch:1000}")
+    private int maxReplayBatch;
+
+    @Value("${app.consumer.retry.confirm-timeout-ms:5000}")
+    private long confirmTimeoutMs;
+
+    @Value("${app.consumer.partitions:4}")
+    private int partitions;
+
+    // ============================================
+    // PUBLIC METODE
+    // ============================================
+
+    /**
+     * Broj poruka koje čekaju u DLQ.
+     */
+    public long countDeadLetters() {
+        Long count = rabbitTemplate.execute(channel -> channel.messageCount(RabbitMQConfig.DEAD_LETTER_QUEUE));
+        return count != null ? count : 0;
+    }
+
+    /**
+     * Prebacuje do {@code limit} najstarijih poruka iz DLQ nazad u njihove queue-ove.
+     *
+     * @param limit - Najviše poruka (ograničeno na max-replay-batch)
+     * @return Broj vraćenih poruka
+     */
+    public int replay(int limit) {
+        int max = Math.min(Math.max(limit, 0), maxReplayBatch);
+
+        Integer replayed = rabbitTemplate.execute(channel -> {
+            channel.confirmSelect();
+
+            int count = 0;
+            long lastDeliveryTag = -1;
+            while (count < max) {
+                GetResponse response = channel.basicGet(RabbitMQConfig.DEAD_LETTER_QUEUE, false);
+                if (response == null) {
+                    break;  // DLQ prazan
+                }
+
+                channel.basicPublish("", replayQueue(response.getProps(), partitions),
+                        replayProperties(response.getProps()), response.getBody());
+                lastDeliveryTag = response.getEnvelope().getDeliveryTag();
+                count++;
+            }
+
+            if (count > 0) {
+                // Sve poslato je u svojim queue-ovima → tek sada ukloni iz DLQ
+                channel.waitForConfirmsOrDie(confirmTimeoutMs);
+                channel.basicAck(lastDeliveryTag, true);
+            }
+            return count;
+        });
+
+        int result = replayed != null ? replayed : 0;
+        System.out.println("♻️ [CONSUMER] Iz " + RabbitMQConfig.DEAD_LETTER_QUEUE + " vraćeno " + result
+                + " poruka u izvorne queue-ove");
+        return result;
+    }
+
+    // ============================================
+    // POMOĆNE METODE
+    // ============================================
+
+    static String replayQueue(AMQP.BasicProperties original, int partitions) {
+        Object source = original.getHeaders() != null
+                ? original.getHeaders().get(UploadFailureHandler.SOURCE_QUEUE_HEADER)
+                : null;
+        return RabbitMQConfig.uploadQueueOrDefault(source != null ? source.toString() : null, partitions);
+    }
+
+    static AMQP.BasicProperties replayProperties(AMQP.BasicProperties original) {
+        Map<String, Object> headers = original.getHeaders() != null
+                ? new HashMap<>(original.getHeaders())
+                : new HashMap<>();
+        FAILURE_HEADERS.forEach(headers::remove);
+
+        Object previous = headers.get(REPLAY_COUNT_HEADER);
+        headers.put(REPLAY_COUNT_HEADER, previous instanceof Number number ? number.intValue() + 1 : 1);
+
+        return original.builder()
+                .headers(headers)
+                .deliveryMode(PERSISTENT)
+                .build();
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.consumer_app.service;
+
+import com.example.consumer_app.config.RabbitMQConfig;
+import com.example.consumer_app.model.EngagementEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * EngagementEventConsumer - Pregledi, lajkovi i komentari iz engagement.analytics.queue
+ *
+ * Backend šalje grupe (JSON niz EngagementEvent-a, po potrebi gzip - raspakuje
+ * container). Event-i idu u WindowedAnalyticsService.
+ *
+ * Analitika je "najviše jednom": neispravna poruka se broji i preskače
+ * (nema retry nivoa ni DLQ kao za upload event-e).
+ */
+@Service
+public class EngagementEventConsumer {
+
+    @Autowired
+    private WindowedAnalyticsService analyticsService;
+
+    // Tip iz parametra, ne iz __TypeId__ header-a (klase backend-a ovde ne postoje)
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final LongAdder messagesReceived = new LongAdder();
+    private final LongAdder eventsReceived = new LongAdder();
+    private final LongAdder malformedMessages = new LongAdder();
+
+    // ============================================
+    // MESSAGE LISTENER
+    // ============================================
+
+    @RabbitListener(queues = RabbitMQConfig.ENGAGEMENT_ANALYTICS_QUEUE)
+    public void handleEngagementBatch(List<Message> messages) {
+        for (Message message : messages) {
+            messagesReceived.increment();
+            try {
+                EngagementEvent[] events = objectMapper.readValue(message.getBody(), EngagementEvent[].class);
+                for (EngagementEvent event : events) {
+                    analyticsService.recordEngagement(event);
+                }
+                eventsReceived.add(events.length);
+            } catch (IOException e) {
+                malformedMessages.increment();
+                System.err.println("⚠️ [CONSUMER] Neispravna engagement poruka preskočena: " + e.getMessage());
+            }
+        }
+    }
+
+    // ============================================
+    // GETTERS - Statistika
+    // ============================================
+
+    public long getMessagesReceived() {
+        return messagesReceived.sum();
+    }
+
+    public long getEventsReceived() {
+        return eventsReceived.sum();
+    }
+
+    public long getMalformedMessages() {
+        return malformedMessages.sum();
+    }
+}
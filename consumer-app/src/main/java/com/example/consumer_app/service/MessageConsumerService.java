@@ -2,50 +2,166 @@ package com.example.consumer_app.service;
 
 import com.example.consumer_app.config.RabbitMQConfig;
 import com.example.consumer_app.model.UploadEvent;
+import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
 /**
  * MessageConsumerService - Prima poruke iz RabbitMQ (3.14 zahtev)
- * 
+ *
  * FUNKCIJA:
- * - Osluškuje video.upload.queue
- * - Prima JSON poruke
- * - Deserijalizuje u UploadEvent
- * - Procesira event (logovanje, email, analytics...)
+ * - Osluškuje video.upload.queue (više consumer-a paralelno, vidi RabbitMQConfig)
+ *   i partition queue-ove video.upload.queue.pN (po jedan consumer, redosled po postu -
+ *   UploadPartitionListenerConfig)
+ * - Prima grupu od najviše batch-size poruka po pozivu
+ * - Deserijalizuje u UploadEvent (JSON ili Protobuf, po content-type)
+ * - Preskače duplikate (isti event ID → već obrađen)
+ * - Procesira event (logovanje, analitika po prozorima, email...)
+ * - Neuspeli event → retry sa kašnjenjem, na kraju video.upload.dlq
  */
 @Service
 public class MessageConsumerService {
 
+    @Autowired
+    private MessageConverter messageConverter;
+
+    @Autowired
+    private UploadFailureHandler failureHandler;
+
+    @Autowired
+    private WindowedAnalyticsService analyticsService;
+
+    // Detaljan ispis svakog event-a (isključiti pri velikom protoku)
+    @Value("${app.consumer.log-events:true}")
+    private boolean logEvents;
+
     // ============================================
-    // STATISTIKA
+    // STATISTIKA - više listener niti istovremeno
     // ============================================
-    
-    private int totalMessagesReceived = 0;
-    private long totalFileSize = 0;
+
+    private final LongAdder totalMessagesReceived = new LongAdder();
+    private final LongAdder totalFileSize = new LongAdder();
+    private final LongAdder duplicatesSkipped = new LongAdder();
+    private final LongAdder batchesReceived = new LongAdder();
+    private final LongAdder failedMessages = new LongAdder();
+
+    // ============================================
+    // DEDUPLIKACIJA
+    // ============================================
+
+    // Poslednjih N event ID-jeva; producer šalje "at least once" (outbox),
+    // pa ista poruka može stići dvaput
+    private final Set<String> seenEventIds;
+
+    public MessageConsumerService(@Value("${app.consumer.dedup-capacity:100000}") int dedupCapacity) {
+        this.seenEventIds = Collections.synchronizedSet(Collections.newSetFromMap(
+                new LinkedHashMap<String, Boolean>(16, 0.75f, false) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                        return size() > dedupCapacity;
+                    }
+                }));
+
+        System.out.println("=".repeat(80));
+        System.out.println("📨 [CONSUMER] MessageConsumerService - Inicijalizacija");
+        System.out.println("   Osluškuje queue: " + RabbitMQConfig.UPLOAD_QUEUE);
+        System.out.println("   Deduplikacija: poslednjih " + dedupCapacity + " event-a");
+        System.out.println("   Čeka poruke...");
+        System.out.println("=".repeat(80));
+    }
 
     // ============================================
     // MESSAGE LISTENER
     // ============================================
 
     /**
-     * Osluškuje queue i prima poruke.
-     * 
-     * @RabbitListener automatski:
-     * 1. Konektuje se na RabbitMQ
-     * 2. Osluškuje queue
-     * 3. Deserijalizuje JSON → UploadEvent
-     * 4. Poziva ovu metodu
-     * 
-     * @param event - Automatski deserijalizovan UploadEvent
+     * Osluškuje queue i prima grupu poruka.
+     *
+     * Container (RabbitMQConfig) skuplja do batch-size poruka ili čeka
+     * batch-receive-timeout; cela grupa se potvrđuje jednim ack-om.
+     * Greška jednog event-a ne obara ostale iz grupe - neuspeli event ide
+     * u retry nivo ili DLQ (UploadFailureHandler), a ne blokira queue.
+     * Kasniji event-i istog posta (particija) idu za njim u isti queue.
+     *
+     * @param messages - Poruke iz jedne isporuke
      */
     @RabbitListener(queues = RabbitMQConfig.UPLOAD_QUEUE)
+    public void handleVideoUploadBatch(List<Message> messages) {
+        batchesReceived.increment();
+
+        for (Message message : messages) {
+            String eventId = eventId(message);
+            UploadEvent event;
+            try {
+                event = convert(message);
+                validate(event);
+            } catch (Exception e) {
+                failedMessages.increment();
+                failureHandler.handleFailure(message, e);
+                continue;
+            }
+
+            // Post ima event u retry nivou / DLQ → ovaj ide za njim (redosled po postu)
+            if (failureHandler.holdIfBlocked(message, event.getPostId())) {
+                continue;
+            }
+
+            String dedupKey = eventId != null ? eventId : "post-" + event.getPostId();
+            try {
+                if (!markSeen(dedupKey)) {
+                    duplicatesSkipped.increment();
+                    System.out.println("♻️ [CONSUMER] Duplikat preskočen: "
+                            + (eventId != null ? eventId : "post " + event.getPostId()));
+                    failureHandler.onProcessed(message, event.getPostId());
+                    continue;
+                }
+
+                handleVideoUploadEvent(event);
+                failureHandler.onProcessed(message, event.getPostId());
+
+            } catch (Exception e) {
+                failedMessages.increment();
+
+                // Ponovni pokušaj (retry nivo ili replay iz DLQ) ne sme biti preskočen kao duplikat
+                seenEventIds.remove(dedupKey);
+
+                // Retry nivo ili DLQ; ako broker ne potvrdi, izuzetak vraća celu grupu u queue
+                failureHandler.handleFailure(message, e, event.getPostId());
+            }
+        }
+    }
+
+    /**
+     * Procesira jedan event (već deserijalizovan i nije duplikat).
+     *
+     * @param event - UploadEvent iz poruke
+     */
     public void handleVideoUploadEvent(UploadEvent event) {
-        try {
+        // Ažuriraj statistiku
+        totalMessagesReceived.increment();
+        if (event.getFileSize() != null) {
+            totalFileSize.add(event.getFileSize());
+        }
+
+        // Uploadi i bajtovi po minutu / satu / danu, top autori
+        analyticsService.recordUpload(event);
+
+        if (logEvents) {
             System.out.println("\n" + "=".repeat(80));
             System.out.println("📨 [CONSUMER] NOVA PORUKA PRIMLJENA!");
             System.out.println("=".repeat(80));
-            
+
             // Logovanje detalja
             System.out.println("📹 Post ID:      " + event.getPostId());
             System.out.println("📄 Title:        " + event.getTitle());
@@ -57,50 +173,37 @@ public class MessageConsumerService {
             System.out.println("🖼️  Thumbnail:    " + event.getThumbnailUrl());
             System.out.println("🕐 Timestamp:    " + event.getTimestamp());
             System.out.println("📌 Event Type:   " + event.getEventType());
-            
-            // Ažuriraj statistiku
-            totalMessagesReceived++;
-            if (event.getFileSize() != null) {
-                totalFileSize += event.getFileSize();
-            }
-            
+
             System.out.println();
             System.out.println("📊 STATISTIKA:");
-            System.out.println("   Ukupno primljenih poruka: " + totalMessagesReceived);
-            System.out.println("   Ukupna veličina video-a:  " + formatBytes(totalFileSize));
-            
+            System.out.println("   Ukupno primljenih poruka: " + getTotalMessagesReceived());
+            System.out.println("   Ukupna veličina video-a:  " + formatBytes(getTotalFileSize()));
+
             System.out.println("=".repeat(80));
-            
-            // ============================================
-            // OVDE MOŽE IĆI BIZNIS LOGIKA:
-            // ============================================
-            
-            // 1. Slanje email notifikacije
-            // emailService.sendUploadNotification(event.getAuthor(), event.getTitle());
-            
-            // 2. Video procesiranje
-            // videoProcessingService.generateThumbnails(event.getPostId());
-            // videoProcessingService.transcodeVideo(event.getVideoUrl());
-            
-            // 3. Analytics tracking
-            // analyticsService.trackVideoUpload(event);
-            
-            // 4. Push notifikacije
-            // pushService.notifySubscribers(event.getAuthor(), event.getTitle());
-            
-            // 5. Cache invalidation
-            // cacheService.invalidateUserVideos(event.getAuthor());
-            
-            // 6. Content moderation
-            // moderationService.scanVideo(event.getPostId());
-            
+        }
+
+        // ============================================
+        // OVDE MOŽE IĆI BIZNIS LOGIKA:
+        // ============================================
+
+        // 1. Slanje email notifikacije
+        // emailService.sendUploadNotification(event.getAuthor(), event.getTitle());
+
+        // 2. Video procesiranje
+        // videoProcessingService.generateThumbnails(event.getPostId());
+        // videoProcessingService.transcodeVideo(event.getVideoUrl());
+
+        // 3. Push notifikacije
+        // pushService.notifySubscribers(event.getAuthor(), event.getTitle());
+
+        // 4. Cache invalidation
+        // cacheService.invalidateUserVideos(event.getAuthor());
+
+        // 5. Content moderation
+        // moderationService.scanVideo(event.getPostId());
+
+        if (logEvents) {
             System.out.println("✅ [CONSUMER] Poruka uspešno procesirana!\n");
-            
-        } catch (Exception e) {
-            System.err.println("❌ [CONSUMER] Greška pri procesiranju poruke: " + e.getMessage());
-            e.printStackTrace();
-            
-            // Ovde možeš implementirati retry logiku ili dead letter queue
         }
     }
 
@@ -108,6 +211,45 @@ public class MessageConsumerService {
     // POMOĆNE METODE
     // ============================================
 
+    /**
+     * Event ID iz AMQP messageId (backend outbox: "upload-<id>"), ili null.
+     */
+    private String eventId(Message message) {
+        return message.getMessageProperties().getMessageId();
+    }
+
+    /**
+     * JSON ili Protobuf, po content-type header-u (RabbitMQConfig.uploadEventMessageConverter).
+     */
+    private UploadEvent convert(Message message) {
+        // Tip iz parametra, ne iz __TypeId__ header-a (klase producer-a ovde ne postoje)
+        message.getMessageProperties().setInferredArgumentType(UploadEvent.class);
+        Object converted = messageConverter.fromMessage(message);
+
+        // JSON converter za nepoznat content-type vraća sirove bajtove
+        if (!(converted instanceof UploadEvent event)) {
+            throw new MessageConversionException("Nepodržan content-type: "
+                    + message.getMessageProperties().getContentType());
+        }
+        return event;
+    }
+
+    /**
+     * Event bez postId se ne može obraditi ni posle ponavljanja → poison.
+     */
+    private void validate(UploadEvent event) {
+        if (event == null || event.getPostId() == null) {
+            throw new MessageConversionException("Upload event bez postId");
+        }
+    }
+
+    /**
+     * true ako event još nije viđen (i sada je zapamćen).
+     */
+    private boolean markSeen(String key) {
+        return seenEventIds.add(key);
+    }
+
     /**
      * Formatuje byte-ove u čitljiv format.
      */
@@ -127,32 +269,35 @@ public class MessageConsumerService {
     // GETTERS - Statistika
     // ============================================
 
-    public int getTotalMessagesReceived() {
-        return totalMessagesReceived;
+    public long getTotalMessagesReceived() {
+        return totalMessagesReceived.sum();
     }
 
     public long getTotalFileSize() {
-        return totalFileSize;
+        return totalFileSize.sum();
+    }
+
+    public long getDuplicatesSkipped() {
+        return duplicatesSkipped.sum();
+    }
+
+    public long getBatchesReceived() {
+        return batchesReceived.sum();
+    }
+
+    public long getFailedMessages() {
+        return failedMessages.sum();
     }
 
     /**
      * Resetuje statistiku.
      */
     public void resetStatistics() {
-        totalMessagesReceived = 0;
-        totalFileSize = 0;
+        totalMessagesReceived.reset();
+        totalFileSize.reset();
+        duplicatesSkipped.reset();
+        batchesReceived.reset();
+        failedMessages.reset();
         System.out.println("📊 [CONSUMER] Statistika resetovana!");
     }
-
-    // ============================================
-    // LIFECYCLE
-    // ============================================
-
-    public MessageConsumerService() {
-        System.out.println("=".repeat(80));
-        System.out.println("📨 [CONSUMER] MessageConsumerService - Inicijalizacija");
-        System.out.println("   Osluškuje queue: " + RabbitMQConfig.UPLOAD_QUEUE);
-        System.out.println("   Čeka poruke...");
-        System.out.println("=".repeat(80));
-    }
 }
@@ -0,0 +1,108 @@
+package com.example.consumer_app.service;
+
+import com.example.consumer_app.model.UploadEvent;
+import com.example.proto.UploadEventProto;
+import com.google.protobuf.InvalidProtocolBufferException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * ProtobufMessageConverter - Protobuf telo poruke → UploadEvent (3.14 zahtev)
+ *
+ * Klase UploadEventProto generiše Maven build iz zajedničkog proto/upload_event.proto
+ * (isti fajl kao backend). Koristi se za poruke sa content-type application/x-protobuf
+ * (vidi RabbitMQConfig - izbor converter-a po content-type header-u).
+ *
+ * Timestamp: int64 epoch milisekunde (polje 12), ili ISO string (polje 10) iz
+ * starijih poruka.
+ */
+public class ProtobufMessageConverter implements MessageConverter {
+
+    /**
+     * Content-type koji postavlja backend ProtobufMessageProducer
+     */
+    public static final String CONTENT_TYPE = "application/x-protobuf";
+
+    // Samo za stare poruke (polje 10)
+    private static final DateTimeFormatter LEGACY_FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    // ============================================
+    // DESERIJALIZACIJA: Protobuf Binary → Java
+    // ============================================
+
+    @Override
+    public Object fromMessage(Message message) throws MessageConversionException {
+        try {
+            // Parsira direktno iz tela poruke (bez kopije)
+            return fromProto(UploadEventProto.UploadEvent.parseFrom(message.getBody()));
+        } catch (InvalidProtocolBufferException | DateTimeParseException e) {
+            throw new MessageConversionException("Neispravna Protobuf poruka: " + e.getMessage(), e);
+        }
+    }
+
+    // ============================================
+    // SERIJALIZACIJA - consumer ne šalje Protobuf
+    // ============================================
+
+    @Override
+    public Message toMessage(Object object, MessageProperties messageProperties) throws MessageConversionException {
+        throw new MessageConversionException("Consumer ne serijalizuje Protobuf poruke");
+    }
+
+    // ============================================
+    // POMOĆNE METODE - Mapiranje
+    // ============================================
+
+    @SuppressWarnings("deprecation")  // Polje 10 - stare poruke
+    private UploadEvent fromProto(UploadEventProto.UploadEvent proto) {
+        UploadEvent event = new UploadEvent();
+
+        if (proto.hasPostId()) {
+            event.setPostId(proto.getPostId());
+        }
+        if (proto.hasTitle()) {
+            event.setTitle(proto.getTitle());
+        }
+        if (proto.hasDescription()) {
+            event.setDescription(proto.getDescription());
+        }
+        if (proto.hasAuthor()) {
+            event.setAuthor(proto.getAuthor());
+        }
+        if (proto.hasAuthorEmail()) {
+            event.setAuthorEmail(proto.getAuthorEmail());
+        }
+        if (proto.hasVideoUrl()) {
+            event.setVideoUrl(proto.getVideoUrl());
+        }
+        if (proto.hasThumbnailUrl()) {
+            event.setThumbnailUrl(proto.getThumbnailUrl());
+        }
+        if (proto.hasFileSize()) {
+            event.setFileSize(proto.getFileSize());
+        }
+        if (proto.hasDuration()) {
+            event.setDuration(proto.getDuration());
+        }
+        if (proto.hasTimestampMillis()) {
+            event.setTimestamp(LocalDateTime.ofInstant(Instant.ofEpochMilli(proto.getTimestampMillis()), ZONE));
+        } else if (proto.hasTimestamp()) {
+            event.setTimestamp(LocalDateTime.parse(proto.getTimestamp(), LEGACY_FORMATTER));
+        }
+        if (proto.hasEventType()) {
+            event.setEventType(proto.getEventType());
+        }
+
+        return event;
+    }
+}
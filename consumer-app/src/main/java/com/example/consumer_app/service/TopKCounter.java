@@ -0,0 +1,121 @@
+package com.example.consumer_app.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * TopKCounter - Najčešći ključevi u ograničenoj memoriji (Space-Saving algoritam).
+ *
+ * Pamti najviše {@code capacity} ključeva. Kad je pun, novi ključ zamenjuje
+ * ključ sa najmanjim brojem i nasleđuje njegov broj (+ inkrement) - broj može
+ * biti precenjen najviše za taj minimum, a ključ koji je stvarno čest se nikad
+ * ne izgubi. Za top 10 dovoljan je kapacitet od par stotina.
+ *
+ * Nije thread-safe - WindowedAnalyticsService ga menja pod svojim lock-om,
+ * a sliding prozor spaja kopije (copy) van lock-a.
+ */
+public class TopKCounter {
+
+    private int capacity;
+    private Map<String, Long> counts = new HashMap<>();
+
+    public TopKCounter() {}  // Jackson (checkpoint)
+
+    public TopKCounter(int capacity) {
+        this.capacity = capacity;
+    }
+
+    // ============================================
+    // PUBLIC METODE
+    // ============================================
+
+    public void add(String key, long increment) {
+        Long current = counts.get(key);
+        if (current != null) {
+            counts.put(key, current + increment);
+            return;
+        }
+
+        if (counts.size() < capacity) {
+            counts.put(key, increment);
+            return;
+        }
+
+        // Pun: izbaci najmanji, novi ključ počinje od njegovog broja
+        Map.Entry<String, Long> min = null;
+        for (Map.Entry<String, Long> entry : counts.entrySet()) {
+            if (min == null || entry.getValue() < min.getValue()) {
+                min = entry;
+            }
+        }
+        long floor = min.getValue();
+        counts.remove(min.getKey());
+        counts.put(key, floor + increment);
+    }
+
+    /**
+     * Spaja više brojača odjednom (sliding prozor preko mnogo bucket-a).
+     *
+     * Zbir po ključu, pa heap od {@code capacity} najvećih - O(n log capacity)
+     * umesto traženja minimuma za svaki novi ključ kao kod add(). Broj ključa
+     * je precenjen najviše koliko i u pojedinačnim brojačima.
+     */
+    public static TopKCounter mergeAll(List<TopKCounter> counters, int capacity) {
+        Map<String, Long> sums = new HashMap<>();
+        for (TopKCounter counter : counters) {
+            counter.counts.forEach((key, count) -> sums.merge(key, count, Long::sum));
+        }
+
+        TopKCounter merged = new TopKCounter(capacity);
+        if (sums.size() <= capacity) {
+            merged.counts = sums;
+            return merged;
+        }
+
+        // Min-heap: vrh je najmanji od zadržanih, izbacuje se kad dođe veći
+        PriorityQueue<Map.Entry<String, Long>> largest = new PriorityQueue<>(capacity + 1,
+                Map.Entry.<String, Long>comparingByValue()
+                        .thenComparing(Map.Entry.<String, Long>comparingByKey(Comparator.reverseOrder())));
+        for (Map.Entry<String, Long> entry : sums.entrySet()) {
+            largest.offer(entry);
+            if (largest.size() > capacity) {
+                largest.poll();
+            }
+        }
+        largest.forEach(entry -> merged.counts.put(entry.getKey(), entry.getValue()));
+        return merged;
+    }
+
+    /**
+     * Kopija za čitanje van lock-a.
+     */
+    public TopKCounter copy() {
+        TopKCounter copy = new TopKCounter(capacity);
+        copy.counts = new HashMap<>(counts);
+        return copy;
+    }
+
+    /**
+     * Najviše n ključeva, od najvećeg broja.
+     */
+    public List<Map.Entry<String, Long>> top(int n) {
+        List<Map.Entry<String, Long>> entries = new ArrayList<>(counts.entrySet());
+        entries.sort(Map.Entry.<String, Long>comparingByValue().reversed()
+                .thenComparing(Map.Entry.comparingByKey()));
+        return entries.subList(0, Math.min(n, entries.size()));
+    }
+
+    // ============================================
+    // GETTERS & SETTERS (checkpoint)
+    // ============================================
+
+    public int getCapacity() { return capacity; }
+    public void setCapacity(int capacity) { this.capacity = capacity; }
+
+    public Map<String, Long> getCounts() { return counts; }
+    public void setCounts(Map<String, Long> counts) { this.counts = new HashMap<>(counts); }
+}
@@ -0,0 +1,349 @@
+package com.example.consumer_app.service;
+
+import com.example.consumer_app.config.RabbitMQConfig;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.core.MessageBuilderSupport;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * UploadFailureHandler - Šta se dešava sa event-om čija obrada nije uspela
+ *
+ * TOK:
+ * - Prolazna greška → sledeći retry nivo queue-a iz kog je došla
+ *   (video.upload.retry.N.pP, čeka TTL nivoa, pa se vraća u video.upload.queue.pP)
+ * - Posle poslednjeg nivoa → video.upload.dlq
+ *
+ * Izvorni queue ide u header x-source-queue (prva isporuka: consumer queue) -
+ * replay iz DLQ po njemu vraća poruku u istu particiju.
+ * - Poison poruka (ne može se deserijalizovati ili je nevalidna) → odmah u DLQ,
+ *   ponavljanje ne bi pomoglo
+ *
+ * REDOSLED PO POSTU (partition queue-ovi):
+ * Dok event posta čeka u retry nivou (ili DLQ), kasniji event-i tog posta ne
+ * obrađuju se mimo njega - idu "za njim" u isti queue (holdIfBlocked), bez
+ * trošenja svojih pokušaja. Queue nivoa je FIFO sa istim TTL-om, pa se vraćaju
+ * posle njega i istim redom; post je slobodan kad se svi vrate i obrade.
+ * Ako event završi u DLQ, i kasniji event-i posta idu u DLQ (BLOCKED) i čekaju
+ * replay. Stanje je u memoriji aktivnog consumer-a - posle restarta ili
+ * preuzimanja particije event-i se obrađuju redom dolaska.
+ *
+ * Poruka se ponovo šalje sa potvrdom broker-a PRE nego što se original potvrdi;
+ * ako slanje ne uspe, izuzetak ide do listener-a i cela grupa se vraća u queue
+ * (već obrađeni event-i iz nje se tada preskaču kao duplikati).
+ */
+@Service
+public class UploadFailureHandler {
+
+    // ============================================
+    // KONSTANTE - Header-i na ponovo poslatoj poruci
+    // ============================================
+
+    public static final String RETRY_COUNT_HEADER = "x-retry-count";
+    public static final String FAILURE_REASON_HEADER = "x-failure-reason";
+    public static final String EXCEPTION_HEADER = "x-exception-message";
+    public static final String STACKTRACE_HEADER = "x-exception-stacktrace";
+    public static final String FAILED_AT_HEADER = "x-failed-at";
+    public static final String SOURCE_QUEUE_HEADER = "x-source-queue";
+    public static final String HELD_FOR_POST_HEADER = "x-held-for-post";
+
+    public static final String REASON_POISON = "POISON";
+    public static final String REASON_RETRIES_EXHAUSTED = "RETRIES_EXHAUSTED";
+    public static final String REASON_BLOCKED = "BLOCKED";
+
+    private static final int MAX_STACKTRACE_LENGTH = 4000;
+
+    @Autowired
+    private RabbitTemplate rabbitTemplate;
+
+    // Broj nivoa = broj kašnjenja (isti property kao u RabbitMQConfig)
+    @Value("${app.consumer.retry.delays-ms:5000,30000,300000}")
+    private long[] retryDelaysMs;
+
+    @Value("${app.consumer.retry.confirm-timeout-ms:5000}")
+    private long confirmTimeoutMs;
+
+    @Value("${app.consumer.partitions:4}")
+    private int partitions;
+
+    // ============================================
+    // STATISTIKA
+    // ============================================
+
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder deadLettered = new LongAdder();
+    private final LongAdder poison = new LongAdder();
+    private final LongAdder held = new LongAdder();
+
+    // ============================================
+    // REDOSLED PO POSTU - postovi sa event-om u retry nivou / DLQ
+    // ============================================
+
+    private final Map<Long, BlockedPost> blockedPosts = new ConcurrentHashMap<>();
+
+    private static class BlockedPost {
+        String failingMessageId;  // Event koji je pao; null = prošao, vraćaju se ostali
+        String location;          // Queue u kome čekaju event-i posta (retry nivo ili DLQ)
+        int parked;               // Poslati tamo, još nisu vraćeni
+    }
+
+    // ============================================
+    // PUBLIC METODE
+    // ============================================
+
+    /**
+     * Šalje neuspelu poruku u sledeći retry nivo ili u DLQ.
+     *
+     * @param message - Originalna poruka
+     * @param error - Razlog neuspeha
+     * @throws org.springframework.amqp.AmqpException ako broker ne potvrdi slanje
+     */
+    public void handleFailure(Message message, Throwable error) {
+        handleFailure(message, error, null);
+    }
+
+    /**
+     * Kao handleFailure(message, error); sa postId (event iz particije) kasniji
+     * event-i tog posta čekaju iza ovog (holdIfBlocked).
+     *
+     * @param postId - Post event-a ili null (poruka nije ni pročitana)
+     */
+    public void handleFailure(Message message, Throwable error, Long postId) {
+        int retryCount = getRetryCount(message);
+        String messageId = message.getMessageProperties().getMessageId();
+        String sourceQueue = getSourceQueue(message);
+        Long heldPost = isOrdered(message, sourceQueue, postId) ? postId : null;
+
+        if (isPoison(error)) {
+            poison.increment();
+            deadLetter(message, sourceQueue, REASON_POISON, error, heldPost);
+            System.err.println("☠️ [CONSUMER] Poison poruka " + messageId + " → " + RabbitMQConfig.DEAD_LETTER_QUEUE
+                    + ": " + error.getMessage());
+            return;
+        }
+
+        if (retryCount >= retryDelaysMs.length) {
+            deadLetter(message, sourceQueue, REASON_RETRIES_EXHAUSTED, error, heldPost);
+            System.err.println("💀 [CONSUMER] Poruka " + messageId + " posle " + retryCount + " ponavljanja → "
+                    + RabbitMQConfig.DEAD_LETTER_QUEUE + ": " + error.getMessage());
+            return;
+        }
+
+        int level = retryCount + 1;
+        String retryQueue = RabbitMQConfig.retryQueue(level, sourceQueue);
+        MessageBuilderSupport<Message> retry = MessageBuilder.fromClonedMessage(message)
+                .setDeliveryMode(MessageDeliveryMode.PERSISTENT)
+                .setHeader(RETRY_COUNT_HEADER, level)
+                .setHeader(SOURCE_QUEUE_HEADER, sourceQueue)
+                .setHeader(EXCEPTION_HEADER, describe(error));
+        if (heldPost != null) {
+            retry.setHeader(HELD_FOR_POST_HEADER, heldPost);
+        }
+        send(RabbitMQConfig.RETRY_EXCHANGE, retryQueue, retry.build());
+        recordFailing(heldPost, messageId, retryQueue);
+        retried.increment();
+
+        System.err.println("🔁 [CONSUMER] Poruka " + messageId + " → " + retryQueue + " (pokušaj " + level + "/"
+                + retryDelaysMs.length + ", za " + retryDelaysMs[level - 1] + "ms): " + error.getMessage());
+    }
+
+    /**
+     * Event posta koji ima event u retry nivou / DLQ ide za njim u isti queue.
+     *
+     * Poziva se pre obrade. Vraćen event (header x-held-for-post) se obrađuje
+     * kad je na redu: event koji je pao, ili bilo koji posle njegovog uspeha
+     * (vraćaju se redom kojim su poslati).
+     *
+     * @return true ako je poruka poslata u queue posta (ne obrađivati sada)
+     * @throws org.springframework.amqp.AmqpException ako broker ne potvrdi slanje
+     */
+    public boolean holdIfBlocked(Message message, Long postId) {
+        BlockedPost post = postId != null ? blockedPosts.get(postId) : null;
+        if (post == null || !isOrdered(message, getSourceQueue(message), postId)) {
+            return false;
+        }
+
+        String messageId = message.getMessageProperties().getMessageId();
+        boolean returned = message.getMessageProperties().getHeader(HELD_FOR_POST_HEADER) != null;
+
+        synchronized (post) {
+            if (returned) {
+                post.parked--;
+            }
+            boolean onTurn = post.failingMessageId != null
+                    ? post.failingMessageId.equals(messageId)
+                    : returned;
+            if (onTurn) {
+                return false;
+            }
+
+            boolean deadLetter = RabbitMQConfig.DEAD_LETTER_QUEUE.equals(post.location);
+            MessageBuilderSupport<Message> parked = MessageBuilder.fromClonedMessage(message)
+                    .setDeliveryMode(MessageDeliveryMode.PERSISTENT)
+                    .setHeader(SOURCE_QUEUE_HEADER, getSourceQueue(message))
+                    .setHeader(HELD_FOR_POST_HEADER, postId);
+            if (deadLetter) {
+                parked.setHeader(FAILURE_REASON_HEADER, REASON_BLOCKED)
+                        .setHeader(FAILED_AT_HEADER, Instant.now().toString());
+            }
+            send(deadLetter ? RabbitMQConfig.DEAD_LETTER_EXCHANGE : RabbitMQConfig.RETRY_EXCHANGE,
+                    post.location, parked.build());
+            post.parked++;
+            held.increment();
+        }
+        return true;
+    }
+
+    /**
+     * Event posta je obrađen - ako je to bio event koji je pao, ostali mogu redom.
+     */
+    public void onProcessed(Message message, Long postId) {
+        BlockedPost post = postId != null ? blockedPosts.get(postId) : null;
+        if (post == null) {
+            return;
+        }
+        synchronized (post) {
+            if (post.failingMessageId != null
+                    && post.failingMessageId.equals(message.getMessageProperties().getMessageId())) {
+                post.failingMessageId = null;
+            }
+            if (post.failingMessageId == null && post.parked <= 0) {
+                blockedPosts.remove(postId, post);
+            }
+        }
+    }
+
+    /**
+     * Poison = ponavljanje ne može pomoći (poruka je neispravna, ne sistem).
+     */
+    public boolean isPoison(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MessageConversionException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Koliko puta je poruka već prošla kroz retry nivoe (0 za prvu isporuku).
+     */
+    public static int getRetryCount(Message message) {
+        Object header = message.getMessageProperties().getHeader(RETRY_COUNT_HEADER);
+        return header instanceof Number number ? number.intValue() : 0;
+    }
+
+    /**
+     * Queue u koji se poruka vraća: x-source-queue, pa queue iz kog je upravo
+     * isporučena; nepoznat queue → video.upload.queue.
+     */
+    public String getSourceQueue(Message message) {
+        MessageProperties props = message.getMessageProperties();
+        Object header = props.getHeader(SOURCE_QUEUE_HEADER);
+        String queue = header != null ? header.toString() : props.getConsumerQueue();
+        return RabbitMQConfig.uploadQueueOrDefault(queue, partitions);
+    }
+
+    // ============================================
+    // POMOĆNE METODE
+    // ============================================
+
+    private void deadLetter(Message message, String sourceQueue, String reason, Throwable error, Long heldPost) {
+        MessageBuilderSupport<Message> deadLetter = MessageBuilder.fromClonedMessage(message)
+                .setDeliveryMode(MessageDeliveryMode.PERSISTENT)
+                .setHeader(SOURCE_QUEUE_HEADER, sourceQueue)
+                .setHeader(FAILURE_REASON_HEADER, reason)
+                .setHeader(EXCEPTION_HEADER, describe(error))
+                .setHeader(STACKTRACE_HEADER, stackTrace(error))
+                .setHeader(FAILED_AT_HEADER, Instant.now().toString());
+        if (heldPost != null) {
+            deadLetter.setHeader(HELD_FOR_POST_HEADER, heldPost);
+        }
+        send(RabbitMQConfig.DEAD_LETTER_EXCHANGE, RabbitMQConfig.DEAD_LETTER_QUEUE, deadLetter.build());
+        recordFailing(heldPost, message.getMessageProperties().getMessageId(), RabbitMQConfig.DEAD_LETTER_QUEUE);
+        deadLettered.increment();
+    }
+
+    // Posle potvrđenog slanja: post je blokiran, a ostali event-i idu u isti queue
+    private void recordFailing(Long heldPost, String messageId, String location) {
+        if (heldPost == null) {
+            return;
+        }
+        BlockedPost post = blockedPosts.computeIfAbsent(heldPost, id -> new BlockedPost());
+        synchronized (post) {
+            if (post.failingMessageId == null) {
+                post.failingMessageId = messageId;
+            }
+            post.location = location;
+            post.parked++;
+        }
+    }
+
+    // Redosled se čuva samo za particije (video.upload.queue ima više consumer-a) i poznat event ID
+    private boolean isOrdered(Message message, String sourceQueue, Long postId) {
+        return postId != null
+                && message.getMessageProperties().getMessageId() != null
+                && RabbitMQConfig.partitionOf(sourceQueue) >= 0;
+    }
+
+    // Slanje na istom kanalu + čekanje potvrde (publisher-confirm-type=simple)
+    private void send(String exchange, String routingKey, Message message) {
+        rabbitTemplate.invoke(operations -> {
+            operations.send(exchange, routingKey, message);
+            operations.waitForConfirmsOrDie(confirmTimeoutMs);
+            return null;
+        });
+    }
+
+    private String describe(Throwable error) {
+        return error.getClass().getSimpleName() + ": " + error.getMessage();
+    }
+
+    private String stackTrace(Throwable error) {
+        StringWriter writer = new StringWriter();
+        error.printStackTrace(new PrintWriter(writer));
+        String trace = writer.toString();
+        return trace.length() > MAX_STACKTRACE_LENGTH ? trace.substring(0, MAX_STACKTRACE_LENGTH) : trace;
+    }
+
+    // ============================================
+    // GETTERS - Statistika
+    // ============================================
+
+    public long getRetried() {
+        return retried.sum();
+    }
+
+    public long getDeadLettered() {
+        return deadLettered.sum();
+    }
+
+    public long getPoison() {
+        return poison.sum();
+    }
+
+    public long getHeld() {
+        return held.sum();
+    }
+
+    public int getBlockedPosts() {
+        return blockedPosts.size();
+    }
+
+    public int getRetryLevels() {
+        return retryDelaysMs.length;
+    }
+}
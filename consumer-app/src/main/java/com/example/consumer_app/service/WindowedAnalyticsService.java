@@ -0,0 +1,478 @@
+package com.example.consumer_app.service;
+
+import com.example.consumer_app.model.EngagementEvent;
+import com.example.consumer_app.model.UploadEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * WindowedAnalyticsService - Analitika upload i engagement event-a po vremenskim prozorima
+ *
+ * PROZORI (vreme event-a, granice u UTC):
+ * - Tumbling: zasebni bucket-i po minutu, satu i danu (count po tipu, bajtovi, top postovi i autori)
+ * - Sliding: "poslednjih N minuta / sati / dana" do sada - spajanje poslednjih N bucket-a
+ *   pri upitu; prozor se pomera za jedan bucket (rezolucija = jedinica prozora)
+ *
+ * MEMORIJA JE OGRANIČENA:
+ * - Po granularnosti čuva se najviše retention bucket-a (podrazumevano 120 min, 48 h, 30 dana);
+ *   stariji se brišu, a event stariji od najstarijeg bucket-a se ne broji (late)
+ * - Top postovi/autori po bucket-u su TopKCounter (Space-Saving) sa top-k-capacity ključeva
+ *
+ * CHECKPOINT:
+ * Stanje se periodično (i pri gašenju) upisuje u lokalni JSON fajl - prvo u .tmp, pa
+ * atomični rename, tako da prekid upisa ne ostavlja polovičan fajl. Pri startu se
+ * učitava, pa restart nastavlja postojeće prozore. Event-i posle poslednjeg checkpoint-a
+ * se gube pri padu - rezultat je približan, tačni brojevi su u bazi backend-a.
+ */
+@Service
+public class WindowedAnalyticsService {
+
+    /**
+     * Veličina tumbling bucket-a; sliding prozor se zadaje u istoj jedinici (15m, 24h, 7d).
+     */
+    public enum Granularity {
+        MINUTE(60_000L, 'm'),
+        HOUR(3_600_000L, 'h'),
+        DAY(86_400_000L, 'd');
+
+        private final long sizeMs;
+        private final char unit;
+
+        Granularity(long sizeMs, char unit) {
+            this.sizeMs = sizeMs;
+            this.unit = unit;
+        }
+
+        public long bucketStart(long timestampMs) {
+            return Math.floorDiv(timestampMs, sizeMs) * sizeMs;
+        }
+
+        public static Granularity fromUnit(char unit) {
+            for (Granularity granularity : values()) {
+                if (granularity.unit == unit) {
+                    return granularity;
+                }
+            }
+            throw new IllegalArgumentException("Nepoznata jedinica prozora: " + unit + " (m, h ili d)");
+        }
+    }
+
+    // Nazivi brojača u bucket-u
+    public static final String METRIC_UPLOADS = "uploads";
+    public static final String METRIC_VIEWS = "views";
+    public static final String METRIC_LIKES = "likes";
+    public static final String METRIC_UNLIKES = "unlikes";
+    public static final String METRIC_COMMENTS = "comments";
+    public static final String METRIC_COMMENT_DELETES = "commentDeletes";
+    public static final String METRIC_POST_DELETES = "postDeletes";
+
+    private static final Map<String, String> METRIC_BY_TYPE = Map.of(
+            EngagementEvent.TYPE_VIEW, METRIC_VIEWS,
+            EngagementEvent.TYPE_LIKE, METRIC_LIKES,
+            EngagementEvent.TYPE_UNLIKE, METRIC_UNLIKES,
+            EngagementEvent.TYPE_COMMENT, METRIC_COMMENTS,
+            EngagementEvent.TYPE_COMMENT_DELETE, METRIC_COMMENT_DELETES,
+            EngagementEvent.TYPE_POST_DELETE, METRIC_POST_DELETES);
+
+    @Value("${app.analytics.retention.minutes:120}")
+    private int minuteRetention;
+
+    @Value("${app.analytics.retention.hours:48}")
+    private int hourRetention;
+
+    @Value("${app.analytics.retention.days:30}")
+    private int dayRetention;
+
+    @Value("${app.analytics.top-k-capacity:200}")
+    private int topKCapacity;
+
+    @Value("${app.analytics.checkpoint.enabled:true}")
+    private boolean checkpointEnabled;
+
+    @Value("${app.analytics.checkpoint.path:data/analytics-checkpoint.json}")
+    private String checkpointPath;
+
+    private Clock clock = Clock.systemUTC();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // Bucket-i po početku (epoch ms); sve izmene i čitanja pod lock-om
+    private final Map<Granularity, TreeMap<Long, Bucket>> windows = new EnumMap<>(Granularity.class);
+    private final Object lock = new Object();
+
+    private final LongAdder eventsProcessed = new LongAdder();
+    private final LongAdder lateEventsDropped = new LongAdder();
+
+    private volatile boolean dirty;
+    private volatile long lastCheckpointMs;
+
+    // ============================================
+    // LIFECYCLE
+    // ============================================
+
+    @PostConstruct
+    public void init() {
+        for (Granularity granularity : Granularity.values()) {
+            windows.put(granularity, new TreeMap<>());
+        }
+
+        if (checkpointEnabled) {
+            restore();
+        }
+
+        System.out.println("📊 [CONSUMER] Analitika: " + minuteRetention + " min / " + hourRetention + " h / "
+                + dayRetention + " dana, top-k " + topKCapacity
+                + (checkpointEnabled ? ", checkpoint " + checkpointPath : ", bez checkpoint-a"));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        checkpoint();
+    }
+
+    // ============================================
+    // PRIJEM EVENT-A
+    // ============================================
+
+    public void recordUpload(UploadEvent event) {
+        long timestampMs = event.getTimestamp() != null
+                ? event.getTimestamp().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                : clock.millis();
+
+        record(timestampMs, bucket -> {
+            bucket.increment(METRIC_UPLOADS, 1);
+            if (event.getFileSize() != null) {
+                bucket.bytesUploaded += event.getFileSize();
+            }
+            if (event.getAuthor() != null) {
+                bucket.topAuthors.add(event.getAuthor(), 1);
+            }
+        });
+    }
+
+    public void recordEngagement(EngagementEvent event) {
+        String metric = METRIC_BY_TYPE.get(event.getType());
+        if (metric == null) {
+            return;  // Novi tip iz backend-a - ignoriše se dok se ne doda ovde
+        }
+
+        long weight = event.getWeight();
+        boolean ranksPost = METRIC_VIEWS.equals(metric) || METRIC_LIKES.equals(metric) || METRIC_COMMENTS.equals(metric);
+
+        record(event.getTimestampMs(), bucket -> {
+            bucket.increment(metric, weight);
+            if (ranksPost && event.getPostId() != null) {
+                bucket.topPosts.add(String.valueOf(event.getPostId()), weight);  // Skor = pregledi + lajkovi + komentari
+            }
+        });
+    }
+
+    private void record(long timestampMs, Consumer<Bucket> update) {
+        long now = clock.millis();
+        long eventTime = Math.min(timestampMs, now);  // Sat producer-a ispred → tekući bucket
+
+        synchronized (lock) {
+            boolean counted = false;
+            for (Granularity granularity : Granularity.values()) {
+                Bucket bucket = bucketFor(granularity, eventTime, now);
+                if (bucket != null) {
+                    update.accept(bucket);
+                    counted = true;
+                }
+            }
+
+            if (counted) {
+                eventsProcessed.increment();
+                dirty = true;
+            } else {
+                lateEventsDropped.increment();
+            }
+        }
+    }
+
+    /**
+     * Bucket za event (pravi ga ako ne postoji) ili null ako je event stariji od retention-a.
+     */
+    private Bucket bucketFor(Granularity granularity, long eventTime, long now) {
+        long oldestStart = evict(granularity, now);
+        long start = granularity.bucketStart(eventTime);
+        if (start < oldestStart) {
+            return null;
+        }
+        return windows.get(granularity).computeIfAbsent(start, s -> new Bucket(s, topKCapacity));
+    }
+
+    /**
+     * Briše bucket-e van retention-a; vraća početak najstarijeg dozvoljenog.
+     */
+    private long evict(Granularity granularity, long now) {
+        long oldestStart = granularity.bucketStart(now) - (retention(granularity) - 1L) * granularity.sizeMs;
+        windows.get(granularity).headMap(oldestStart).clear();
+        return oldestStart;
+    }
+
+    // ============================================
+    // UPITI
+    // ============================================
+
+    /**
+     * Sliding prozor do sada: "15m", "1h", "24h", "7d"...
+     *
+     * @param window - Broj + jedinica (m, h, d); broj ne sme preći retention te jedinice
+     * @param top - Broj top postova i autora
+     */
+    public Map<String, Object> slidingWindow(String window, int top) {
+        if (window == null || window.length() < 2) {
+            throw new IllegalArgumentException("Prozor mora biti broj + jedinica, npr. 15m, 24h, 7d");
+        }
+
+        Granularity granularity = Granularity.fromUnit(window.charAt(window.length() - 1));
+        int buckets;
+        try {
+            buckets = Integer.parseInt(window.substring(0, window.length() - 1));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Neispravan prozor: " + window);
+        }
+        if (buckets < 1 || buckets > retention(granularity)) {
+            throw new IllegalArgumentException("Prozor " + window + " - dozvoljeno 1.." + retention(granularity)
+                    + granularity.unit);
+        }
+
+        long now = clock.millis();
+        long from = granularity.bucketStart(now) - (buckets - 1L) * granularity.sizeMs;
+
+        // Pod lock-om samo kopije bucket-a; spajanje (do 120 x topKCapacity ključeva) van njega
+        List<Bucket> snapshot = new ArrayList<>();
+        synchronized (lock) {
+            evict(granularity, now);
+            windows.get(granularity).tailMap(from).values().forEach(bucket -> snapshot.add(bucket.copy()));
+        }
+        Bucket merged = Bucket.mergeAll(from, snapshot, topKCapacity);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("window", window);
+        result.put("granularity", granularity.name());
+        result.put("from", Instant.ofEpochMilli(from).toString());
+        result.put("to", Instant.ofEpochMilli(now).toString());
+        result.putAll(merged.toView(top));
+        return result;
+    }
+
+    /**
+     * Tumbling bucket-i (najnoviji prvi) - npr. uploadi po minutu za poslednjih sat vremena.
+     */
+    public List<Map<String, Object>> tumblingWindows(Granularity granularity, int limit, int top) {
+        List<Map<String, Object>> result = new ArrayList<>();
+        synchronized (lock) {
+            evict(granularity, clock.millis());
+            for (Bucket bucket : windows.get(granularity).descendingMap().values()) {
+                if (result.size() >= limit) {
+                    break;
+                }
+                Map<String, Object> view = new LinkedHashMap<>();
+                view.put("start", Instant.ofEpochMilli(bucket.start).toString());
+                view.putAll(bucket.toView(top));
+                result.add(view);
+            }
+        }
+        return result;
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Integer> buckets = new LinkedHashMap<>();
+        synchronized (lock) {
+            windows.forEach((granularity, bucketMap) -> buckets.put(granularity.name(), bucketMap.size()));
+        }
+
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("eventsProcessed", eventsProcessed.sum());
+        status.put("lateEventsDropped", lateEventsDropped.sum());
+        status.put("buckets", buckets);
+        status.put("lastCheckpoint", lastCheckpointMs > 0 ? Instant.ofEpochMilli(lastCheckpointMs).toString() : null);
+        return status;
+    }
+
+    // ============================================
+    // CHECKPOINT
+    // ============================================
+
+    /**
+     * Upisuje stanje ako se promenilo od prethodnog upisa.
+     */
+    @Scheduled(fixedDelayString = "${app.analytics.checkpoint.interval-ms:30000}")
+    public void checkpoint() {
+        if (!checkpointEnabled || !dirty) {
+            return;
+        }
+
+        byte[] data;
+        synchronized (lock) {
+            Checkpoint checkpoint = new Checkpoint();
+            checkpoint.savedAtMs = clock.millis();
+            windows.forEach((granularity, bucketMap) ->
+                    checkpoint.windows.put(granularity, new ArrayList<>(bucketMap.values())));
+            try {
+                data = objectMapper.writeValueAsBytes(checkpoint);
+            } catch (IOException e) {
+                System.err.println("❌ [CONSUMER] Checkpoint serijalizacija: " + e.getMessage());
+                return;
+            }
+            dirty = false;
+        }
+
+        Path path = Paths.get(checkpointPath);
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            Files.write(tmp, data);
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            lastCheckpointMs = clock.millis();
+        } catch (IOException e) {
+            dirty = true;  // Sledeći pokušaj
+            System.err.println("❌ [CONSUMER] Checkpoint upis (" + checkpointPath + "): " + e.getMessage());
+        }
+    }
+
+    private void restore() {
+        Path path = Paths.get(checkpointPath);
+        if (!Files.exists(path)) {
+            return;
+        }
+
+        try {
+            Checkpoint checkpoint = objectMapper.readValue(path.toFile(), Checkpoint.class);
+            long now = clock.millis();
+            synchronized (lock) {
+                checkpoint.windows.forEach((granularity, buckets) -> {
+                    TreeMap<Long, Bucket> bucketMap = windows.get(granularity);
+                    buckets.forEach(bucket -> bucketMap.put(bucket.start, bucket));
+                    evict(granularity, now);
+                });
+            }
+            lastCheckpointMs = checkpoint.savedAtMs;
+
+            System.out.println("📊 [CONSUMER] Analitika učitana iz checkpoint-a ("
+                    + Instant.ofEpochMilli(checkpoint.savedAtMs) + ")");
+        } catch (IOException e) {
+            // Oštećen fajl ne sme da spreči start - prozori kreću od nule
+            System.err.println("⚠️ [CONSUMER] Checkpoint nije učitan: " + e.getMessage());
+        }
+    }
+
+    // ============================================
+    // POMOĆNE METODE
+    // ============================================
+
+    private int retention(Granularity granularity) {
+        return switch (granularity) {
+            case MINUTE -> minuteRetention;
+            case HOUR -> hourRetention;
+            case DAY -> dayRetention;
+        };
+    }
+
+    public long getEventsProcessed() {
+        return eventsProcessed.sum();
+    }
+
+    public long getLateEventsDropped() {
+        return lateEventsDropped.sum();
+    }
+
+    // ============================================
+    // STANJE - bucket i checkpoint (Jackson)
+    // ============================================
+
+    /**
+     * Jedan tumbling bucket.
+     */
+    static class Bucket {
+        public long start;
+        public Map<String, Long> counts = new LinkedHashMap<>();
+        public long bytesUploaded;
+        public TopKCounter topPosts;
+        public TopKCounter topAuthors;
+
+        Bucket() {}  // Jackson
+
+        Bucket(long start, int topKCapacity) {
+            this.start = start;
+            this.topPosts = new TopKCounter(topKCapacity);
+            this.topAuthors = new TopKCounter(topKCapacity);
+        }
+
+        void increment(String metric, long value) {
+            counts.merge(metric, value, Long::sum);
+        }
+
+        Bucket copy() {
+            Bucket copy = new Bucket();
+            copy.start = start;
+            copy.counts = new LinkedHashMap<>(counts);
+            copy.bytesUploaded = bytesUploaded;
+            copy.topPosts = topPosts.copy();
+            copy.topAuthors = topAuthors.copy();
+            return copy;
+        }
+
+        static Bucket mergeAll(long start, List<Bucket> buckets, int topKCapacity) {
+            Bucket merged = new Bucket();
+            merged.start = start;
+            List<TopKCounter> posts = new ArrayList<>();
+            List<TopKCounter> authors = new ArrayList<>();
+            for (Bucket bucket : buckets) {
+                bucket.counts.forEach(merged::increment);
+                merged.bytesUploaded += bucket.bytesUploaded;
+                posts.add(bucket.topPosts);
+                authors.add(bucket.topAuthors);
+            }
+            merged.topPosts = TopKCounter.mergeAll(posts, topKCapacity);
+            merged.topAuthors = TopKCounter.mergeAll(authors, topKCapacity);
+            return merged;
+        }
+
+        Map<String, Object> toView(int top) {
+            List<Map<String, Object>> posts = new ArrayList<>();
+            topPosts.top(top).forEach(e -> posts.add(Map.of("postId", Long.valueOf(e.getKey()), "score", e.getValue())));
+
+            List<Map<String, Object>> authors = new ArrayList<>();
+            topAuthors.top(top).forEach(e -> authors.add(Map.of("author", e.getKey(), "uploads", e.getValue())));
+
+            Map<String, Object> view = new LinkedHashMap<>();
+            view.put("counts", new LinkedHashMap<>(counts));
+            view.put("bytesUploaded", bytesUploaded);
+            view.put("topPosts", posts);
+            view.put("topAuthors", authors);
+            return view;
+        }
+    }
+
+    static class Checkpoint {
+        public int version = 1;
+        public long savedAtMs;
+        public Map<Granularity, List<Bucket>> windows = new EnumMap<>(Granularity.class);
+    }
+}
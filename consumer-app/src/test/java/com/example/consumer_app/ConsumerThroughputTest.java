@@ -0,0 +1,143 @@
+package com.example.consumer_app;
+
+import com.example.consumer_app.model.UploadEvent;
+import com.example.consumer_app.service.MessageConsumerService;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.postprocessor.GZipPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ConsumerThroughputTest - Protok consumer-a kroz pravi listener container
+ *
+ * Aplikacija se pokreće sa RabbitBrokerStandIn umesto RabbitMQ-a (ack putuje
+ * ~1ms). Isti skup poruka (sa duplikatima) prolazi kroz:
+ * - staru konfiguraciju: 1 consumer, prefetch 1, poruka po poruka
+ * - novu: 4 consumer-a, prefetch 100, grupe od 20
+ * Obe moraju obraditi svaki event tačno jednom; nova mora biti brža.
+ * Isto važi i za gzip poruke (raspakuje ih container pre listener-a).
+ */
+class ConsumerThroughputTest {
+
+    private static final int EVENTS = Integer.getInteger("consumer.throughput.events", 2000);
+    private static final int DUPLICATES = EVENTS / 20;
+    private static final long ROUND_TRIP_MICROS = 1000;
+
+    // Broker za kontekst koji se trenutno pokreće (Spring pravi ConnectionFactory iz njega)
+    private static RabbitBrokerStandIn currentBroker;
+
+    @Test
+    void testBatchedConcurrentConsumerIsFasterAndExactlyOnce() throws Exception {
+        double single = runScenario("single", 1, 1, 1, false);
+        double batched = runScenario("batched", 4, 100, 20, false);
+
+        System.out.println("=".repeat(80));
+        System.out.printf("📊 Protok: poruka po poruka %.0f msg/s, grupe + 4 consumer-a %.0f msg/s (%.1fx)%n",
+                single, batched, batched / single);
+        System.out.println("=".repeat(80));
+
+        assertTrue(batched > single * 2, "Grupe i prefetch nisu ubrzali obradu");
+    }
+
+    @Test
+    void testCompressedMessagesAreDecompressedBeforeListener() throws Exception {
+        // Backend MessageCompressor: gzip telo + content-encoding header
+        runScenario("gzip", 4, 100, 20, true);
+    }
+
+    // ============================================
+    // POMOĆNE METODE
+    // ============================================
+
+    private double runScenario(String name, int concurrency, int prefetch, int batchSize, boolean compressed)
+            throws Exception {
+        try (RabbitBrokerStandIn broker = new RabbitBrokerStandIn(ROUND_TRIP_MICROS)) {
+            currentBroker = broker;
+            ConfigurableApplicationContext context = new SpringApplicationBuilder(
+                    ConsumerAppApplication.class, StandInConfig.class)
+                    .run(
+                        "--spring.devtools.restart.enabled=false",
+                        "--spring.main.web-application-type=none",
+                        "--logging.level.org.springframework.amqp=INFO",
+                        "--app.consumer.log-events=false",
+                        "--app.analytics.checkpoint.enabled=false",
+                        "--spring.rabbitmq.listener.simple.concurrency=" + concurrency,
+                        "--spring.rabbitmq.listener.simple.max-concurrency=" + concurrency,
+                        "--spring.rabbitmq.listener.simple.prefetch=" + prefetch,
+                        "--spring.rabbitmq.listener.simple.batch-size=" + batchSize,
+                        "--app.consumer.batch-receive-timeout-ms=20"
+                    );
+
+            try {
+                MessageConsumerService service = context.getBean(MessageConsumerService.class);
+                broker.awaitConsumers(concurrency, 10_000);
+
+                List<Message> messages = buildMessages(compressed);
+                long expectedFileSize = (long) EVENTS * (EVENTS + 1) / 2;
+
+                long start = System.nanoTime();
+                messages.forEach(broker::publish);
+                broker.awaitAcked(messages.size(), 120_000);
+                double seconds = (System.nanoTime() - start) / 1e9;
+
+                // Svaki event tačno jednom, duplikati prepoznati po messageId
+                assertEquals(EVENTS, service.getTotalMessagesReceived(), name);
+                assertEquals(DUPLICATES, service.getDuplicatesSkipped(), name);
+                assertEquals(expectedFileSize, service.getTotalFileSize(), name);
+                assertTrue(broker.getMaxUnacked() <= prefetch, name + ": prefetch prekoračen");
+
+                double throughput = messages.size() / seconds;
+                System.out.printf("🐇 %s: %d poruka za %.2fs (%.0f msg/s), %d isporuka listener-u%n",
+                        name, messages.size(), seconds, throughput, service.getBatchesReceived());
+                return throughput;
+
+            } finally {
+                context.close();
+            }
+        }
+    }
+
+    // EVENTS različitih event-a + DUPLICATES ponovljenih (isti messageId, kao posle retry-a producer-a)
+    private static List<Message> buildMessages(boolean compressed) {
+        Jackson2JsonMessageConverter converter = new Jackson2JsonMessageConverter();
+        GZipPostProcessor gzip = new GZipPostProcessor();
+        List<Message> messages = new ArrayList<>();
+
+        for (long i = 1; i <= EVENTS; i++) {
+            messages.add(message(converter, i));
+            if (i % 20 == 0) {
+                messages.add(message(converter, i));
+            }
+        }
+        return compressed ? messages.stream().map(gzip::postProcessMessage).toList() : messages;
+    }
+
+    private static Message message(Jackson2JsonMessageConverter converter, long id) {
+        UploadEvent event = new UploadEvent(id, "Video " + id, "Opis", "autor" + (id % 50),
+                "autor@example.com", "/videos/" + id + ".mp4", "/thumbnails/" + id + ".jpg", id, 120);
+
+        MessageProperties props = new MessageProperties();
+        props.setMessageId("upload-" + id);
+        return converter.toMessage(event, props);
+    }
+
+    @Configuration
+    static class StandInConfig {
+
+        @Bean
+        public ConnectionFactory connectionFactory() {
+            return currentBroker.connectionFactory();
+        }
+    }
+}
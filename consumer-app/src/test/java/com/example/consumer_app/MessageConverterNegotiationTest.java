@@ -0,0 +1,136 @@
+package com.example.consumer_app;
+
+import com.example.consumer_app.config.RabbitMQConfig;
+import com.example.consumer_app.model.UploadEvent;
+import com.example.consumer_app.service.MessageConsumerService;
+import com.example.consumer_app.service.ProtobufMessageConverter;
+import com.example.consumer_app.service.UploadFailureHandler;
+import com.example.consumer_app.service.WindowedAnalyticsService;
+import com.example.proto.UploadEventProto;
+import com.google.protobuf.CodedOutputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * MessageConverterNegotiationTest - JSON i Protobuf poruke u istom queue-u
+ *
+ * Protobuf poruke se prave generisanim klasama iz istog upload_event.proto
+ * koji koristi backend.
+ */
+class MessageConverterNegotiationTest {
+
+    private MessageConverter converter;
+
+    @BeforeEach
+    void setUp() {
+        converter = new RabbitMQConfig().uploadEventMessageConverter();
+    }
+
+    @Test
+    void testProtobufMessageIsDecodedByContentType() {
+        LocalDateTime timestamp = LocalDateTime.of(2024, 5, 6, 7, 8, 9, 10_000_000);
+
+        UploadEvent event = (UploadEvent) converter.fromMessage(protobuf(UploadEventProto.UploadEvent.newBuilder()
+                .setPostId(11L)
+                .setTitle("Protobuf video")
+                .setFileSize(4096L)
+                .setTimestampMillis(timestamp.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli())
+                .setEventType("VIDEO_UPLOADED")
+                .build()
+                .toByteArray()));
+
+        assertEquals(11L, event.getPostId());
+        assertEquals("Protobuf video", event.getTitle());
+        assertEquals(4096L, event.getFileSize());
+        assertEquals(timestamp, event.getTimestamp());
+        assertNull(event.getDescription());
+        assertNull(event.getDuration());
+    }
+
+    @Test
+    void testLegacyProtobufTimestampIsReadable() throws Exception {
+        // Stari backend: ISO string u polju 10
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        CodedOutputStream out = CodedOutputStream.newInstance(baos);
+        out.writeInt64(1, 12L);
+        out.writeString(10, "2024-01-02T03:04:05.123");
+        out.flush();
+
+        UploadEvent event = (UploadEvent) converter.fromMessage(protobuf(baos.toByteArray()));
+
+        assertEquals(12L, event.getPostId());
+        assertEquals(LocalDateTime.of(2024, 1, 2, 3, 4, 5, 123_000_000), event.getTimestamp());
+    }
+
+    @Test
+    void testCorruptProtobufIsConversionError() {
+        assertThrows(MessageConversionException.class,
+                () -> converter.fromMessage(protobuf(new byte[] {(byte) 0x0A, (byte) 0xFF})));
+    }
+
+    @Test
+    void testMixedBatchIsProcessedWithoutRedeploy() {
+        UploadFailureHandler failureHandler = mock(UploadFailureHandler.class);
+        MessageConsumerService consumer = new MessageConsumerService(1000);
+        ReflectionTestUtils.setField(consumer, "messageConverter", converter);
+        ReflectionTestUtils.setField(consumer, "failureHandler", failureHandler);
+        ReflectionTestUtils.setField(consumer, "logEvents", false);
+        ReflectionTestUtils.setField(consumer, "analyticsService", mock(WindowedAnalyticsService.class));
+
+        Message xml = new Message("<event/>".getBytes(StandardCharsets.UTF_8), properties("upload-4", "application/xml"));
+
+        consumer.handleVideoUploadBatch(List.of(
+                json("upload-1", "{\"postId\":1,\"fileSize\":100}"),
+                protobuf("upload-2", UploadEventProto.UploadEvent.newBuilder().setPostId(2L).setFileSize(200L).build()),
+                protobuf("upload-2", UploadEventProto.UploadEvent.newBuilder().setPostId(2L).setFileSize(200L).build()),
+                xml));
+
+        assertEquals(2, consumer.getTotalMessagesReceived());
+        assertEquals(300, consumer.getTotalFileSize());
+        assertEquals(1, consumer.getDuplicatesSkipped());
+
+        // Nepoznat format → conversion greška → poison (DLQ)
+        verify(failureHandler).handleFailure(eq(xml), argThat(e -> e instanceof MessageConversionException));
+        verify(failureHandler, times(1)).handleFailure(any(), any());
+    }
+
+    // ============================================
+    // POMOĆNE METODE
+    // ============================================
+
+    private static MessageProperties properties(String messageId, String contentType) {
+        MessageProperties props = new MessageProperties();
+        props.setMessageId(messageId);
+        props.setContentType(contentType);
+        return props;
+    }
+
+    private static Message protobuf(byte[] body) {
+        return new Message(body, properties(null, ProtobufMessageConverter.CONTENT_TYPE));
+    }
+
+    private static Message protobuf(String messageId, UploadEventProto.UploadEvent event) {
+        return new Message(event.toByteArray(), properties(messageId, ProtobufMessageConverter.CONTENT_TYPE));
+    }
+
+    private static Message json(String messageId, String body) {
+        return new Message(body.getBytes(StandardCharsets.UTF_8), properties(messageId, MessageProperties.CONTENT_TYPE_JSON));
+    }
+}
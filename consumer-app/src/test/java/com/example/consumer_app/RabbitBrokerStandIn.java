@@ -0,0 +1,248 @@
+package com.example.consumer_app;
+
+import com.example.consumer_app.config.RabbitMQConfig;
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Consumer;
+import com.rabbitmq.client.Envelope;
+import com.rabbitmq.client.impl.AMQImpl;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.connection.Connection;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.support.DefaultMessagePropertiesConverter;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * RabbitBrokerStandIn - Jedan AMQP queue u istom procesu, za testove bez RabbitMQ-a.
+ *
+ * ConnectionFactory / Connection / Channel su Mockito mock-ovi; broker deo je
+ * ovde: poštuje prefetch (basicQos) po kanalu, isporučuje round-robin svim
+ * consumer-ima i skida poruke tek na basicAck (uključujući multiple=true).
+ * Ack stiže "preko mreže" posle {@code roundTripMicros} - bez toga prefetch
+ * i grupni ack ne bi imali šta da uštede.
+ */
+public class RabbitBrokerStandIn implements AutoCloseable {
+
+    private final long roundTripMicros;
+    private final ConcurrentLinkedQueue<Message> queue = new ConcurrentLinkedQueue<>();
+    private final List<StandInChannel> consumers = new CopyOnWriteArrayList<>();
+    private final DefaultMessagePropertiesConverter propertiesConverter = new DefaultMessagePropertiesConverter();
+    private final ScheduledExecutorService network = Executors.newSingleThreadScheduledExecutor();
+    private final AtomicLong acked = new AtomicLong();
+    private final AtomicInteger maxUnacked = new AtomicInteger();
+    private final AtomicInteger channelNumbers = new AtomicInteger();
+    private final Thread dispatcher;
+    private volatile boolean running = true;
+
+    public RabbitBrokerStandIn(long roundTripMicros) {
+        this.roundTripMicros = roundTripMicros;
+        this.dispatcher = new Thread(this::dispatchLoop, "broker-stand-in");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    // ============================================
+    // PUBLIC METODE
+    // ============================================
+
+    public ConnectionFactory connectionFactory() {
+        Connection connection = Mockito.mock(Connection.class, invocation -> switch (invocation.getMethod().getName()) {
+            case "createChannel" -> newChannel();
+            case "isOpen" -> true;
+            default -> Mockito.RETURNS_DEFAULTS.answer(invocation);
+        });
+
+        return Mockito.mock(ConnectionFactory.class, invocation -> switch (invocation.getMethod().getName()) {
+            case "createConnection" -> connection;
+            case "getHost" -> "stand-in";
+            case "getVirtualHost" -> "/";
+            default -> Mockito.RETURNS_DEFAULTS.answer(invocation);
+        });
+    }
+
+    public void publish(Message message) {
+        queue.add(message);
+        LockSupport.unpark(dispatcher);
+    }
+
+    public int getConsumerCount() {
+        return consumers.size();
+    }
+
+    public long getAcked() {
+        return acked.get();
+    }
+
+    /**
+     * Najveći broj nepotvrđenih poruka na jednom kanalu (≤ prefetch).
+     */
+    public int getMaxUnacked() {
+        return maxUnacked.get();
+    }
+
+    public void awaitAcked(long expected, long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (acked.get() < expected) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Potvrđeno " + acked.get() + "/" + expected + " poruka");
+            }
+            Thread.sleep(5);
+        }
+    }
+
+    public void awaitConsumers(int expected, long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (consumers.size() < expected) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Consumer-a " + consumers.size() + "/" + expected);
+            }
+            Thread.sleep(5);
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        network.shutdownNow();
+        LockSupport.unpark(dispatcher);
+    }
+
+    // ============================================
+    // BROKER
+    // ============================================
+
+    private void dispatchLoop() {
+        int next = 0;
+        while (running) {
+            boolean delivered = false;
+
+            for (int i = 0; i < consumers.size() && !queue.isEmpty(); i++) {
+                StandInChannel channel = consumers.get((next + i) % consumers.size());
+                if (channel.hasCapacity()) {
+                    Message message = queue.poll();
+                    if (message != null) {
+                        channel.deliver(message);
+                        delivered = true;
+                    }
+                }
+            }
+            next++;
+
+            if (!delivered) {
+                LockSupport.parkNanos(100_000);  // Čeka poruku ili ack
+            }
+        }
+    }
+
+    private Channel newChannel() {
+        StandInChannel state = new StandInChannel(channelNumbers.incrementAndGet());
+        state.channel = Mockito.mock(Channel.class, state::answer);
+        return state.channel;
+    }
+
+    private class StandInChannel {
+        final int number;
+        final ConcurrentSkipListSet<Long> unacked = new ConcurrentSkipListSet<>();
+        final AtomicLong deliveryTags = new AtomicLong();
+        Channel channel;
+        volatile int prefetch;
+        volatile Consumer consumer;
+        volatile String consumerTag;
+        volatile boolean open = true;
+
+        StandInChannel(int number) {
+            this.number = number;
+        }
+
+        boolean hasCapacity() {
+            return open && consumer != null && (prefetch == 0 || unacked.size() < prefetch);
+        }
+
+        void deliver(Message message) {
+            long tag = deliveryTags.incrementAndGet();
+            unacked.add(tag);
+            maxUnacked.accumulateAndGet(unacked.size(), Math::max);
+
+            AMQP.BasicProperties props =
+                    propertiesConverter.fromMessageProperties(message.getMessageProperties(), "UTF-8");
+            try {
+                consumer.handleDelivery(consumerTag, new Envelope(tag, false, "", "stand-in"), props, message.getBody());
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        // Dispečer istovremeno dodaje nove tag-ove - broje se samo stvarno uklonjeni
+        void settle(long tag, boolean multiple) {
+            int removed = 0;
+            if (multiple) {
+                Long head;
+                while ((head = unacked.pollFirst()) != null) {
+                    if (head > tag) {
+                        unacked.add(head);
+                        break;
+                    }
+                    removed++;
+                }
+            } else if (unacked.remove(tag)) {
+                removed = 1;
+            }
+            acked.addAndGet(removed);
+            LockSupport.unpark(dispatcher);
+        }
+
+        Object answer(InvocationOnMock invocation) throws Throwable {
+            Object[] args = invocation.getArguments();
+            switch (invocation.getMethod().getName()) {
+                case "basicQos":
+                    prefetch = (Integer) args[args.length == 3 ? 1 : 0];
+                    return null;
+                case "basicConsume": {
+                    consumerTag = "stand-in-" + number;
+                    consumer = (Consumer) args[args.length - 1];
+                    // Samo upload queue postoji; consumer drugih queue-ova (engagement) ne dobija poruke
+                    if (RabbitMQConfig.UPLOAD_QUEUE.equals(args[0])) {
+                        consumers.add(this);
+                    }
+                    consumer.handleConsumeOk(consumerTag);
+                    return consumerTag;
+                }
+                case "basicAck": {
+                    long tag = (Long) args[0];
+                    boolean multiple = (Boolean) args[1];
+                    network.schedule(() -> settle(tag, multiple), roundTripMicros, TimeUnit.MICROSECONDS);
+                    return null;
+                }
+                case "basicCancel":
+                    consumers.remove(this);
+                    consumer.handleCancelOk(consumerTag);
+                    return null;
+                case "close", "abort":
+                    open = false;
+                    consumers.remove(this);
+                    return null;
+                case "queueDeclarePassive":
+                case "queueDeclare":
+                    return new AMQImpl.Queue.DeclareOk(args.length > 0 ? (String) args[0] : "stand-in", queue.size(), 0);
+                case "isOpen":
+                    return open;
+                case "getChannelNumber":
+                    return number;
+                default:
+                    return Mockito.RETURNS_DEFAULTS.answer(invocation);
+            }
+        }
+    }
+}
@@ -0,0 +1,330 @@
+package com.example.consumer_app;
+
+import com.example.consumer_app.config.RabbitMQConfig;
+import com.example.consumer_app.model.UploadEvent;
+import com.example.consumer_app.service.DeadLetterReplayService;
+import com.example.consumer_app.service.MessageConsumerService;
+import com.example.consumer_app.service.UploadFailureHandler;
+import com.example.consumer_app.service.WindowedAnalyticsService;
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Envelope;
+import com.rabbitmq.client.GetResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.amqp.AmqpIOException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.ChannelCallback;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * UploadFailureHandlerTest - Retry nivoi, DLQ (i replay u izvornu particiju), redosled po postu i poison poruke
+ *
+ * Bez broker-a: RabbitTemplate je mock koji pamti gde je poruka poslata.
+ */
+class UploadFailureHandlerTest {
+
+    private UploadFailureHandler handler;
+    private RabbitTemplate rabbitTemplate;
+    private final List<Sent> sent = new ArrayList<>();
+
+    private record Sent(String exchange, String routingKey, Message message) {
+    }
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        rabbitTemplate = mock(RabbitTemplate.class);
+        when(rabbitTemplate.invoke(any(RabbitOperations.OperationsCallback.class)))
+                .thenAnswer(invocation -> ((RabbitOperations.OperationsCallback<Object>) invocation.getArgument(0))
+                        .doInRabbit(rabbitTemplate));
+        doAnswer(invocation -> {
+            sent.add(new Sent(invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2)));
+            return null;
+        }).when(rabbitTemplate).send(anyString(), anyString(), any(Message.class));
+
+        handler = new UploadFailureHandler();
+        ReflectionTestUtils.setField(handler, "rabbitTemplate", rabbitTemplate);
+        ReflectionTestUtils.setField(handler, "retryDelaysMs", new long[] {5000, 30000, 300000});
+        ReflectionTestUtils.setField(handler, "confirmTimeoutMs", 1000L);
+        ReflectionTestUtils.setField(handler, "partitions", 4);
+    }
+
+    @Test
+    void testTransientFailureGoesToNextRetryLevel() {
+        handler.handleFailure(message("upload-1", 0), new IllegalStateException("SMTP nedostupan"));
+        handler.handleFailure(message("upload-1", 1), new IllegalStateException("SMTP nedostupan"));
+
+        assertEquals(2, sent.size());
+        assertEquals(RabbitMQConfig.RETRY_EXCHANGE, sent.get(0).exchange());
+        assertEquals("video.upload.retry.1", sent.get(0).routingKey());
+        assertEquals("video.upload.retry.2", sent.get(1).routingKey());
+
+        MessageProperties props = sent.get(1).message().getMessageProperties();
+        assertEquals(2, UploadFailureHandler.getRetryCount(sent.get(1).message()));
+        assertEquals("upload-1", props.getMessageId());  // Deduplikacija i dalje radi
+        assertEquals(MessageDeliveryMode.PERSISTENT, props.getDeliveryMode());
+        assertEquals(2, handler.getRetried());
+        assertEquals(0, handler.getDeadLettered());
+    }
+
+    @Test
+    void testPartitionEventRetriesBackToItsPartition() {
+        Message first = message("upload-9", 0);
+        first.getMessageProperties().setConsumerQueue("video.upload.queue.p2");
+        handler.handleFailure(first, new IllegalStateException("baza nedostupna"));
+
+        // Povratak iz nivoa 1 stiže u p2; sledeći nivo je i dalje nivo particije p2
+        Message returned = sent.get(0).message();
+        returned.getMessageProperties().setConsumerQueue("video.upload.queue.p2");
+        handler.handleFailure(returned, new IllegalStateException("baza nedostupna"));
+
+        assertEquals("video.upload.retry.1.p2", sent.get(0).routingKey());
+        assertEquals("video.upload.retry.2.p2", sent.get(1).routingKey());
+        assertEquals("video.upload.queue.p2",
+                sent.get(1).message().getMessageProperties().getHeader(UploadFailureHandler.SOURCE_QUEUE_HEADER));
+
+        // Posle poslednjeg nivoa: DLQ pamti particiju za replay
+        Message exhausted = message("upload-9", 3);
+        exhausted.getMessageProperties().setHeader(UploadFailureHandler.SOURCE_QUEUE_HEADER, "video.upload.queue.p2");
+        handler.handleFailure(exhausted, new IllegalStateException("baza nedostupna"));
+        assertEquals(RabbitMQConfig.DEAD_LETTER_QUEUE, sent.get(2).routingKey());
+        assertEquals("video.upload.queue.p2",
+                sent.get(2).message().getMessageProperties().getHeader(UploadFailureHandler.SOURCE_QUEUE_HEADER));
+    }
+
+    @Test
+    void testUnknownSourceQueueFallsBackToMainQueue() {
+        Message removedPartition = message("upload-10", 0);
+        removedPartition.getMessageProperties().setConsumerQueue("video.upload.queue.p7");  // Samo 4 particije
+        handler.handleFailure(removedPartition, new IllegalStateException("greška"));
+
+        assertEquals("video.upload.retry.1", sent.get(0).routingKey());
+        assertEquals(RabbitMQConfig.UPLOAD_QUEUE,
+                sent.get(0).message().getMessageProperties().getHeader(UploadFailureHandler.SOURCE_QUEUE_HEADER));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testReplayReturnsDeadLettersToTheirSourceQueue() throws Exception {
+        Channel channel = mock(Channel.class);
+        when(rabbitTemplate.execute(any(ChannelCallback.class)))
+                .thenAnswer(invocation -> ((ChannelCallback<Object>) invocation.getArgument(0)).doInRabbit(channel));
+        when(channel.basicGet(RabbitMQConfig.DEAD_LETTER_QUEUE, false)).thenReturn(
+                deadLetter(1, Map.of(UploadFailureHandler.SOURCE_QUEUE_HEADER, "video.upload.queue.p3",
+                        UploadFailureHandler.RETRY_COUNT_HEADER, 3)),
+                deadLetter(2, Map.of()),
+                null);
+
+        DeadLetterReplayService replayService = new DeadLetterReplayService();
+        ReflectionTestUtils.setField(replayService, "rabbitTemplate", rabbitTemplate);
+        ReflectionTestUtils.setField(replayService, "maxReplayBatch", 100);
+        ReflectionTestUtils.setField(replayService, "confirmTimeoutMs", 1000L);
+        ReflectionTestUtils.setField(replayService, "partitions", 4);
+
+        assertEquals(2, replayService.replay(10));
+
+        ArgumentCaptor<AMQP.BasicProperties> props = ArgumentCaptor.forClass(AMQP.BasicProperties.class);
+        verify(channel).basicPublish(eq(""), eq("video.upload.queue.p3"), props.capture(), any(byte[].class));
+        verify(channel).basicPublish(eq(""), eq(RabbitMQConfig.UPLOAD_QUEUE), any(AMQP.BasicProperties.class),
+                any(byte[].class));
+        // Replay kreće od nule, ali particija ostaje zapamćena
+        assertNull(props.getValue().getHeaders().get(UploadFailureHandler.RETRY_COUNT_HEADER));
+        assertEquals("video.upload.queue.p3",
+                props.getValue().getHeaders().get(UploadFailureHandler.SOURCE_QUEUE_HEADER));
+        verify(channel).basicAck(2, true);
+    }
+
+    @Test
+    void testExhaustedRetriesGoToDeadLetterQueue() {
+        handler.handleFailure(message("upload-2", 3), new IllegalStateException("i dalje ne radi"));
+
+        Sent deadLetter = sent.get(0);
+        assertEquals(RabbitMQConfig.DEAD_LETTER_EXCHANGE, deadLetter.exchange());
+        assertEquals(RabbitMQConfig.DEAD_LETTER_QUEUE, deadLetter.routingKey());
+
+        MessageProperties props = deadLetter.message().getMessageProperties();
+        assertEquals(UploadFailureHandler.REASON_RETRIES_EXHAUSTED,
+                props.getHeader(UploadFailureHandler.FAILURE_REASON_HEADER));
+        assertTrue(props.<String>getHeader(UploadFailureHandler.EXCEPTION_HEADER).contains("i dalje ne radi"));
+        assertNotNull(props.getHeader(UploadFailureHandler.STACKTRACE_HEADER));
+        assertEquals(1, handler.getDeadLettered());
+        assertEquals(0, handler.getPoison());
+    }
+
+    @Test
+    void testPoisonMessageSkipsRetries() {
+        handler.handleFailure(message("upload-3", 0),
+                new MessageConversionException("neispravan JSON", new IOException("Unexpected character")));
+
+        assertEquals(1, sent.size());
+        assertEquals(RabbitMQConfig.DEAD_LETTER_QUEUE, sent.get(0).routingKey());
+        assertEquals(UploadFailureHandler.REASON_POISON,
+                sent.get(0).message().getMessageProperties().getHeader(UploadFailureHandler.FAILURE_REASON_HEADER));
+        assertEquals(1, handler.getPoison());
+    }
+
+    @Test
+    void testUnconfirmedRepublishPropagates() {
+        doThrow(new AmqpIOException(new IOException("nack"))).when(rabbitTemplate).waitForConfirmsOrDie(anyLong());
+
+        // Original se ne sme potvrditi → izuzetak do listener container-a
+        assertThrows(AmqpIOException.class,
+                () -> handler.handleFailure(message("upload-4", 0), new IllegalStateException("greška")));
+        assertEquals(0, handler.getRetried());
+    }
+
+    @Test
+    void testBadMessageInBatchDoesNotBlockOthers() {
+        MessageConsumerService consumer = new MessageConsumerService(1000);
+        ReflectionTestUtils.setField(consumer, "messageConverter", new Jackson2JsonMessageConverter());
+        ReflectionTestUtils.setField(consumer, "failureHandler", handler);
+        ReflectionTestUtils.setField(consumer, "logEvents", false);
+        ReflectionTestUtils.setField(consumer, "analyticsService", mock(WindowedAnalyticsService.class));
+
+        Message garbage = message("upload-6", 0);
+        Message noPostId = json("upload-7", "{\"title\":\"bez posta\"}");
+
+        consumer.handleVideoUploadBatch(List.of(
+                json("upload-5", "{\"postId\":5,\"fileSize\":100}"),
+                garbage,
+                noPostId,
+                json("upload-8", "{\"postId\":8,\"fileSize\":200}")));
+
+        assertEquals(2, consumer.getTotalMessagesReceived());
+        assertEquals(300, consumer.getTotalFileSize());
+        assertEquals(2, consumer.getFailedMessages());
+        assertEquals(2, handler.getPoison());
+        assertEquals(List.of("upload-6", "upload-7"),
+                sent.stream().map(s -> s.message().getMessageProperties().getMessageId()).toList());
+    }
+
+    @Test
+    void testLaterEventsOfPostWaitBehindRetriedEvent() {
+        List<String> processed = new ArrayList<>();
+        MessageConsumerService consumer = orderedConsumer(processed, "prvi");
+
+        // Prvi event posta 5 pada → retry nivo 1 particije; drugi ide za njim, post 6 se obrađuje
+        consumer.handleVideoUploadBatch(List.of(
+                partition(json("upload-1", "{\"postId\":5,\"title\":\"prvi\"}")),
+                partition(json("upload-2", "{\"postId\":5,\"title\":\"drugi\"}")),
+                partition(json("upload-3", "{\"postId\":6,\"title\":\"drugi post\"}"))));
+        // Novi event posta 5 dok prvi čeka → takođe za njim
+        consumer.handleVideoUploadBatch(List.of(
+                partition(json("upload-4", "{\"postId\":5,\"title\":\"treci\"}"))));
+
+        assertEquals(List.of("drugi post"), processed);
+        assertEquals(List.of("upload-1", "upload-2", "upload-4"),
+                sent.stream().map(s -> s.message().getMessageProperties().getMessageId()).toList());
+        assertTrue(sent.stream().allMatch(s -> "video.upload.retry.1.p1".equals(s.routingKey())));
+        // Čekanje iza drugog event-a ne troši pokušaje
+        assertNull(sent.get(1).message().getMessageProperties().getHeader(UploadFailureHandler.RETRY_COUNT_HEADER));
+        assertEquals(2, handler.getHeld());
+
+        // Vraćaju se istim redom iz nivoa → obrađuju se redom
+        for (Sent returned : List.copyOf(sent)) {
+            consumer.handleVideoUploadBatch(List.of(partition(returned.message())));
+        }
+        assertEquals(List.of("drugi post", "prvi", "drugi", "treci"), processed);
+        assertEquals(0, handler.getBlockedPosts());
+
+        // Post je slobodan - sledeći event se obrađuje odmah
+        consumer.handleVideoUploadBatch(List.of(
+                partition(json("upload-5", "{\"postId\":5,\"title\":\"cetvrti\"}"))));
+        assertEquals("cetvrti", processed.get(processed.size() - 1));
+        assertEquals(3, sent.size());
+    }
+
+    @Test
+    void testLaterEventsFollowDeadLetteredEventToDlq() {
+        List<String> processed = new ArrayList<>();
+        MessageConsumerService consumer = orderedConsumer(processed, "prvi");
+
+        Message exhausted = partition(json("upload-1", "{\"postId\":5,\"title\":\"prvi\"}"));
+        exhausted.getMessageProperties().setHeader(UploadFailureHandler.RETRY_COUNT_HEADER, 3);
+        consumer.handleVideoUploadBatch(List.of(
+                exhausted,
+                partition(json("upload-2", "{\"postId\":5,\"title\":\"drugi\"}"))));
+
+        assertTrue(processed.isEmpty());
+        assertEquals(RabbitMQConfig.DEAD_LETTER_QUEUE, sent.get(1).routingKey());
+        assertEquals(UploadFailureHandler.REASON_BLOCKED,
+                sent.get(1).message().getMessageProperties().getHeader(UploadFailureHandler.FAILURE_REASON_HEADER));
+        assertEquals(1, handler.getBlockedPosts());
+    }
+
+    // ============================================
+    // POMOĆNE METODE
+    // ============================================
+
+    // Consumer sa pravim handler-om; analytics pamti naslove, a prvi put pada na failTitle
+    private MessageConsumerService orderedConsumer(List<String> processed, String failTitle) {
+        WindowedAnalyticsService analytics = mock(WindowedAnalyticsService.class);
+        boolean[] failed = {false};
+        doAnswer(invocation -> {
+            UploadEvent event = invocation.getArgument(0);
+            if (failTitle.equals(event.getTitle()) && !failed[0]) {
+                failed[0] = true;
+                throw new IllegalStateException("baza nedostupna");
+            }
+            processed.add(event.getTitle());
+            return null;
+        }).when(analytics).recordUpload(any(UploadEvent.class));
+
+        MessageConsumerService consumer = new MessageConsumerService(1000);
+        ReflectionTestUtils.setField(consumer, "messageConverter", new Jackson2JsonMessageConverter());
+        ReflectionTestUtils.setField(consumer, "failureHandler", handler);
+        ReflectionTestUtils.setField(consumer, "logEvents", false);
+        ReflectionTestUtils.setField(consumer, "analyticsService", analytics);
+        return consumer;
+    }
+
+    private static Message partition(Message message) {
+        message.getMessageProperties().setConsumerQueue("video.upload.queue.p1");
+        return message;
+    }
+
+    private static Message message(String messageId, int retryCount) {
+        MessageProperties props = new MessageProperties();
+        props.setMessageId(messageId);
+        props.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        if (retryCount > 0) {
+            props.setHeader(UploadFailureHandler.RETRY_COUNT_HEADER, retryCount);
+        }
+        return new Message("{neispravan".getBytes(StandardCharsets.UTF_8), props);
+    }
+
+    private static GetResponse deadLetter(long deliveryTag, Map<String, Object> headers) {
+        AMQP.BasicProperties props = new AMQP.BasicProperties.Builder().headers(headers).build();
+        Envelope envelope = new Envelope(deliveryTag, false, RabbitMQConfig.DEAD_LETTER_EXCHANGE,
+                RabbitMQConfig.DEAD_LETTER_QUEUE);
+        return new GetResponse(envelope, props, "{}".getBytes(StandardCharsets.UTF_8), 0);
+    }
+
+    private static Message json(String messageId, String body) {
+        MessageProperties props = new MessageProperties();
+        props.setMessageId(messageId);
+        props.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        return new Message(body.getBytes(StandardCharsets.UTF_8), props);
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.consumer_app;
+
+import com.example.consumer_app.config.RabbitMQConfig;
+import com.example.consumer_app.config.UploadPartitionListenerConfig;
+import com.example.consumer_app.service.MessageConsumerService;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.amqp.core.BatchMessageListener;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerEndpoint;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistrar;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * UploadPartitionListenerConfigTest - Container po particiji, jedan consumer, rezervne particije
+ */
+class UploadPartitionListenerConfigTest {
+
+    @Test
+    void testOneSingleThreadedListenerPerPartition() {
+        MessageConsumerService consumerService = mock(MessageConsumerService.class);
+        List<SimpleRabbitListenerEndpoint> endpoints = register(consumerService, Set.of());
+
+        assertEquals(4, endpoints.size());
+        for (int partition = 0; partition < 4; partition++) {
+            SimpleRabbitListenerEndpoint endpoint = endpoints.get(partition);
+            assertEquals(List.of("video.upload.queue.p" + partition), List.copyOf(endpoint.getQueueNames()));
+            assertEquals("1", endpoint.getConcurrency());
+            assertNull(endpoint.getAutoStartup());  // Podrazumevano - start sa aplikacijom
+        }
+
+        // Grupa iz particije ide u isti put obrade kao video.upload.queue, istim redom
+        List<Message> batch = List.of(message("upload-1"), message("upload-2"));
+        ((BatchMessageListener) endpoints.get(2).getMessageListener()).onMessageBatch(batch);
+        verify(consumerService).handleVideoUploadBatch(batch);
+    }
+
+    @Test
+    void testNonPreferredPartitionsStartAsStandby() {
+        UploadPartitionListenerConfig config = config(mock(MessageConsumerService.class), Set.of(0, 1));
+        List<SimpleRabbitListenerEndpoint> endpoints = register(config);
+
+        assertNull(endpoints.get(0).getAutoStartup());
+        assertNull(endpoints.get(1).getAutoStartup());
+        assertEquals(Boolean.FALSE, endpoints.get(2).getAutoStartup());
+        assertEquals(Boolean.FALSE, endpoints.get(3).getAutoStartup());
+        assertEquals(List.of("upload-partition-2", "upload-partition-3"), config.getStandbyEndpoints());
+    }
+
+    @Test
+    void testPartitionQueuesHaveSingleActiveConsumer() {
+        List<Queue> queues = new RabbitMQConfig().uploadPartitionQueues(3).getDeclarablesByType(Queue.class);
+        Map<String, Object> mainQueueArgs = new RabbitMQConfig().uploadQueue().getArguments();
+
+        assertEquals(3, queues.size());
+        for (Queue queue : queues) {
+            assertTrue(queue.isDurable());
+            assertEquals(true, queue.getArguments().get("x-single-active-consumer"));
+            // Isti DLX kao glavni queue - poison poruke iz particije završe u video.upload.dlq
+            assertEquals(mainQueueArgs.get("x-dead-letter-exchange"), queue.getArguments().get("x-dead-letter-exchange"));
+            assertEquals(mainQueueArgs.get("x-dead-letter-routing-key"), queue.getArguments().get("x-dead-letter-routing-key"));
+        }
+    }
+
+    // ============================================
+    // POMOĆNE METODE
+    // ============================================
+
+    private static UploadPartitionListenerConfig config(MessageConsumerService consumerService, Set<Integer> preferred) {
+        UploadPartitionListenerConfig config = new UploadPartitionListenerConfig();
+        ReflectionTestUtils.setField(config, "consumerService", consumerService);
+        ReflectionTestUtils.setField(config, "partitions", 4);
+        ReflectionTestUtils.setField(config, "preferredPartitions", preferred);
+        ReflectionTestUtils.setField(config, "standbyDelayMs", 10_000L);
+        return config;
+    }
+
+    private static List<SimpleRabbitListenerEndpoint> register(MessageConsumerService consumerService,
+                                                               Set<Integer> preferred) {
+        return register(config(consumerService, preferred));
+    }
+
+    private static List<SimpleRabbitListenerEndpoint> register(UploadPartitionListenerConfig config) {
+        RabbitListenerEndpointRegistrar registrar = mock(RabbitListenerEndpointRegistrar.class);
+        config.configureRabbitListeners(registrar);
+
+        ArgumentCaptor<SimpleRabbitListenerEndpoint> endpoints = ArgumentCaptor.forClass(SimpleRabbitListenerEndpoint.class);
+        verify(registrar, atLeastOnce()).registerEndpoint(endpoints.capture());
+        return endpoints.getAllValues();
+    }
+
+    private static Message message(String messageId) {
+        MessageProperties props = new MessageProperties();
+        props.setMessageId(messageId);
+        return new Message(new byte[0], props);
+    }
+}
@@ -0,0 +1,225 @@
+package com.example.consumer_app;
+
+import com.example.consumer_app.model.EngagementEvent;
+import com.example.consumer_app.model.UploadEvent;
+import com.example.consumer_app.service.EngagementEventConsumer;
+import com.example.consumer_app.service.TopKCounter;
+import com.example.consumer_app.service.WindowedAnalyticsService;
+import com.example.consumer_app.service.WindowedAnalyticsService.Granularity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * WindowedAnalyticsServiceTest - Tumbling i sliding prozori, top-K, retention i checkpoint
+ *
+ * Sat je fiksiran (12:30:30 UTC) da granice bucket-a budu predvidive.
+ */
+class WindowedAnalyticsServiceTest {
+
+    private static final Instant NOW = Instant.parse("2024-06-01T12:30:30Z");
+    private static final long MINUTE = 60_000L;
+    private static final long HOUR = 60 * MINUTE;
+
+    @TempDir
+    Path tempDir;
+
+    private Path checkpointFile;
+    private WindowedAnalyticsService analytics;
+
+    @BeforeEach
+    void setUp() {
+        checkpointFile = tempDir.resolve("analytics.json");
+        analytics = newService(NOW);
+    }
+
+    @Test
+    void testTumblingAndSlidingWindows() {
+        analytics.recordUpload(upload(1L, "ana", 1000L, NOW.toEpochMilli()));
+        analytics.recordUpload(upload(2L, "ana", 500L, NOW.toEpochMilli() - 5 * MINUTE));
+        analytics.recordUpload(upload(3L, "marko", 250L, NOW.toEpochMilli() - 2 * HOUR));
+        analytics.recordEngagement(views(1L, 40, NOW.toEpochMilli()));
+        analytics.recordEngagement(views(2L, 10, NOW.toEpochMilli() - 5 * MINUTE));
+        analytics.recordEngagement(event(EngagementEvent.TYPE_LIKE, 2L, NOW.toEpochMilli()));
+
+        // Tekući minut: samo ono što se desilo u 12:30
+        Map<String, Object> lastMinute = analytics.slidingWindow("1m", 10);
+        assertEquals(Map.of("uploads", 1L, "views", 40L, "likes", 1L), lastMinute.get("counts"));
+        assertEquals(1000L, lastMinute.get("bytesUploaded"));
+
+        // Poslednjih 15 minuta: oba sveža uploada, 2h stari ne
+        Map<String, Object> last15 = analytics.slidingWindow("15m", 10);
+        assertEquals(Map.of("uploads", 2L, "views", 50L, "likes", 1L), last15.get("counts"));
+        assertEquals(1500L, last15.get("bytesUploaded"));
+        assertEquals(List.of(Map.of("postId", 1L, "score", 40L), Map.of("postId", 2L, "score", 11L)),
+                last15.get("topPosts"));
+        assertEquals(List.of(Map.of("author", "ana", "uploads", 2L)), last15.get("topAuthors"));
+
+        // Poslednja 24h (satni bucket-i) obuhvata i 2h stari upload
+        Map<String, Object> lastDay = analytics.slidingWindow("24h", 1);
+        assertEquals(1750L, lastDay.get("bytesUploaded"));
+        assertEquals(List.of(Map.of("author", "ana", "uploads", 2L)), lastDay.get("topAuthors"));
+
+        // Tumbling po satu: 12h i 10h, najnoviji prvi
+        List<Map<String, Object>> hours = analytics.tumblingWindows(Granularity.HOUR, 10, 3);
+        assertEquals(2, hours.size());
+        assertEquals("2024-06-01T12:00:00Z", hours.get(0).get("start"));
+        assertEquals("2024-06-01T10:00:00Z", hours.get(1).get("start"));
+        assertEquals(250L, hours.get(1).get("bytesUploaded"));
+    }
+
+    @Test
+    void testStateIsBoundedByRetentionAndTopKCapacity() {
+        // 3 sata staro: van minutne retention (120 min), ali u satnoj i dnevnoj
+        analytics.recordUpload(upload(1L, "ana", 100L, NOW.toEpochMilli() - 3 * HOUR));
+        // 40 dana staro: van svih - ne broji se
+        analytics.recordUpload(upload(2L, "ana", 100L, NOW.toEpochMilli() - 40 * 24 * HOUR));
+
+        assertEquals(1, analytics.getEventsProcessed());
+        assertEquals(1, analytics.getLateEventsDropped());
+        assertTrue(analytics.tumblingWindows(Granularity.MINUTE, 500, 0).isEmpty());
+
+        // 1000 različitih postova u jednom minutu → najviše 200 ključeva, viralni post ostaje prvi
+        for (long postId = 1; postId <= 1000; postId++) {
+            analytics.recordEngagement(views(postId, 1, NOW.toEpochMilli()));
+        }
+        analytics.recordEngagement(views(777L, 5000, NOW.toEpochMilli()));
+
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> top = (List<Map<String, Object>>) analytics.slidingWindow("1m", 1).get("topPosts");
+        assertEquals(777L, top.get(0).get("postId"));
+
+        TopKCounter counter = new TopKCounter(3);
+        List.of("a", "b", "c", "d", "a", "a").forEach(key -> counter.add(key, 1));
+        assertEquals(3, counter.getCounts().size());
+        assertEquals("a", counter.top(1).get(0).getKey());
+
+        assertThrows(IllegalArgumentException.class, () -> analytics.slidingWindow("121m", 10));
+        assertThrows(IllegalArgumentException.class, () -> analytics.slidingWindow("1w", 10));
+    }
+
+    @Test
+    void testSlidingWindowMergesManyFullBuckets() {
+        // 120 punih minutnih bucket-a (po 200 postova) - post 777777 je u svakom, ali nigde prvi
+        for (int minute = 0; minute < 120; minute++) {
+            long ts = NOW.toEpochMilli() - minute * MINUTE;
+            for (long postId = 1; postId <= 199; postId++) {
+                analytics.recordEngagement(views(minute * 1000L + postId, 20, ts));
+            }
+            analytics.recordEngagement(views(777_777L, 15, ts));
+        }
+
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> top = (List<Map<String, Object>>) analytics.slidingWindow("120m", 1).get("topPosts");
+        assertEquals(Map.of("postId", 777_777L, "score", 120 * 15L), top.get(0));
+
+        // Spojeni brojač je kopija - upis posle upita ne menja bucket-e iz kojih je nastao
+        TopKCounter first = new TopKCounter(2);
+        first.add("a", 5);
+        TopKCounter second = new TopKCounter(2);
+        second.add("a", 1);
+        second.add("b", 3);
+        TopKCounter merged = TopKCounter.mergeAll(List.of(first.copy(), second.copy()), 1);
+        assertEquals(Map.of("a", 6L), merged.getCounts());  // Zbir po ključu, pa najveći
+        merged.add("a", 1);
+        assertEquals(Map.of("a", 5L), first.getCounts());
+    }
+
+    @Test
+    void testCheckpointRestoresWindowsAfterRestart() throws Exception {
+        analytics.recordUpload(upload(1L, "ana", 1000L, NOW.toEpochMilli()));
+        analytics.recordEngagement(views(1L, 25, NOW.toEpochMilli() - 10 * MINUTE));
+        analytics.checkpoint();
+
+        assertTrue(Files.exists(checkpointFile));
+        assertFalse(Files.exists(tempDir.resolve("analytics.json.tmp")));
+
+        // "Restart" pet minuta kasnije
+        WindowedAnalyticsService restarted = newService(NOW.plusSeconds(300));
+        restarted.recordEngagement(views(1L, 5, NOW.toEpochMilli() + 300_000));
+
+        Map<String, Object> lastHour = restarted.slidingWindow("1h", 5);
+        assertEquals(Map.of("uploads", 1L, "views", 30L), lastHour.get("counts"));
+        assertEquals(List.of(Map.of("postId", 1L, "score", 30L)), lastHour.get("topPosts"));
+
+        // Oštećen checkpoint ne sprečava start
+        Files.writeString(checkpointFile, "{nije json");
+        assertEquals(Map.of(), newService(NOW).slidingWindow("1h", 5).get("counts"));
+    }
+
+    @Test
+    void testEngagementBatchMessageIsAggregated() {
+        EngagementEventConsumer consumer = new EngagementEventConsumer();
+        ReflectionTestUtils.setField(consumer, "analyticsService", analytics);
+
+        long ts = NOW.toEpochMilli();
+        String batch = "[{\"type\":\"VIEW\",\"postId\":5,\"count\":120,\"timestampMs\":" + ts + "},"
+                + "{\"type\":\"VIEW\",\"postId\":6,\"count\":3,\"timestampMs\":" + ts + "}]";
+        String comments = "[{\"type\":\"COMMENT\",\"postId\":6,\"username\":\"ana\",\"commentId\":9,\"timestampMs\":" + ts + "}]";
+
+        consumer.handleEngagementBatch(List.of(json(batch), json(comments), json("nije json")));
+
+        assertEquals(3, consumer.getMessagesReceived());
+        assertEquals(3, consumer.getEventsReceived());
+        assertEquals(1, consumer.getMalformedMessages());
+        assertEquals(Map.of("views", 123L, "comments", 1L), analytics.slidingWindow("1m", 10).get("counts"));
+    }
+
+    // ============================================
+    // POMOĆNE METODE
+    // ============================================
+
+    private WindowedAnalyticsService newService(Instant now) {
+        WindowedAnalyticsService service = new WindowedAnalyticsService();
+        ReflectionTestUtils.setField(service, "minuteRetention", 120);
+        ReflectionTestUtils.setField(service, "hourRetention", 48);
+        ReflectionTestUtils.setField(service, "dayRetention", 30);
+        ReflectionTestUtils.setField(service, "topKCapacity", 200);
+        ReflectionTestUtils.setField(service, "checkpointEnabled", true);
+        ReflectionTestUtils.setField(service, "checkpointPath", checkpointFile.toString());
+        ReflectionTestUtils.setField(service, "clock", Clock.fixed(now, ZoneOffset.UTC));
+        service.init();
+        return service;
+    }
+
+    private static UploadEvent upload(Long postId, String author, Long fileSize, long timestampMs) {
+        UploadEvent event = new UploadEvent();
+        event.setPostId(postId);
+        event.setAuthor(author);
+        event.setFileSize(fileSize);
+        event.setTimestamp(LocalDateTime.ofInstant(Instant.ofEpochMilli(timestampMs), ZoneId.systemDefault()));
+        return event;
+    }
+
+    private static EngagementEvent views(Long postId, long count, long timestampMs) {
+        EngagementEvent event = event(EngagementEvent.TYPE_VIEW, postId, timestampMs);
+        event.setCount(count);
+        return event;
+    }
+
+    private static EngagementEvent event(String type, Long postId, long timestampMs) {
+        return new EngagementEvent(type, postId, timestampMs);
+    }
+
+    private static Message json(String body) {
+        MessageProperties props = new MessageProperties();
+        props.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        return new Message(body.getBytes(StandardCharsets.UTF_8), props);
+    }
+}
@@ -23,8 +23,8 @@ export interface WatchParty {
   currentPost: Post | null;
   active: boolean;
   createdAt: string;
-  members: string[];
-  memberCount?: number;
+  members?: string[];  // /active vraća samo memberCount
+  memberCount: number;
 }
 
 export interface CreateRoomRequest {
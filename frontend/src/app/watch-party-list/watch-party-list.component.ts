@@ -41,6 +41,12 @@ export class WatchPartyListComponent implements OnInit {
   
   currentUsername: string = '';
 
+  /**
+   * ID-jevi soba u kojima je korisnik član (sa /joined).
+   * /active više ne šalje listu članova, pa se isMember računa odavde.
+   */
+  joinedRoomIds: Set<number> = new Set();
+
   // ============================================
   // CONSTRUCTOR
   // ============================================
@@ -74,6 +80,8 @@ export class WatchPartyListComponent implements OnInit {
     this.loading = true;
     this.errorMessage = '';
 
+    this.loadJoinedRoomIds();
+
     this.watchPartyService.getActiveRooms().subscribe(
       (rooms: WatchParty[]) => {
         console.log('✅ Sobe učitane:', rooms);
@@ -129,6 +137,7 @@ export class WatchPartyListComponent implements OnInit {
         console.log('✅ Pridružene sobe učitane:', rooms);
         
         this.rooms = rooms;
+        this.joinedRoomIds = new Set(rooms.map(room => room.id));
         this.loading = false;
       },
       (error) => {
@@ -140,6 +149,20 @@ export class WatchPartyListComponent implements OnInit {
     );
   }
 
+  /**
+   * Učitaj samo ID-jeve pridruženih soba (za isMember na tabu "Sve sobe").
+   */
+  loadJoinedRoomIds(): void {
+    this.watchPartyService.getJoinedRooms().subscribe(
+      (rooms: WatchParty[]) => {
+        this.joinedRoomIds = new Set(rooms.map(room => room.id));
+      },
+      (error) => {
+        console.error('❌ Greška pri učitavanju pridruženih soba:', error);
+      }
+    );
+  }
+
   // ============================================
   // TAB NAVIGACIJA
   // ============================================
@@ -307,7 +330,8 @@ export class WatchPartyListComponent implements OnInit {
    * 
    * REŠENJE: Proveri sve kombinacije:
    * 1. Da li je kreator (kreator je automatski član)
-   * 2. Da li je u members listi (po currentUsername)
+   * 2. Da li je soba među pridruženim (/joined - backend razrešava email/username)
+   * 3. Da li je u members listi (ako je soba učitana sa punim DTO-om)
    * 
    * @param party - WatchParty soba
    * @returns true ako je korisnik član
@@ -318,9 +342,14 @@ export class WatchPartyListComponent implements OnInit {
       return true;
     }
     
-    // DRUGO: Proveri da li je u members listi
+    // DRUGO: Soba sa /joined liste
+    if (this.joinedRoomIds.has(party.id)) {
+      return true;
+    }
+
+    // TREĆE: Proveri da li je u members listi
     // members može sadržati username ili email, a currentUsername može biti bilo šta
-    const isMemberInList = party.members.some(member => 
+    const isMemberInList = (party.members || []).some(member => 
       member === this.currentUsername || 
       member.toLowerCase() === this.currentUsername.toLowerCase()
     );